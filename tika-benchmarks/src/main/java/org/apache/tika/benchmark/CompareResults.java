@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares two JMH JSON result files, e.g. from the previous and the current
+ * fork release, and exits with status <code>1</code> if any benchmark got slower
+ * by more than the threshold.
+ * <p>
+ * Usage: <code>CompareResults baseline.json current.json [threshold]</code>, where
+ * the threshold is a fraction and defaults to <code>0.1</code>.
+ */
+public class CompareResults {
+
+    private static final double DEFAULT_THRESHOLD = 0.1;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareResults baseline.json current.json [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        Map<String, Score> baseline = load(new File(args[0]));
+        Map<String, Score> current = load(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> e : current.entrySet()) {
+            Score before = baseline.get(e.getKey());
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "NEW        %s %.3f %s%n", e.getKey(),
+                        e.getValue().score, e.getValue().unit);
+                continue;
+            }
+            double change = e.getValue().getChange(before);
+            String status = "";
+            if (change < -threshold) {
+                status = "REGRESSION";
+                regressions++;
+            } else if (change > threshold) {
+                status = "IMPROVED";
+            }
+            System.out.printf(Locale.ROOT, "%-10s %s %.3f -> %.3f %s (%+.1f%%)%n", status,
+                    e.getKey(), before.score, e.getValue().score, e.getValue().unit,
+                    change * 100);
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " +
+                    (threshold * 100) + "%");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> load(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText());
+            JsonNode params = result.get("params");
+            if (params != null) {
+                //sort so that the key doesn't depend on the order in the file
+                Map<String, String> sorted = new TreeMap<>();
+                Iterator<Map.Entry<String, JsonNode>> it = params.fields();
+                while (it.hasNext()) {
+                    Map.Entry<String, JsonNode> p = it.next();
+                    sorted.put(p.getKey(), p.getValue().asText());
+                }
+                key.append(sorted);
+            }
+            JsonNode metric = result.get("primaryMetric");
+            scores.put(key.toString(), new Score(result.get("mode").asText(),
+                    metric.get("score").asDouble(), metric.get("scoreUnit").asText()));
+        }
+        return scores;
+    }
+
+    private static class Score {
+        private final String mode;
+        private final double score;
+        private final String unit;
+
+        Score(String mode, double score, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+        }
+
+        /**
+         * @return the relative change since <code>before</code>; negative means slower
+         */
+        double getChange(Score before) {
+            if (before.score == 0) {
+                return 0;
+            }
+            double change = (score - before.score) / before.score;
+            //for everything but throughput, a lower score is better
+            return "thrpt".equals(mode) ? change : -change;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.ToXMLContentHandler;
+
+/**
+ * Serialization cost of the content handlers, isolated from parsing: the SAX
+ * events of a parse are recorded once and replayed into a new handler on
+ * each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentHandlerBenchmark {
+
+    @Param({"testPDF.pdf", "testWORD.docx", "testEXCEL.xlsx", "testHTML.html"})
+    public String fileName;
+
+    private SaxRecording recording;
+
+    @Setup
+    public void setUp() throws IOException, SAXException, TikaException {
+        recording = new SaxRecording();
+        try (InputStream is = TikaInputStream.get(TestDocuments.read(fileName))) {
+            new AutoDetectParser().parse(is, recording, new Metadata(), new ParseContext());
+        }
+    }
+
+    @Benchmark
+    public String toXMLContentHandler() throws SAXException {
+        ToXMLContentHandler handler = new ToXMLContentHandler();
+        recording.replay(handler);
+        return handler.toString();
+    }
+
+    @Benchmark
+    public String bodyContentHandler() throws SAXException {
+        BodyContentHandler handler = new BodyContentHandler(-1);
+        recording.replay(handler);
+        return handler.toString();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.tika.detect.DefaultDetector;
+import org.apache.tika.detect.Detector;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MimeTypes;
+
+/**
+ * Type detection: magic and name based detection by {@link MimeTypes} alone, and
+ * the full {@link DefaultDetector} chain, which includes the container detectors
+ * for OLE2 and zip based formats.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetectionBenchmark {
+
+    @Param({"testPDF.pdf", "testWORD.docx", "testEXCEL.xlsx", "testPPT.pptx",
+            "testHTML.html", "test-documents.zip", "testMSG.msg"})
+    public String fileName;
+
+    private byte[] bytes;
+    private MimeTypes mimeTypes;
+    private Detector defaultDetector;
+
+    @Setup
+    public void setUp() throws IOException {
+        bytes = TestDocuments.read(fileName);
+        mimeTypes = MimeTypes.getDefaultMimeTypes();
+        defaultDetector = new DefaultDetector();
+    }
+
+    @Benchmark
+    public MediaType mimeTypes() throws IOException {
+        return detect(mimeTypes);
+    }
+
+    @Benchmark
+    public MediaType defaultDetector() throws IOException {
+        return detect(defaultDetector);
+    }
+
+    private MediaType detect(Detector detector) throws IOException {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, fileName);
+        try (InputStream is = TikaInputStream.get(bytes)) {
+            return detector.detect(is, metadata);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.txt.CharsetDetector;
+import org.apache.tika.parser.txt.CharsetMatch;
+import org.apache.tika.parser.txt.Icu4jEncodingDetector;
+
+/**
+ * Charset detection with the ICU4J derived {@link CharsetDetector}, called
+ * directly and through {@link Icu4jEncodingDetector}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncodingDetectionBenchmark {
+
+    @Param({"multi-language.txt", "russian.cp866.txt", "testTXT_win-1252.txt", "resume.html"})
+    public String fileName;
+
+    private byte[] bytes;
+    private Icu4jEncodingDetector encodingDetector;
+
+    @Setup
+    public void setUp() throws IOException {
+        bytes = TestDocuments.read(fileName);
+        encodingDetector = new Icu4jEncodingDetector();
+    }
+
+    @Benchmark
+    public CharsetMatch charsetDetector() {
+        CharsetDetector detector = new CharsetDetector();
+        detector.setText(bytes);
+        return detector.detect();
+    }
+
+    @Benchmark
+    public Charset icu4jEncodingDetector() throws IOException {
+        try (InputStream is = TikaInputStream.get(bytes)) {
+            return encodingDetector.detect(is, new Metadata());
+        }
+    }
+}
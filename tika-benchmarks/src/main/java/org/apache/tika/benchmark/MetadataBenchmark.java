@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.Office;
+import org.apache.tika.metadata.TikaCoreProperties;
+
+/**
+ * Filling and reading a {@link Metadata} the way a parser and the
+ * RecursiveParserWrapper do, and parsing dates from several threads at once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetadataBenchmark {
+
+    private Metadata filled;
+
+    @Setup
+    public void setUp() {
+        filled = fill();
+    }
+
+    @Benchmark
+    public Metadata fillMetadata() {
+        return fill();
+    }
+
+    @Benchmark
+    public int readMetadata() {
+        int n = 0;
+        for (String name : filled.names()) {
+            n += filled.getValues(name).length;
+        }
+        return n + filled.get(TikaCoreProperties.TITLE).length();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Date getDate() {
+        return filled.getDate(TikaCoreProperties.CREATED);
+    }
+
+    private static Metadata fill() {
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "application/pdf");
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, "testPDF.pdf");
+        metadata.set(TikaCoreProperties.TITLE, "Apache Tika - Apache Tika");
+        metadata.set(TikaCoreProperties.CREATOR, "Bertrand Delacrétaz");
+        metadata.set(TikaCoreProperties.CREATED, "2007-09-15T09:02:31Z");
+        metadata.set(TikaCoreProperties.MODIFIED, "2007-09-15T09:02:31Z");
+        metadata.set(Office.PAGE_COUNT, 1);
+        metadata.set("pdf:PDFVersion", "1.4");
+        metadata.set("pdf:encrypted", "false");
+        metadata.set(TikaCoreProperties.EMBEDDED_RESOURCE_PATH, "/testPDF.pdf");
+        for (int i = 0; i < 8; i++) {
+            metadata.add(TikaCoreProperties.SUBJECT, "keyword" + i);
+            metadata.add("pdf:charsPerPage", Integer.toString(1000 + i));
+        }
+        return metadata;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.tika.exception.TikaConfigException;
+import org.apache.tika.pipes.FetchEmitTuple;
+import org.apache.tika.pipes.PipesClient;
+import org.apache.tika.pipes.PipesConfig;
+import org.apache.tika.pipes.PipesResult;
+import org.apache.tika.pipes.emitter.EmitKey;
+import org.apache.tika.pipes.fetcher.FetchKey;
+import org.apache.tika.utils.ProcessUtils;
+
+/**
+ * Round trip through a {@link PipesClient}: the tuple is sent to the forked
+ * {@link org.apache.tika.pipes.PipesServer}, which fetches and parses the file
+ * and sends the metadata list back to the client. The forked process is started
+ * once per trial, so this measures parsing plus the protocol overhead, not
+ * process startup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipesClientBenchmark {
+
+    private static final String FETCHER_NAME = "fs";
+
+    @Param({"testPDF.pdf", "testWORD.docx", "test-documents.zip"})
+    public String fileName;
+
+    @Param({"java", "binary"})
+    public String serializationFormat;
+
+    private Path dir;
+    private PipesClient pipesClient;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException, TikaConfigException {
+        dir = Files.createTempDirectory("tika-benchmarks-");
+        TestDocuments.copyTo(dir, fileName);
+        Path tikaConfig = dir.resolve("tika-config.xml");
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>" + "<properties>" +
+                "  <fetchers>" +
+                "    <fetcher class=\"org.apache.tika.pipes.fetcher.fs.FileSystemFetcher\">" +
+                "      <name>" + FETCHER_NAME + "</name>" +
+                "      <basePath>" +
+                ProcessUtils.escapeCommandLine(dir.toAbsolutePath().toString()) +
+                "</basePath>" +
+                "    </fetcher>" +
+                "  </fetchers>" +
+                "  <pipes>" +
+                "    <forkedJvmArgs><arg>-Xmx512m</arg></forkedJvmArgs>" +
+                //always send the results back to the client rather than emitting them
+                "    <maxForEmitBatchBytes>-1</maxForEmitBatchBytes>" +
+                "    <maxFilesProcessedPerProcess>1000000</maxFilesProcessedPerProcess>" +
+                "    <serializationFormat>" + serializationFormat + "</serializationFormat>" +
+                "  </pipes>" +
+                "</properties>";
+        Files.write(tikaConfig, xml.getBytes(StandardCharsets.UTF_8));
+        pipesClient = new PipesClient(PipesConfig.load(tikaConfig));
+        pipesClient.start();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pipesClient.close();
+        FileUtils.deleteDirectory(dir.toFile());
+    }
+
+    @Benchmark
+    public PipesResult roundTrip() throws IOException, InterruptedException {
+        FetchEmitTuple t = new FetchEmitTuple(fileName, new FetchKey(FETCHER_NAME, fileName),
+                new EmitKey("none", ""));
+        PipesResult result = pipesClient.process(t);
+        if (result.getEmitData() == null) {
+            throw new IllegalStateException("unexpected result: " + result.getStatus());
+        }
+        return result;
+    }
+}
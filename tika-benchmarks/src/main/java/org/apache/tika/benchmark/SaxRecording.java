@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Records the SAX events of a parse so that they can be replayed into a
+ * content handler without the cost of parsing.
+ */
+class SaxRecording extends DefaultHandler {
+
+    private interface Event {
+        void replay(ContentHandler handler) throws SAXException;
+    }
+
+    private final List<Event> events = new ArrayList<>();
+
+    void replay(ContentHandler handler) throws SAXException {
+        for (Event event : events) {
+            event.replay(handler);
+        }
+    }
+
+    @Override
+    public void startDocument() {
+        events.add(ContentHandler::startDocument);
+    }
+
+    @Override
+    public void endDocument() {
+        events.add(ContentHandler::endDocument);
+    }
+
+    @Override
+    public void startPrefixMapping(String prefix, String uri) {
+        events.add(h -> h.startPrefixMapping(prefix, uri));
+    }
+
+    @Override
+    public void endPrefixMapping(String prefix) {
+        events.add(h -> h.endPrefixMapping(prefix));
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) {
+        Attributes copy = new AttributesImpl(atts);
+        events.add(h -> h.startElement(uri, localName, qName, copy));
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        events.add(h -> h.endElement(uri, localName, qName));
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        char[] copy = Arrays.copyOfRange(ch, start, start + length);
+        events.add(h -> h.characters(copy, 0, copy.length));
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        char[] copy = Arrays.copyOfRange(ch, start, start + length);
+        events.add(h -> h.ignorableWhitespace(copy, 0, copy.length));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.config.TikaStartupCache;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+
+/**
+ * Startup of a new process, as for each forked tika-server or pipes process:
+ * the time for a new JVM to load the default {@link TikaConfig} and parse a
+ * short text. <code>none</code> starts without the {@link TikaStartupCache},
+ * <code>cache</code> with its service index and media types snapshot, and
+ * <code>archive</code> also with its class data sharing archive, which needs
+ * Java 13 or later.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    @Param({"none", "cache", "archive"})
+    public String startupCache;
+
+    private Path dir;
+    private List<String> command;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        dir = Files.createTempDirectory("tika-benchmarks-");
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = System.getProperty("java.class.path");
+        command = new ArrayList<>();
+        command.add(java);
+        if (!startupCache.equals("none")) {
+            run(java, "-cp", classPath, TikaStartupCache.class.getName(), dir.toString());
+            command.add("-D" + TikaStartupCache.STARTUP_CACHE_SYS_PROP + "=" + dir);
+        }
+        if (startupCache.equals("archive")) {
+            Path archive = dir.resolve("tika.jsa");
+            if (!Files.isRegularFile(archive)) {
+                throw new IllegalStateException("No class data sharing archive; " +
+                        "it needs Java 13 or later and a class path of jars");
+            }
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.add("-cp");
+        command.add(classPath);
+        command.add(StartupBenchmark.class.getName());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir.toFile());
+    }
+
+    @Benchmark
+    public int startup() throws IOException, InterruptedException {
+        return run(command.toArray(new String[0]));
+    }
+
+    private static int run(String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        int exitValue = process.waitFor();
+        if (exitValue != 0) {
+            throw new IllegalStateException("exit value " + exitValue + ": " + command[0]);
+        }
+        return exitValue;
+    }
+
+    /**
+     * What the started process does
+     */
+    public static void main(String[] args) throws Exception {
+        AutoDetectParser parser = new AutoDetectParser(TikaConfig.getDefaultConfig());
+        try (InputStream stream = TikaInputStream.get("Tika startup".getBytes(UTF_8))) {
+            parser.parse(stream, new BodyContentHandler(-1), new Metadata(), new ParseContext());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Loads the sample of the standard test corpus that the build copies into
+ * <code>/test-documents</code> on the classpath.
+ */
+public final class TestDocuments {
+
+    private TestDocuments() {
+    }
+
+    public static byte[] read(String name) throws IOException {
+        try (InputStream is = TestDocuments.class.getResourceAsStream("/test-documents/" + name)) {
+            if (is == null) {
+                throw new FileNotFoundException("test-documents/" + name);
+            }
+            return IOUtils.toByteArray(is);
+        }
+    }
+
+    public static Path copyTo(Path dir, String name) throws IOException {
+        Path target = dir.resolve(name);
+        Files.write(target, read(name));
+        return target;
+    }
+}
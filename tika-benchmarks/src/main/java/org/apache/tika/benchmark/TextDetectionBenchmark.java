@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.tika.detect.TextDetector;
+import org.apache.tika.detect.TextStatistics;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.mime.MediaType;
+
+/**
+ * Plain text detection: {@link TextDetector}, which counts byte classes eight
+ * bytes at a time, and the byte histogram of {@link TextStatistics} over the
+ * same number of bytes, which it used before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextDetectionBenchmark {
+
+    @Param({"multi-language.txt", "testTXT_win-1252.txt", "resume.html", "testPDF.pdf"})
+    public String fileName;
+
+    @Param({"512", "65536"})
+    public int bytesToTest;
+
+    private byte[] bytes;
+    private TextDetector textDetector;
+
+    @Setup
+    public void setUp() throws IOException {
+        bytes = TestDocuments.read(fileName);
+        textDetector = new TextDetector(bytesToTest);
+    }
+
+    @Benchmark
+    public MediaType textDetector() throws IOException {
+        try (InputStream is = TikaInputStream.get(bytes)) {
+            return textDetector.detect(is, null);
+        }
+    }
+
+    @Benchmark
+    public boolean textStatistics() {
+        TextStatistics stats = new TextStatistics();
+        stats.addData(bytes, 0, Math.min(bytesToTest, bytes.length));
+        return stats.isMostlyAscii() || stats.looksLikeUTF8();
+    }
+}
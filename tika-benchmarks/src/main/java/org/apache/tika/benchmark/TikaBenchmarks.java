@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs the benchmarks with JMH's command line, but writes the results as JSON
+ * to <code>tika-benchmarks.json</code> unless <code>-rf</code> or
+ * <code>-rff</code> say otherwise. Compare the results of two runs with
+ * {@link CompareResults}.
+ */
+public class TikaBenchmarks {
+
+    static final String DEFAULT_RESULT_FILE = "tika-benchmarks.json";
+
+    public static void main(String[] args) throws IOException {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        if (!argList.contains("-rf")) {
+            argList.add(0, "json");
+            argList.add(0, "-rf");
+        }
+        if (!argList.contains("-rff")) {
+            argList.add(0, DEFAULT_RESULT_FILE);
+            argList.add(0, "-rff");
+        }
+        Main.main(argList.toArray(new String[0]));
+    }
+}
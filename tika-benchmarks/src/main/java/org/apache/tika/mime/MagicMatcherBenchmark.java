@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.tika.benchmark.TestDocuments;
+
+/**
+ * Magic matching of a header against every magic in the default registry:
+ * evaluating each magic in priority order, as {@link MimeTypes} used to, and the
+ * {@link MagicMatcher}, which only evaluates the magics that its index leaves as
+ * candidates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MagicMatcherBenchmark {
+
+    @Param({"testPDF.pdf", "testWORD.docx", "testPPT.pptx", "testHTML.html", "testMSG.msg",
+            "multi-language.txt"})
+    public String fileName;
+
+    private byte[] header;
+    private List<Magic> magics;
+    private MagicMatcher matcher;
+
+    @Setup
+    public void setUp() throws IOException, MimeTypeException {
+        MimeTypes mimeTypes = MimeTypes.getDefaultMimeTypes();
+        byte[] bytes = TestDocuments.read(fileName);
+        header = Arrays.copyOf(bytes, Math.min(bytes.length, mimeTypes.getMinLength()));
+        magics = new ArrayList<>();
+        for (MediaType type : mimeTypes.getMediaTypeRegistry().getTypes()) {
+            magics.addAll(mimeTypes.forName(type.toString()).getMagics());
+        }
+        Collections.sort(magics);
+        matcher = new MagicMatcher(magics);
+    }
+
+    @Benchmark
+    public List<MimeType> linear() {
+        List<MimeType> result = new ArrayList<>(1);
+        int currentPriority = -1;
+        for (Magic magic : magics) {
+            if (currentPriority > 0 && currentPriority > magic.getPriority()) {
+                break;
+            }
+            if (magic.eval(header)) {
+                result.add(magic.getType());
+                currentPriority = magic.getPriority();
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<MimeType> magicMatcher() {
+        return matcher.match(header);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.sax.BodyContentHandler;
+
+/**
+ * Finding the parser for a document in the default parser: by building the map of
+ * {@link CompositeParser#getParsers(ParseContext)} for every document, as
+ * {@link CompositeParser} used to, and through its index. The archive benchmark
+ * parses a zip with many small entries, where this lookup is done for each entry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompositeParserBenchmark {
+
+    private static final String[] CONTENT_TYPES = {"application/pdf", "text/plain; charset=UTF-8",
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "image/jpeg", "application/x-unknown-type"};
+
+    @Param({"10000"})
+    public int entries;
+
+    private AutoDetectParser parser;
+    private CompositeParser defaultParser;
+    private Metadata[] metadata;
+    private byte[] archive;
+
+    @Setup
+    public void setUp() throws IOException {
+        parser = new AutoDetectParser();
+        defaultParser = (CompositeParser) parser.getAllComponentParsers().get(0);
+        metadata = new Metadata[CONTENT_TYPES.length];
+        for (int i = 0; i < CONTENT_TYPES.length; i++) {
+            metadata[i] = new Metadata();
+            metadata[i].set(Metadata.CONTENT_TYPE, CONTENT_TYPES[i]);
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bos)) {
+            for (int i = 0; i < entries; i++) {
+                zip.putNextEntry(new ZipEntry("entry-" + i + ".txt"));
+                zip.write(("entry " + i).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        archive = bos.toByteArray();
+    }
+
+    @Benchmark
+    public int getParsersMap() {
+        ParseContext context = new ParseContext();
+        MediaTypeRegistry registry = defaultParser.getMediaTypeRegistry();
+        int found = 0;
+        for (Metadata m : metadata) {
+            Map<MediaType, Parser> map = defaultParser.getParsers(context);
+            MediaType type = registry.normalize(MediaType.parse(m.get(Metadata.CONTENT_TYPE)));
+            while (type != null && !map.containsKey(type)) {
+                type = registry.getSupertype(type);
+            }
+            found += type == null ? 0 : 1;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int index() {
+        ParseContext context = new ParseContext();
+        int found = 0;
+        for (Metadata m : metadata) {
+            found += defaultParser.getParser(m, context) != defaultParser.getFallback() ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String archive() throws IOException, SAXException, TikaException {
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
+        BodyContentHandler handler = new BodyContentHandler(-1);
+        try (InputStream is = TikaInputStream.get(archive)) {
+            parser.parse(is, handler, new Metadata(), context);
+        }
+        return handler.toString();
+    }
+}
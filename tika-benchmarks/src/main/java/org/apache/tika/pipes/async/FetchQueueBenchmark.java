@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.tika.pipes.FetchEmitTuple;
+import org.apache.tika.pipes.emitter.EmitKey;
+import org.apache.tika.pipes.fetcher.FetchKey;
+
+/**
+ * Compares the {@link AsyncProcessor}'s fetch emit queue, a {@link BoundedBatchQueue},
+ * with the <code>ArrayBlockingQueue</code> and the synchronized, sleeping batch offer
+ * that it replaced. Four producers offer batches while four workers poll.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class FetchQueueBenchmark {
+
+    private static final int CAPACITY = 1000;
+    private static final long TIMEOUT_MILLIS = 10;
+
+    @Param({"1", "10", "100"})
+    public int batchSize;
+
+    private final Object lock = new Object();
+    private ArrayBlockingQueue<FetchEmitTuple> arrayBlockingQueue;
+    private BoundedBatchQueue<FetchEmitTuple> boundedBatchQueue;
+    private List<FetchEmitTuple> batch;
+
+    @Setup
+    public void setUp() {
+        arrayBlockingQueue = new ArrayBlockingQueue<>(CAPACITY);
+        boundedBatchQueue = new BoundedBatchQueue<>(CAPACITY);
+        batch = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(new FetchEmitTuple("id-" + i, new FetchKey("fetcher", "key-" + i),
+                    new EmitKey("emitter", "key-" + i)));
+        }
+    }
+
+    @Benchmark
+    @Group("arrayBlockingQueue")
+    @GroupThreads(4)
+    public boolean offerArrayBlockingQueue() throws InterruptedException {
+        //this is how AsyncProcessor used to offer a list of tuples
+        synchronized (lock) {
+            long start = System.currentTimeMillis();
+            long elapsed = 0;
+            while (elapsed < TIMEOUT_MILLIS) {
+                if (arrayBlockingQueue.remainingCapacity() > batch.size()) {
+                    try {
+                        arrayBlockingQueue.addAll(batch);
+                        return true;
+                    } catch (IllegalStateException e) {
+                        //couldn't take the full list
+                    }
+                }
+                Thread.sleep(100);
+                elapsed = System.currentTimeMillis() - start;
+            }
+            return false;
+        }
+    }
+
+    @Benchmark
+    @Group("arrayBlockingQueue")
+    @GroupThreads(4)
+    public void pollArrayBlockingQueue(Blackhole blackhole) throws InterruptedException {
+        blackhole.consume(arrayBlockingQueue.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Benchmark
+    @Group("boundedBatchQueue")
+    @GroupThreads(4)
+    public boolean offerBoundedBatchQueue() throws InterruptedException {
+        return boundedBatchQueue.offerAll(batch, TIMEOUT_MILLIS);
+    }
+
+    @Benchmark
+    @Group("boundedBatchQueue")
+    @GroupThreads(4)
+    public void pollBoundedBatchQueue(Blackhole blackhole) throws InterruptedException {
+        blackhole.consume(boundedBatchQueue.poll(TIMEOUT_MILLIS));
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The provider class names of every <code>META-INF/services</code> file on the
+ * class path, written by {@link TikaStartupCache} and read in one go, so that
+ * the {@link ServiceLoader} of the system class loader doesn't have to look
+ * up and read the service files of each service interface in every jar.
+ * <p>
+ * The index records the length and modification time of each class path
+ * entry, and is ignored if the class path has changed since it was written.
+ * It can't see changes within a directory on the class path, so it is meant
+ * for a packaged deployment.
+ */
+final class ServiceIndex {
+
+    static final String FILE_NAME = "services.idx";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServiceIndex.class);
+
+    private static final String SERVICES = "META-INF/services/";
+
+    //not a valid class name, so it can't be a service interface
+    private static final String CLASS_PATH_KEY = ".classpath";
+
+    private static volatile ServiceIndex SYSTEM_INDEX = null;
+    private static volatile boolean LOADED = false;
+
+    private final Map<String, List<String>> providers;
+
+    private ServiceIndex(Map<String, List<String>> providers) {
+        this.providers = providers;
+    }
+
+    /**
+     * @return the index of the startup cache directory, or <code>null</code> if
+     * there isn't one, it is out of date, or the loader isn't the system class loader
+     */
+    static ServiceIndex get(ClassLoader loader) {
+        if (loader != ClassLoader.getSystemClassLoader()) {
+            return null;
+        }
+        if (!LOADED) {
+            synchronized (ServiceIndex.class) {
+                if (!LOADED) {
+                    SYSTEM_INDEX = load(TikaStartupCache.getDirectory());
+                    LOADED = true;
+                }
+            }
+        }
+        return SYSTEM_INDEX;
+    }
+
+    /**
+     * @return the providers of the service, in class path order, or <code>null</code>
+     * if the index has no service file for it
+     */
+    List<String> getProviders(String serviceName) {
+        return providers.get(serviceName);
+    }
+
+    static ServiceIndex load(Path dir) {
+        if (dir == null) {
+            return null;
+        }
+        Path file = dir.resolve(FILE_NAME);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try {
+            properties.load(new StringReader(new String(Files.readAllBytes(file), UTF_8)));
+        } catch (IOException e) {
+            LOG.warn("Couldn't read the service index " + file, e);
+            return null;
+        }
+        if (!getClassPathFingerprint().equals(properties.getProperty(CLASS_PATH_KEY))) {
+            LOG.warn("Ignoring the service index {}, which was written for another class path",
+                    file);
+            return null;
+        }
+        Map<String, List<String>> providers = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (!name.equals(CLASS_PATH_KEY)) {
+                String value = properties.getProperty(name);
+                providers.put(name, value.isEmpty() ? Collections.emptyList() :
+                        Collections.unmodifiableList(Arrays.asList(value.split(","))));
+            }
+        }
+        return new ServiceIndex(providers);
+    }
+
+    /**
+     * Indexes the service files of the system class loader.
+     */
+    static void write(Path file) throws IOException {
+        ClassLoader loader = ClassLoader.getSystemClassLoader();
+        Properties properties = new Properties();
+        properties.setProperty(CLASS_PATH_KEY, getClassPathFingerprint());
+        for (String serviceName : findServiceNames()) {
+            List<String> names = new ArrayList<>();
+            Enumeration<URL> resources = loader.getResources(SERVICES + serviceName);
+            for (URL resource : Collections.list(resources)) {
+                ServiceLoader.collectServiceClassNames(resource, names);
+            }
+            properties.setProperty(serviceName, String.join(",", names));
+        }
+        //written next to the file and then moved, as forked processes may be reading it
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), FILE_NAME, ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                properties.store(os, "Tika service index");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return the names of the service files in the jars and directories of the class path
+     */
+    private static Set<String> findServiceNames() throws IOException {
+        Set<String> names = new TreeSet<>();
+        for (File entry : getClassPath()) {
+            if (entry.isDirectory()) {
+                File[] files = new File(entry, SERVICES).listFiles();
+                if (files != null) {
+                    for (File f : files) {
+                        if (f.isFile()) {
+                            names.add(f.getName());
+                        }
+                    }
+                }
+            } else if (entry.isFile()) {
+                try (JarFile jar = new JarFile(entry)) {
+                    for (JarEntry jarEntry : Collections.list(jar.entries())) {
+                        String name = jarEntry.getName();
+                        if (name.startsWith(SERVICES) && !jarEntry.isDirectory() &&
+                                name.indexOf('/', SERVICES.length()) < 0) {
+                            names.add(name.substring(SERVICES.length()));
+                        }
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    private static List<File> getClassPath() {
+        List<File> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path", "")
+                .split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                entries.add(new File(entry));
+            }
+        }
+        return entries;
+    }
+
+    static String getClassPathFingerprint() {
+        CRC32 crc = new CRC32();
+        StringBuilder sb = new StringBuilder();
+        for (File entry : getClassPath()) {
+            sb.setLength(0);
+            sb.append(entry.getAbsolutePath()).append('|').append(entry.length()).append('|')
+                    .append(entry.lastModified()).append('\n');
+            crc.update(sb.toString().getBytes(UTF_8));
+        }
+        return Long.toHexString(crc.getValue());
+    }
+}
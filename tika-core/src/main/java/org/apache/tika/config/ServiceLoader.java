@@ -297,7 +297,8 @@ public class ServiceLoader {
      * Returns the defined static service providers of the given type, without
      * attempting to load them.
      * The providers are loaded using the service provider mechanism using
-     * the configured class loader (if any).
+     * the configured class loader (if any), or taken from the service index
+     * of the {@link TikaStartupCache}, if there is one.
      *
      * @param iface service provider interface
      * @return static list of uninitialised service providers
@@ -308,6 +309,12 @@ public class ServiceLoader {
 
         if (loader != null) {
             String serviceName = iface.getName();
+            ServiceIndex index = ServiceIndex.get(loader);
+            List<String> indexed = index == null ? null : index.getProviders(serviceName);
+            if (indexed != null) {
+                names.addAll(indexed);
+                return names;
+            }
             Enumeration<URL> resources = findServiceResources("META-INF/services/" + serviceName);
             for (URL resource : Collections.list(resources)) {
                 try {
@@ -375,7 +382,7 @@ public class ServiceLoader {
         return providers;
     }
 
-    private void collectServiceClassNames(URL resource, Collection<String> names)
+    static void collectServiceClassNames(URL resource, Collection<String> names)
             throws IOException {
         try (InputStream stream = resource.openStream();
                 BufferedReader reader = new BufferedReader(new InputStreamReader(stream, UTF_8))) {
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.SAXException;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MimeTypeException;
+import org.apache.tika.mime.MimeTypesSnapshot;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+
+/**
+ * Writes what a new process would otherwise work out again on every start:
+ * an index of the service files on the class path, a snapshot of the media
+ * type definitions and, on Java 13 or later, a class data sharing (AppCDS)
+ * archive of the classes loaded to initialize Tika and parse a few small
+ * documents.
+ * <p>
+ * Run it with the class path of the forked tika-server or pipes processes,
+ * and the same java:
+ * <pre>
+ * java -cp &lt;class path&gt; org.apache.tika.config.TikaStartupCache &lt;dir&gt; [tika-config.xml]
+ * </pre>
+ * and then add <code>-Dtika.startup.cache=&lt;dir&gt;</code> and
+ * <code>-XX:SharedArchiveFile=&lt;dir&gt;/tika.jsa</code> to the
+ * <code>forkedJvmArgs</code>. Each part is only used while the class path and
+ * definitions it was made from are unchanged; run it again after an upgrade.
+ *
+ * @since Apache Tika 2.7.0
+ */
+public final class TikaStartupCache {
+
+    /**
+     * System property with the directory of the startup cache
+     */
+    public static final String STARTUP_CACHE_SYS_PROP = "tika.startup.cache";
+
+    static final String ARCHIVE_FILE_NAME = "tika.jsa";
+
+    private static final String TRAIN = "--train";
+
+    private static final String[] TRAINING_DOCUMENTS = {"Tika startup",
+            "<html><head><title>Tika</title></head><body><p>startup</p></body></html>",
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?><tika>startup</tika>"};
+
+    private TikaStartupCache() {
+    }
+
+    /**
+     * @return the directory set by {@link #STARTUP_CACHE_SYS_PROP}, or <code>null</code>
+     */
+    public static Path getDirectory() {
+        String dir = System.getProperty(STARTUP_CACHE_SYS_PROP);
+        if (dir == null || dir.trim().isEmpty()) {
+            return null;
+        }
+        return Paths.get(dir.trim());
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(TRAIN)) {
+            train(args.length > 1 ? Paths.get(args[1]) : null);
+            return;
+        }
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: java -cp <class path> " + TikaStartupCache.class.getName() +
+                    " <dir> [tika-config.xml]");
+            System.exit(1);
+        }
+        Path dir = Paths.get(args[0]).toAbsolutePath();
+        Path tikaConfig = args.length > 1 ? Paths.get(args[1]).toAbsolutePath() : null;
+        write(dir);
+        System.out.println("Wrote the service index and media types snapshot to " + dir);
+
+        List<String> jvmArgs = new ArrayList<>();
+        jvmArgs.add("-D" + STARTUP_CACHE_SYS_PROP + "=" + dir);
+        if (getJavaVersion() < 13) {
+            System.out.println("Skipped the class data sharing archive, which needs Java 13 " +
+                    "or later");
+        } else if (hasDirectories()) {
+            System.out.println("Skipped the class data sharing archive, which needs a class " +
+                    "path of jars only");
+        } else {
+            Path archive = dir.resolve(ARCHIVE_FILE_NAME);
+            int exitValue = writeArchive(dir, archive, tikaConfig);
+            if (exitValue != 0 || !Files.isRegularFile(archive)) {
+                throw new IOException("Couldn't write the class data sharing archive; " +
+                        "the training process exited with " + exitValue);
+            }
+            System.out.println("Wrote the class data sharing archive " + archive);
+            jvmArgs.add("-XX:SharedArchiveFile=" + archive);
+        }
+        System.out.println("Add these to the forkedJvmArgs:");
+        for (String arg : jvmArgs) {
+            System.out.println("  " + arg);
+        }
+    }
+
+    /**
+     * Writes the service index and the media types snapshot to the directory.
+     */
+    static void write(Path dir) throws IOException, MimeTypeException {
+        Files.createDirectories(dir);
+        ServiceIndex.write(dir.resolve(ServiceIndex.FILE_NAME));
+        MimeTypesSnapshot.write(dir.resolve(MimeTypesSnapshot.FILE_NAME), null);
+    }
+
+    /**
+     * Starts Tika in a new process, with the same class path and the startup
+     * cache, that writes the classes it loaded to the archive on exit.
+     */
+    private static int writeArchive(Path dir, Path archive, Path tikaConfig)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-XX:ArchiveClassesAtExit=" + archive);
+        command.add("-D" + STARTUP_CACHE_SYS_PROP + "=" + dir);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(TikaStartupCache.class.getName());
+        command.add(TRAIN);
+        if (tikaConfig != null) {
+            command.add(tikaConfig.toString());
+        }
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        return process.waitFor();
+    }
+
+    /**
+     * Loads the configuration and parses a few small documents, so that
+     * the classes used for that are loaded.
+     */
+    private static void train(Path tikaConfig) throws TikaException, IOException, SAXException {
+        TikaConfig config = tikaConfig == null ? TikaConfig.getDefaultConfig() :
+                new TikaConfig(tikaConfig);
+        Parser parser = new AutoDetectParser(config);
+        for (String document : TRAINING_DOCUMENTS) {
+            try (InputStream stream = TikaInputStream.get(document.getBytes(UTF_8))) {
+                parser.parse(stream, new BodyContentHandler(-1), new Metadata(),
+                        new ParseContext());
+            } catch (TikaException | SAXException e) {
+                //a parser that isn't on the class path, or that doesn't like the document,
+                //doesn't matter here
+            }
+        }
+    }
+
+    private static boolean hasDirectories() {
+        for (String entry : System.getProperty("java.class.path", "")
+                .split(File.pathSeparator)) {
+            if (!entry.isEmpty() && new File(entry).isDirectory()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static int getJavaVersion() {
+        String version = System.getProperty("java.specification.version", "1.8");
+        if (version.startsWith("1.")) {
+            version = version.substring(2);
+        }
+        try {
+            return Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return 8;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.detect;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Counts the bytes seen in a stream by the classes that
+ * {@link TextStatistics#isMostlyAscii()} and {@link TextStatistics#looksLikeUTF8()}
+ * look at, rather than by value, so that runs of printable ASCII can be
+ * counted eight bytes at a time, with the bytes of a long (SWAR). The other
+ * bytes are counted one at a time.
+ */
+final class ByteClassStatistics {
+
+    static final int CONTROL = 0;       // 0x00 - 0x1F, except the safe ones
+    static final int SAFE_CONTROL = 1;  // tab, LF, new page, CR and escape
+    static final int ASCII = 2;         // 0x20 - 0x7F
+    static final int CONTINUATION = 3;  // 0x80 - 0xBF
+    static final int LEADING_2 = 4;     // 0xC0 - 0xDF
+    static final int LEADING_3 = 5;     // 0xE0 - 0xEF
+    static final int LEADING_4 = 6;     // 0xF0 - 0xF7
+    static final int INVALID = 7;       // 0xF8 - 0xFF
+
+    private static final byte[] CLASSES = new byte[256];
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    //added to seven bit bytes, sets the high bit of those >= 0x20
+    private static final long PRINTABLE = 0x6060606060606060L;
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            int c;
+            if (b < 0x20) {
+                c = b == 0x09 || b == 0x0A || b == 0x0C || b == 0x0D || b == 0x1B ?
+                        SAFE_CONTROL : CONTROL;
+            } else if (b < 0x80) {
+                c = ASCII;
+            } else if (b < 0xC0) {
+                c = CONTINUATION;
+            } else if (b < 0xE0) {
+                c = LEADING_2;
+            } else if (b < 0xF0) {
+                c = LEADING_3;
+            } else if (b < 0xF8) {
+                c = LEADING_4;
+            } else {
+                c = INVALID;
+            }
+            CLASSES[b] = (byte) c;
+        }
+    }
+
+    private final int[] counts = new int[8];
+
+    private int total = 0;
+
+    void addData(byte[] buffer, int offset, int length) {
+        int[] counts = this.counts;
+        int i = offset;
+        int end = offset + length;
+        if (length >= 8) {
+            ByteBuffer longs = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+            for (int last = end - 8; i <= last; i += 8) {
+                long word = longs.getLong(i);
+                if ((word & HIGH_BITS) == 0 && (~(word + PRINTABLE) & HIGH_BITS) == 0) {
+                    counts[ASCII] += 8;
+                } else {
+                    for (int j = i; j < i + 8; j++) {
+                        counts[CLASSES[buffer[j] & 0xff]]++;
+                    }
+                }
+            }
+        }
+        for (; i < end; i++) {
+            counts[CLASSES[buffer[i] & 0xff]]++;
+        }
+        total += length;
+    }
+
+    int count(int byteClass) {
+        return counts[byteClass];
+    }
+
+    int count() {
+        return total;
+    }
+
+    boolean isMostlyAscii() {
+        return isMostlyAscii(total, counts[CONTROL], counts[SAFE_CONTROL], counts[ASCII]);
+    }
+
+    boolean looksLikeUTF8() {
+        return looksLikeUTF8(counts[CONTROL], counts[ASCII], counts[CONTINUATION],
+                counts[LEADING_2], counts[LEADING_3], counts[LEADING_4], counts[INVALID]);
+    }
+
+    /**
+     * @see TextStatistics#isMostlyAscii()
+     */
+    static boolean isMostlyAscii(int total, int control, int safeControl, int ascii) {
+        return total > 0 && control * 100 < total * 2 && (ascii + safeControl) * 100 > total * 90;
+    }
+
+    /**
+     * @see TextStatistics#looksLikeUTF8()
+     */
+    static boolean looksLikeUTF8(int control, int ascii, int continuation, int leading2,
+                                 int leading3, int leading4, int invalid) {
+        int utf8 = ascii + leading2 + leading3 + leading4;
+        int expectedContinuation = leading2 + 2 * leading3 + 3 * leading4;
+        return utf8 > 0 && continuation <= expectedContinuation &&
+                continuation >= expectedContinuation - 3 && invalid == 0 &&
+                control * 100 < utf8 * 2;
+    }
+}
@@ -16,14 +16,11 @@
  */
 package org.apache.tika.detect;
 
-import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.CharArrayWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
 import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -90,6 +87,10 @@ public class MagicDetector implements Detector {
      * starts at this offset.
      */
     private final int offsetRangeEnd;
+    /**
+     * Compiled {@link #pattern} if this is a regex detector; compiled on first use.
+     */
+    private volatile Pattern regex;
 
     /**
      * Creates a detector for input documents that have the exact given byte
@@ -372,58 +373,185 @@ public class MagicDetector implements Detector {
                 }
             }
 
-            if (this.isRegex) {
-                int flags = 0;
-                if (this.isStringIgnoreCase) {
-                    flags = Pattern.CASE_INSENSITIVE;
-                }
-
-                Pattern p = Pattern.compile(new String(this.pattern, UTF_8), flags);
+            if (!isRegex && offset < offsetRangeBegin + length) {
+                return MediaType.OCTET_STREAM;
+            }
+            return matchesWindow(buffer, 0, buffer.length) ? type : MediaType.OCTET_STREAM;
+        } finally {
+            input.reset();
+        }
+    }
 
-                ByteBuffer bb = ByteBuffer.wrap(buffer);
-                CharBuffer result = ISO_8859_1.decode(bb);
-                Matcher m = p.matcher(result);
+    /**
+     * Same as {@link #detect(InputStream, Metadata)} on a stream of
+     * <code>data</code>, without the stream or copying the comparison window.
+     *
+     * @param data first bytes of a document
+     * @return whether the magic matches
+     * @since Apache Tika 2.7.0
+     */
+    public boolean matches(byte[] data) {
+        if (data.length < offsetRangeBegin) {
+            return false;
+        }
+        //the stream version reads up to this and zero-fills the rest of the window
+        int limit = Math.min(data.length, offsetRangeEnd + length);
+        if (!isRegex && limit < offsetRangeBegin + length) {
+            return false;
+        }
+        return matchesWindow(data, offsetRangeBegin, limit);
+    }
 
-                boolean match = false;
-                // Loop until we've covered the entire offset range
-                for (int i = 0; i <= offsetRangeEnd - offsetRangeBegin; i++) {
-                    m.region(i, length + i);
-                    match = m.lookingAt(); // match regex from start of region
-                    if (match) {
-                        return type;
-                    }
-                }
-            } else {
-                if (offset < offsetRangeBegin + length) {
-                    return MediaType.OCTET_STREAM;
+    /**
+     * Matches the comparison window, which starts at <code>start</code> in
+     * <code>bytes</code> and reads as zeros from <code>limit</code> on.
+     */
+    private boolean matchesWindow(byte[] bytes, int start, int limit) {
+        int windowLength = length + (offsetRangeEnd - offsetRangeBegin);
+        if (this.isRegex) {
+            // ISO_8859_1 maps each byte to the char with the same value
+            Matcher m = getRegex().matcher(new Latin1Window(bytes, start, limit, windowLength));
+            // Loop until we've covered the entire offset range
+            for (int i = 0; i <= offsetRangeEnd - offsetRangeBegin; i++) {
+                m.region(i, length + i);
+                if (m.lookingAt()) { // match regex from start of region
+                    return true;
                 }
-                // Loop until we've covered the entire offset range
-                for (int i = 0; i <= offsetRangeEnd - offsetRangeBegin; i++) {
-                    boolean match = true;
-                    int masked;
-                    for (int j = 0; match && j < length; j++) {
-                        masked = (buffer[i + j] & mask[j]);
-                        if (this.isStringIgnoreCase) {
-                            masked = Character.toLowerCase(masked);
-                        }
-                        match = (masked == pattern[j]);
-                    }
-                    if (match) {
-                        return type;
-                    }
+            }
+            return false;
+        }
+        // Loop until we've covered the entire offset range
+        for (int i = 0; i <= offsetRangeEnd - offsetRangeBegin; i++) {
+            boolean match = true;
+            int masked;
+            for (int j = 0; match && j < length; j++) {
+                int k = start + i + j;
+                masked = ((k < limit ? bytes[k] : 0) & mask[j]);
+                if (this.isStringIgnoreCase) {
+                    masked = Character.toLowerCase(masked);
                 }
+                match = (masked == pattern[j]);
             }
+            if (match) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            return MediaType.OCTET_STREAM;
-        } finally {
-            input.reset();
+    private Pattern getRegex() {
+        Pattern p = regex;
+        if (p == null) {
+            int flags = 0;
+            if (this.isStringIgnoreCase) {
+                flags = Pattern.CASE_INSENSITIVE;
+            }
+            p = Pattern.compile(new String(this.pattern, UTF_8), flags);
+            regex = p;
+        }
+        return p;
+    }
+
+    /**
+     * Whether a comparison window that starts with byte <code>b</code> can match.
+     * Always <code>true</code> for regular expressions and empty patterns.
+     *
+     * @since Apache Tika 2.7.0
+     */
+    public boolean matchesFirstByte(byte b) {
+        if (isRegex || length == 0) {
+            return true;
+        }
+        int masked = b & mask[0];
+        if (this.isStringIgnoreCase) {
+            masked = Character.toLowerCase(masked);
         }
+        return masked == pattern[0];
+    }
+
+    public boolean isRegex() {
+        return isRegex;
+    }
+
+    public boolean isStringIgnoreCase() {
+        return isStringIgnoreCase;
+    }
+
+    /**
+     * @return whether any bits of the source bytes are masked out before matching
+     */
+    public boolean isMasked() {
+        for (byte m : mask) {
+            if (m != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return a copy of the pattern, with the mask applied
+     */
+    public byte[] getPattern() {
+        return pattern.clone();
+    }
+
+    public int getOffsetRangeBegin() {
+        return offsetRangeBegin;
+    }
+
+    public int getOffsetRangeEnd() {
+        return offsetRangeEnd;
     }
 
     public int getLength() {
         return this.patternLength;
     }
 
+    /**
+     * Read-only ISO_8859_1 view of a comparison window, zero-filled past
+     * <code>limit</code> like the stream buffer.
+     */
+    private static class Latin1Window implements CharSequence {
+
+        private final byte[] bytes;
+        private final int start;
+        private final int limit;
+        private final int length;
+
+        Latin1Window(byte[] bytes, int start, int limit, int length) {
+            this.bytes = bytes;
+            this.start = start;
+            this.limit = limit;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            int k = start + index;
+            return k < limit ? (char) (bytes[k] & 0xFF) : 0;
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            StringBuilder sb = new StringBuilder(to - from);
+            for (int i = from; i < to; i++) {
+                sb.append(charAt(i));
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length).toString();
+        }
+    }
+
     /**
      * Returns a string representation of the Detection Rule.
      * Should sort nicely by type and details, as we sometimes
@@ -117,7 +117,8 @@ public class TextDetector implements Detector {
 
         input.mark(bytesToTest);
         try {
-            TextStatistics stats = new TextStatistics();
+            //only the classes of the bytes matter here, not their values
+            ByteClassStatistics stats = new ByteClassStatistics();
 
             byte[] buffer = new byte[1024];
             int n = 0;
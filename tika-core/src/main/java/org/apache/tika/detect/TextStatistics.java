@@ -30,8 +30,8 @@ public class TextStatistics {
     public void addData(byte[] buffer, int offset, int length) {
         for (int i = 0; i < length; i++) {
             counts[buffer[offset + i] & 0xff]++;
-            total++;
         }
+        total += length;
     }
 
     /**
@@ -44,10 +44,9 @@ public class TextStatistics {
      * @see <a href="https://issues.apache.org/jira/browse/TIKA-688">TIKA-688</a>
      */
     public boolean isMostlyAscii() {
-        int control = count(0, 0x20);
-        int ascii = count(0x20, 128);
         int safe = countSafeControl();
-        return total > 0 && (control - safe) * 100 < total * 2 && (ascii + safe) * 100 > total * 90;
+        return ByteClassStatistics.isMostlyAscii(total, count(0, 0x20) - safe, safe,
+                count(0x20, 128));
     }
 
     /**
@@ -58,21 +57,9 @@ public class TextStatistics {
      * @since Apache Tika 1.3
      */
     public boolean looksLikeUTF8() {
-        int control = count(0, 0x20);
-        int utf8 = count(0x20, 0x80);
-        int safe = countSafeControl();
-
-        int expectedContinuation = 0;
-        int[] leading = new int[]{count(0xc0, 0xe0), count(0xe0, 0xf0), count(0xf0, 0xf8)};
-        for (int i = 0; i < leading.length; i++) {
-            utf8 += leading[i];
-            expectedContinuation += (i + 1) * leading[i];
-        }
-
-        int continuation = count(0x80, 0xc0);
-        return utf8 > 0 && continuation <= expectedContinuation &&
-                continuation >= expectedContinuation - 3 && count(0xf8, 0x100) == 0 &&
-                (control - safe) * 100 < utf8 * 2;
+        return ByteClassStatistics.looksLikeUTF8(countControl(), count(0x20, 0x80),
+                count(0x80, 0xc0), count(0xc0, 0xe0), count(0xe0, 0xf0), count(0xf0, 0xf8),
+                count(0xf8, 0x100));
     }
 
     /**
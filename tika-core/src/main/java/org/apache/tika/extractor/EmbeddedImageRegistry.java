@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.extractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.tika.utils.StringUtils;
+
+/**
+ * Bounded registry of the images that have been extracted, keyed by a digest
+ * of their bytes, so that an image that comes up again, in the same document
+ * or in another one, can be recognised before it is decoded and extracted
+ * again. Each key maps to the canonical name, the name under which the
+ * image was first extracted.
+ * <p>
+ * The registry is meant to be shared by the parses of a process, through
+ * a parser's configuration or the {@link org.apache.tika.parser.ParseContext};
+ * it is thread safe. The least recently used keys are dropped once it holds
+ * more than its maximum number of keys.
+ */
+public class EmbeddedImageRegistry {
+
+    private final int maxEntries;
+    private final Map<String, String> names;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param maxEntries bound on the number of images registered
+     */
+    public EmbeddedImageRegistry(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be > 0");
+        }
+        this.maxEntries = maxEntries;
+        this.names = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > EmbeddedImageRegistry.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return a new digest for the bytes of an image, to be turned into a key
+     * with {@link #getKey(MessageDigest)}
+     */
+    public static MessageDigest newDigest() {
+        return StringUtils.newSha256Digest();
+    }
+
+    /**
+     * Reads the stream to its end into the digest; the stream isn't closed.
+     */
+    public static void update(MessageDigest digest, InputStream is) throws IOException {
+        byte[] buffer = new byte[8192];
+        for (int read = is.read(buffer); read > -1; read = is.read(buffer)) {
+            digest.update(buffer, 0, read);
+        }
+    }
+
+    /**
+     * @return the key of the bytes read into the digest
+     */
+    public static String getKey(MessageDigest digest) {
+        return StringUtils.toHexString(digest.digest());
+    }
+
+    /**
+     * @return the key of the bytes of the stream, which is read to its end
+     */
+    public static String getKey(InputStream is) throws IOException {
+        MessageDigest digest = newDigest();
+        update(digest, is);
+        return getKey(digest);
+    }
+
+    /**
+     * @return the canonical name of the image with the given key, or
+     * <code>null</code> if it isn't registered
+     */
+    public synchronized String getCanonicalName(String key) {
+        String name = names.get(key);
+        if (name == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return name;
+    }
+
+    /**
+     * Registers the name of an image that has been extracted, unless
+     * an image with the same key was registered first.
+     *
+     * @return the canonical name of the image
+     */
+    public synchronized String register(String key, String name) {
+        String canonical = names.putIfAbsent(key, name);
+        return canonical == null ? name : canonical;
+    }
+
+    /**
+     * @return how many times {@link #getCanonicalName(String)} found the image
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return how many times {@link #getCanonicalName(String)} didn't find the image
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return number of images registered
+     */
+    public synchronized int size() {
+        return names.size();
+    }
+}
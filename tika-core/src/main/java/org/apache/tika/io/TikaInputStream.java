@@ -41,6 +41,7 @@ import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
 
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.metrics.ParseMetrics;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.utils.StringUtils;
 
@@ -713,7 +714,8 @@ public class TikaInputStream extends TaggedInputStream {
                     this.mark(maxBytes);
                     try (BoundedInputStream boundedInputStream =
                                  new BoundedInputStream(maxBytes, this)) {
-                        Files.copy(boundedInputStream, tmpFile, REPLACE_EXISTING);
+                        long spilled = Files.copy(boundedInputStream, tmpFile, REPLACE_EXISTING);
+                        ParseMetrics.count(ParseMetrics.SPILL_BYTES, spilled);
                         if (boundedInputStream.hasHitBound()) {
                             //tmpFile will be cleaned up when this TikaInputStream is closed
                             return null;
@@ -723,7 +725,8 @@ public class TikaInputStream extends TaggedInputStream {
                     }
                 } else {
                     // Spool the entire stream into a temporary file
-                    Files.copy(this, tmpFile, REPLACE_EXISTING);
+                    long spilled = Files.copy(this, tmpFile, REPLACE_EXISTING);
+                    ParseMetrics.count(ParseMetrics.SPILL_BYTES, spilled);
                 }
                 //successful so far, set tis' path to tmpFile
                 path = tmpFile;
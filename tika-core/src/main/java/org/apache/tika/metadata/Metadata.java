@@ -18,6 +18,10 @@ package org.apache.tika.metadata;
 
 import static org.apache.tika.utils.DateUtils.formatDate;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.text.DateFormat;
 import java.text.DateFormatSymbols;
@@ -26,13 +30,15 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.tika.metadata.Property.PropertyType;
 import org.apache.tika.metadata.writefilter.MetadataWriteFilter;
@@ -54,12 +60,7 @@ public class Metadata
 
         @Override
         public void add(String field, String value, Map<String, String[]> data) {
-            String[] values = data.get(field);
-            if (values == null) {
-                set(field, value, data);
-            } else {
-                data.put(field, appendValues(values, value));
-            }
+            ((MetadataMap) data).append(field, value);
         }
 
         //legacy behavior -- remove the field if value is null
@@ -71,31 +72,30 @@ public class Metadata
                 data.remove(field);
             }
         }
-
-        private String[] appendValues(String[] values, final String value) {
-            if (value == null) {
-                return values;
-            }
-            String[] newValues = new String[values.length + 1];
-            System.arraycopy(values, 0, newValues, 0, values.length);
-            newValues[newValues.length - 1] = value;
-            return newValues;
-        }
     };
 
     /**
      * Serial version UID
      */
     private static final long serialVersionUID = 5623926545693153182L;
+    /**
+     * The serialized form is the same as when the metadata was a HashMap,
+     * so that it doesn't depend on {@link MetadataMap}.
+     */
+    private static final ObjectStreamField[] serialPersistentFields =
+            {new ObjectStreamField("metadata", Map.class),
+                    new ObjectStreamField("writeFilter", MetadataWriteFilter.class)};
     /**
      * Some parsers will have the date as a ISO-8601 string
      * already, and will set that into the Metadata object.
+     * DateUtils isn't thread safe, so each parse takes one from this pool
+     * and returns it afterwards.
      */
-    private static final DateUtils DATE_UTILS = new DateUtils();
+    private static final Queue<DateUtils> DATE_UTILS = new ConcurrentLinkedQueue<>();
     /**
      * A map of all metadata attributes.
      */
-    private Map<String, String[]> metadata = null;
+    private MetadataMap metadata;
 
 
     private MetadataWriteFilter writeFilter = ACCEPT_ALL;
@@ -103,7 +103,7 @@ public class Metadata
      * Constructs a new, empty metadata.
      */
     public Metadata() {
-        metadata = new HashMap<>();
+        metadata = new MetadataMap();
     }
 
     private static DateFormat createDateFormat(String format, TimeZone timezone) {
@@ -115,15 +115,23 @@ public class Metadata
     }
 
     /**
-     * Parses the given date string. This method is synchronized to prevent
-     * concurrent access to the thread-unsafe date formats.
+     * Parses the given date string. The thread-unsafe date formats are
+     * borrowed from a pool, so concurrent parses don't wait for each other.
      *
      * @param date date string
      * @return parsed date, or <code>null</code> if the date can't be parsed
      * @see <a href="https://issues.apache.org/jira/browse/TIKA-495">TIKA-495</a>
      */
-    private static synchronized Date parseDate(String date) {
-        return DATE_UTILS.tryToParse(date);
+    private static Date parseDate(String date) {
+        DateUtils dateUtils = DATE_UTILS.poll();
+        if (dateUtils == null) {
+            dateUtils = new DateUtils();
+        }
+        try {
+            return dateUtils.tryToParse(date);
+        } finally {
+            DATE_UTILS.offer(dateUtils);
+        }
     }
 
     /**
@@ -133,8 +141,7 @@ public class Metadata
      * @return true is named value is multivalued, false if single value or null
      */
     public boolean isMultiValued(final Property property) {
-        return metadata.get(property.getName()) != null &&
-                metadata.get(property.getName()).length > 1;
+        return metadata.getCount(property.getName()) > 1;
     }
 
     /**
@@ -144,7 +151,7 @@ public class Metadata
      * @return true is named value is multivalued, false if single value or null
      */
     public boolean isMultiValued(final String name) {
-        return metadata.get(name) != null && metadata.get(name).length > 1;
+        return metadata.getCount(name) > 1;
     }
 
     /**
@@ -153,7 +160,7 @@ public class Metadata
      * @return Metadata names
      */
     public String[] names() {
-        return metadata.keySet().toArray(new String[0]);
+        return metadata.names();
     }
 
     /**
@@ -164,12 +171,7 @@ public class Metadata
      * @return the value associated to the specified metadata name.
      */
     public String get(final String name) {
-        String[] values = metadata.get(name);
-        if (values == null) {
-            return null;
-        } else {
-            return values[0];
-        }
+        return metadata.getFirst(name);
     }
 
     /**
@@ -298,8 +300,7 @@ public class Metadata
      * @param newValues the metadata values
      */
     protected void add(final String name, final String[] newValues) {
-        String[] values = metadata.get(name);
-        if (values == null) {
+        if (!metadata.containsKey(name)) {
             set(name, newValues);
         } else {
             for (String val : newValues) {
@@ -328,9 +329,7 @@ public class Metadata
                 }
             }
         } else {
-            String[] values = metadata.get(property.getName());
-
-            if (values == null) {
+            if (!metadata.containsKey(property.getName())) {
                 set(property, value);
             } else {
                 if (property.isMultiValuePermitted()) {
@@ -627,6 +626,21 @@ public class Metadata
         return metadata.size();
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("metadata", new LinkedHashMap<>(metadata));
+        fields.put("writeFilter", writeFilter);
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Map<String, String[]> map = (Map<String, String[]>) fields.get("metadata", null);
+        metadata = map == null ? new MetadataMap() : new MetadataMap(map);
+        writeFilter = (MetadataWriteFilter) fields.get("writeFilter", ACCEPT_ALL);
+    }
+
     public int hashCode() {
         int h = 0;
         for (Entry<String, String[]> stringEntry : metadata.entrySet()) {
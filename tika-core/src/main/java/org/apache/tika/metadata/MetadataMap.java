@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.metadata;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Backing store of {@link Metadata}.
+ * <p>
+ * Fields are kept in insertion order in two arrays: one with the names and
+ * values, one with the names' hash codes and the number of values. Lookups go
+ * through a small open-addressed table of positions in those arrays, which is
+ * kept at most half full. Most documents have fewer than
+ * {@link #INITIAL_CAPACITY} fields, so the arrays never grow. Field names that
+ * belong to a registered {@link Property} are replaced by the property's name,
+ * so that the names of many Metadata objects share the same strings.
+ * <p>
+ * Values are appended to arrays that grow by doubling. {@link #get(Object)}
+ * trims the array to the number of values, so the arrays that callers see
+ * never change afterwards.
+ */
+class MetadataMap extends AbstractMap<String, String[]> {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    //name of field i at 2 * i, its values at 2 * i + 1
+    private Object[] entries;
+    //hash code of field i's name at 2 * i, number of values at 2 * i + 1
+    private int[] hashesAndCounts;
+    private int size = 0;
+    //position + 1 of each field by hash, or 0
+    private int[] index;
+    private int modCount = 0;
+
+    private EntrySet entrySet;
+
+    MetadataMap() {
+    }
+
+    MetadataMap(Map<String, String[]> map) {
+        putAll(map);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public String[] get(Object key) {
+        int i = indexOf(key);
+        return i < 0 ? null : valuesAt(i);
+    }
+
+    @Override
+    public String[] put(String key, String[] value) {
+        int i = indexOf(key);
+        if (i >= 0) {
+            String[] old = valuesAt(i);
+            setValuesAt(i, value);
+            return old;
+        }
+        insert(key, value, value == null ? 0 : value.length);
+        return null;
+    }
+
+    @Override
+    public String[] remove(Object key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        String[] old = valuesAt(i);
+        removeAt(i);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(entries, 0, 2 * size, null);
+            Arrays.fill(index, 0);
+        }
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<String, String[]>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Adds a value to the field's values, or creates the field if it doesn't
+     * exist. <code>null</code> values are ignored.
+     */
+    void append(String key, String value) {
+        if (value == null) {
+            return;
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            insert(key, new String[]{value}, 1);
+            return;
+        }
+        String[] values = (String[]) entries[2 * i + 1];
+        int n = hashesAndCounts[2 * i + 1];
+        if (values == null) {
+            values = new String[1];
+        } else if (n == values.length) {
+            values = Arrays.copyOf(values, Math.max(2, n * 2));
+        }
+        values[n] = value;
+        entries[2 * i + 1] = values;
+        hashesAndCounts[2 * i + 1] = n + 1;
+    }
+
+    /**
+     * @return the first value of the field, or <code>null</code> if the
+     * field doesn't exist
+     */
+    String getFirst(String key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        String[] values = (String[]) entries[2 * i + 1];
+        return values == null ? null : values[0];
+    }
+
+    /**
+     * @return the number of values of the field, without copying them
+     */
+    int getCount(String key) {
+        int i = indexOf(key);
+        return i < 0 ? 0 : hashesAndCounts[2 * i + 1];
+    }
+
+    /**
+     * @return the field names in insertion order
+     */
+    String[] names() {
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = (String) entries[2 * i];
+        }
+        return names;
+    }
+
+    private String[] valuesAt(int i) {
+        String[] values = (String[]) entries[2 * i + 1];
+        int n = hashesAndCounts[2 * i + 1];
+        if (values != null && values.length != n) {
+            values = Arrays.copyOf(values, n);
+            entries[2 * i + 1] = values;
+        }
+        return values;
+    }
+
+    private void setValuesAt(int i, String[] values) {
+        entries[2 * i + 1] = values;
+        hashesAndCounts[2 * i + 1] = values == null ? 0 : values.length;
+    }
+
+    private int indexOf(Object key) {
+        if (size == 0 || (key != null && !(key instanceof String))) {
+            return -1;
+        }
+        int h = Objects.hashCode(key);
+        int mask = index.length - 1;
+        for (int p = spread(h) & mask; ; p = (p + 1) & mask) {
+            int i = index[p] - 1;
+            if (i < 0) {
+                return -1;
+            }
+            if (hashesAndCounts[2 * i] == h && keyEquals(i, key)) {
+                return i;
+            }
+        }
+    }
+
+    private boolean keyEquals(int i, Object key) {
+        Object k = entries[2 * i];
+        return k == key || (k != null && k.equals(key));
+    }
+
+    private void insert(String key, String[] value, int count) {
+        if (entries == null) {
+            entries = new Object[2 * INITIAL_CAPACITY];
+            hashesAndCounts = new int[2 * INITIAL_CAPACITY];
+            index = new int[2 * INITIAL_CAPACITY];
+        } else if (2 * size == entries.length) {
+            entries = Arrays.copyOf(entries, 2 * entries.length);
+            hashesAndCounts = Arrays.copyOf(hashesAndCounts, 2 * hashesAndCounts.length);
+            index = new int[entries.length];
+            for (int i = 0; i < size; i++) {
+                addToIndex(i);
+            }
+        }
+        entries[2 * size] = intern(key);
+        entries[2 * size + 1] = value;
+        hashesAndCounts[2 * size] = Objects.hashCode(key);
+        hashesAndCounts[2 * size + 1] = count;
+        addToIndex(size);
+        size++;
+        modCount++;
+    }
+
+    private void removeAt(int i) {
+        int tail = 2 * (size - i - 1);
+        if (tail > 0) {
+            System.arraycopy(entries, 2 * i + 2, entries, 2 * i, tail);
+            System.arraycopy(hashesAndCounts, 2 * i + 2, hashesAndCounts, 2 * i, tail);
+        }
+        size--;
+        entries[2 * size] = null;
+        entries[2 * size + 1] = null;
+        modCount++;
+        //removals are rare; positions have shifted, so start over
+        Arrays.fill(index, 0);
+        for (int j = 0; j < size; j++) {
+            addToIndex(j);
+        }
+    }
+
+    private void addToIndex(int i) {
+        int mask = index.length - 1;
+        int p = spread(hashesAndCounts[2 * i]) & mask;
+        while (index[p] != 0) {
+            p = (p + 1) & mask;
+        }
+        index[p] = i + 1;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static String intern(String key) {
+        if (key == null) {
+            return null;
+        }
+        Property property = Property.get(key);
+        return property == null ? key : property.getName();
+    }
+
+    private class EntrySet extends AbstractSet<Entry<String, String[]>> {
+
+        @Override
+        public Iterator<Entry<String, String[]>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            MetadataMap.this.clear();
+        }
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, String[]>> {
+        private int next = 0;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Entry<String, String[]> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return new MapEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    private class MapEntry implements Entry<String, String[]> {
+        private final int i;
+
+        MapEntry(int i) {
+            this.i = i;
+        }
+
+        @Override
+        public String getKey() {
+            return (String) entries[2 * i];
+        }
+
+        @Override
+        public String[] getValue() {
+            return valuesAt(i);
+        }
+
+        @Override
+        public String[] setValue(String[] value) {
+            String[] old = valuesAt(i);
+            setValuesAt(i, value);
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + Arrays.toString(getValue());
+        }
+    }
+}
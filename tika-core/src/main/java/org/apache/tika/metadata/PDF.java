@@ -106,6 +106,22 @@ public interface PDF {
     Property OVERALL_PERCENTAGE_UNMAPPED_UNICODE_CHARS =
             Property.internalReal(PDF_PREFIX + "overallPercentageUnmappedUnicodeChars");
 
+    /**
+     * Numbers (1-based) of the pages that were OCR'd, in page order.
+     */
+    Property OCR_PAGES = Property.internalIntegerSequence(PDF_PREFIX + "ocrPages");
+
+    /**
+     * Milliseconds spent rendering and OCR'ing each of the {@link #OCR_PAGES}.
+     */
+    Property OCR_PAGE_MILLIS = Property.internalIntegerSequence(PDF_PREFIX + "ocrPageMillis");
+
+    /**
+     * Total of the {@link #OCR_PAGE_MILLIS}; this can be more than the time
+     * the parse took if the pages were OCR'd concurrently.
+     */
+    Property OCR_MILLIS = Property.internalInteger(PDF_PREFIX + "ocrMillis");
+
     /**
      * Contains at least one damaged font for at least one character
      */
@@ -136,6 +136,13 @@ public final class Property implements Comparable<Property> {
         return new Property(name, true, ValueType.BOOLEAN);
     }
 
+    /**
+     * @since Apache Tika 2.7.0
+     */
+    public static Property internalBooleanSequence(String name) {
+        return new Property(name, true, PropertyType.SEQ, ValueType.BOOLEAN);
+    }
+
     public static Property internalClosedChoise(String name, String... choices) {
         return new Property(name, true, ValueType.CLOSED_CHOICE, choices);
     }
@@ -74,7 +74,48 @@ public interface TikaCoreProperties {
     Property EMBEDDED_ID =
             Property.internalInteger(TIKA_META_PREFIX + "embedded_id");
 
+    /**
+     * Canonical name of an identical embedded resource that was extracted
+     * earlier, set on a resource that wasn't extracted again because of it.
+     * See {@link org.apache.tika.extractor.EmbeddedImageRegistry}.
+     */
+    Property EMBEDDED_DUPLICATE_OF =
+            Property.internalText(TIKA_META_PREFIX + "embedded_duplicate_of");
+
+    /**
+     * Names of the embedded resources of a document that weren't extracted
+     * because an identical resource was extracted earlier.
+     */
+    Property DUPLICATE_EMBEDDED_RESOURCES =
+            Property.internalTextBag(TIKA_META_PREFIX + "duplicate_embedded_resources");
+
     Property PARSE_TIME_MILLIS = Property.internalText(TIKA_META_PREFIX + "parse_time_millis");
+
+    /**
+     * Time to detect the media type of the document, set if
+     * {@link org.apache.tika.parser.AutoDetectParserConfig#setRecordTimings(boolean)}
+     */
+    Property DETECT_TIME_MILLIS =
+            Property.internalText(TIKA_META_PREFIX + "detect_time_millis");
+
+    /**
+     * Time in the parser that {@link org.apache.tika.parser.AutoDetectParser}
+     * picked for the document, embedded documents included, set if
+     * {@link org.apache.tika.parser.AutoDetectParserConfig#setRecordTimings(boolean)}.
+     * Unlike {@link #PARSE_TIME_MILLIS}, which the
+     * {@link org.apache.tika.parser.RecursiveParserWrapper} sets, this leaves
+     * out detection and the wrapper's own work.
+     */
+    Property PARSER_TIME_MILLIS =
+            Property.internalText(TIKA_META_PREFIX + "parser_time_millis");
+
+    /**
+     * Time spent in the content handler for the document and its embedded
+     * documents, set on the container document if
+     * {@link org.apache.tika.parser.AutoDetectParserConfig#setRecordTimings(boolean)}
+     */
+    Property HANDLER_TIME_MILLIS =
+            Property.internalText(TIKA_META_PREFIX + "handler_time_millis");
     /**
      * Simple class name of the content handler
      */
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.metrics;
+
+/**
+ * Receives the timings and counts recorded by {@link ParseMetrics}, for
+ * instance to aggregate them into histograms that a server can export.
+ * <p>
+ * Listeners are loaded with the Tika service loader from
+ * <code>META-INF/services/org.apache.tika.metrics.MetricsListener</code>, or
+ * registered with {@link ParseMetrics#addListener(MetricsListener)}. They are
+ * called on the parsing threads, and so must be thread safe and quick.
+ *
+ * @since Apache Tika 2.7.0
+ */
+public interface MetricsListener {
+
+    /**
+     * @param name   name of the timer, one of the constants of {@link ParseMetrics}
+     * @param nanos  elapsed time in nanoseconds
+     * @param labels values of the labels documented for the timer, may be empty
+     */
+    void recordTime(String name, long nanos, String[] labels);
+
+    /**
+     * @param name   name of the counter, one of the constants of {@link ParseMetrics}
+     * @param count  amount to add to the counter
+     * @param labels values of the labels documented for the counter, may be empty
+     */
+    void recordCount(String name, long count, String[] labels);
+}
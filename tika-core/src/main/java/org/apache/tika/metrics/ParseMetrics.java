@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tika.config.ServiceLoader;
+
+/**
+ * Timings and counts of the stages of a parse, reported to the registered
+ * {@link MetricsListener}s. When there are none, the cost to the callers is
+ * a read of a volatile field:
+ * <pre>
+ * long start = ParseMetrics.start();
+ * ...
+ * ParseMetrics.stop(start, ParseMetrics.DETECT, detectorClassname);
+ * </pre>
+ *
+ * @since Apache Tika 2.7.0
+ */
+public final class ParseMetrics {
+
+    /**
+     * Time to detect the media type of a document, labelled with the class
+     * of the detector.
+     */
+    public static final String DETECT = "detect";
+
+    /**
+     * Time to parse a document, measured around the call of the parser that a
+     * composite parser dispatches it to; nested composite parsers, such as the
+     * DefaultParser within an AutoDetectParser, aren't timed. Labelled with the
+     * class of the parser, the base media type that it was chosen by and the
+     * depth of the document: 0 for the container, 1 for the documents embedded
+     * in it, and so on. The time of a container includes the time of its
+     * embedded documents.
+     */
+    public static final String PARSE = "parse";
+
+    /**
+     * Time spent in the content handler of a document and its embedded
+     * documents, with no labels.
+     */
+    public static final String HANDLER = "handler";
+
+    /**
+     * Time to digest a document, labelled with the class of the digester. Not
+     * recorded when the document is digested as it is parsed.
+     */
+    public static final String DIGEST = "digest";
+
+    /**
+     * Time to run OCR on an image, labelled with the class of the parser.
+     */
+    public static final String OCR = "ocr";
+
+    /**
+     * Counts the bytes spooled to temporary files, with no labels.
+     */
+    public static final String SPILL_BYTES = "spill_bytes";
+
+    /**
+     * Time to emit the results of a document, labelled with the name of the emitter.
+     */
+    public static final String EMIT = "emit";
+
+    /**
+     * Returned by {@link #start()} when there are no listeners.
+     */
+    public static final long DISABLED = Long.MIN_VALUE;
+
+    private static final String[] NO_LABELS = new String[0];
+
+    private static final Map<String, String[]> LABEL_NAMES = new HashMap<>();
+
+    static {
+        LABEL_NAMES.put(DETECT, new String[]{"detector"});
+        LABEL_NAMES.put(PARSE, new String[]{"parser", "type", "depth"});
+        LABEL_NAMES.put(HANDLER, NO_LABELS);
+        LABEL_NAMES.put(DIGEST, new String[]{"digester"});
+        LABEL_NAMES.put(OCR, new String[]{"parser"});
+        LABEL_NAMES.put(SPILL_BYTES, NO_LABELS);
+        LABEL_NAMES.put(EMIT, new String[]{"emitter"});
+    }
+
+    private static volatile MetricsListener[] LISTENERS = loadListeners();
+
+    private ParseMetrics() {
+    }
+
+    private static MetricsListener[] loadListeners() {
+        List<MetricsListener> listeners =
+                new ServiceLoader(ParseMetrics.class.getClassLoader())
+                        .loadStaticServiceProviders(MetricsListener.class);
+        return listeners.toArray(new MetricsListener[0]);
+    }
+
+    public static synchronized void addListener(MetricsListener listener) {
+        MetricsListener[] listeners = Arrays.copyOf(LISTENERS, LISTENERS.length + 1);
+        listeners[listeners.length - 1] = listener;
+        LISTENERS = listeners;
+    }
+
+    public static synchronized void removeListener(MetricsListener listener) {
+        List<MetricsListener> listeners = new ArrayList<>(Arrays.asList(LISTENERS));
+        listeners.remove(listener);
+        LISTENERS = listeners.toArray(new MetricsListener[0]);
+    }
+
+    /**
+     * @return the names of the labels of a timer or counter, in the order of
+     * the values passed to the listeners
+     */
+    public static String[] getLabelNames(String name) {
+        String[] labelNames = LABEL_NAMES.get(name);
+        return labelNames == null ? NO_LABELS : labelNames.clone();
+    }
+
+    public static boolean isEnabled() {
+        return LISTENERS.length > 0;
+    }
+
+    /**
+     * @return the current {@link System#nanoTime()}, or {@link #DISABLED}
+     * if there are no listeners
+     */
+    public static long start() {
+        return LISTENERS.length > 0 ? System.nanoTime() : DISABLED;
+    }
+
+    public static void stop(long start, String name) {
+        if (start != DISABLED) {
+            recordTime(name, System.nanoTime() - start, NO_LABELS);
+        }
+    }
+
+    public static void stop(long start, String name, String label) {
+        if (start != DISABLED) {
+            recordTime(name, System.nanoTime() - start, new String[]{label});
+        }
+    }
+
+    public static void stop(long start, String name, String label1, String label2,
+                            String label3) {
+        if (start != DISABLED) {
+            recordTime(name, System.nanoTime() - start, new String[]{label1, label2, label3});
+        }
+    }
+
+    /**
+     * Reports a time measured by the caller, for instance the sum of several
+     * intervals.
+     */
+    public static void recordTime(String name, long nanos, String... labels) {
+        for (MetricsListener listener : LISTENERS) {
+            listener.recordTime(name, nanos, labels);
+        }
+    }
+
+    public static void count(String name, long count) {
+        for (MetricsListener listener : LISTENERS) {
+            listener.recordCount(name, count, NO_LABELS);
+        }
+    }
+}
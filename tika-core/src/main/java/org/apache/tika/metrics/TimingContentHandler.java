@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.metrics;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import org.apache.tika.sax.ContentHandlerDecorator;
+
+/**
+ * Content handler decorator that adds up the time spent in the decorated
+ * handler, see {@link ParseMetrics#HANDLER}.
+ *
+ * @since Apache Tika 2.7.0
+ */
+public class TimingContentHandler extends ContentHandlerDecorator {
+
+    private long nanos = 0;
+
+    public TimingContentHandler(ContentHandler handler) {
+        super(handler);
+    }
+
+    /**
+     * @return the time spent in the decorated handler so far, in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        long start = System.nanoTime();
+        try {
+            super.startDocument();
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        long start = System.nanoTime();
+        try {
+            super.endDocument();
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String name, Attributes atts)
+            throws SAXException {
+        long start = System.nanoTime();
+        try {
+            super.startElement(uri, localName, name, atts);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String name) throws SAXException {
+        long start = System.nanoTime();
+        try {
+            super.endElement(uri, localName, name);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        long startNanos = System.nanoTime();
+        try {
+            super.characters(ch, start, length);
+        } finally {
+            nanos += System.nanoTime() - startNanos;
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        long startNanos = System.nanoTime();
+        try {
+            super.ignorableWhitespace(ch, start, length);
+        } finally {
+            nanos += System.nanoTime() - startNanos;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.tika.detect.MagicDetector;
+
+/**
+ * Evaluates a list of {@link Magic}s against the header of a document,
+ * giving the same result as evaluating each in order.
+ * <p>
+ * Almost all magic matches look for a pattern at a fixed offset, or at one
+ * of a few offsets, so the byte at that offset rules most of them out.
+ * When the matcher is built, it works out from each magic's clauses a set of
+ * (offset, byte) pairs of which at least one must be present for the magic
+ * to match, and indexes the magics by those pairs. Detection then reads the
+ * byte at each indexed offset once, and fully evaluates only the magics that
+ * are still candidates, in their original order. Magics for which no such
+ * set can be derived, e.g. regular expressions, are always candidates.
+ * <p>
+ * String matches that may start anywhere in a wide range of offsets are
+ * expensive to evaluate one by one. Those are found by two {@link MagicScanner}s,
+ * one for case sensitive and one for case insensitive matches, which scan the
+ * header once, the first time a candidate needs them.
+ */
+class MagicMatcher {
+
+    /**
+     * Matches that can start anywhere in a wider range of offsets aren't
+     * indexed.
+     */
+    private static final int MAX_INDEXED_RANGE = 8;
+
+    private final Magic[] magics;
+    //compiled clauses of the magics
+    private final Node[] nodes;
+    //the index can skip magics only if they are in order of priority
+    private final boolean sorted;
+    private final MagicScanner caseSensitive;
+    private final MagicScanner ignoreCase;
+    //magics that are always evaluated
+    private final long[] unindexed;
+    //offsets that the index reads
+    private final int[] offsets;
+    //candidates by offset, then by byte value; null if there are none
+    private final long[][][] candidates;
+
+    MagicMatcher(List<Magic> magics) {
+        this.magics = magics.toArray(new Magic[0]);
+        this.sorted = isSortedByPriority(this.magics);
+
+        List<MagicDetector> caseSensitiveDetectors = new ArrayList<>();
+        List<MagicDetector> ignoreCaseDetectors = new ArrayList<>();
+        Map<MagicDetector, Node> scanned = new IdentityHashMap<>();
+        this.nodes = new Node[this.magics.length];
+        for (int i = 0; i < this.magics.length; i++) {
+            nodes[i] = compile(this.magics[i].getClause(), caseSensitiveDetectors,
+                    ignoreCaseDetectors, scanned);
+        }
+        this.caseSensitive = new MagicScanner(caseSensitiveDetectors, false);
+        this.ignoreCase = new MagicScanner(ignoreCaseDetectors, true);
+        int words = (this.magics.length + 63) / 64;
+        this.unindexed = new long[words];
+        Map<Integer, long[][]> byOffset = new TreeMap<>();
+        for (int i = 0; i < this.magics.length; i++) {
+            Anchors anchors = getAnchors(this.magics[i].getClause());
+            if (anchors == null) {
+                unindexed[i >> 6] |= 1L << i;
+                continue;
+            }
+            for (Map.Entry<Integer, BitSet> e : anchors.bytes.entrySet()) {
+                long[][] table = byOffset.computeIfAbsent(e.getKey(), k -> new long[256][]);
+                BitSet bytes = e.getValue();
+                for (int b = bytes.nextSetBit(0); b >= 0; b = bytes.nextSetBit(b + 1)) {
+                    if (table[b] == null) {
+                        table[b] = new long[words];
+                    }
+                    table[b][i >> 6] |= 1L << i;
+                }
+            }
+        }
+        this.offsets = new int[byOffset.size()];
+        this.candidates = new long[byOffset.size()][][];
+        int k = 0;
+        for (Map.Entry<Integer, long[][]> e : byOffset.entrySet()) {
+            offsets[k] = e.getKey();
+            candidates[k++] = e.getValue();
+        }
+    }
+
+    /**
+     * Same as evaluating each magic in order, stopping at the first magic with
+     * a lower priority than a magic that matched.
+     *
+     * @return the types of the magics that matched
+     */
+    List<MimeType> match(byte[] data) {
+        if (!sorted) {
+            return matchAll(data);
+        }
+        long[] words = Arrays.copyOf(unindexed, unindexed.length);
+        for (int k = 0; k < offsets.length; k++) {
+            int offset = offsets[k];
+            //the comparison window is zero-filled past the end of the data
+            int b = offset < data.length ? data[offset] & 0xFF : 0;
+            long[] c = candidates[k][b];
+            if (c != null) {
+                for (int w = 0; w < words.length; w++) {
+                    words[w] |= c[w];
+                }
+            }
+        }
+
+        Scan scan = new Scan(data);
+        List<MimeType> result = new ArrayList<>(1);
+        int currentPriority = -1;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                Magic magic = magics[i];
+                if (currentPriority > 0 && currentPriority > magic.getPriority()) {
+                    return result;
+                }
+                if (nodes[i].eval(scan)) {
+                    result.add(magic.getType());
+                    currentPriority = magic.getPriority();
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<MimeType> matchAll(byte[] data) {
+        Scan scan = new Scan(data);
+        List<MimeType> result = new ArrayList<>(1);
+        int currentPriority = -1;
+        for (int i = 0; i < magics.length; i++) {
+            Magic magic = magics[i];
+            if (currentPriority > 0 && currentPriority > magic.getPriority()) {
+                break;
+            }
+            if (nodes[i].eval(scan)) {
+                result.add(magic.getType());
+                currentPriority = magic.getPriority();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compiles a clause into nodes that evaluate the same way, except that the
+     * results of wide range string matches come from the scanners.
+     */
+    private static Node compile(Clause clause, List<MagicDetector> caseSensitiveDetectors,
+                                List<MagicDetector> ignoreCaseDetectors,
+                                Map<MagicDetector, Node> scanned) {
+        if (clause instanceof MagicMatch) {
+            MagicDetector detector = ((MagicMatch) clause).getDetector();
+            if (!isScannable(detector)) {
+                return scan -> clause.eval(scan.data);
+            }
+            return scanned.computeIfAbsent(detector, d -> {
+                List<MagicDetector> detectors =
+                        d.isStringIgnoreCase() ? ignoreCaseDetectors : caseSensitiveDetectors;
+                int id = detectors.size();
+                detectors.add(d);
+                if (d.isStringIgnoreCase()) {
+                    return scan -> scan.isIgnoreCaseMatch(id);
+                }
+                return scan -> scan.isCaseSensitiveMatch(id);
+            });
+        } else if (clause instanceof AndClause) {
+            Node[] children = compile(Arrays.asList(((AndClause) clause).getClauses()),
+                    caseSensitiveDetectors, ignoreCaseDetectors, scanned);
+            return scan -> {
+                for (Node child : children) {
+                    if (!child.eval(scan)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        } else if (clause instanceof OrClause) {
+            Node[] children = compile(((OrClause) clause).getClauses(),
+                    caseSensitiveDetectors, ignoreCaseDetectors, scanned);
+            return scan -> {
+                for (Node child : children) {
+                    if (child.eval(scan)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        } else if (clause instanceof MinShouldMatchClause) {
+            int min = ((MinShouldMatchClause) clause).getMin();
+            Node[] children = compile(((MinShouldMatchClause) clause).getClauses(),
+                    caseSensitiveDetectors, ignoreCaseDetectors, scanned);
+            return scan -> {
+                int matches = 0;
+                for (Node child : children) {
+                    if (child.eval(scan) && ++matches >= min) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+        return scan -> clause.eval(scan.data);
+    }
+
+    private static Node[] compile(List<Clause> clauses, List<MagicDetector> caseSensitiveDetectors,
+                                  List<MagicDetector> ignoreCaseDetectors,
+                                  Map<MagicDetector, Node> scanned) {
+        Node[] nodes = new Node[clauses.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = compile(clauses.get(i), caseSensitiveDetectors, ignoreCaseDetectors,
+                    scanned);
+        }
+        return nodes;
+    }
+
+    private static boolean isScannable(MagicDetector detector) {
+        return !detector.isRegex() && !detector.isMasked() && detector.getLength() > 0 &&
+                detector.getOffsetRangeEnd() - detector.getOffsetRangeBegin() >= MAX_INDEXED_RANGE;
+    }
+
+    private static boolean isSortedByPriority(Magic[] magics) {
+        for (int i = 1; i < magics.length; i++) {
+            if (magics[i].getPriority() > magics[i - 1].getPriority()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return (offset, byte) pairs of which at least one must be present for
+     * the clause to match, or <code>null</code> if there's no such set
+     */
+    private static Anchors getAnchors(Clause clause) {
+        if (clause instanceof MagicMatch) {
+            return getAnchors(((MagicMatch) clause).getDetector());
+        } else if (clause instanceof AndClause) {
+            //any of the sub-clauses will do; pick the most selective
+            Anchors best = null;
+            for (Clause c : ((AndClause) clause).getClauses()) {
+                Anchors anchors = getAnchors(c);
+                if (anchors != null && (best == null || anchors.size() < best.size())) {
+                    best = anchors;
+                }
+            }
+            return best;
+        } else if (clause instanceof OrClause) {
+            return union(((OrClause) clause).getClauses());
+        } else if (clause instanceof MinShouldMatchClause) {
+            //at least one sub-clause has to match
+            return union(((MinShouldMatchClause) clause).getClauses());
+        } else if (clause instanceof Magic) {
+            return getAnchors(((Magic) clause).getClause());
+        }
+        return null;
+    }
+
+    private static Anchors getAnchors(MagicDetector detector) {
+        int begin = detector.getOffsetRangeBegin();
+        int end = detector.getOffsetRangeEnd();
+        if (detector.isRegex() || detector.getLength() == 0 ||
+                end - begin >= MAX_INDEXED_RANGE) {
+            return null;
+        }
+        BitSet bytes = new BitSet(256);
+        for (int b = 0; b < 256; b++) {
+            if (detector.matchesFirstByte((byte) b)) {
+                bytes.set(b);
+            }
+        }
+        Anchors anchors = new Anchors();
+        for (int offset = begin; offset <= end; offset++) {
+            anchors.bytes.put(offset, bytes);
+        }
+        return anchors;
+    }
+
+    private static Anchors union(List<Clause> clauses) {
+        Anchors union = new Anchors();
+        for (Clause c : clauses) {
+            Anchors anchors = getAnchors(c);
+            if (anchors == null) {
+                return null;
+            }
+            for (Map.Entry<Integer, BitSet> e : anchors.bytes.entrySet()) {
+                union.bytes.computeIfAbsent(e.getKey(), k -> new BitSet(256)).or(e.getValue());
+            }
+        }
+        return union;
+    }
+
+    private interface Node {
+        boolean eval(Scan scan);
+    }
+
+    /**
+     * State of a single detection: the header and, once needed, the scanners' results.
+     */
+    private class Scan {
+        private final byte[] data;
+        private long[] caseSensitiveMatches;
+        private long[] ignoreCaseMatches;
+
+        Scan(byte[] data) {
+            this.data = data;
+        }
+
+        boolean isCaseSensitiveMatch(int id) {
+            if (caseSensitiveMatches == null) {
+                caseSensitiveMatches = caseSensitive.scan(data);
+            }
+            return (caseSensitiveMatches[id >> 6] & (1L << id)) != 0;
+        }
+
+        boolean isIgnoreCaseMatch(int id) {
+            if (ignoreCaseMatches == null) {
+                ignoreCaseMatches = ignoreCase.scan(data);
+            }
+            return (ignoreCaseMatches[id >> 6] & (1L << id)) != 0;
+        }
+    }
+
+    private static class Anchors {
+        //shared BitSets are never modified: union copies into new ones
+        private final Map<Integer, BitSet> bytes = new TreeMap<>();
+
+        int size() {
+            int size = 0;
+            for (BitSet b : bytes.values()) {
+                size += b.cardinality();
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.tika.detect.MagicDetector;
+
+/**
+ * Finds the matches of many string {@link MagicDetector}s that may start
+ * anywhere in a range of offsets, in a single pass over the header.
+ * <p>
+ * This is an Aho-Corasick automaton compiled to a transition table. Bytes that
+ * don't occur in any pattern share a single column of the table. If
+ * <code>ignoreCase</code> is set, ASCII letters in the header are lowercased
+ * before matching, the same as {@link MagicDetector} does for
+ * <code>stringignorecase</code>.
+ * <p>
+ * The detectors must not be regular expressions or masked.
+ */
+class MagicScanner {
+
+    private final int[] patternLengths;
+    private final int[] rangeBegins;
+    private final int[] rangeEnds;
+    private final boolean ignoreCase;
+
+    //byte -> column in the transition table
+    private final int[] columns;
+    private final int numColumns;
+    //state * numColumns + column -> state
+    private final int[] transitions;
+    //patterns that end in each state; null if none
+    private final int[][] outputs;
+
+    private final int scanBegin;
+    private final int scanEnd;
+    //the comparison window reads as zeros past the end of the data
+    private final int maxTrailingZeros;
+
+    MagicScanner(List<MagicDetector> detectors, boolean ignoreCase) {
+        int n = detectors.size();
+        this.ignoreCase = ignoreCase;
+        this.patternLengths = new int[n];
+        this.rangeBegins = new int[n];
+        this.rangeEnds = new int[n];
+        byte[][] patterns = new byte[n][];
+        int begin = Integer.MAX_VALUE;
+        int end = 0;
+        int zeros = 0;
+        for (int i = 0; i < n; i++) {
+            MagicDetector detector = detectors.get(i);
+            patterns[i] = detector.getPattern();
+            patternLengths[i] = patterns[i].length;
+            rangeBegins[i] = detector.getOffsetRangeBegin();
+            rangeEnds[i] = detector.getOffsetRangeEnd();
+            begin = Math.min(begin, rangeBegins[i]);
+            end = Math.max(end, rangeEnds[i] + patternLengths[i]);
+            int z = 0;
+            while (z < patterns[i].length && patterns[i][patterns[i].length - 1 - z] == 0) {
+                z++;
+            }
+            zeros = Math.max(zeros, z);
+        }
+        this.scanBegin = n == 0 ? 0 : begin;
+        this.scanEnd = end;
+        this.maxTrailingZeros = zeros;
+
+        //one column per byte value that occurs in a pattern, plus one for all others
+        int[] patternColumns = new int[256];
+        int cols = 1;
+        for (byte[] pattern : patterns) {
+            for (byte b : pattern) {
+                if (patternColumns[b & 0xFF] == 0) {
+                    patternColumns[b & 0xFF] = cols++;
+                }
+            }
+        }
+        this.numColumns = cols;
+        this.columns = new int[256];
+        for (int b = 0; b < 256; b++) {
+            columns[b] = patternColumns[ignoreCase ? toLowerCase(b) : b];
+        }
+
+        //trie
+        List<int[]> gotos = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        gotos.add(newRow(cols));
+        ends.add(new ArrayList<>());
+        for (int i = 0; i < n; i++) {
+            int state = 0;
+            for (byte b : patterns[i]) {
+                int c = patternColumns[b & 0xFF];
+                if (gotos.get(state)[c] < 0) {
+                    gotos.get(state)[c] = gotos.size();
+                    gotos.add(newRow(cols));
+                    ends.add(new ArrayList<>());
+                }
+                state = gotos.get(state)[c];
+            }
+            ends.get(state).add(i);
+        }
+
+        //breadth first: failure links, outputs and the full transition table
+        int numStates = gotos.size();
+        int[] fail = new int[numStates];
+        this.transitions = new int[numStates * cols];
+        this.outputs = new int[numStates][];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < cols; c++) {
+            int next = gotos.get(0)[c];
+            if (next < 0) {
+                transitions[c] = 0;
+            } else {
+                transitions[c] = next;
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        setOutputs(0, ends.get(0), null);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            setOutputs(state, ends.get(state), outputs[fail[state]]);
+            for (int c = 0; c < cols; c++) {
+                int next = gotos.get(state)[c];
+                if (next < 0) {
+                    transitions[state * cols + c] = transitions[fail[state] * cols + c];
+                } else {
+                    transitions[state * cols + c] = next;
+                    fail[next] = transitions[fail[state] * cols + c];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return bit <code>i</code> is set if detector <code>i</code> matches
+     */
+    long[] scan(byte[] data) {
+        long[] matched = new long[(patternLengths.length + 63) / 64];
+        int stop = Math.min(scanEnd, data.length + maxTrailingZeros);
+        int state = 0;
+        for (int q = scanBegin; q < stop; q++) {
+            int b = q < data.length ? data[q] & 0xFF : 0;
+            state = transitions[state * numColumns + columns[b]];
+            int[] out = outputs[state];
+            if (out == null) {
+                continue;
+            }
+            for (int i : out) {
+                int start = q - patternLengths[i] + 1;
+                //the stream version fails if the data ends before the first window does
+                if (start >= rangeBegins[i] && start <= rangeEnds[i] &&
+                        data.length >= rangeBegins[i] + patternLengths[i]) {
+                    matched[i >> 6] |= 1L << i;
+                }
+            }
+        }
+        return matched;
+    }
+
+    private void setOutputs(int state, List<Integer> own, int[] inherited) {
+        if (own.isEmpty()) {
+            outputs[state] = inherited;
+            return;
+        }
+        int[] out = inherited == null ? new int[0] : inherited;
+        out = Arrays.copyOf(out, out.length + own.size());
+        for (int i = 0; i < own.size(); i++) {
+            out[out.length - own.size() + i] = own.get(i);
+        }
+        outputs[state] = out;
+    }
+
+    private static int[] newRow(int cols) {
+        int[] row = new int[cols];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    /**
+     * Same as {@link Character#toLowerCase(int)} on a sign-extended byte, as
+     * {@link MagicDetector} compares them: only ASCII letters change.
+     */
+    private static int toLowerCase(int b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+}
@@ -109,6 +109,10 @@ public final class MimeTypes implements Detector, Serializable {
      * Sorted list of all registered magics
      */
     private final List<Magic> magics = new ArrayList<>();
+    /**
+     * Index over {@link #magics}; rebuilt on first use after the magics change
+     */
+    private transient volatile MagicMatcher magicMatcher;
     /**
      * Sorted list of all registered rootXML
      */
@@ -228,17 +232,7 @@ public final class MimeTypes implements Detector, Serializable {
         }
 
         // Then, check for magic bytes
-        List<MimeType> result = new ArrayList<>(1);
-        int currentPriority = -1;
-        for (Magic magic : magics) {
-            if (currentPriority > 0 && currentPriority > magic.getPriority()) {
-                break;
-            }
-            if (magic.eval(data)) {
-                result.add(magic.getType());
-                currentPriority = magic.getPriority();
-            }
-        }
+        List<MimeType> result = getMagicMatcher().match(data);
 
         if (!result.isEmpty()) {
             for (int i = 0; i < result.size(); i++) {
@@ -477,6 +471,7 @@ public final class MimeTypes implements Detector, Serializable {
         // Update the magics index...
         if (type.hasMagic()) {
             magics.addAll(type.getMagics());
+            magicMatcher = null;
         }
 
         // Update the xml (xmlRoot) index...
@@ -498,6 +493,17 @@ public final class MimeTypes implements Detector, Serializable {
         }
         Collections.sort(magics);
         Collections.sort(xmls);
+        //built on first detection, so that a broken magic fails there as before
+        magicMatcher = null;
+    }
+
+    private MagicMatcher getMagicMatcher() {
+        MagicMatcher matcher = magicMatcher;
+        if (matcher == null) {
+            matcher = new MagicMatcher(magics);
+            magicMatcher = matcher;
+        }
+        return matcher;
     }
 
     /**
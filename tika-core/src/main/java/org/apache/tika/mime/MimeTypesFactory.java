@@ -20,10 +20,13 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
 import org.w3c.dom.Document;
 
 /**
@@ -37,6 +40,10 @@ public class MimeTypesFactory {
      */
     public static final String CUSTOM_MIMES_SYS_PROP = "tika.custom-mimetypes";
 
+    static final String CORE_FILE = "tika-mimetypes.xml";
+
+    static final String EXTENSION_FILE = "custom-mimetypes.xml";
+
     /**
      * Creates an empty instance; same as calling new MimeTypes().
      *
@@ -150,6 +157,8 @@ public class MimeTypesFactory {
      * loader in getResource().
      * It will also load custom mimetypes from the system property
      * {@link #CUSTOM_MIMES_SYS_PROP}, if specified.
+     * If the {@link org.apache.tika.config.TikaStartupCache startup cache} has a
+     * {@link MimeTypesSnapshot} of the same files, the types are read from that.
      *
      * @param coreFilePath      The main MimeTypes file to load
      * @param extensionFilePath The name of extension MimeType files to load afterwards
@@ -158,6 +167,25 @@ public class MimeTypesFactory {
      */
     public static MimeTypes create(String coreFilePath, String extensionFilePath,
                                    ClassLoader classLoader) throws IOException, MimeTypeException {
+        URL[] urls = getURLs(coreFilePath, extensionFilePath, classLoader);
+        Path snapshot = MimeTypesSnapshot.getSnapshot();
+        if (snapshot == null) {
+            return create(urls);
+        }
+        byte[][] sources = readAll(urls);
+        MimeTypes types = MimeTypesSnapshot.read(snapshot, sources);
+        if (types != null) {
+            return types;
+        }
+        InputStream[] streams = new InputStream[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            streams[i] = new UnsynchronizedByteArrayInputStream(sources[i]);
+        }
+        return create(streams);
+    }
+
+    static URL[] getURLs(String coreFilePath, String extensionFilePath,
+                         ClassLoader classLoader) throws IOException {
         // If no specific classloader was requested, use our own class's one
         if (classLoader == null) {
             classLoader = MimeTypesReader.class.getClassLoader();
@@ -188,6 +216,16 @@ public class MimeTypesFactory {
             urls.add(externalURL);
         }
 
-        return create(urls.toArray(new URL[0]));
+        return urls.toArray(new URL[0]);
+    }
+
+    static byte[][] readAll(URL[] urls) throws IOException {
+        byte[][] sources = new byte[urls.length][];
+        for (int i = 0; i < urls.length; i++) {
+            try (InputStream stream = urls[i].openStream()) {
+                sources[i] = IOUtils.toByteArray(stream);
+            }
+        }
+        return sources;
     }
 }
@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import org.apache.tika.config.TikaStartupCache;
+
+/**
+ * The SAX events of the media type definitions, as written by
+ * {@link org.apache.tika.config.TikaStartupCache}. Replaying them into a
+ * {@link MimeTypesReader} builds the same {@link MimeTypes} as parsing the
+ * XML, without an XML parser.
+ * <p>
+ * The snapshot records the length and checksum of each definition file it
+ * was made from, and is only used if the files haven't changed.
+ *
+ * @since Apache Tika 2.7.0
+ */
+public final class MimeTypesSnapshot {
+
+    public static final String FILE_NAME = "mimetypes.bin";
+
+    private static final Logger LOG = LoggerFactory.getLogger(MimeTypesSnapshot.class);
+
+    private static final int MAGIC = 0x544d5453;
+    private static final int VERSION = 1;
+
+    private static final byte END = 0;
+    private static final byte START_ELEMENT = 1;
+    private static final byte END_ELEMENT = 2;
+    private static final byte CHARACTERS = 3;
+
+    private MimeTypesSnapshot() {
+    }
+
+    /**
+     * Writes the snapshot of the definitions that
+     * {@link MimeTypes#getDefaultMimeTypes(ClassLoader)} reads.
+     *
+     * @param file        where to write the snapshot
+     * @param classLoader to use, if not the default
+     * @throws MimeTypeException if the definitions are invalid
+     */
+    public static void write(Path file, ClassLoader classLoader)
+            throws IOException, MimeTypeException {
+        write(file, MimeTypesFactory.readAll(MimeTypesFactory.getURLs(
+                MimeTypesFactory.CORE_FILE, MimeTypesFactory.EXTENSION_FILE, classLoader)));
+    }
+
+    static void write(Path file, byte[][] sources) throws IOException, MimeTypeException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeHeader(out, sources);
+        Recorder recorder = new Recorder(out);
+        for (byte[] source : sources) {
+            recorder.read(new UnsynchronizedByteArrayInputStream(source));
+        }
+        recorder.flushCharacters();
+        out.writeByte(END);
+        out.flush();
+
+        //written next to the file and then moved, as forked processes may be reading it
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), FILE_NAME, ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                bytes.writeTo(os);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return the snapshot in the startup cache directory, or <code>null</code>
+     * if there isn't one
+     */
+    static Path getSnapshot() {
+        Path dir = TikaStartupCache.getDirectory();
+        if (dir == null) {
+            return null;
+        }
+        Path file = dir.resolve(FILE_NAME);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * @param file    the snapshot
+     * @param sources the definitions that the snapshot should have been made from
+     * @return the types, or <code>null</code> if the snapshot was made from
+     * other definitions
+     * @throws MimeTypeException if the definitions are invalid
+     */
+    static MimeTypes read(Path file, byte[][] sources) throws IOException, MimeTypeException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (!readHeader(in, sources)) {
+                LOG.warn("Ignoring the media types snapshot {}, which was made from other " +
+                        "definitions", file);
+                return null;
+            }
+            MimeTypes types = new MimeTypes();
+            MimeTypesReader reader = new MimeTypesReader(types);
+            List<String> strings = new ArrayList<>();
+            AttributesImpl attributes = new AttributesImpl();
+            for (byte event = in.get(); event != END; event = in.get()) {
+                if (event == START_ELEMENT) {
+                    String qName = readString(in, strings);
+                    attributes.clear();
+                    for (int i = in.getShort(); i > 0; i--) {
+                        String name = readString(in, strings);
+                        attributes.addAttribute("", name, name, "CDATA",
+                                readString(in, strings));
+                    }
+                    reader.startElement("", qName, qName, attributes);
+                } else if (event == END_ELEMENT) {
+                    String qName = readString(in, strings);
+                    reader.endElement("", qName, qName);
+                } else if (event == CHARACTERS) {
+                    char[] chars = readString(in, strings).toCharArray();
+                    reader.characters(chars, 0, chars.length);
+                } else {
+                    throw new IOException("Corrupt media types snapshot: " + file);
+                }
+            }
+            types.init();
+            return types;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt media types snapshot: " + file, e);
+        } catch (SAXException e) {
+            throw new MimeTypeException("Invalid type configuration", e);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, byte[][] sources)
+            throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(sources.length);
+        for (byte[] source : sources) {
+            out.writeInt(source.length);
+            out.writeLong(checksum(source));
+        }
+    }
+
+    private static boolean readHeader(ByteBuffer in, byte[][] sources) {
+        if (in.remaining() < 12 || in.getInt() != MAGIC || in.getInt() != VERSION ||
+                in.getInt() != sources.length) {
+            return false;
+        }
+        for (byte[] source : sources) {
+            if (in.getInt() != source.length || in.getLong() != checksum(source)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long checksum(byte[] source) {
+        CRC32 crc = new CRC32();
+        crc.update(source, 0, source.length);
+        return crc.getValue();
+    }
+
+    //a string is either the index of one read before, or -1 and its UTF-8 bytes
+    private static String readString(ByteBuffer in, List<String> strings) {
+        int index = in.getInt();
+        if (index >= 0) {
+            return strings.get(index);
+        }
+        int length = in.getInt();
+        String s = new String(in.array(), in.position(), length, UTF_8);
+        in.position(in.position() + length);
+        strings.add(s);
+        return s;
+    }
+
+    /**
+     * Reads the definitions as usual, and writes down the events
+     */
+    private static class Recorder extends MimeTypesReader {
+
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final StringBuilder text = new StringBuilder();
+
+        Recorder(DataOutputStream out) {
+            super(new MimeTypes());
+            this.out = out;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName,
+                                 Attributes attributes) throws SAXException {
+            try {
+                flushCharacters();
+                out.writeByte(START_ELEMENT);
+                writeString(qName);
+                out.writeShort(attributes.getLength());
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    writeString(attributes.getQName(i));
+                    writeString(attributes.getValue(i));
+                }
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+            super.startElement(uri, localName, qName, attributes);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            try {
+                flushCharacters();
+                out.writeByte(END_ELEMENT);
+                writeString(qName);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            super.endElement(uri, localName, qName);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            text.append(ch, start, length);
+            super.characters(ch, start, length);
+        }
+
+        /**
+         * Writes the text since the last element event, unless it is only
+         * the whitespace between elements
+         */
+        void flushCharacters() throws IOException {
+            if (text.toString().trim().length() > 0) {
+                out.writeByte(CHARACTERS);
+                writeString(text.toString());
+            }
+            text.setLength(0);
+        }
+
+        private void writeString(String s) throws IOException {
+            Integer index = strings.get(s);
+            if (index != null) {
+                out.writeInt(index);
+                return;
+            }
+            strings.put(s, strings.size());
+            byte[] bytes = s.getBytes(UTF_8);
+            out.writeInt(-1);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
@@ -49,6 +49,14 @@ class MinShouldMatchClause implements Clause {
         this.clauses = clauses;
     }
 
+    int getMin() {
+        return min;
+    }
+
+    List<Clause> getClauses() {
+        return clauses;
+    }
+
     public boolean eval(byte[] data) {
         int matches = 0;
         for (Clause clause : clauses) {
@@ -18,6 +18,7 @@ package org.apache.tika.parser;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
 
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -33,6 +34,8 @@ import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.HttpHeaders;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.metrics.ParseMetrics;
+import org.apache.tika.metrics.TimingContentHandler;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.mime.MediaTypeRegistry;
 import org.apache.tika.sax.SecureContentHandler;
@@ -108,8 +111,10 @@ public class AutoDetectParser extends CompositeParser {
         if (config.getAutoDetectParserConfig().getDigesterFactory() == null) {
             return fallback;
         } else {
-            return new DigestingParser(fallback,
-                    config.getAutoDetectParserConfig().getDigesterFactory().build());
+            DigestingParser.DigesterFactory digesterFactory =
+                    config.getAutoDetectParserConfig().getDigesterFactory();
+            return new DigestingParser(fallback, digesterFactory.build(),
+                    digesterFactory.isDigestDuringParse());
         }
 
     }
@@ -118,8 +123,10 @@ public class AutoDetectParser extends CompositeParser {
         if (config.getAutoDetectParserConfig().getDigesterFactory() == null) {
             return config.getParser();
         }
-        return new DigestingParser(config.getParser(),
-                config.getAutoDetectParserConfig().getDigesterFactory().build());
+        DigestingParser.DigesterFactory digesterFactory =
+                config.getAutoDetectParserConfig().getDigesterFactory();
+        return new DigestingParser(config.getParser(), digesterFactory.build(),
+                digesterFactory.isDigestDuringParse());
     }
 
     /**
@@ -168,7 +175,15 @@ public class AutoDetectParser extends CompositeParser {
             maybeSpool(tis, autoDetectParserConfig, metadata);
 
             // Automatically detect the MIME type of the document
+            long start = startTimer();
             MediaType type = detector.detect(tis, metadata);
+            if (start != ParseMetrics.DISABLED) {
+                long nanos = System.nanoTime() - start;
+                ParseMetrics.recordTime(ParseMetrics.DETECT, nanos, detector.getClass().getName());
+                if (autoDetectParserConfig.isRecordTimings()) {
+                    metadata.set(TikaCoreProperties.DETECT_TIME_MILLIS, toMillis(nanos));
+                }
+            }
             //update CONTENT_TYPE as long as it wasn't set by parser override
             if (metadata.get(TikaCoreProperties.CONTENT_TYPE_PARSER_OVERRIDE) == null ||
                     !metadata.get(TikaCoreProperties.CONTENT_TYPE_PARSER_OVERRIDE)
@@ -184,6 +199,12 @@ public class AutoDetectParser extends CompositeParser {
                 tis.reset();
             }
             handler = decorateHandler(handler, metadata, context, autoDetectParserConfig);
+            start = startTimer();
+            TimingContentHandler timingHandler = null;
+            if (handler != null && start != ParseMetrics.DISABLED && isContainer(context)) {
+                timingHandler = new TimingContentHandler(handler);
+                handler = timingHandler;
+            }
             // TIKA-216: Zip bomb prevention
             SecureContentHandler sch = handler != null ?
                     createSecureContentHandler(handler, tis, autoDetectParserConfig) : null;
@@ -197,12 +218,46 @@ public class AutoDetectParser extends CompositeParser {
                 // Convert zip bomb exceptions to TikaExceptions
                 sch.throwIfCauseOf(e);
                 throw e;
+            } finally {
+                if (start != ParseMetrics.DISABLED) {
+                    recordTimings(start, timingHandler, metadata);
+                }
             }
         } finally {
             tmp.dispose();
         }
     }
 
+    private long startTimer() {
+        return autoDetectParserConfig.isRecordTimings() ? System.nanoTime() :
+                ParseMetrics.start();
+    }
+
+    private static boolean isContainer(ParseContext context) {
+        ParseRecord parseRecord = context.get(ParseRecord.class);
+        return parseRecord == null || parseRecord.getDepth() == 0;
+    }
+
+    private void recordTimings(long start, TimingContentHandler timingHandler,
+                               Metadata metadata) {
+        boolean inMetadata = autoDetectParserConfig.isRecordTimings();
+        if (inMetadata) {
+            metadata.set(TikaCoreProperties.PARSER_TIME_MILLIS,
+                    toMillis(System.nanoTime() - start));
+        }
+        if (timingHandler != null) {
+            ParseMetrics.recordTime(ParseMetrics.HANDLER, timingHandler.getNanos());
+            if (inMetadata) {
+                metadata.set(TikaCoreProperties.HANDLER_TIME_MILLIS,
+                        toMillis(timingHandler.getNanos()));
+            }
+        }
+    }
+
+    private static String toMillis(long nanos) {
+        return Long.toString(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
     private ContentHandler decorateHandler(ContentHandler handler, Metadata metadata,
                                            ParseContext context,
                                            AutoDetectParserConfig autoDetectParserConfig) {
@@ -27,6 +27,7 @@ import org.apache.tika.exception.TikaConfigException;
 import org.apache.tika.extractor.EmbeddedDocumentExtractorFactory;
 import org.apache.tika.extractor.ParsingEmbeddedDocumentExtractorFactory;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.metadata.writefilter.MetadataWriteFilterFactory;
 import org.apache.tika.sax.ContentHandlerDecoratorFactory;
 
@@ -100,6 +101,12 @@ public class AutoDetectParserConfig extends ConfigBase implements Serializable {
 
     private DigestingParser.DigesterFactory digesterFactory = null;
 
+    /**
+     * Whether to record the detection, parse and content handler times
+     * of each document in its metadata.
+     */
+    private boolean recordTimings = false;
+
     /**
      * Creates a SecureContentHandlerConfig using the passed in parameters.
      *
@@ -198,6 +205,20 @@ public class AutoDetectParserConfig extends ConfigBase implements Serializable {
         return this.digesterFactory;
     }
 
+    public boolean isRecordTimings() {
+        return recordTimings;
+    }
+
+    /**
+     * @param recordTimings whether to set {@link TikaCoreProperties#DETECT_TIME_MILLIS},
+     *                      {@link TikaCoreProperties#PARSER_TIME_MILLIS} and
+     *                      {@link TikaCoreProperties#HANDLER_TIME_MILLIS} in the metadata
+     *                      of each document
+     */
+    public void setRecordTimings(boolean recordTimings) {
+        this.recordTimings = recordTimings;
+    }
+
     @Override
     public String toString() {
         return "AutoDetectParserConfig{" + "spoolToDisk=" + spoolToDisk + ", outputThreshold=" +
@@ -206,7 +227,8 @@ public class AutoDetectParserConfig extends ConfigBase implements Serializable {
                 maximumPackageEntryDepth + ", metadataWriteFilterFactory=" +
                 metadataWriteFilterFactory + ", embeddedDocumentExtractorFactory=" +
                 embeddedDocumentExtractorFactory + ", contentHandlerDecoratorFactory=" +
-                contentHandlerDecoratorFactory + ", digesterFactory=" + digesterFactory + '}';
+                contentHandlerDecoratorFactory + ", digesterFactory=" + digesterFactory +
+                ", recordTimings=" + recordTimings + '}';
     }
 }
 
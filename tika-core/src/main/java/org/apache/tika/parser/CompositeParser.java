@@ -36,6 +36,7 @@ import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.metrics.ParseMetrics;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.mime.MediaTypeRegistry;
 import org.apache.tika.sax.TaggedContentHandler;
@@ -70,6 +71,17 @@ public class CompositeParser extends AbstractParser {
      */
     private Parser fallback = new EmptyParser();
 
+    /**
+     * Index of the component parsers by media type, built on first use.
+     */
+    private transient volatile ParserIndex index;
+
+    /**
+     * Whether a subclass overrides {@link #getParsers(ParseContext)}, in
+     * which case the index may not match what that method returns.
+     */
+    private final boolean getParsersOverridden = overridesGetParsers(getClass());
+
     public CompositeParser(MediaTypeRegistry registry, List<Parser> parsers,
                            Collection<Class<? extends Parser>> excludeParsers) {
         if (excludeParsers == null || excludeParsers.isEmpty()) {
@@ -97,6 +109,15 @@ public class CompositeParser extends AbstractParser {
         this(new MediaTypeRegistry());
     }
 
+    private static boolean overridesGetParsers(Class<?> clazz) {
+        try {
+            return clazz.getMethod("getParsers", ParseContext.class).getDeclaringClass() !=
+                    CompositeParser.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
     public Map<MediaType, Parser> getParsers(ParseContext context) {
         Map<MediaType, Parser> map = new HashMap<>();
         for (Parser parser : parsers) {
@@ -172,6 +193,7 @@ public class CompositeParser extends AbstractParser {
      */
     public void setMediaTypeRegistry(MediaTypeRegistry registry) {
         this.registry = registry;
+        this.index = null;
     }
 
     /**
@@ -203,6 +225,7 @@ public class CompositeParser extends AbstractParser {
             this.parsers.add(ParserDecorator
                     .withTypes(entry.getValue(), Collections.singleton(entry.getKey())));
         }
+        this.index = null;
     }
 
     /**
@@ -221,6 +244,42 @@ public class CompositeParser extends AbstractParser {
      */
     public void setFallback(Parser fallback) {
         this.fallback = fallback;
+        this.index = null;
+    }
+
+    /**
+     * Whether {@link #getParser(Metadata, ParseContext)} and
+     * {@link #getSupportedTypes(ParseContext)} can use an index of the component
+     * parsers' supported types that is built once, instead of calling
+     * {@link #getParsers(ParseContext)} every time. This is the case unless a
+     * subclass overrides {@link #getParsers(ParseContext)}; such subclasses can
+     * override this method if the index still matches.
+     * <p>
+     * The index doesn't see changes to the component parsers other than through
+     * {@link #setParsers(Map)}.
+     *
+     * @return whether to use the index
+     */
+    protected boolean isIndexed() {
+        return !getParsersOverridden;
+    }
+
+    /**
+     * @return whether the supported types of this parser may depend on the
+     * parse context, because one of the component parsers' does
+     * @see ContextDependentParser
+     */
+    boolean isContextDependent() {
+        return !isIndexed() || getIndex().isContextDependent();
+    }
+
+    private ParserIndex getIndex() {
+        ParserIndex current = index;
+        if (current == null) {
+            current = new ParserIndex(registry, parsers);
+            index = current;
+        }
+        return current;
     }
 
     /**
@@ -241,17 +300,12 @@ public class CompositeParser extends AbstractParser {
     }
 
     protected Parser getParser(Metadata metadata, ParseContext context) {
-        Map<MediaType, Parser> map = getParsers(context);
-        //check for parser override first
-        String contentTypeString = metadata.get(TikaCoreProperties.CONTENT_TYPE_PARSER_OVERRIDE);
-        if (contentTypeString == null) {
-            contentTypeString = metadata.get(Metadata.CONTENT_TYPE);
-        }
-        MediaType type = MediaType.parse(contentTypeString);
-        if (type != null) {
-            // We always work on the normalised, canonical form
-            type = registry.normalize(type);
+        MediaType type = getType(metadata);
+        if (isIndexed()) {
+            Parser parser = type == null ? null : getIndex().find(type, context);
+            return parser != null ? parser : fallback;
         }
+        Map<MediaType, Parser> map = getParsers(context);
         while (type != null) {
             // Try finding a parser for the type
             Parser parser = map.get(type);
@@ -265,7 +319,28 @@ public class CompositeParser extends AbstractParser {
         return fallback;
     }
 
+    /**
+     * @return the normalised type that the parser of a document is chosen by,
+     * or <code>null</code> if the document has none
+     */
+    private MediaType getType(Metadata metadata) {
+        //check for parser override first
+        String contentTypeString = metadata.get(TikaCoreProperties.CONTENT_TYPE_PARSER_OVERRIDE);
+        if (contentTypeString == null) {
+            contentTypeString = metadata.get(Metadata.CONTENT_TYPE);
+        }
+        MediaType type = MediaType.parse(contentTypeString);
+        if (type != null) {
+            // We always work on the normalised, canonical form
+            type = registry.normalize(type);
+        }
+        return type;
+    }
+
     public Set<MediaType> getSupportedTypes(ParseContext context) {
+        if (isIndexed()) {
+            return getIndex().getSupportedTypes(context);
+        }
         return getParsers(context).keySet();
     }
 
@@ -293,7 +368,16 @@ public class CompositeParser extends AbstractParser {
             String parserClassname = ParserUtils.getParserClassname(parser);
             parserRecord.addParserClass(parserClassname);
             ParserUtils.recordParserDetails(parserClassname, metadata);
+            //a nested composite parser only dispatches the document again, the
+            //document is timed when it reaches the parser that does the work
+            boolean dispatched = isComposite(parser);
+            int embeddedDepth = parserRecord.getEmbeddedDepth();
+            long start = dispatched ? ParseMetrics.DISABLED : ParseMetrics.start();
+            String type = start == ParseMetrics.DISABLED ? null : getMetricsType(metadata);
             parserRecord.beforeParse();
+            if (!dispatched) {
+                parserRecord.beforeDocumentParse();
+            }
             try {
                 parser.parse(taggedStream, taggedHandler, metadata, context);
             } catch (SecurityException e) {
@@ -310,6 +394,14 @@ public class CompositeParser extends AbstractParser {
                 throw new TikaException("TIKA-237: Illegal SAXException from " + parser, e);
             } catch (RuntimeException e) {
                 throw new TikaException("Unexpected RuntimeException from " + parser, e);
+            } finally {
+                if (!dispatched) {
+                    parserRecord.afterDocumentParse();
+                }
+                if (start != ParseMetrics.DISABLED) {
+                    ParseMetrics.stop(start, ParseMetrics.PARSE, parserClassname, type,
+                            Integer.toString(embeddedDepth));
+                }
             }
         } finally {
             tmp.dispose();
@@ -321,6 +413,22 @@ public class CompositeParser extends AbstractParser {
         }
     }
 
+    private static boolean isComposite(Parser parser) {
+        while (parser instanceof ParserDecorator) {
+            parser = ((ParserDecorator) parser).getWrappedParser();
+        }
+        return parser instanceof CompositeParser;
+    }
+
+    /**
+     * @return the base type that the parser was chosen by, without parameters
+     * such as the charset that the parser may add to the content type
+     */
+    private String getMetricsType(Metadata metadata) {
+        MediaType type = getType(metadata);
+        return type == null ? MediaType.OCTET_STREAM.toString() : type.getBaseType().toString();
+    }
+
     private void recordEmbeddedMetadata(Metadata metadata, ParseContext context) {
         ParseRecord record = context.get(ParseRecord.class);
         if (record == null) {
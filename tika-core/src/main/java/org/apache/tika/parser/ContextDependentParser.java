@@ -0,0 +1,30 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+/**
+ * Marker for parsers whose {@link Parser#getSupportedTypes(ParseContext)}
+ * depends on the parse context.
+ * <p>
+ * A {@link CompositeParser} asks its other component parsers for their
+ * supported types once, and looks parsers up in an index built from them.
+ * The supported types of parsers with this marker are asked for on every
+ * lookup, and an index is built for each distinct set of types that they
+ * return.
+ */
+public interface ContextDependentParser extends Parser {
+}
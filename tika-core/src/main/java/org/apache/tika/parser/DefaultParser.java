@@ -166,6 +166,15 @@ public class DefaultParser extends CompositeParser {
         return map;
     }
 
+    /**
+     * The dynamic service providers can come and go, so only the static ones
+     * can be indexed.
+     */
+    @Override
+    protected boolean isIndexed() {
+        return loader == null || !loader.isDynamic();
+    }
+
     @Override
     public List<Parser> getAllComponentParsers() {
         List<Parser> parsers = super.getAllComponentParsers();
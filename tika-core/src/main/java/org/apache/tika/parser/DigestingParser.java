@@ -28,19 +28,43 @@ import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metrics.ParseMetrics;
+import org.apache.tika.parser.digest.DigestingInputStream;
 
 public class DigestingParser extends ParserDecorator {
 
     private final Digester digester;
 
+    private final boolean digestDuringParse;
+
     /**
      * Creates a decorator for the given parser.
      *
      * @param parser the parser instance to be decorated
      */
     public DigestingParser(Parser parser, Digester digester) {
+        this(parser, digester, false);
+    }
+
+    /**
+     * Creates a decorator for the given parser.
+     * <p>
+     * If <code>digestDuringParse</code> is true, and the digester is a
+     * {@link StreamingDigester}, a stream that is not backed by a file is
+     * digested as the parser reads it, and what the parser leaves unread
+     * is digested after the parse, rather than being read (and spooled to a
+     * temporary file if longer than the mark limit) before it. The digests
+     * are then only set in the metadata once the parse is over, and so are
+     * not written out by the handler with the rest of the metadata.
+     *
+     * @param parser            the parser instance to be decorated
+     * @param digestDuringParse whether to digest the stream while it is parsed
+     * @since Apache Tika 2.7.0
+     */
+    public DigestingParser(Parser parser, Digester digester, boolean digestDuringParse) {
         super(parser);
         this.digester = digester;
+        this.digestDuringParse = digestDuringParse;
     }
 
     @Override
@@ -49,8 +73,19 @@ public class DigestingParser extends ParserDecorator {
         TemporaryResources tmp = new TemporaryResources();
         TikaInputStream tis = TikaInputStream.get(stream, tmp, metadata);
         try {
+            DigestingInputStream tee = null;
+            if (digestDuringParse && digester instanceof StreamingDigester && !tis.hasFile() &&
+                    tis.getOpenContainer() == null) {
+                tee = ((StreamingDigester) digester).tee(tis);
+            }
+            if (tee != null) {
+                parseAndDigest(tee, tmp, handler, metadata, context);
+                return;
+            }
             if (digester != null) {
+                long start = ParseMetrics.start();
                 digester.digest(tis, metadata, context);
+                ParseMetrics.stop(start, ParseMetrics.DIGEST, digester.getClass().getName());
             }
             super.parse(tis, handler, metadata, context);
         } finally {
@@ -58,12 +93,40 @@ public class DigestingParser extends ParserDecorator {
         }
     }
 
+    private void parseAndDigest(DigestingInputStream tee, TemporaryResources tmp,
+                                ContentHandler handler, Metadata metadata,
+                                ParseContext context)
+            throws IOException, SAXException, TikaException {
+        boolean parsed = false;
+        try {
+            super.parse(TikaInputStream.get(tee, tmp, metadata), handler, metadata, context);
+            parsed = true;
+        } finally {
+            try {
+                tee.finish(metadata);
+            } catch (IOException e) {
+                //don't hide the exception from the parser
+                if (parsed) {
+                    throw e;
+                }
+            }
+        }
+    }
+
     /**
      * This is used in {@link AutoDetectParserConfig} to (optionally)
      * wrap the parser in a digesting parser.
      */
     public interface DigesterFactory {
         Digester build();
+
+        /**
+         * @return whether the digests are computed while the document is
+         * parsed, see {@link DigestingParser#DigestingParser(Parser, Digester, boolean)}
+         */
+        default boolean isDigestDuringParse() {
+            return false;
+        }
     }
 
         /**
@@ -91,6 +154,20 @@ public class DigestingParser extends ParserDecorator {
         void digest(InputStream is, Metadata m, ParseContext parseContext) throws IOException;
     }
 
+    /**
+     * Digester that can also digest the bytes of a stream as they are read,
+     * see {@link DigestingParser#DigestingParser(Parser, Digester, boolean)}.
+     */
+    public interface StreamingDigester extends Digester {
+        /**
+         * @param is stream to digest
+         * @return stream that reads from the given one and digests the bytes read,
+         * or <code>null</code> if the stream can only be digested with
+         * {@link #digest(InputStream, Metadata, ParseContext)}
+         */
+        DigestingInputStream tee(InputStream is);
+    }
+
     /**
      * Encodes byte array from a MessageDigest to String
      */
@@ -41,6 +41,7 @@ public class ParseRecord {
     private static final int MAX_METADATA_LIST_SIZE = 100;
 
     private int depth = 0;
+    private int embeddedDepth = 0;
     private final Set<String> parsers = new LinkedHashSet<>();
 
     private final List<Exception> exceptions = new ArrayList<>();
@@ -59,10 +60,30 @@ public class ParseRecord {
         depth--;
     }
 
+    /**
+     * @return the number of nested {@link CompositeParser} calls in progress,
+     * including those of composite parsers within composite parsers
+     */
     public int getDepth() {
         return depth;
     }
 
+    void beforeDocumentParse() {
+        embeddedDepth++;
+    }
+
+    void afterDocumentParse() {
+        embeddedDepth--;
+    }
+
+    /**
+     * @return the number of documents that the document about to be parsed
+     * is embedded in: 0 for the container, 1 for its embedded documents, etc.
+     */
+    public int getEmbeddedDepth() {
+        return embeddedDepth;
+    }
+
     public String[] getParsers() {
         return parsers.toArray(new String[0]);
     }
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+
+/**
+ * The media types of the component parsers of a {@link CompositeParser}, as
+ * {@link CompositeParser#getParsers(ParseContext)} would map them.
+ * <p>
+ * The map is built once, rather than for every document. The supported types
+ * of {@link #isContextDependent(Parser) context dependent} parsers are asked
+ * for on every lookup, and a map is kept for each distinct combination of
+ * the types they return; these are usually constant sets, so there are only
+ * a few. Each map caches, by normalized type, the parser found by walking up
+ * the type hierarchy.
+ */
+class ParserIndex {
+
+    //more variants than this most likely means a parser returns a new set each time
+    private static final int MAX_VARIANTS = 8;
+
+    //bounds the cache if documents come with many distinct type parameters
+    private static final int MAX_RESOLVED = 10000;
+
+    //cached result for types that none of the parsers supports
+    private static final Parser NONE = new EmptyParser();
+
+    private final MediaTypeRegistry registry;
+    private final List<Parser> parsers;
+    private final Parser[] contextDependent;
+    private volatile Variant[] variants = new Variant[0];
+
+    ParserIndex(MediaTypeRegistry registry, List<Parser> parsers) {
+        this.registry = registry;
+        this.parsers = new ArrayList<>(parsers);
+        List<Parser> dependent = new ArrayList<>();
+        for (Parser parser : this.parsers) {
+            if (isContextDependent(parser)) {
+                dependent.add(parser);
+            }
+        }
+        this.contextDependent = dependent.toArray(new Parser[0]);
+    }
+
+    /**
+     * @return whether the parser's supported types may depend on the parse context
+     */
+    static boolean isContextDependent(Parser parser) {
+        if (parser instanceof ContextDependentParser) {
+            return true;
+        } else if (parser instanceof CompositeParser) {
+            return ((CompositeParser) parser).isContextDependent();
+        } else if (parser instanceof ParserDecorator) {
+            return isContextDependent(((ParserDecorator) parser).getWrappedParser());
+        }
+        return false;
+    }
+
+    boolean isContextDependent() {
+        return contextDependent.length > 0;
+    }
+
+    /**
+     * @return the parser for the normalized type or its closest supertype, or
+     * <code>null</code> if there is none
+     */
+    Parser find(MediaType type, ParseContext context) {
+        return getVariant(context).find(type);
+    }
+
+    /**
+     * @return the supported types; the same set as long as the context
+     * dependent parsers return the same sets
+     */
+    Set<MediaType> getSupportedTypes(ParseContext context) {
+        return getVariant(context).types;
+    }
+
+    private Variant getVariant(ParseContext context) {
+        Variant[] current = variants;
+        if (contextDependent.length == 0 && current.length == 1) {
+            return current[0];
+        }
+        Set<?>[] dependentTypes = new Set<?>[contextDependent.length];
+        for (int i = 0; i < contextDependent.length; i++) {
+            dependentTypes[i] = contextDependent[i].getSupportedTypes(context);
+        }
+        for (Variant variant : current) {
+            if (variant.matches(dependentTypes)) {
+                return variant;
+            }
+        }
+        Variant variant = new Variant(dependentTypes, context);
+        Variant[] updated;
+        if (current.length < MAX_VARIANTS) {
+            updated = new Variant[current.length + 1];
+            System.arraycopy(current, 0, updated, 1, current.length);
+        } else {
+            //drop the oldest
+            updated = new Variant[current.length];
+            System.arraycopy(current, 0, updated, 1, current.length - 1);
+        }
+        updated[0] = variant;
+        variants = updated;
+        return variant;
+    }
+
+    private class Variant {
+        private final Set<?>[] dependentTypes;
+        private final Map<MediaType, Parser> map = new HashMap<>();
+        private final Set<MediaType> types;
+        private final Map<MediaType, Parser> resolved = new ConcurrentHashMap<>();
+
+        Variant(Set<?>[] dependentTypes, ParseContext context) {
+            this.dependentTypes = dependentTypes;
+            int dependent = 0;
+            for (Parser parser : parsers) {
+                Set<?> supported;
+                if (dependent < contextDependent.length && parser == contextDependent[dependent]) {
+                    supported = dependentTypes[dependent++];
+                } else {
+                    supported = parser.getSupportedTypes(context);
+                }
+                for (Object type : supported) {
+                    map.put(registry.normalize((MediaType) type), parser);
+                }
+            }
+            this.types = Collections.unmodifiableSet(map.keySet());
+        }
+
+        boolean matches(Set<?>[] other) {
+            for (int i = 0; i < dependentTypes.length; i++) {
+                if (dependentTypes[i] != other[i] && !dependentTypes[i].equals(other[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Parser find(MediaType type) {
+            Parser parser = resolved.get(type);
+            if (parser == null) {
+                parser = NONE;
+                for (MediaType t = type; t != null; t = registry.getSupertype(t)) {
+                    Parser p = map.get(t);
+                    if (p != null) {
+                        parser = p;
+                        break;
+                    }
+                }
+                if (resolved.size() < MAX_RESOLVED) {
+                    resolved.put(type, parser);
+                }
+            }
+            return parser == NONE ? null : parser;
+        }
+    }
+}
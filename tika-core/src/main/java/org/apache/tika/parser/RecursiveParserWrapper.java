@@ -18,11 +18,15 @@ package org.apache.tika.parser;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 import org.apache.tika.exception.CorruptedFileException;
 import org.apache.tika.exception.EncryptedDocumentException;
@@ -35,7 +39,10 @@ import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.cache.CachedDocument;
+import org.apache.tika.parser.cache.ParseResultCache;
 import org.apache.tika.sax.AbstractRecursiveParserWrapperHandler;
+import org.apache.tika.sax.BasicContentHandlerFactory;
 import org.apache.tika.sax.ContentHandlerFactory;
 import org.apache.tika.sax.RecursiveParserWrapperHandler;
 import org.apache.tika.sax.SecureContentHandler;
@@ -69,6 +76,14 @@ import org.apache.tika.utils.ParserUtils;
  * Note that this wrapper holds all data in memory and is not appropriate
  * for files with content too large to be held in memory.
  * <p>
+ * If the {@link ParseContext} has a {@link ParseResultCache}, the results of
+ * the container and of each embedded document are looked up in it before
+ * they are parsed. This requires a {@link BasicContentHandlerFactory}
+ * without a write limit. The metadata of cached documents already has
+ * their content in the {@link TikaCoreProperties#TIKA_CONTENT} field, as
+ * the {@link RecursiveParserWrapperHandler} would add it, and the
+ * content handler that the wrapper handler gets for them is empty.
+ * <p>
  * The unit tests for this class are in the tika-parsers module.
  * </p>
  */
@@ -154,14 +169,37 @@ public class RecursiveParserWrapper extends ParserDecorator {
                 writeLimit = ((WriteLimiter)factory).getWriteLimit();
                 throwOnWriteLimitReached = ((WriteLimiter)factory).isThrowOnWriteLimitReached();
             }
+            //cached content is replayed without counting it against the write limit
+            ParseResultCache cache = context.get(ParseResultCache.class);
+            if (cache != null && writeLimit < 0 && factory instanceof BasicContentHandlerFactory) {
+                parserState.cache = cache;
+                parserState.handlerType = ((BasicContentHandlerFactory) factory).getType().name();
+            }
         }
+        ContentHandler endHandler = localHandler;
+        Recording recording = null;
+        boolean parsed = false;
         try {
             TikaInputStream tis = TikaInputStream.get(stream, tmp, metadata);
-            RecursivelySecureContentHandler secureContentHandler =
-                    new RecursivelySecureContentHandler(localHandler, tis, writeLimit,
-                            throwOnWriteLimitReached, context);
-            context.set(RecursivelySecureContentHandler.class, secureContentHandler);
-            getWrappedParser().parse(tis, secureContentHandler, metadata, context);
+            List<CachedDocument> cached = null;
+            if (parserState.cache != null) {
+                ParseResultCache.Key key =
+                        parserState.cache.getKey(tis, metadata, parserState.handlerType, writeLimit);
+                cached = parserState.cache.get(key);
+                if (cached != null) {
+                    endHandler = parserState.replay(cached, metadata, 0, "", "", 0);
+                } else {
+                    recording = parserState.startRecording(key, metadata, 0, "", "", 0);
+                }
+            }
+            if (cached == null) {
+                RecursivelySecureContentHandler secureContentHandler =
+                        new RecursivelySecureContentHandler(localHandler, tis, writeLimit,
+                                throwOnWriteLimitReached, context);
+                context.set(RecursivelySecureContentHandler.class, secureContentHandler);
+                getWrappedParser().parse(tis, secureContentHandler, metadata, context);
+            }
+            parsed = true;
         } catch (Throwable e) {
             if (e instanceof EncryptedDocumentException) {
                 metadata.set(TikaCoreProperties.IS_ENCRYPTED, "true");
@@ -177,7 +215,8 @@ public class RecursiveParserWrapper extends ParserDecorator {
             tmp.dispose();
             long elapsedMillis = System.currentTimeMillis() - started;
             metadata.set(TikaCoreProperties.PARSE_TIME_MILLIS, Long.toString(elapsedMillis));
-            parserState.recursiveParserWrapperHandler.endDocument(localHandler, metadata);
+            parserState.end(recording, parsed, endHandler, metadata);
+            parserState.recursiveParserWrapperHandler.endDocument(endHandler, metadata);
             parserState.recursiveParserWrapperHandler.endDocument();
         }
     }
@@ -253,8 +292,33 @@ public class RecursiveParserWrapper extends ParserDecorator {
             //so that you can return it back to its state at the end of this parse
             ContentHandler preContextHandler = secureContentHandler.handler;
             secureContentHandler.updateContentHandler(localHandler);
+            ContentHandler endHandler = localHandler;
+            Recording recording = null;
+            boolean parsed = false;
+            TemporaryResources tmp = new TemporaryResources();
             try {
-                super.parse(stream, secureContentHandler, metadata, context);
+                List<CachedDocument> cached = null;
+                if (parserState.cache != null) {
+                    TikaInputStream tis = TikaInputStream.get(stream, tmp, metadata);
+                    stream = tis;
+                    ParseResultCache.Key key = parserState.cache.getKey(tis, metadata,
+                            parserState.handlerType, -1);
+                    cached = parserState.cache.get(key);
+                    Integer depth = metadata.getInt(TikaCoreProperties.EMBEDDED_DEPTH);
+                    if (cached != null) {
+                        endHandler = parserState.replay(cached, metadata,
+                                parserState.embeddedCount, objectLocation, idPath,
+                                depth == null ? 0 : depth);
+                    } else {
+                        recording = parserState.startRecording(key, metadata,
+                                parserState.embeddedCount, objectLocation, idPath,
+                                depth == null ? 0 : depth);
+                    }
+                }
+                if (cached == null) {
+                    super.parse(stream, secureContentHandler, metadata, context);
+                }
+                parsed = true;
             } catch (SAXException e) {
                 if (WriteLimitReachedException.isWriteLimitReached(e)) {
                     metadata.add(TikaCoreProperties.WRITE_LIMIT_REACHED, "true");
@@ -274,19 +338,22 @@ public class RecursiveParserWrapper extends ParserDecorator {
                 }
                 if (context.get(ZeroByteFileException.IgnoreZeroByteFileException.class) != null &&
                         e instanceof ZeroByteFileException) {
-                    //do nothing
+                    //nothing to record
+                    parsed = true;
                 } else if (catchEmbeddedExceptions) {
                     ParserUtils.recordParserFailure(this, e, metadata);
                 } else {
                     throw e;
                 }
             } finally {
+                tmp.dispose();
                 context.set(Parser.class, preContextParser);
                 secureContentHandler.updateContentHandler(preContextHandler);
                 long elapsedMillis = System.currentTimeMillis() - started;
                 metadata.set(TikaCoreProperties.PARSE_TIME_MILLIS, Long.toString(elapsedMillis));
+                parserState.end(recording, parsed, endHandler, metadata);
                 parserState.recursiveParserWrapperHandler
-                        .endEmbeddedDocument(localHandler, metadata);
+                        .endEmbeddedDocument(endHandler, metadata);
             }
         }
     }
@@ -299,9 +366,203 @@ public class RecursiveParserWrapper extends ParserDecorator {
         private final AbstractRecursiveParserWrapperHandler recursiveParserWrapperHandler;
         private int unknownCount = 0;
         private int embeddedCount = 0;//this is effectively 1-indexed
+        private ParseResultCache cache = null;
+        private String handlerType = null;
+        //the documents being parsed, outermost first, whose results will be cached
+        private final List<Recording> recordings = new ArrayList<>();
         private ParserState(AbstractRecursiveParserWrapperHandler handler) {
             this.recursiveParserWrapperHandler = handler;
         }
+
+        private Recording startRecording(ParseResultCache.Key key, Metadata metadata, int id,
+                                         String path, String idPath, int depth) {
+            Recording recording = new Recording(key, metadata, id, path, idPath, depth);
+            recordings.add(recording);
+            return recording;
+        }
+
+        /**
+         * Adds the document to the results being recorded, and stores the
+         * result of the document if it is being recorded and can be cached.
+         */
+        private void end(Recording recording, boolean parsed, ContentHandler handler,
+                         Metadata metadata) {
+            if (!parsed) {
+                //the failure may not have been recorded in this document's metadata,
+                //but in its parent's
+                for (Recording r : recordings) {
+                    r.cacheable = false;
+                }
+            }
+            record(handler, metadata);
+            if (recording == null) {
+                return;
+            }
+            recordings.remove(recordings.size() - 1);
+            if (recording.cacheable &&
+                    !recursiveParserWrapperHandler.hasHitMaximumEmbeddedResources()) {
+                cache.put(recording.key, recording.documents);
+            }
+        }
+
+        private void record(ContentHandler handler, Metadata metadata) {
+            if (recordings.isEmpty()) {
+                return;
+            }
+            //as RecursiveParserWrapperHandler adds it
+            String content = null;
+            if (!handler.getClass().equals(DefaultHandler.class)) {
+                content = handler.toString();
+                if (content != null && content.trim().length() == 0) {
+                    content = null;
+                }
+            }
+            String handlerName = handler.getClass().getSimpleName();
+            for (Recording r : recordings) {
+                r.add(metadata, content, handlerName, cache.getMaxResultBytes());
+            }
+        }
+
+        /**
+         * Sends the cached embedded documents to the handler, with their
+         * locations below the document's, and sets the cached metadata of
+         * the document.
+         *
+         * @return the content handler for the document
+         */
+        private ContentHandler replay(List<CachedDocument> documents, Metadata metadata, int id,
+                                      String path, String idPath, int depth)
+                throws SAXException {
+            int last = documents.size() - 1;
+            int maxIdOffset = 0;
+            for (int i = 0; i < last; i++) {
+                CachedDocument document = documents.get(i);
+                maxIdOffset = Math.max(maxIdOffset, document.getIdOffset());
+                if (recursiveParserWrapperHandler.hasHitMaximumEmbeddedResources()) {
+                    continue;
+                }
+                Metadata embedded = new Metadata();
+                copy(document.getMetadata(), embedded);
+                embedded.set(TikaCoreProperties.EMBEDDED_RESOURCE_PATH, path + document.getPath());
+                StringBuilder embeddedIdPath = new StringBuilder(idPath);
+                for (int offset : document.getIdPathOffsets()) {
+                    embeddedIdPath.append('/').append(id + offset);
+                }
+                embedded.set(TikaCoreProperties.EMBEDDED_ID_PATH, embeddedIdPath.toString());
+                embedded.set(TikaCoreProperties.EMBEDDED_ID, id + document.getIdOffset());
+                ContentHandler handler = new DefaultHandler();
+                recursiveParserWrapperHandler.startEmbeddedDocument(handler, embedded);
+                embedded.set(TikaCoreProperties.EMBEDDED_DEPTH,
+                        depth + document.getDepthOffset());
+                record(handler, embedded);
+                recursiveParserWrapperHandler.endEmbeddedDocument(handler, embedded);
+            }
+            embeddedCount = id + maxIdOffset;
+            copy(documents.get(last).getMetadata(), metadata);
+            return new DefaultHandler();
+        }
+
+        private static void copy(Metadata from, Metadata to) {
+            for (String name : from.names()) {
+                to.remove(name);
+                for (String value : from.getValues(name)) {
+                    to.add(name, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * The result of a document, as it is recorded for the
+     * {@link ParseResultCache}.
+     */
+    private static class Recording {
+        private final ParseResultCache.Key key;
+        private final Metadata metadata;
+        private final Metadata before = new Metadata();
+        private final int id;
+        private final String path;
+        private final String idPath;
+        private final int depth;
+        private final List<CachedDocument> documents = new ArrayList<>();
+        private long bytes = 0;
+        private boolean cacheable = true;
+
+        private Recording(ParseResultCache.Key key, Metadata metadata, int id, String path,
+                          String idPath, int depth) {
+            this.key = key;
+            this.metadata = metadata;
+            this.id = id;
+            this.path = path;
+            this.idPath = idPath;
+            this.depth = depth;
+            ParserState.copy(metadata, before);
+        }
+
+        private void add(Metadata embedded, String content, String handlerName,
+                         long maxBytes) {
+            if (!cacheable) {
+                return;
+            }
+            bytes += content == null ? 0 : content.length();
+            if (bytes > maxBytes) {
+                cacheable = false;
+                documents.clear();
+                return;
+            }
+            Metadata cached = new Metadata();
+            if (content != null) {
+                cached.add(TikaCoreProperties.TIKA_CONTENT, content);
+                cached.add(TikaCoreProperties.TIKA_CONTENT_HANDLER, handlerName);
+            }
+            if (embedded == metadata) {
+                //only what the parse changed, so that the replayed document keeps
+                //the metadata it comes with
+                for (String name : embedded.names()) {
+                    String[] values = embedded.getValues(name);
+                    if (!ParseResultCache.isLocationField(name) &&
+                            !Arrays.equals(values, before.getValues(name))) {
+                        for (String value : values) {
+                            cached.add(name, value);
+                        }
+                    }
+                }
+                documents.add(new CachedDocument(cached, null, 0, new int[0], 0));
+                return;
+            }
+            String embeddedPath = embedded.get(TikaCoreProperties.EMBEDDED_RESOURCE_PATH);
+            String embeddedIdPath = embedded.get(TikaCoreProperties.EMBEDDED_ID_PATH);
+            Integer embeddedId = embedded.getInt(TikaCoreProperties.EMBEDDED_ID);
+            Integer embeddedDepth = embedded.getInt(TikaCoreProperties.EMBEDDED_DEPTH);
+            if (embeddedPath == null || !embeddedPath.startsWith(path) || embeddedIdPath == null ||
+                    !embeddedIdPath.startsWith(idPath) || embeddedId == null ||
+                    embeddedDepth == null) {
+                cacheable = false;
+                documents.clear();
+                return;
+            }
+            String[] ids = embeddedIdPath.substring(idPath.length()).split("/");
+            //the path starts with a slash
+            int[] idPathOffsets = new int[ids.length - 1];
+            try {
+                for (int i = 1; i < ids.length; i++) {
+                    idPathOffsets[i - 1] = Integer.parseInt(ids[i]) - id;
+                }
+            } catch (NumberFormatException e) {
+                cacheable = false;
+                documents.clear();
+                return;
+            }
+            for (String name : embedded.names()) {
+                if (!ParseResultCache.isLocationField(name)) {
+                    for (String value : embedded.getValues(name)) {
+                        cached.add(name, value);
+                    }
+                }
+            }
+            documents.add(new CachedDocument(cached, embeddedPath.substring(path.length()),
+                    embeddedId - id, idPathOffsets, embeddedDepth - depth));
+        }
     }
 
     static class RecursivelySecureContentHandler extends SecureContentHandler {
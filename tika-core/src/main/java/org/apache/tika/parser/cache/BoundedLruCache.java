@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Least recently used values, bounded by the total of their sizes rather
+ * than by their number. A value larger than the bound is not kept.
+ * The cache is thread safe.
+ *
+ * @param <V> type of the values
+ * @since Apache Tika 2.7.0
+ */
+public class BoundedLruCache<V> {
+
+    private final long maxBytes;
+    private final ToLongFunction<V> sizer;
+    private final LinkedHashMap<String, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    /**
+     * @param maxBytes bound on the total size of the values kept
+     * @param sizer    the size of a value
+     */
+    public BoundedLruCache(long maxBytes, ToLongFunction<V> sizer) {
+        this.maxBytes = maxBytes;
+        this.sizer = sizer;
+    }
+
+    /**
+     * @return the value, or <code>null</code> if there is none
+     */
+    public synchronized V get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Adds the value, then drops the least recently used values until the
+     * total fits the bound again.
+     */
+    public synchronized void put(String key, V value) {
+        long size = sizer.applyAsLong(value);
+        if (size > maxBytes) {
+            return;
+        }
+        V old = entries.put(key, value);
+        if (old != null) {
+            bytes -= sizer.applyAsLong(old);
+        }
+        bytes += size;
+        Iterator<V> it = entries.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= sizer.applyAsLong(it.next());
+            it.remove();
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return total size of the values kept
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * The result of parsing one document, as recorded for a
+ * {@link ParseResultCache}: its metadata, with the content that its handler
+ * wrote in the {@link org.apache.tika.metadata.TikaCoreProperties#TIKA_CONTENT}
+ * field.
+ * <p>
+ * The cached result of a document is a list with one of these for each of
+ * its embedded documents, in the order that their parses ended, and the
+ * document itself last. The location of an embedded document is relative
+ * to the document the result was cached for: its embedded id and depth are
+ * offsets from those of that document, and its resource path is the part
+ * after that document's path. The metadata holds neither of these fields.
+ */
+public class CachedDocument {
+
+    private static final int VERSION = 1;
+
+    private final Metadata metadata;
+    private final String path;
+    private final int idOffset;
+    private final int[] idPathOffsets;
+    private final int depthOffset;
+
+    /**
+     * @param metadata      metadata without the location fields
+     * @param path          resource path relative to the cached document, or
+     *                      <code>null</code> for the cached document itself
+     * @param idOffset      offset of the embedded id from that of the cached document
+     * @param idPathOffsets offsets of the ids in the embedded id path below
+     *                      the cached document
+     * @param depthOffset   offset of the embedded depth from that of the cached document
+     */
+    public CachedDocument(Metadata metadata, String path, int idOffset, int[] idPathOffsets,
+                          int depthOffset) {
+        this.metadata = metadata;
+        this.path = path;
+        this.idOffset = idOffset;
+        this.idPathOffsets = idPathOffsets;
+        this.depthOffset = depthOffset;
+    }
+
+    public Metadata getMetadata() {
+        return metadata;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getIdOffset() {
+        return idOffset;
+    }
+
+    public int[] getIdPathOffsets() {
+        return idPathOffsets;
+    }
+
+    public int getDepthOffset() {
+        return depthOffset;
+    }
+
+    static byte[] serialize(List<CachedDocument> documents) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            out.writeByte(VERSION);
+            out.writeInt(documents.size());
+            for (CachedDocument document : documents) {
+                writeString(out, document.path);
+                out.writeInt(document.idOffset);
+                out.writeInt(document.depthOffset);
+                out.writeInt(document.idPathOffsets.length);
+                for (int offset : document.idPathOffsets) {
+                    out.writeInt(offset);
+                }
+                String[] names = document.metadata.names();
+                out.writeInt(names.length);
+                for (String name : names) {
+                    writeString(out, name);
+                    String[] values = document.metadata.getValues(name);
+                    out.writeInt(values.length);
+                    for (String value : values) {
+                        writeString(out, value);
+                    }
+                }
+            }
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * @return the documents, or <code>null</code> if the bytes were written
+     * by an incompatible version
+     */
+    static List<CachedDocument> deserialize(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new UnsynchronizedByteArrayInputStream(bytes))) {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            int size = in.readInt();
+            List<CachedDocument> documents = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                String path = readString(in);
+                int idOffset = in.readInt();
+                int depthOffset = in.readInt();
+                int[] idPathOffsets = new int[in.readInt()];
+                for (int j = 0; j < idPathOffsets.length; j++) {
+                    idPathOffsets[j] = in.readInt();
+                }
+                Metadata metadata = new Metadata();
+                int names = in.readInt();
+                for (int j = 0; j < names; j++) {
+                    String name = readString(in);
+                    int values = in.readInt();
+                    for (int k = 0; k < values; k++) {
+                        metadata.add(name, readString(in));
+                    }
+                }
+                documents.add(new CachedDocument(metadata, path, idOffset, idPathOffsets,
+                        depthOffset));
+            }
+            return Collections.unmodifiableList(documents);
+        }
+    }
+
+    //writeUTF is limited to 64k, content isn't
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Least recently used entries, bounded by their total size, in direct
+ * buffers so that the cached bytes don't add to the heap that the parsers
+ * work in. The buffers are released when they are garbage collected;
+ * the total is limited by <code>-XX:MaxDirectMemorySize</code>.
+ */
+class OffHeapLruStore {
+
+    private final BoundedLruCache<ByteBuffer> entries;
+
+    OffHeapLruStore(long maxBytes) {
+        this.entries = new BoundedLruCache<>(maxBytes, ByteBuffer::capacity);
+    }
+
+    byte[] get(String key) {
+        ByteBuffer buffer = entries.get(key);
+        if (buffer == null) {
+            return null;
+        }
+        byte[] value = new byte[buffer.capacity()];
+        buffer.duplicate().get(value);
+        return value;
+    }
+
+    void put(String key, byte[] value) {
+        if (value.length > entries.getMaxBytes()) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(value.length);
+        buffer.put(value);
+        buffer.flip();
+        entries.put(key, buffer);
+    }
+
+    long getBytes() {
+        return entries.getBytes();
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
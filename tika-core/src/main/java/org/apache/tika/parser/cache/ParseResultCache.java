@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.tika.io.BoundedInputStream;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.RecursiveParserWrapper;
+import org.apache.tika.utils.StringUtils;
+
+/**
+ * Cache of the results of the {@link RecursiveParserWrapper}, keyed by the
+ * content of a document.
+ * <p>
+ * When one of these is in the {@link ParseContext}, the wrapper looks up
+ * the container and each embedded document before parsing it, and replays
+ * the cached metadata and content of the document and its embedded
+ * documents instead, if it finds them. The results of documents that are
+ * parsed are stored once their parse ends, unless they or one of their
+ * embedded documents failed, or the handler's limit on embedded resources
+ * was reached.
+ * <p>
+ * The key is a SHA-256 of the document's bytes, of the metadata it came
+ * with (but not of its location in a container), of the handler type and
+ * write limit, and of the fingerprint that the cache was created with.
+ * The fingerprint should identify the parser configuration and any
+ * per-request settings in the parse context that can change the results;
+ * results from parses with different settings must not share a cache
+ * with the same fingerprint.
+ * <p>
+ * Results are kept, serialized, in a least recently used store of direct
+ * buffers and optionally in segment files on disk, which can be shared by
+ * successive processes, but not by concurrent ones. The cache is thread safe.
+ */
+public class ParseResultCache implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParseResultCache.class);
+
+    //documents up to this size are digested in memory, bigger ones are spooled to disk
+    private static final int MARK_LIMIT = 1024 * 1024;
+
+
+    private static final String[] LOCATION_FIELDS =
+            {TikaCoreProperties.EMBEDDED_RESOURCE_PATH.getName(),
+                    TikaCoreProperties.EMBEDDED_ID_PATH.getName(),
+                    TikaCoreProperties.EMBEDDED_ID.getName(),
+                    TikaCoreProperties.EMBEDDED_DEPTH.getName()};
+
+    private final String fingerprint;
+    private final OffHeapLruStore memory;
+    private final SegmentStore disk;
+    private final long maxResultBytes;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong bytesSaved;
+
+    /**
+     * @param fingerprint    identifies the parser configuration
+     * @param maxMemoryBytes bound on the size of the results kept in memory
+     */
+    public ParseResultCache(String fingerprint, long maxMemoryBytes) {
+        this(fingerprint, new OffHeapLruStore(maxMemoryBytes), null, maxMemoryBytes,
+                new AtomicLong(), new AtomicLong(), new AtomicLong());
+    }
+
+    /**
+     * @param fingerprint    identifies the parser configuration
+     * @param maxMemoryBytes bound on the size of the results kept in memory
+     * @param directory      directory for the segment files; results stored
+     *                       there by earlier caches are available to this one
+     * @param maxDiskBytes   bound on the size of the segment files
+     * @throws IOException if the directory can't be created or read
+     */
+    public ParseResultCache(String fingerprint, long maxMemoryBytes, Path directory,
+                            long maxDiskBytes) throws IOException {
+        this(fingerprint, new OffHeapLruStore(maxMemoryBytes),
+                new SegmentStore(directory, maxDiskBytes), Math.max(maxMemoryBytes, maxDiskBytes),
+                new AtomicLong(), new AtomicLong(), new AtomicLong());
+    }
+
+    private ParseResultCache(String fingerprint, OffHeapLruStore memory, SegmentStore disk,
+                             long maxResultBytes, AtomicLong hits, AtomicLong misses,
+                             AtomicLong bytesSaved) {
+        this.fingerprint = fingerprint;
+        this.memory = memory;
+        this.disk = disk;
+        this.maxResultBytes = maxResultBytes;
+        this.hits = hits;
+        this.misses = misses;
+        this.bytesSaved = bytesSaved;
+    }
+
+    /**
+     * @param fingerprint identifies settings of a request that can change
+     *                    the results, e.g. its parser configuration headers
+     * @return a cache with the stores and statistics of this one, whose keys
+     * also depend on the given fingerprint
+     */
+    public ParseResultCache withFingerprint(String fingerprint) {
+        return new ParseResultCache(this.fingerprint + '\n' + fingerprint, memory, disk,
+                maxResultBytes, hits, misses, bytesSaved);
+    }
+
+    /**
+     * Computes the key of a document. This reads the stream and resets it;
+     * documents bigger than a megabyte are spooled to a temporary file.
+     *
+     * @param stream      the document
+     * @param metadata    the metadata that the document comes with
+     * @param handlerType the type of content handler
+     * @param writeLimit  the write limit of the content handler
+     */
+    public Key getKey(TikaInputStream stream, Metadata metadata, String handlerType,
+                      int writeLimit) throws IOException {
+        MessageDigest digest = StringUtils.newSha256Digest();
+        long length = -1;
+        if (!stream.hasFile()) {
+            stream.mark(MARK_LIMIT + 2);
+            length = update(digest, new BoundedInputStream(MARK_LIMIT + 1, stream));
+            stream.reset();
+            if (length > MARK_LIMIT) {
+                digest.reset();
+                length = -1;
+            }
+        }
+        if (length < 0) {
+            try (InputStream is = Files.newInputStream(stream.getPath())) {
+                length = update(digest, is);
+            }
+        }
+        String[] names = metadata.names();
+        Arrays.sort(names);
+        StringBuilder sb = new StringBuilder();
+        for (String name : names) {
+            if (isLocationField(name)) {
+                continue;
+            }
+            sb.append('\n').append(name);
+            for (String value : metadata.getValues(name)) {
+                sb.append('\u0000').append(value);
+            }
+        }
+        sb.append('\n').append(handlerType).append('\n').append(writeLimit);
+        sb.append('\n').append(fingerprint);
+        digest.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return new Key(StringUtils.toHexString(digest.digest()), length);
+    }
+
+    /**
+     * @return the cached result, or <code>null</code> if there is none
+     */
+    public List<CachedDocument> get(Key key) {
+        try {
+            byte[] bytes = memory.get(key.id);
+            if (bytes == null && disk != null) {
+                bytes = disk.get(key.id);
+                if (bytes != null) {
+                    memory.put(key.id, bytes);
+                }
+            }
+            List<CachedDocument> documents =
+                    bytes == null ? null : CachedDocument.deserialize(bytes);
+            if (documents != null && !documents.isEmpty()) {
+                hits.incrementAndGet();
+                bytesSaved.addAndGet(key.length);
+                return documents;
+            }
+        } catch (IOException e) {
+            LOG.warn("Couldn't read cached result", e);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores the result of parsing a document, in the form described
+     * for {@link CachedDocument}.
+     */
+    public void put(Key key, List<CachedDocument> documents) {
+        try {
+            byte[] bytes = CachedDocument.serialize(documents);
+            memory.put(key.id, bytes);
+            if (disk != null) {
+                disk.put(key.id, bytes);
+            }
+        } catch (IOException e) {
+            LOG.warn("Couldn't cache result", e);
+        }
+    }
+
+    /**
+     * @return whether the field depends on where the document is in a container,
+     * rather than on the document
+     */
+    public static boolean isLocationField(String name) {
+        for (String field : LOCATION_FIELDS) {
+            if (field.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the size above which results are not kept
+     */
+    public long getMaxResultBytes() {
+        return maxResultBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return hits over lookups, 0 if there were none
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long lookups = h + misses.get();
+        return lookups == 0 ? 0 : (double) h / lookups;
+    }
+
+    /**
+     * @return total size of the documents whose results came from the cache
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public long getMemoryBytes() {
+        return memory.getBytes();
+    }
+
+    /**
+     * @return size of the segment files, or 0 if there are none
+     */
+    public long getDiskBytes() {
+        return disk == null ? 0 : disk.getBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (disk != null) {
+            disk.close();
+        }
+    }
+
+    private static long update(MessageDigest digest, InputStream is) throws IOException {
+        byte[] buffer = new byte[8192];
+        long length = 0;
+        for (int read = is.read(buffer); read > -1; read = is.read(buffer)) {
+            digest.update(buffer, 0, read);
+            length += read;
+        }
+        return length;
+    }
+
+    public static class Key {
+        private final String id;
+        private final long length;
+
+        Key(String id, long length) {
+            this.id = id;
+            this.length = length;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return the size of the document
+         */
+        public long getLength() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Entries appended to segment files in a directory, with the index of
+ * where each entry is kept in memory. When the files add up to more than
+ * the maximum, the oldest segment is deleted with all of its entries.
+ * <p>
+ * Each entry is the length of its key, the length of its value, a CRC32 of
+ * the value, the key and the value. The index is rebuilt from the files
+ * when a store is opened on a directory that has segments, so that the
+ * entries outlive the process. A value that does not match its checksum
+ * is dropped when it is read.
+ */
+class SegmentStore implements Closeable {
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".dat";
+    private static final int HEADER_BYTES = 16;
+    private static final long MIN_SEGMENT_BYTES = 1024;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long segmentBytes;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final Map<String, Location> index = new HashMap<>();
+    private long bytes = 0;
+    private Segment active;
+
+    SegmentStore(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.segmentBytes = Math.max(MIN_SEGMENT_BYTES, maxBytes / 8);
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    long id = Long.parseLong(
+                            name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                    segments.put(id, new Segment(id, file));
+                } catch (NumberFormatException e) {
+                    //not ours
+                }
+            }
+        }
+        for (Segment segment : segments.values()) {
+            load(segment);
+            bytes += segment.size;
+        }
+        active = newSegment(segments.isEmpty() ? 0 : segments.lastKey() + 1);
+        evict();
+    }
+
+    synchronized byte[] get(String key) throws IOException {
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        ByteBuffer value = ByteBuffer.allocate(location.length);
+        read(location.segment.channel, value, location.offset);
+        if (crc(value.array()) != location.crc) {
+            index.remove(key);
+            return null;
+        }
+        return value.array();
+    }
+
+    synchronized void put(String key, byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long entryBytes = HEADER_BYTES + keyBytes.length + value.length;
+        if (entryBytes > maxBytes) {
+            return;
+        }
+        if (active.size > 0 && active.size + entryBytes > segmentBytes) {
+            active = newSegment(active.id + 1);
+        }
+        long crc = crc(value);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(keyBytes.length).putInt(value.length).putLong(crc).flip();
+        long position = active.size;
+        ByteBuffer[] entry = {header, ByteBuffer.wrap(keyBytes), ByteBuffer.wrap(value)};
+        active.channel.position(position);
+        while (entry[2].hasRemaining()) {
+            active.channel.write(entry);
+        }
+        active.size += entryBytes;
+        bytes += entryBytes;
+        index.put(key, new Location(active, position + HEADER_BYTES + keyBytes.length,
+                value.length, crc));
+        evict();
+    }
+
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+    }
+
+    private void evict() throws IOException {
+        while (bytes > maxBytes && segments.size() > 1) {
+            Segment oldest = segments.remove(segments.firstKey());
+            oldest.channel.close();
+            Files.delete(oldest.file);
+            bytes -= oldest.size;
+            index.values().removeIf(location -> location.segment == oldest);
+        }
+    }
+
+    private Segment newSegment(long id) throws IOException {
+        Segment segment = new Segment(id, directory.resolve(PREFIX + id + SUFFIX));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    /**
+     * Indexes the entries of a segment; a partly written entry at the end,
+     * from a process that did not finish writing it, is cut off.
+     */
+    private void load(Segment segment) throws IOException {
+        long fileSize = segment.channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= fileSize) {
+            header.clear();
+            read(segment.channel, header, position);
+            header.flip();
+            int keyLength = header.getInt();
+            int valueLength = header.getInt();
+            long crc = header.getLong();
+            long end = position + HEADER_BYTES + (long) keyLength + valueLength;
+            if (keyLength < 0 || valueLength < 0 || end > fileSize) {
+                break;
+            }
+            ByteBuffer key = ByteBuffer.allocate(keyLength);
+            read(segment.channel, key, position + HEADER_BYTES);
+            index.put(new String(key.array(), StandardCharsets.UTF_8),
+                    new Location(segment, position + HEADER_BYTES + keyLength, valueLength,
+                            crc));
+            position = end;
+        }
+        if (position < fileSize) {
+            segment.channel.truncate(position);
+        }
+        segment.size = position;
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+    }
+
+    private static long crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+
+    private static class Segment {
+        private final long id;
+        private final Path file;
+        private final FileChannel channel;
+        private long size = 0;
+
+        Segment(long id, Path file) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+
+    private static class Location {
+        private final Segment segment;
+        private final long offset;
+        private final int length;
+        private final long crc;
+
+        Location(Segment segment, long offset, int length, long crc) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+        }
+    }
+}
@@ -28,12 +28,30 @@ import org.apache.tika.parser.DigestingParser;
 import org.apache.tika.parser.ParseContext;
 
 
-public class CompositeDigester implements DigestingParser.Digester {
+public class CompositeDigester implements DigestingParser.StreamingDigester {
 
     private final DigestingParser.Digester[] digesters;
 
+    //the digesters, if they are all InputStreamDigesters, which can share one read
+    private final InputStreamDigester[] inputStreamDigesters;
+
+    private final int markLimit;
+
     public CompositeDigester(DigestingParser.Digester... digesters) {
         this.digesters = digesters;
+        InputStreamDigester[] inputStreamDigesters = digesters.length == 0 ? null :
+                new InputStreamDigester[digesters.length];
+        int markLimit = Integer.MAX_VALUE;
+        for (int i = 0; i < digesters.length; i++) {
+            if (!(digesters[i] instanceof InputStreamDigester)) {
+                inputStreamDigesters = null;
+                break;
+            }
+            inputStreamDigesters[i] = (InputStreamDigester) digesters[i];
+            markLimit = Math.min(markLimit, inputStreamDigesters[i].getMarkLimit());
+        }
+        this.inputStreamDigesters = inputStreamDigesters;
+        this.markLimit = markLimit;
     }
 
     @Override
@@ -41,6 +59,11 @@ public class CompositeDigester implements DigestingParser.Digester {
         TemporaryResources tmp = new TemporaryResources();
         TikaInputStream tis = TikaInputStream.get(is, tmp, m);
         try {
+            if (inputStreamDigesters != null) {
+                //update all of the digests from a single read
+                InputStreamDigester.digest(inputStreamDigesters, markLimit, tis, m);
+                return;
+            }
             for (DigestingParser.Digester digester : digesters) {
                 digester.digest(tis, m, parseContext);
             }
@@ -52,4 +75,16 @@ public class CompositeDigester implements DigestingParser.Digester {
             }
         }
     }
+
+    /**
+     * @return a stream that digests for all of the digesters, or <code>null</code>
+     * if they are not all {@link InputStreamDigester}s
+     */
+    @Override
+    public DigestingInputStream tee(InputStream is) {
+        if (inputStreamDigesters == null) {
+            return null;
+        }
+        return new DigestingInputStream(is, inputStreamDigesters);
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.digest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Stream that updates the digests of a group of {@link InputStreamDigester}s
+ * with the bytes read through it, so that all of the algorithms are computed
+ * from a single read of the wrapped stream. Skipped bytes are read and
+ * digested as well, and closing the stream first reads it to the end.
+ * <p>
+ * Used by {@link org.apache.tika.parser.DigestingParser} to digest the bytes
+ * of a document while it is parsed, see
+ * {@link org.apache.tika.parser.DigestingParser.StreamingDigester}.
+ *
+ * @since Apache Tika 2.7.0
+ */
+public class DigestingInputStream extends FilterInputStream {
+
+    private final InputStreamDigester[] digesters;
+    private final MessageDigest[] messageDigests;
+    private boolean eof = false;
+
+    /**
+     * @param in        stream to read and digest
+     * @param digesters digesters whose algorithms to compute, and which set
+     *                  the digests in {@link #finish(Metadata)}
+     */
+    public DigestingInputStream(InputStream in, InputStreamDigester... digesters) {
+        super(in);
+        this.digesters = digesters;
+        this.messageDigests = new MessageDigest[digesters.length];
+        for (int i = 0; i < digesters.length; i++) {
+            messageDigests[i] = digesters[i].newMessageDigest();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            eof = true;
+        } else {
+            for (MessageDigest messageDigest : messageDigests) {
+                messageDigest.update((byte) b);
+            }
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n == -1) {
+            eof = true;
+        } else if (n > 0) {
+            for (MessageDigest messageDigest : messageDigests) {
+                messageDigest.update(b, off, n);
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 4096)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Reads the rest of the stream, so that the digests cover all of it.
+     */
+    void drain() throws IOException {
+        byte[] buffer = new byte[8192];
+        while (!eof) {
+            read(buffer, 0, buffer.length);
+        }
+    }
+
+    /**
+     * Reads the rest of the stream, and then sets the digests in the metadata.
+     * The wrapped stream is not closed.
+     *
+     * @param metadata metadata in which to store the digests
+     * @throws IOException on IO problem reading the rest of the stream
+     */
+    public void finish(Metadata metadata) throws IOException {
+        drain();
+        for (int i = 0; i < digesters.length; i++) {
+            digesters[i].setDigest(messageDigests[i].digest(), metadata);
+        }
+    }
+
+    /**
+     * Reads the rest of the stream before closing it, for the
+     * parsers that close the stream before reading all of it.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -34,7 +34,7 @@ import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.DigestingParser;
 import org.apache.tika.parser.ParseContext;
 
-public class InputStreamDigester implements DigestingParser.Digester {
+public class InputStreamDigester implements DigestingParser.StreamingDigester {
 
     private final String algorithm;
     private final String algorithmKeyName;
@@ -69,21 +69,7 @@ public class InputStreamDigester implements DigestingParser.Digester {
         }
     }
 
-    /**
-     * Copied from commons-codec
-     */
-    private static MessageDigest updateDigest(MessageDigest digest, InputStream data)
-            throws IOException {
-        byte[] buffer = new byte[1024];
-
-        for (int read = data.read(buffer, 0, 1024); read > -1; read = data.read(buffer, 0, 1024)) {
-            digest.update(buffer, 0, read);
-        }
-
-        return digest;
-    }
-
-    private MessageDigest newMessageDigest() {
+    MessageDigest newMessageDigest() {
         try {
             Provider provider = getProvider();
             if (provider == null) {
@@ -118,6 +104,23 @@ public class InputStreamDigester implements DigestingParser.Digester {
     @Override
     public void digest(InputStream is, Metadata metadata, ParseContext parseContext)
             throws IOException {
+        digest(new InputStreamDigester[]{this}, markLimit, is, metadata);
+    }
+
+    @Override
+    public DigestingInputStream tee(InputStream is) {
+        return new DigestingInputStream(is, this);
+    }
+
+    /**
+     * Digests the stream for all of the given digesters with a single read,
+     * marking and resetting it or spooling it to a file as in
+     * {@link #digest(InputStream, Metadata, ParseContext)}.
+     *
+     * @param markLimit the smallest mark limit of the digesters
+     */
+    static void digest(InputStreamDigester[] digesters, int markLimit, InputStream is,
+                       Metadata metadata) throws IOException {
         TikaInputStream tis = TikaInputStream.cast(is);
         if (tis != null && tis.hasFile()) {
             long sz = -1;
@@ -128,7 +131,7 @@ public class InputStreamDigester implements DigestingParser.Digester {
             //and its size is greater than its mark limit,
             //just digest the underlying file.
             if (sz > markLimit) {
-                digestFile(tis.getFile(), metadata);
+                digestFile(digesters, tis.getFile(), metadata);
                 return;
             }
         }
@@ -140,7 +143,7 @@ public class InputStreamDigester implements DigestingParser.Digester {
         BoundedInputStream bis = new BoundedInputStream(markLimit, is);
         boolean finishedStream = false;
         bis.mark(markLimit + 1);
-        finishedStream = digestStream(bis, metadata);
+        finishedStream = digestStream(digesters, bis, metadata);
         bis.reset();
         if (finishedStream) {
             return;
@@ -148,12 +151,12 @@ public class InputStreamDigester implements DigestingParser.Digester {
         //if the stream wasn't finished -- if the stream was longer than the mark limit --
         //spool to File and digest that.
         if (tis != null) {
-            digestFile(tis.getFile(), metadata);
+            digestFile(digesters, tis.getFile(), metadata);
         } else {
             TemporaryResources tmp = new TemporaryResources();
             try {
                 TikaInputStream tmpTikaInputStream = TikaInputStream.get(is, tmp, metadata);
-                digestFile(tmpTikaInputStream.getFile(), metadata);
+                digestFile(digesters, tmpTikaInputStream.getFile(), metadata);
             } finally {
                 try {
                     tmp.dispose();
@@ -164,14 +167,23 @@ public class InputStreamDigester implements DigestingParser.Digester {
         }
     }
 
+    int getMarkLimit() {
+        return markLimit;
+    }
+
+    void setDigest(byte[] digestBytes, Metadata metadata) {
+        metadata.set(getMetadataKey(), encoder.encode(digestBytes));
+    }
+
     private String getMetadataKey() {
         return TikaCoreProperties.TIKA_META_PREFIX + "digest" +
                 TikaCoreProperties.NAMESPACE_PREFIX_DELIMITER + algorithmKeyName;
     }
 
-    private void digestFile(File f, Metadata m) throws IOException {
+    private static void digestFile(InputStreamDigester[] digesters, File f, Metadata m)
+            throws IOException {
         try (InputStream is = new FileInputStream(f)) {
-            digestStream(is, m);
+            digestStream(digesters, is, m);
         }
     }
 
@@ -181,19 +193,17 @@ public class InputStreamDigester implements DigestingParser.Digester {
      * @return whether or not this finished the input stream
      * @throws IOException
      */
-    private boolean digestStream(InputStream is, Metadata metadata) throws IOException {
-        byte[] digestBytes;
-        MessageDigest messageDigest = newMessageDigest();
-
-        updateDigest(messageDigest, is);
-        digestBytes = messageDigest.digest();
+    private static boolean digestStream(InputStreamDigester[] digesters, InputStream is,
+                                        Metadata metadata) throws IOException {
+        DigestingInputStream digestingInputStream = new DigestingInputStream(is, digesters);
+        digestingInputStream.drain();
 
         if (is instanceof BoundedInputStream) {
             if (((BoundedInputStream) is).hasHitBound()) {
                 return false;
             }
         }
-        metadata.set(getMetadataKey(), encoder.encode(digestBytes));
+        digestingInputStream.finish(metadata);
         return true;
     }
 
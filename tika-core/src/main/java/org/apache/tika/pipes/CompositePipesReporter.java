@@ -26,6 +26,7 @@ import org.apache.tika.config.Initializable;
 import org.apache.tika.config.InitializableProblemHandler;
 import org.apache.tika.config.Param;
 import org.apache.tika.exception.TikaConfigException;
+import org.apache.tika.pipes.async.ClientPoolStats;
 import org.apache.tika.pipes.pipesiterator.TotalCountResult;
 
 public class CompositePipesReporter extends PipesReporter implements Initializable {
@@ -47,6 +48,13 @@ public class CompositePipesReporter extends PipesReporter implements Initializab
         }
     }
 
+    @Override
+    public void report(ClientPoolStats clientPoolStats) {
+        for (PipesReporter reporter : pipesReporters) {
+            reporter.report(clientPoolStats);
+        }
+    }
+
     @Override
     public boolean supportsTotalCount() {
         for (PipesReporter reporter : pipesReporters) {
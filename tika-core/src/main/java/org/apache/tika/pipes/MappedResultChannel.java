@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
+
+import org.apache.tika.io.MappedBufferCleaner;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.pipes.emitter.EmitData;
+
+/**
+ * Hands large results from the forked {@link PipesServer} back to the
+ * {@link PipesClient} through memory-mapped files instead of the server's stdout.
+ * <p>
+ * The client owns a private directory for the lifetime of the client. The server
+ * writes a result that is at least as large as the configured threshold into a
+ * file in that directory and only sends the file's path over stdout; the client
+ * maps the file, decodes the {@link EmitData} straight from the mapping and
+ * deletes the file. Result files left behind by a server that crashed or was
+ * restarted are removed when the server is restarted, and the directory itself
+ * is removed when the client is closed.
+ */
+class MappedResultChannel {
+
+    private static final String PREFIX = "tika-pipes-result-";
+    private static final String SUFFIX = ".bin";
+
+    private MappedResultChannel() {
+    }
+
+    /**
+     * Creates the directory results are exchanged in. The directory and anything
+     * in it is deleted when <code>tmp</code> is closed.
+     */
+    static Path createDirectory(TemporaryResources tmp) throws IOException {
+        Path directory = Files.createTempDirectory("tika-pipes-");
+        tmp.addResource(() -> {
+            clean(directory);
+            Files.deleteIfExists(directory);
+        });
+        return directory;
+    }
+
+    /**
+     * Deletes result files that were never read, e.g. because the server crashed
+     * after writing one.
+     */
+    static void clean(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Server side: writes the serialized result into a new mapped file.
+     *
+     * @return the path of the file
+     */
+    static Path write(Path directory, UnsynchronizedByteArrayOutputStream bos)
+            throws IOException {
+        Path file = Files.createTempFile(directory, PREFIX, SUFFIX);
+        boolean success = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bos.size());
+            try {
+                bos.writeTo(new ByteBufferOutputStream(buffer));
+            } finally {
+                MappedBufferCleaner.freeBuffer(buffer);
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                Files.deleteIfExists(file);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Client side: maps the file the server wrote, decodes the result and
+     * deletes the file.
+     *
+     * @param directory the client's result directory; <code>file</code> must be in it
+     */
+    static EmitData read(Path directory, Path file) throws IOException, ClassNotFoundException {
+        if (!directory.equals(file.toAbsolutePath().normalize().getParent())) {
+            throw new IOException("result file is not in the result directory: " + file);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+            try {
+                InputStream is = new ByteBufferInputStream(buffer);
+                return PipesCodec.isBinary(buffer) ? PipesCodec.decodeEmitData(is) :
+                        (EmitData) PipesCodec.deserialize(is);
+            } finally {
+                //unmap before deleting, otherwise the delete fails on Windows
+                MappedBufferCleaner.freeBuffer(buffer);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static class ByteBufferOutputStream extends OutputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.put(b, off, len);
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.apache.tika.pipes;
 
 import static org.apache.tika.pipes.PipesServer.STATUS.CALL;
+import static org.apache.tika.pipes.PipesServer.STATUS.HEALTH;
 import static org.apache.tika.pipes.PipesServer.STATUS.PING;
 import static org.apache.tika.pipes.PipesServer.STATUS.READY;
 import static org.apache.tika.pipes.PipesServer.STATUS.lookup;
@@ -26,9 +27,10 @@ import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InterruptedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
@@ -39,11 +41,11 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
 import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.pipes.emitter.EmitData;
 import org.apache.tika.utils.ProcessUtils;
 import org.apache.tika.utils.StringUtils;
@@ -60,6 +62,7 @@ public class PipesClient implements Closeable {
     private static final int MAX_BYTES_BEFORE_READY = 20000;
     private static AtomicInteger CLIENT_COUNTER = new AtomicInteger(0);
     private static final long WAIT_ON_DESTROY_MS = 10000;
+    private static final long HEALTH_CHECK_TIMEOUT_MS = 10000;
     //this synchronizes the creation and/or closing of the executorService
     //there are a number of assumptions throughout that PipesClient is run
     //single threaded
@@ -72,6 +75,9 @@ public class PipesClient implements Closeable {
     private DataOutputStream output;
     private DataInputStream input;
     private int filesProcessed = 0;
+    //holds the directory for results handed over through mapped files
+    private final TemporaryResources tmp = new TemporaryResources();
+    private Path mappedResultDirectory;
 
     public PipesClient(PipesConfigBase pipesConfig) {
         this.pipesConfig = pipesConfig;
@@ -114,6 +120,75 @@ public class PipesClient implements Closeable {
             }
             closed = true;
         }
+        tmp.close();
+    }
+
+    /**
+     * @return whether the forked process is currently running
+     */
+    public boolean isProcessAlive() {
+        return process != null && process.isAlive();
+    }
+
+    /**
+     * Starts the forked process if it isn't already running so that the next
+     * call to {@link #process(FetchEmitTuple)} doesn't have to wait for it.
+     */
+    public void start() throws IOException, InterruptedException {
+        if (!ping()) {
+            restartUntilSuccessful();
+        }
+    }
+
+    /**
+     * Asks the forked process for its memory usage.
+     *
+     * @throws IOException if the process isn't running or didn't answer
+     */
+    public ServerHealth checkHealth() throws IOException {
+        if (!isProcessAlive()) {
+            throw new IOException("pipesClientId=" + pipesClientId + ": process isn't running");
+        }
+        FutureTask<ServerHealth> futureTask = new FutureTask<>(() -> {
+            output.write(HEALTH.getByte());
+            output.flush();
+            int status = input.read();
+            if (status != HEALTH.getByte()) {
+                throw new IOException("pipesClientId=" + pipesClientId +
+                        ": unexpected reply to health check: " + status);
+            }
+            return new ServerHealth(input.readLong(), input.readLong(), input.readLong());
+        });
+        try {
+            if (closed) {
+                throw new IOException("pipesClientId=" + pipesClientId + ": PipesClient closed");
+            }
+            executorService.execute(futureTask);
+            return futureTask.get(HEALTH_CHECK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("pipesClientId=" + pipesClientId + ": health check failed",
+                    e.getCause());
+        } catch (TimeoutException e) {
+            //the reply may still come and would be read as the reply to the next
+            //request, so the process can't be used anymore
+            try {
+                destroyForcibly();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("pipesClientId=" + pipesClientId +
+                    ": no reply to health check within " + HEALTH_CHECK_TIMEOUT_MS + " ms");
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("pipesClientId=" + pipesClientId +
+                    ": interrupted during health check");
+        } finally {
+            futureTask.cancel(true);
+        }
     }
 
     public PipesResult process(FetchEmitTuple t) throws IOException, InterruptedException {
@@ -127,34 +202,42 @@ public class PipesClient implements Closeable {
             restart = true;
         }
         if (restart) {
-            boolean successfulRestart = false;
-            while (!successfulRestart) {
-                try {
-                    restart();
-                    successfulRestart = true;
-                } catch (TimeoutException e) {
-                    LOG.warn("pipesClientId={}: couldn't restart within {} ms (startupTimeoutMillis)",
-                            pipesClientId, pipesConfig.getStartupTimeoutMillis());
-                    Thread.sleep(pipesConfig.getSleepOnStartupTimeoutMillis());
-                }
+            restartUntilSuccessful();
+        }
+        PipesResult result = actuallyProcess(t);
+        filesProcessed++;
+        return result;
+    }
+
+    private void restartUntilSuccessful() throws IOException, InterruptedException {
+        boolean successfulRestart = false;
+        while (!successfulRestart) {
+            try {
+                restart();
+                successfulRestart = true;
+            } catch (TimeoutException e) {
+                LOG.warn("pipesClientId={}: couldn't restart within {} ms (startupTimeoutMillis)",
+                        pipesClientId, pipesConfig.getStartupTimeoutMillis());
+                Thread.sleep(pipesConfig.getSleepOnStartupTimeoutMillis());
             }
         }
-        return actuallyProcess(t);
     }
 
     private PipesResult actuallyProcess(FetchEmitTuple t) throws InterruptedException {
         long start = System.currentTimeMillis();
         FutureTask<PipesResult> futureTask = new FutureTask<>(() -> {
 
-            UnsynchronizedByteArrayOutputStream bos = new UnsynchronizedByteArrayOutputStream();
-            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bos)) {
-                objectOutputStream.writeObject(t);
+            UnsynchronizedByteArrayOutputStream bos;
+            if (pipesConfig.getSerializationFormat() ==
+                    PipesConfigBase.SERIALIZATION_FORMAT.BINARY) {
+                bos = PipesCodec.encode(t, pipesConfig.getCompressionThresholdBytes());
+            } else {
+                bos = PipesCodec.serialize(t);
             }
 
-            byte[] bytes = bos.toByteArray();
             output.write(CALL.getByte());
-            output.writeInt(bytes.length);
-            output.write(bytes);
+            output.writeInt(bos.size());
+            bos.writeTo(output);
             output.flush();
             if (LOG.isTraceEnabled()) {
                 LOG.trace("pipesClientId={}: timer -- write tuple: {} ms",
@@ -294,6 +377,10 @@ public class PipesClient implements Closeable {
                 LOG.debug("pipesClientId={} parse success: {} in {} ms", pipesClientId, t.getId(),
                         millis);
                 return deserializeEmitData();
+            case PARSE_SUCCESS_MAPPED:
+                LOG.debug("pipesClientId={} parse success (mapped): {} in {} ms", pipesClientId,
+                        t.getId(), millis);
+                return readMappedEmitData();
             case PARSE_EXCEPTION_NO_EMIT:
                 return readMessage(PipesResult.STATUS.PARSE_EXCEPTION_NO_EMIT);
             case EMIT_SUCCESS:
@@ -329,16 +416,25 @@ public class PipesClient implements Closeable {
         int length = input.readInt();
         byte[] bytes = new byte[length];
         input.readFully(bytes);
-        try (ObjectInputStream objectInputStream = new ObjectInputStream(
-                new UnsynchronizedByteArrayInputStream(bytes))) {
-            EmitData emitData = (EmitData) objectInputStream.readObject();
+        try {
+            //the server replies in the format of the request
+            EmitData emitData = PipesCodec.isBinary(bytes) ? PipesCodec.decodeEmitData(bytes) :
+                    (EmitData) PipesCodec.deserialize(bytes);
+            return toPipesResult(emitData);
+        } catch (ClassNotFoundException e) {
+            LOG.error("class not found exception deserializing data", e);
+            //this should be catastrophic
+            throw new RuntimeException(e);
+        }
+    }
 
-            String stack = emitData.getContainerStackTrace();
-            if (StringUtils.isBlank(stack)) {
-                return new PipesResult(emitData);
-            } else {
-                return new PipesResult(emitData, stack);
-            }
+    private PipesResult readMappedEmitData() throws IOException {
+        int length = input.readInt();
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        Path file = Paths.get(new String(bytes, StandardCharsets.UTF_8));
+        try {
+            return toPipesResult(MappedResultChannel.read(mappedResultDirectory, file));
         } catch (ClassNotFoundException e) {
             LOG.error("class not found exception deserializing data", e);
             //this should be catastrophic
@@ -346,6 +442,15 @@ public class PipesClient implements Closeable {
         }
     }
 
+    private static PipesResult toPipesResult(EmitData emitData) {
+        String stack = emitData.getContainerStackTrace();
+        if (StringUtils.isBlank(stack)) {
+            return new PipesResult(emitData);
+        } else {
+            return new PipesResult(emitData, stack);
+        }
+    }
+
     private void restart() throws IOException, InterruptedException, TimeoutException {
         if (process != null) {
             LOG.debug("process still alive; trying to destroy it");
@@ -370,6 +475,15 @@ public class PipesClient implements Closeable {
         } else {
             LOG.info("pipesClientId={}: starting process", pipesClientId);
         }
+        if (pipesConfig.getMappedResultThresholdBytes() >= 0) {
+            if (mappedResultDirectory == null) {
+                mappedResultDirectory = MappedResultChannel.createDirectory(tmp);
+            } else {
+                //the previous process may have crashed after writing a result
+                MappedResultChannel.clean(mappedResultDirectory);
+            }
+        }
+        filesProcessed = 0;
         ProcessBuilder pb = new ProcessBuilder(getCommandline());
         pb.redirectError(ProcessBuilder.Redirect.INHERIT);
 
@@ -498,6 +612,18 @@ public class PipesClient implements Closeable {
                     "-Dlog4j.configurationFile=classpath:pipes-fork-server-default-log4j2.xml");
         }
         commandLine.add("-DpipesClientId=" + pipesClientId);
+        if (pipesConfig.getParseCacheMaxMemoryBytes() > 0) {
+            commandLine.add("-D" + PipesServer.PARSE_CACHE_MAX_MEMORY_BYTES + "=" +
+                    pipesConfig.getParseCacheMaxMemoryBytes());
+            if (pipesConfig.getParseCacheDirectory() != null) {
+                commandLine.add(ProcessUtils.escapeCommandLine(
+                        "-D" + PipesServer.PARSE_CACHE_DIRECTORY + "=" +
+                                pipesConfig.getParseCacheDirectory()
+                                        .resolve("client-" + pipesClientId).toAbsolutePath()));
+                commandLine.add("-D" + PipesServer.PARSE_CACHE_MAX_DISK_BYTES + "=" +
+                        pipesConfig.getParseCacheMaxDiskBytes());
+            }
+        }
         commandLine.addAll(configArgs);
         commandLine.add("org.apache.tika.pipes.PipesServer");
         commandLine.add(ProcessUtils.escapeCommandLine(
@@ -506,6 +632,11 @@ public class PipesClient implements Closeable {
         commandLine.add(Long.toString(pipesConfig.getMaxForEmitBatchBytes()));
         commandLine.add(Long.toString(pipesConfig.getTimeoutMillis()));
         commandLine.add(Long.toString(pipesConfig.getShutdownClientAfterMillis()));
+        if (mappedResultDirectory != null) {
+            commandLine.add(Long.toString(pipesConfig.getMappedResultThresholdBytes()));
+            commandLine.add(ProcessUtils.escapeCommandLine(
+                    mappedResultDirectory.toAbsolutePath().toString()));
+        }
         LOG.debug("pipesClientId={}: commandline: {}", pipesClientId, commandLine);
         return commandLine.toArray(new String[0]);
     }
@@ -0,0 +1,484 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
+import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.Property;
+import org.apache.tika.pipes.emitter.EmitData;
+import org.apache.tika.pipes.emitter.EmitKey;
+import org.apache.tika.pipes.fetcher.FetchKey;
+import org.apache.tika.sax.BasicContentHandlerFactory;
+
+/**
+ * Serializes the objects exchanged between the {@link PipesClient} and the
+ * {@link PipesServer}.
+ * <p>
+ * With {@link PipesConfigBase.SERIALIZATION_FORMAT#JAVA}, payloads are written
+ * with Java serialization, as they always have been.
+ * <p>
+ * With {@link PipesConfigBase.SERIALIZATION_FORMAT#BINARY}, payloads are written
+ * in a versioned binary format: a four byte header (magic "TB", version, flags)
+ * followed by the object. Strings are length-prefixed UTF-8; metadata keys are
+ * written once per payload and then referenced by index. Strings longer than the
+ * compression threshold may be deflated.
+ * <p>
+ * Payloads are self-describing: {@link #isBinary(byte[])} tells the formats apart
+ * (Java serialization streams start with 0xACED), so the server always replies in
+ * the format of the request it received.
+ */
+class PipesCodec {
+
+    static final byte MAGIC_0 = 'T';
+    static final byte MAGIC_1 = 'B';
+    static final byte VERSION = 2;
+
+    private static final byte NULL_STRING = 0;
+    private static final byte PLAIN_STRING = 1;
+    private static final byte DEFLATED_STRING = 2;
+
+    private PipesCodec() {
+    }
+
+    static boolean isBinary(byte[] bytes) {
+        return bytes.length >= 3 && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+    static boolean isBinary(ByteBuffer buffer) {
+        int p = buffer.position();
+        return buffer.remaining() >= 3 && buffer.get(p) == MAGIC_0 && buffer.get(p + 1) == MAGIC_1;
+    }
+
+    //----------------------------------------------------------------------- Java fallback
+
+    static UnsynchronizedByteArrayOutputStream serialize(Object object) throws IOException {
+        UnsynchronizedByteArrayOutputStream bos = new UnsynchronizedByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bos)) {
+            objectOutputStream.writeObject(object);
+        }
+        return bos;
+    }
+
+    static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        return deserialize(new UnsynchronizedByteArrayInputStream(bytes));
+    }
+
+    static Object deserialize(InputStream is) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(is)) {
+            return objectInputStream.readObject();
+        }
+    }
+
+    //----------------------------------------------------------------------- FetchEmitTuple
+
+    /**
+     * @param compressionThresholdBytes the threshold the server should apply to strings in
+     *                                  its reply, or <code>-1</code> to disable compression
+     */
+    static UnsynchronizedByteArrayOutputStream encode(FetchEmitTuple t,
+                                                      long compressionThresholdBytes)
+            throws IOException {
+        UnsynchronizedByteArrayOutputStream bos = new UnsynchronizedByteArrayOutputStream();
+        Writer w = new Writer(bos, -1);
+        w.writeHeader();
+        w.out.writeLong(compressionThresholdBytes);
+        w.writeString(t.getId());
+        w.writeFetchKey(t.getFetchKey());
+        w.writeEmitKey(t.getEmitKey());
+        Metadata metadata = t.getMetadata();
+        w.out.writeBoolean(metadata != null);
+        if (metadata != null) {
+            w.writeMetadata(metadata);
+        }
+        //never null, the tuple falls back to the default
+        HandlerConfig handlerConfig = t.getHandlerConfig();
+        w.writeEnum(handlerConfig.getType());
+        w.writeEnum(handlerConfig.getParseMode());
+        w.out.writeInt(handlerConfig.getWriteLimit());
+        w.out.writeInt(handlerConfig.getMaxEmbeddedResources());
+        w.out.writeBoolean(handlerConfig.isThrowOnWriteLimitReached());
+        w.writeEnum(t.getOnParseException());
+        w.out.flush();
+        return bos;
+    }
+
+    /**
+     * Reads a tuple written by {@link #encode(FetchEmitTuple, long)}.
+     */
+    static Request decodeFetchEmitTuple(byte[] bytes) throws IOException {
+        Reader r = new Reader(bytes);
+        r.readHeader();
+        long compressionThresholdBytes = r.in.readLong();
+        String id = r.readString();
+        FetchKey fetchKey = r.readFetchKey();
+        EmitKey emitKey = r.readEmitKey();
+        Metadata metadata = r.in.readBoolean() ? r.readMetadata() : null;
+        HandlerConfig handlerConfig = new HandlerConfig(
+                r.readEnum(BasicContentHandlerFactory.HANDLER_TYPE.class),
+                r.readEnum(HandlerConfig.PARSE_MODE.class), r.in.readInt(),
+                r.in.readInt(), r.in.readBoolean());
+        FetchEmitTuple.ON_PARSE_EXCEPTION onParseException =
+                r.readEnum(FetchEmitTuple.ON_PARSE_EXCEPTION.class);
+        return new Request(new FetchEmitTuple(id, fetchKey, emitKey, metadata, handlerConfig,
+                onParseException), compressionThresholdBytes);
+    }
+
+    //----------------------------------------------------------------------- EmitData
+
+    static UnsynchronizedByteArrayOutputStream encode(EmitData emitData,
+                                                      long compressionThresholdBytes)
+            throws IOException {
+        UnsynchronizedByteArrayOutputStream bos = new UnsynchronizedByteArrayOutputStream();
+        Writer w = new Writer(bos, compressionThresholdBytes);
+        w.writeHeader();
+        w.writeEmitKey(emitData.getEmitKey());
+        w.writeString(emitData.getContainerStackTrace());
+        List<Metadata> metadataList = emitData.getMetadataList();
+        w.writeVInt(metadataList.size());
+        for (Metadata m : metadataList) {
+            w.writeMetadata(m);
+        }
+        w.out.flush();
+        return bos;
+    }
+
+    static EmitData decodeEmitData(byte[] bytes) throws IOException {
+        return decodeEmitData(new UnsynchronizedByteArrayInputStream(bytes));
+    }
+
+    static EmitData decodeEmitData(InputStream is) throws IOException {
+        Reader r = new Reader(is);
+        r.readHeader();
+        EmitKey emitKey = r.readEmitKey();
+        String stack = r.readString();
+        int size = r.readVInt();
+        List<Metadata> metadataList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            metadataList.add(r.readMetadata());
+        }
+        return new EmitData(emitKey, metadataList, stack);
+    }
+
+    /**
+     * A decoded tuple and the options the client asked for in the reply.
+     */
+    static class Request {
+        private final FetchEmitTuple fetchEmitTuple;
+        private final long compressionThresholdBytes;
+
+        Request(FetchEmitTuple fetchEmitTuple, long compressionThresholdBytes) {
+            this.fetchEmitTuple = fetchEmitTuple;
+            this.compressionThresholdBytes = compressionThresholdBytes;
+        }
+
+        FetchEmitTuple getFetchEmitTuple() {
+            return fetchEmitTuple;
+        }
+
+        long getCompressionThresholdBytes() {
+            return compressionThresholdBytes;
+        }
+    }
+
+    private static class Writer {
+        private final DataOutputStream out;
+        private final long compressionThresholdBytes;
+        private final Map<String, Integer> keys = new HashMap<>();
+
+        Writer(OutputStream os, long compressionThresholdBytes) {
+            this.out = new DataOutputStream(os);
+            this.compressionThresholdBytes = compressionThresholdBytes;
+        }
+
+        void writeHeader() throws IOException {
+            out.writeByte(MAGIC_0);
+            out.writeByte(MAGIC_1);
+            out.writeByte(VERSION);
+            //flags, reserved
+            out.writeByte(0);
+        }
+
+        void writeFetchKey(FetchKey fetchKey) throws IOException {
+            if (fetchKey == null) {
+                out.writeBoolean(false);
+                return;
+            }
+            out.writeBoolean(true);
+            writeString(fetchKey.getFetcherName());
+            writeString(fetchKey.getFetchKey());
+            out.writeLong(fetchKey.getRangeStart());
+            out.writeLong(fetchKey.getRangeEnd());
+        }
+
+        void writeEmitKey(EmitKey emitKey) throws IOException {
+            if (emitKey == null) {
+                out.writeBoolean(false);
+                return;
+            }
+            out.writeBoolean(true);
+            writeString(emitKey.getEmitterName());
+            writeString(emitKey.getEmitKey());
+        }
+
+        void writeEnum(Enum<?> value) throws IOException {
+            writeString(value == null ? null : value.name());
+        }
+
+        void writeMetadata(Metadata metadata) throws IOException {
+            String[] names = metadata.names();
+            writeVInt(names.length);
+            for (String name : names) {
+                writeKey(name);
+                String[] values = metadata.getValues(name);
+                writeVInt(values.length);
+                for (String v : values) {
+                    writeString(v);
+                }
+            }
+        }
+
+        /**
+         * Keys are written the first time they're seen in this payload;
+         * after that only their index is written.
+         */
+        void writeKey(String key) throws IOException {
+            Integer index = keys.get(key);
+            if (index != null) {
+                writeVInt(index + 1);
+                return;
+            }
+            keys.put(key, keys.size());
+            writeVInt(0);
+            writeString(key);
+        }
+
+        void writeString(String s) throws IOException {
+            if (s == null) {
+                out.writeByte(NULL_STRING);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            if (compressionThresholdBytes > -1 && bytes.length >= compressionThresholdBytes) {
+                byte[] deflated = deflate(bytes);
+                if (deflated != null) {
+                    out.writeByte(DEFLATED_STRING);
+                    writeVInt(bytes.length);
+                    writeVInt(deflated.length);
+                    out.write(deflated);
+                    return;
+                }
+            }
+            out.writeByte(PLAIN_STRING);
+            writeVInt(bytes.length);
+            out.write(bytes);
+        }
+
+        void writeVInt(int i) throws IOException {
+            while ((i & ~0x7F) != 0) {
+                out.writeByte((i & 0x7F) | 0x80);
+                i >>>= 7;
+            }
+            out.writeByte(i);
+        }
+
+        /**
+         * @return the deflated bytes or <code>null</code> if they are not smaller
+         */
+        private static byte[] deflate(byte[] bytes) {
+            //favor speed: the pipe is local, we only want to avoid shipping megabytes of text
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(bytes);
+                deflater.finish();
+                UnsynchronizedByteArrayOutputStream bos =
+                        new UnsynchronizedByteArrayOutputStream(Math.max(64, bytes.length / 4));
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    int len = deflater.deflate(buffer);
+                    bos.write(buffer, 0, len);
+                    if (bos.size() >= bytes.length) {
+                        return null;
+                    }
+                }
+                return bos.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    private static class Reader {
+        private final DataInputStream in;
+        private final List<String> keys = new ArrayList<>();
+
+        Reader(byte[] bytes) {
+            this(new UnsynchronizedByteArrayInputStream(bytes));
+        }
+
+        Reader(InputStream is) {
+            this.in = new DataInputStream(is);
+        }
+
+        void readHeader() throws IOException {
+            if (in.readByte() != MAGIC_0 || in.readByte() != MAGIC_1) {
+                throw new IOException("not a binary pipes payload");
+            }
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("unsupported binary pipes version: " + version);
+            }
+            //flags, reserved
+            in.readByte();
+        }
+
+        FetchKey readFetchKey() throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+            return new FetchKey(readString(), readString(), in.readLong(), in.readLong());
+        }
+
+        EmitKey readEmitKey() throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+            return new EmitKey(readString(), readString());
+        }
+
+        <T extends Enum<T>> T readEnum(Class<T> enumClass) throws IOException {
+            String name = readString();
+            if (name == null) {
+                return null;
+            }
+            try {
+                return Enum.valueOf(enumClass, name);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("unknown " + enumClass.getSimpleName() + ": " + name, e);
+            }
+        }
+
+        Metadata readMetadata() throws IOException {
+            Metadata metadata = new Metadata();
+            int names = readVInt();
+            for (int i = 0; i < names; i++) {
+                String name = readKey();
+                int values = readVInt();
+                for (int j = 0; j < values; j++) {
+                    metadata.add(name, readString());
+                }
+            }
+            return metadata;
+        }
+
+        String readKey() throws IOException {
+            int index = readVInt();
+            if (index > 0) {
+                if (index > keys.size()) {
+                    throw new IOException("unknown key index: " + index);
+                }
+                return keys.get(index - 1);
+            }
+            String key = readString();
+            //share the registered property names instead of keeping a copy per payload
+            Property property = Property.get(key);
+            if (property != null) {
+                key = property.getName();
+            }
+            keys.add(key);
+            return key;
+        }
+
+        String readString() throws IOException {
+            byte type = in.readByte();
+            switch (type) {
+                case NULL_STRING:
+                    return null;
+                case PLAIN_STRING: {
+                    byte[] bytes = new byte[readVInt()];
+                    in.readFully(bytes);
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+                case DEFLATED_STRING: {
+                    byte[] bytes = new byte[readVInt()];
+                    byte[] deflated = new byte[readVInt()];
+                    in.readFully(deflated);
+                    inflate(deflated, bytes);
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+                default:
+                    throw new IOException("unknown string type: " + type);
+            }
+        }
+
+        int readVInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException();
+                }
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("malformed vint");
+        }
+
+        private static void inflate(byte[] deflated, byte[] target) throws IOException {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(deflated);
+                int offset = 0;
+                while (offset < target.length) {
+                    int len = inflater.inflate(target, offset, target.length - offset);
+                    if (len == 0 && (inflater.finished() || inflater.needsInput())) {
+                        break;
+                    }
+                    offset += len;
+                }
+                if (offset != target.length) {
+                    throw new IOException("truncated compressed string");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.tika.pipes;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -43,6 +44,22 @@ public class PipesConfigBase extends ConfigBase {
 
     public static final int DEFAULT_MAX_FILES_PROCESSED_PER_PROCESS = 10000;
 
+    public static final long DEFAULT_PARSE_CACHE_MAX_DISK_BYTES = 1024L * 1024L * 1024L;
+
+    /**
+     * How {@link FetchEmitTuple}s and {@link org.apache.tika.pipes.emitter.EmitData}
+     * are serialized between the PipesClient and the forked PipesServer.
+     * {@link #JAVA} is Java serialization; {@link #BINARY} is a compact, versioned
+     * binary format that is considerably cheaper for large extracts.
+     */
+    public enum SERIALIZATION_FORMAT {
+        JAVA,
+        BINARY
+    }
+
+    public static final SERIALIZATION_FORMAT DEFAULT_SERIALIZATION_FORMAT =
+            SERIALIZATION_FORMAT.JAVA;
+
     //if an extract is larger than this, the forked PipesServer should
     //emit the extract directly and not send the contents back to the PipesClient
     private long maxForEmitBatchBytes = DEFAULT_MAX_FOR_EMIT_BATCH;
@@ -55,6 +72,16 @@ public class PipesConfigBase extends ConfigBase {
 
     private int maxFilesProcessedPerProcess = DEFAULT_MAX_FILES_PROCESSED_PER_PROCESS;
 
+    private SERIALIZATION_FORMAT serializationFormat = DEFAULT_SERIALIZATION_FORMAT;
+
+    private long compressionThresholdBytes = -1;
+
+    private long mappedResultThresholdBytes = -1;
+
+    private long parseCacheMaxMemoryBytes = -1;
+    private Path parseCacheDirectory;
+    private long parseCacheMaxDiskBytes = DEFAULT_PARSE_CACHE_MAX_DISK_BYTES;
+
     private List<String> forkedJvmArgs = new ArrayList<>();
     private Path tikaConfig;
     private String javaPath = "java";
@@ -171,4 +198,106 @@ public class PipesConfigBase extends ConfigBase {
     public void setSleepOnStartupTimeoutMillis(long sleepOnStartupTimeoutMillis) {
         this.sleepOnStartupTimeoutMillis = sleepOnStartupTimeoutMillis;
     }
+
+    public SERIALIZATION_FORMAT getSerializationFormat() {
+        return serializationFormat;
+    }
+
+    /**
+     * Serialization format used between the PipesClient and the forked PipesServer:
+     * <code>java</code> (default) or <code>binary</code>.
+     *
+     * @param serializationFormat
+     */
+    public void setSerializationFormat(String serializationFormat) {
+        for (SERIALIZATION_FORMAT f : SERIALIZATION_FORMAT.values()) {
+            if (f.name().equalsIgnoreCase(serializationFormat)) {
+                this.serializationFormat = f;
+                return;
+            }
+        }
+        throw new IllegalArgumentException("serializationFormat must be one of: " +
+                Arrays.toString(SERIALIZATION_FORMAT.values()) + "; I regret I do not understand: " +
+                serializationFormat);
+    }
+
+    public long getCompressionThresholdBytes() {
+        return compressionThresholdBytes;
+    }
+
+    /**
+     * With the <code>binary</code> serialization format, strings (typically extracted
+     * content) at least this many bytes long are compressed before they are sent
+     * back from the forked PipesServer. If set to <code>-1</code> (default), nothing
+     * is compressed.
+     *
+     * @param compressionThresholdBytes
+     */
+    public void setCompressionThresholdBytes(long compressionThresholdBytes) {
+        this.compressionThresholdBytes = compressionThresholdBytes;
+    }
+
+    public long getMappedResultThresholdBytes() {
+        return mappedResultThresholdBytes;
+    }
+
+    /**
+     * Results sent back from the forked PipesServer that are at least this many
+     * bytes long are handed over through a memory-mapped temporary file instead
+     * of the server's stdout. If set to <code>-1</code> (default), all results go
+     * through stdout.
+     *
+     * @param mappedResultThresholdBytes
+     */
+    public void setMappedResultThresholdBytes(long mappedResultThresholdBytes) {
+        this.mappedResultThresholdBytes = mappedResultThresholdBytes;
+    }
+
+    public long getParseCacheMaxMemoryBytes() {
+        return parseCacheMaxMemoryBytes;
+    }
+
+    /**
+     * Each forked PipesServer keeps the results of recursive parses of up to
+     * this many bytes in a {@link org.apache.tika.parser.cache.ParseResultCache},
+     * and replays them for documents with the same content, including embedded
+     * documents. If set to <code>-1</code> (default), nothing is cached.
+     *
+     * @param parseCacheMaxMemoryBytes
+     */
+    public void setParseCacheMaxMemoryBytes(long parseCacheMaxMemoryBytes) {
+        this.parseCacheMaxMemoryBytes = parseCacheMaxMemoryBytes;
+    }
+
+    public Path getParseCacheDirectory() {
+        return parseCacheDirectory;
+    }
+
+    /**
+     * If set, the cached results are also written to segment files in a
+     * subdirectory for each client, so that they outlive restarts of the
+     * forked PipesServer.
+     *
+     * @param parseCacheDirectory
+     */
+    public void setParseCacheDirectory(Path parseCacheDirectory) {
+        this.parseCacheDirectory = parseCacheDirectory;
+    }
+
+    public void setParseCacheDirectory(String parseCacheDirectory) {
+        setParseCacheDirectory(Paths.get(parseCacheDirectory));
+    }
+
+    public long getParseCacheMaxDiskBytes() {
+        return parseCacheMaxDiskBytes;
+    }
+
+    /**
+     * Maximum size of the segment files of each client.
+     *
+     * @param parseCacheMaxDiskBytes
+     */
+    public void setParseCacheMaxDiskBytes(long parseCacheMaxDiskBytes) {
+        this.parseCacheMaxDiskBytes = parseCacheMaxDiskBytes;
+    }
 }
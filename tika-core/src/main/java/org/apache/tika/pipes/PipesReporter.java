@@ -19,6 +19,7 @@ package org.apache.tika.pipes;
 import java.io.Closeable;
 import java.io.IOException;
 
+import org.apache.tika.pipes.async.ClientPoolStats;
 import org.apache.tika.pipes.pipesiterator.TotalCountResult;
 
 /**
@@ -66,6 +67,17 @@ public abstract class PipesReporter implements Closeable {
 
     }
 
+    /**
+     * No-op implementation. Override to record the state of the
+     * {@link org.apache.tika.pipes.async.AsyncProcessor}'s client pool,
+     * which is reported periodically.
+     *
+     * @param clientPoolStats
+     */
+    public void report(ClientPoolStats clientPoolStats) {
+
+    }
+
     /**
      * Override this if your reporter supports total count.
      * @return <code>false</code> as the baseline implementation
@@ -20,10 +20,13 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
@@ -36,20 +39,25 @@ import org.slf4j.LoggerFactory;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
+import org.apache.tika.Tika;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.exception.EncryptedDocumentException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.extractor.DocumentSelector;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.metadata.filter.NoOpFilter;
+import org.apache.tika.metrics.ParseMetrics;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.RecursiveParserWrapper;
+import org.apache.tika.parser.cache.ParseResultCache;
 import org.apache.tika.pipes.emitter.EmitData;
 import org.apache.tika.pipes.emitter.EmitKey;
 import org.apache.tika.pipes.emitter.Emitter;
 import org.apache.tika.pipes.emitter.EmitterManager;
+import org.apache.tika.pipes.emitter.MetadataStreamEmitter;
 import org.apache.tika.pipes.emitter.TikaEmitterException;
 import org.apache.tika.pipes.fetcher.FetchKey;
 import org.apache.tika.pipes.fetcher.Fetcher;
@@ -58,6 +66,7 @@ import org.apache.tika.pipes.fetcher.RangeFetcher;
 import org.apache.tika.sax.BasicContentHandlerFactory;
 import org.apache.tika.sax.ContentHandlerFactory;
 import org.apache.tika.sax.RecursiveParserWrapperHandler;
+import org.apache.tika.sax.StreamingRecursiveParserWrapperHandler;
 import org.apache.tika.utils.ExceptionUtils;
 import org.apache.tika.utils.StringUtils;
 
@@ -77,6 +86,11 @@ public class PipesServer implements Runnable {
     //it looks like the server crashes with exit value 3 on OOM, for example
     public static final int TIMEOUT_EXIT_CODE = 17;
 
+    //system properties with which the PipesClient enables the parse result cache
+    static final String PARSE_CACHE_MAX_MEMORY_BYTES = "tika.pipes.parseCacheMaxMemoryBytes";
+    static final String PARSE_CACHE_DIRECTORY = "tika.pipes.parseCacheDirectory";
+    static final String PARSE_CACHE_MAX_DISK_BYTES = "tika.pipes.parseCacheMaxDiskBytes";
+
     public enum STATUS {
         READY,
         CALL,
@@ -93,7 +107,9 @@ public class PipesServer implements Runnable {
         EMIT_EXCEPTION,
         OOM,
         TIMEOUT,
-        EMPTY_OUTPUT;
+        EMPTY_OUTPUT,
+        PARSE_SUCCESS_MAPPED,
+        HEALTH;
 
         byte getByte() {
             return (byte) (ordinal() + 1);
@@ -125,25 +141,44 @@ public class PipesServer implements Runnable {
     private final long maxForEmitBatchBytes;
     private final long serverParseTimeoutMillis;
     private final long serverWaitTimeoutMillis;
+    //if a result is at least this large, hand it over through a mapped file
+    //in this directory rather than through stdout
+    private final long mappedResultThresholdBytes;
+    private final Path mappedResultDirectory;
     private Parser autoDetectParser;
     private Parser rMetaParser;
+    private ParseResultCache parseResultCache;
     private TikaConfig tikaConfig;
     private FetcherManager fetcherManager;
     private EmitterManager emitterManager;
     private volatile boolean parsing;
     private volatile long since;
+    //the reply is written in the format of the request
+    private boolean binaryRequest;
+    private long compressionThresholdBytes = -1;
 
 
     public PipesServer(Path tikaConfigPath, InputStream in, PrintStream out,
                        long maxForEmitBatchBytes,
                        long serverParseTimeoutMillis, long serverWaitTimeoutMillis)
             throws IOException, TikaException, SAXException {
+        this(tikaConfigPath, in, out, maxForEmitBatchBytes, serverParseTimeoutMillis,
+                serverWaitTimeoutMillis, -1, null);
+    }
+
+    public PipesServer(Path tikaConfigPath, InputStream in, PrintStream out,
+                       long maxForEmitBatchBytes,
+                       long serverParseTimeoutMillis, long serverWaitTimeoutMillis,
+                       long mappedResultThresholdBytes, Path mappedResultDirectory)
+            throws IOException, TikaException, SAXException {
         this.tikaConfigPath = tikaConfigPath;
         this.input = new DataInputStream(in);
         this.output = new DataOutputStream(out);
         this.maxForEmitBatchBytes = maxForEmitBatchBytes;
         this.serverParseTimeoutMillis = serverParseTimeoutMillis;
         this.serverWaitTimeoutMillis = serverWaitTimeoutMillis;
+        this.mappedResultThresholdBytes = mappedResultThresholdBytes;
+        this.mappedResultDirectory = mappedResultDirectory;
         this.parsing = false;
         this.since = System.currentTimeMillis();
     }
@@ -155,10 +190,17 @@ public class PipesServer implements Runnable {
             long maxForEmitBatchBytes = Long.parseLong(args[1]);
             long serverParseTimeoutMillis = Long.parseLong(args[2]);
             long serverWaitTimeoutMillis = Long.parseLong(args[3]);
+            long mappedResultThresholdBytes = -1;
+            Path mappedResultDirectory = null;
+            if (args.length > 5) {
+                mappedResultThresholdBytes = Long.parseLong(args[4]);
+                mappedResultDirectory = Paths.get(args[5]);
+            }
 
             PipesServer server =
                     new PipesServer(tikaConfig, System.in, System.out, maxForEmitBatchBytes,
-                            serverParseTimeoutMillis, serverWaitTimeoutMillis);
+                            serverParseTimeoutMillis, serverWaitTimeoutMillis,
+                            mappedResultThresholdBytes, mappedResultDirectory);
             System.setIn(new UnsynchronizedByteArrayInputStream(new byte[0]));
             System.setOut(System.err);
             Thread watchdog = new Thread(server, "Tika Watchdog");
@@ -228,6 +270,8 @@ public class PipesServer implements Runnable {
                     }
                     write(STATUS.PING);
                     start = System.currentTimeMillis();
+                } else if (request == STATUS.HEALTH.getByte()) {
+                    writeHealth();
                 } else if (request == STATUS.CALL.getByte()) {
                     parseOne();
                     if (LOG.isTraceEnabled()) {
@@ -277,8 +321,10 @@ public class PipesServer implements Runnable {
             write(STATUS.EMITTER_NOT_FOUND, noEmitterMsg);
             return;
         }
+        long start = ParseMetrics.start();
         try {
             emitter.emit(emitData.getEmitKey().getEmitKey(), emitData.getMetadataList());
+            ParseMetrics.stop(start, ParseMetrics.EMIT, emitData.getEmitKey().getEmitterName());
         } catch (IOException | TikaEmitterException e) {
             LOG.warn("emit exception", e);
             String msg = ExceptionUtils.getStackTrace(e);
@@ -336,6 +382,12 @@ public class PipesServer implements Runnable {
             LOG.trace("timer -- got fetcher: {}ms", elapsed);
         }
 
+        MetadataStreamEmitter streamEmitter = getStreamEmitter(t);
+        if (streamEmitter != null) {
+            streamIt(t, fetcher, streamEmitter);
+            return;
+        }
+
         start = System.currentTimeMillis();
         List<Metadata> metadataList = parseIt(t, fetcher);
 
@@ -357,12 +409,8 @@ public class PipesServer implements Runnable {
         //we need to apply this after we pull out the stacktrace
         filterMetadata(metadataList);
         if (StringUtils.isBlank(stack) || t.getOnParseException() == FetchEmitTuple.ON_PARSE_EXCEPTION.EMIT) {
-            injectUserMetadata(t.getMetadata(), metadataList);
-            EmitKey emitKey = t.getEmitKey();
-            if (StringUtils.isBlank(emitKey.getEmitKey())) {
-                emitKey = new EmitKey(emitKey.getEmitterName(), t.getFetchKey().getFetchKey());
-                t.setEmitKey(emitKey);
-            }
+            injectUserMetadata(t.getMetadata(), metadataList.get(0));
+            setDefaultEmitKey(t);
             EmitData emitData = new EmitData(t.getEmitKey(), metadataList, stack);
             if (maxForEmitBatchBytes >= 0 && emitData.getEstimatedSizeBytes() >= maxForEmitBatchBytes) {
                 emit(t.getId(), emitData, stack);
@@ -380,16 +428,54 @@ public class PipesServer implements Runnable {
         }
     }
 
+    private void setDefaultEmitKey(FetchEmitTuple t) {
+        EmitKey emitKey = t.getEmitKey();
+        if (StringUtils.isBlank(emitKey.getEmitKey())) {
+            emitKey = new EmitKey(emitKey.getEmitterName(), t.getFetchKey().getFetchKey());
+            t.setEmitKey(emitKey);
+        }
+    }
+
     private void filterMetadata(List<Metadata> metadataList) {
         for (Metadata m : metadataList) {
-            try {
-                tikaConfig.getMetadataFilter().filter(m);
-            } catch (TikaException e) {
-                LOG.warn("failed to filter metadata", e);
-            }
+            filterMetadata(m);
         }
     }
 
+    private void filterMetadata(Metadata metadata) {
+        try {
+            tikaConfig.getMetadataFilter().filter(metadata);
+        } catch (TikaException e) {
+            LOG.warn("failed to filter metadata", e);
+        }
+    }
+
+    /**
+     * @return the tuple's emitter if the metadata should be streamed to it
+     * as each document is parsed, or <code>null</code>.  Streaming is only
+     * possible with the recursive parse mode, and only if the output should be
+     * emitted even if there is a parse exception, because the embedded
+     * documents are emitted before the container's exception is known.
+     */
+    private MetadataStreamEmitter getStreamEmitter(FetchEmitTuple t) {
+        if (t.getHandlerConfig().getParseMode() != HandlerConfig.PARSE_MODE.RMETA ||
+                t.getOnParseException() != FetchEmitTuple.ON_PARSE_EXCEPTION.EMIT) {
+            return null;
+        }
+        Emitter emitter;
+        try {
+            emitter = emitterManager.getEmitter(t.getEmitKey().getEmitterName());
+        } catch (IllegalArgumentException e) {
+            //reported by the regular emit
+            return null;
+        }
+        if (emitter instanceof MetadataStreamEmitter &&
+                ((MetadataStreamEmitter) emitter).isStreaming()) {
+            return (MetadataStreamEmitter) emitter;
+        }
+        return null;
+    }
+
     private Fetcher getFetcher(FetchEmitTuple t) {
         try {
             return fetcherManager.getFetcher(t.getFetchKey().getFetcherName());
@@ -407,37 +493,87 @@ public class PipesServer implements Runnable {
         }
     }
 
-    private List<Metadata> parseIt(FetchEmitTuple t, Fetcher fetcher) {
+    private InputStream fetch(FetchEmitTuple t, Fetcher fetcher, Metadata metadata)
+            throws IOException, TikaException {
         FetchKey fetchKey = t.getFetchKey();
         if (fetchKey.hasRange()) {
             if (! (fetcher instanceof RangeFetcher)) {
                 throw new IllegalArgumentException(
                         "fetch key has a range, but the fetcher is not a range fetcher");
             }
-            Metadata metadata = new Metadata();
-            try (InputStream stream = ((RangeFetcher)fetcher).fetch(fetchKey.getFetchKey(),
-                    fetchKey.getRangeStart(), fetchKey.getRangeEnd(), metadata)) {
-                return parse(t, stream, metadata);
-            } catch (SecurityException e) {
-                LOG.error("security exception " + t.getId(), e);
-                throw e;
-            } catch (TikaException | IOException e) {
-                LOG.warn("fetch exception " + t.getId(), e);
-                write(STATUS.FETCH_EXCEPTION, ExceptionUtils.getStackTrace(e));
+            return ((RangeFetcher)fetcher).fetch(fetchKey.getFetchKey(),
+                    fetchKey.getRangeStart(), fetchKey.getRangeEnd(), metadata);
+        }
+        return fetcher.fetch(fetchKey.getFetchKey(), metadata);
+    }
+
+    private List<Metadata> parseIt(FetchEmitTuple t, Fetcher fetcher) {
+        Metadata metadata = new Metadata();
+        try (InputStream stream = fetch(t, fetcher, metadata)) {
+            return parse(t, stream, metadata);
+        } catch (SecurityException e) {
+            LOG.error("security exception " + t.getId(), e);
+            throw e;
+        } catch (TikaException | IOException e) {
+            LOG.warn("fetch exception " + t.getId(), e);
+            write(STATUS.FETCH_EXCEPTION, ExceptionUtils.getStackTrace(e));
+        }
+        return null;
+    }
+
+    /**
+     * Parses recursively and hands each document's metadata to the emitter as
+     * soon as that document has been parsed, so that nothing but the document
+     * that is being parsed is kept in memory.
+     */
+    private void streamIt(FetchEmitTuple t, Fetcher fetcher, MetadataStreamEmitter emitter) {
+        long start = System.currentTimeMillis();
+        setDefaultEmitKey(t);
+        Metadata metadata = new Metadata();
+        InputStream stream;
+        try {
+            stream = fetch(t, fetcher, metadata);
+        } catch (SecurityException e) {
+            LOG.error("security exception " + t.getId(), e);
+            throw e;
+        } catch (TikaException | IOException e) {
+            LOG.warn("fetch exception " + t.getId(), e);
+            write(STATUS.FETCH_EXCEPTION, ExceptionUtils.getStackTrace(e));
+            return;
+        }
+        String[] stack = new String[]{StringUtils.EMPTY};
+        try (InputStream is = stream;
+                MetadataStreamEmitter.MetadataWriter writer =
+                        emitter.open(t.getEmitKey().getEmitKey())) {
+            StreamingRecursiveParserWrapperHandler handler =
+                    parseStreaming(t, is, metadata, m -> {
+                        if (Integer.valueOf(0).equals(m.getInt(TikaCoreProperties.EMBEDDED_DEPTH))) {
+                            //the container; we need to read the stacktrace before filtering
+                            String containerException = m.get(TikaCoreProperties.CONTAINER_EXCEPTION);
+                            if (containerException != null) {
+                                stack[0] = containerException;
+                            }
+                            injectUserMetadata(t.getMetadata(), m);
+                        }
+                        filterMetadata(m);
+                        writer.add(m);
+                    });
+            if (handler.getListenerException() != null) {
+                throw handler.getListenerException();
             }
+        } catch (IOException | TikaEmitterException e) {
+            LOG.warn("emit exception", e);
+            write(STATUS.EMIT_EXCEPTION, ExceptionUtils.getStackTrace(e));
+            return;
+        }
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("timer -- parsed and streamed: {} ms", System.currentTimeMillis() - start);
+        }
+        if (StringUtils.isBlank(stack[0])) {
+            write(STATUS.EMIT_SUCCESS);
         } else {
-            Metadata metadata = new Metadata();
-            try (InputStream stream = fetcher.fetch(t.getFetchKey().getFetchKey(), metadata)) {
-                return parse(t, stream, metadata);
-            } catch (SecurityException e) {
-                LOG.error("security exception " + t.getId(), e);
-                throw e;
-            } catch (TikaException | IOException e) {
-                LOG.warn("fetch exception " + t.getId(), e);
-                write(STATUS.FETCH_EXCEPTION, ExceptionUtils.getStackTrace(e));
-            }
+            write(STATUS.EMIT_SUCCESS_PARSE_EXCEPTION, stack[0].getBytes(StandardCharsets.UTF_8));
         }
-        return null;
     }
 
     private String getNoFetcherMsg(String fetcherName) {
@@ -542,7 +678,7 @@ public class PipesServer implements Runnable {
         RecursiveParserWrapperHandler handler = new RecursiveParserWrapperHandler(
                 new BasicContentHandlerFactory(handlerConfig.getType(), handlerConfig.getWriteLimit()),
                 handlerConfig.getMaxEmbeddedResources());
-        ParseContext parseContext = new ParseContext();
+        ParseContext parseContext = newRecursiveParseContext();
         long start = System.currentTimeMillis();
         try {
             rMetaParser.parse(stream, handler, metadata, parseContext);
@@ -563,12 +699,45 @@ public class PipesServer implements Runnable {
         return handler.getMetadataList();
     }
 
-    private void injectUserMetadata(Metadata userMetadata, List<Metadata> metadataList) {
+    private StreamingRecursiveParserWrapperHandler parseStreaming(
+            FetchEmitTuple fetchEmitTuple, InputStream stream, Metadata metadata,
+            StreamingRecursiveParserWrapperHandler.MetadataListener listener) {
+        HandlerConfig handlerConfig = fetchEmitTuple.getHandlerConfig();
+        //the metadata filter is applied by the listener, after the stacktrace
+        //has been read from the container
+        StreamingRecursiveParserWrapperHandler handler =
+                new StreamingRecursiveParserWrapperHandler(
+                        new BasicContentHandlerFactory(handlerConfig.getType(),
+                                handlerConfig.getWriteLimit()),
+                        handlerConfig.getMaxEmbeddedResources(), NoOpFilter.NOOP_FILTER,
+                        listener);
+        ParseContext parseContext = newRecursiveParseContext();
+        long start = System.currentTimeMillis();
+        try {
+            rMetaParser.parse(stream, handler, metadata, parseContext);
+        } catch (SAXException e) {
+            LOG.warn("sax problem:" + fetchEmitTuple.getId(), e);
+        } catch (EncryptedDocumentException e) {
+            LOG.warn("encrypted document:" + fetchEmitTuple.getId(), e);
+        } catch (SecurityException e) {
+            LOG.warn("security exception:" + fetchEmitTuple.getId(), e);
+            throw e;
+        } catch (Exception e) {
+            LOG.warn("parse exception: " + fetchEmitTuple.getId(), e);
+        } finally {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("timer -- parse only time: {} ms", System.currentTimeMillis() - start);
+            }
+        }
+        return handler;
+    }
+
+    private void injectUserMetadata(Metadata userMetadata, Metadata metadata) {
         for (String n : userMetadata.names()) {
             //overwrite whatever was there
-            metadataList.get(0).set(n, null);
+            metadata.set(n, null);
             for (String val : userMetadata.getValues(n)) {
-                metadataList.get(0).add(n, val);
+                metadata.add(n, val);
             }
         }
     }
@@ -588,10 +757,14 @@ public class PipesServer implements Runnable {
             int length = input.readInt();
             byte[] bytes = new byte[length];
             input.readFully(bytes);
-            try (ObjectInputStream objectInputStream = new ObjectInputStream(
-                    new UnsynchronizedByteArrayInputStream(bytes))) {
-                return (FetchEmitTuple) objectInputStream.readObject();
+            binaryRequest = PipesCodec.isBinary(bytes);
+            if (binaryRequest) {
+                PipesCodec.Request request = PipesCodec.decodeFetchEmitTuple(bytes);
+                compressionThresholdBytes = request.getCompressionThresholdBytes();
+                return request.getFetchEmitTuple();
             }
+            compressionThresholdBytes = -1;
+            return (FetchEmitTuple) PipesCodec.deserialize(bytes);
         } catch (IOException e) {
             LOG.error("problem reading tuple", e);
             exit(1);
@@ -610,16 +783,57 @@ public class PipesServer implements Runnable {
         this.emitterManager = EmitterManager.load(tikaConfigPath);
         this.autoDetectParser = new AutoDetectParser(this.tikaConfig);
         this.rMetaParser = new RecursiveParserWrapper(autoDetectParser);
+        this.parseResultCache = createParseResultCache();
+    }
+
+    /**
+     * The results depend on the Tika version and the config, so these are
+     * the fingerprint of the cache.
+     */
+    private ParseResultCache createParseResultCache() throws IOException {
+        long maxMemoryBytes = Long.parseLong(System.getProperty(PARSE_CACHE_MAX_MEMORY_BYTES, "-1"));
+        if (maxMemoryBytes <= 0) {
+            return null;
+        }
+        String fingerprint = new Tika().toString() + "\n" +
+                new String(Files.readAllBytes(tikaConfigPath), StandardCharsets.UTF_8);
+        String directory = System.getProperty(PARSE_CACHE_DIRECTORY);
+        if (StringUtils.isBlank(directory)) {
+            return new ParseResultCache(fingerprint, maxMemoryBytes);
+        }
+        return new ParseResultCache(fingerprint, maxMemoryBytes, Paths.get(directory),
+                Long.parseLong(System.getProperty(PARSE_CACHE_MAX_DISK_BYTES,
+                        Long.toString(PipesConfigBase.DEFAULT_PARSE_CACHE_MAX_DISK_BYTES))));
+    }
+
+    private ParseContext newRecursiveParseContext() {
+        ParseContext parseContext = new ParseContext();
+        if (parseResultCache != null) {
+            parseContext.set(ParseResultCache.class, parseResultCache);
+        }
+        return parseContext;
     }
 
 
     private void write(EmitData emitData) {
         try {
-            UnsynchronizedByteArrayOutputStream bos = new UnsynchronizedByteArrayOutputStream();
-            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bos)) {
-                objectOutputStream.writeObject(emitData);
+            UnsynchronizedByteArrayOutputStream bos = binaryRequest ?
+                    PipesCodec.encode(emitData, compressionThresholdBytes) :
+                    PipesCodec.serialize(emitData);
+            if (mappedResultDirectory != null && mappedResultThresholdBytes >= 0 &&
+                    bos.size() >= mappedResultThresholdBytes) {
+                Path file = null;
+                try {
+                    file = MappedResultChannel.write(mappedResultDirectory, bos);
+                } catch (IOException e) {
+                    LOG.warn("couldn't write mapped result; falling back to stdout", e);
+                }
+                if (file != null) {
+                    write(STATUS.PARSE_SUCCESS_MAPPED, file.toAbsolutePath().toString());
+                    return;
+                }
             }
-            write(STATUS.PARSE_SUCCESS, bos.toByteArray());
+            write(STATUS.PARSE_SUCCESS, bos);
         } catch (IOException e) {
             LOG.error("problem writing emit data (forking process shutdown?)", e);
             exit(1);
@@ -631,6 +845,18 @@ public class PipesServer implements Runnable {
         write(status, bytes);
     }
 
+    private void write(STATUS status, UnsynchronizedByteArrayOutputStream bos) {
+        try {
+            output.write(status.getByte());
+            output.writeInt(bos.size());
+            bos.writeTo(output);
+            output.flush();
+        } catch (IOException e) {
+            LOG.error("problem writing data (forking process shutdown?)", e);
+            exit(1);
+        }
+    }
+
     private void write(STATUS status, byte[] bytes) {
         try {
             int len = bytes.length;
@@ -644,6 +870,61 @@ public class PipesServer implements Runnable {
         }
     }
 
+    private void writeHealth() throws IOException {
+        output.write(STATUS.HEALTH.getByte());
+        output.writeLong(getUsedHeapBytes());
+        output.writeLong(Runtime.getRuntime().maxMemory());
+        output.writeLong(getRssBytes());
+        output.flush();
+    }
+
+    /**
+     * @return the heap in use after the most recent garbage collection, so that garbage
+     * left over from the last parse doesn't count; the heap currently in use if the
+     * collectors don't report that
+     */
+    private static long getUsedHeapBytes() {
+        long used = 0;
+        boolean reported = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                used += usage.getUsed();
+                reported = true;
+            }
+        }
+        if (reported) {
+            return used;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return the resident set size from /proc/self/status or -1 if that isn't available
+     */
+    private static long getRssBytes() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) {
+                    String kb = line.substring(6).trim();
+                    int space = kb.indexOf(' ');
+                    return Long.parseLong(space > -1 ? kb.substring(0, space) : kb) * 1024L;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            LOG.debug("couldn't read rss", e);
+        }
+        return -1;
+    }
+
     private void write(STATUS status) {
         try {
             output.write(status.getByte());
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes;
+
+/**
+ * Memory usage reported by a forked {@link PipesServer} in reply to
+ * {@link PipesClient#checkHealth()}.
+ */
+public class ServerHealth {
+
+    private final long usedHeapBytes;
+    private final long maxHeapBytes;
+    private final long rssBytes;
+
+    public ServerHealth(long usedHeapBytes, long maxHeapBytes, long rssBytes) {
+        this.usedHeapBytes = usedHeapBytes;
+        this.maxHeapBytes = maxHeapBytes;
+        this.rssBytes = rssBytes;
+    }
+
+    /**
+     * @return heap in use after the forked process' most recent garbage collection
+     */
+    public long getUsedHeapBytes() {
+        return usedHeapBytes;
+    }
+
+    public long getMaxHeapBytes() {
+        return maxHeapBytes;
+    }
+
+    /**
+     * @return resident set size of the forked process or <code>-1</code> if
+     * the platform doesn't report it
+     */
+    public long getRssBytes() {
+        return rssBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ServerHealth{" + "usedHeapBytes=" + usedHeapBytes + ", maxHeapBytes=" +
+                maxHeapBytes + ", rssBytes=" + rssBytes + '}';
+    }
+}
@@ -32,6 +32,13 @@ public class AsyncConfig extends PipesConfigBase {
 
     private int queueSize = 10000;
     private int numEmitters = 1;
+    private int emitQueueSize = 100;
+    private int emitBatchSize = 50;
+
+    private int numWarmClients = 0;
+    private int minClients = -1;
+    private long maxForkedRssBytes = -1;
+    private double maxForkedHeapUsage = -1;
 
     private PipesReporter pipesReporter = PipesReporter.NO_OP_REPORTER;
 
@@ -91,6 +98,36 @@ public class AsyncConfig extends PipesConfigBase {
         this.queueSize = queueSize;
     }
 
+    /**
+     * Each emitter has its own queue of parsed results waiting to be emitted.
+     * Workers block when the queue for their emitter is full.
+     * Default is <code>100</code>.
+     *
+     * @return
+     */
+    public int getEmitQueueSize() {
+        return emitQueueSize;
+    }
+
+    public void setEmitQueueSize(int emitQueueSize) {
+        this.emitQueueSize = emitQueueSize;
+    }
+
+    /**
+     * When an emitter's queue holds this many results, wake an emitter
+     * thread to emit them as a batch rather than waiting for
+     * {@link #getEmitWithinMillis()}. Default is <code>50</code>.
+     *
+     * @return
+     */
+    public int getEmitBatchSize() {
+        return emitBatchSize;
+    }
+
+    public void setEmitBatchSize(int emitBatchSize) {
+        this.emitBatchSize = emitBatchSize;
+    }
+
     /**
      * Number of emitters
      *
@@ -107,4 +144,65 @@ public class AsyncConfig extends PipesConfigBase {
     public void setPipesReporter(PipesReporter pipesReporter) {
         this.pipesReporter = pipesReporter;
     }
+
+    public int getNumWarmClients() {
+        return numWarmClients;
+    }
+
+    /**
+     * Number of forked processes to keep started and idle so that a client
+     * whose process crashed, timed out or was retired can be swapped for one
+     * that is ready to go rather than waiting for a new process to start.
+     * Default is <code>0</code>.
+     *
+     * @param numWarmClients
+     */
+    public void setNumWarmClients(int numWarmClients) {
+        this.numWarmClients = numWarmClients;
+    }
+
+    /**
+     * Minimum number of active clients. If this is less than {@link #getNumClients()},
+     * the number of active clients is scaled between this and {@link #getNumClients()}
+     * based on the depth of the fetch emit queue and on recent parse latencies.
+     *
+     * @return the minimum number of active clients, or <code>-1</code> (default) to
+     * always run {@link #getNumClients()}
+     */
+    public int getMinClients() {
+        return minClients;
+    }
+
+    public void setMinClients(int minClients) {
+        this.minClients = minClients;
+    }
+
+    public long getMaxForkedRssBytes() {
+        return maxForkedRssBytes;
+    }
+
+    /**
+     * Retire a client's forked process once its resident set size exceeds this
+     * many bytes. Default is <code>-1</code>, which disables the check.
+     *
+     * @param maxForkedRssBytes
+     */
+    public void setMaxForkedRssBytes(long maxForkedRssBytes) {
+        this.maxForkedRssBytes = maxForkedRssBytes;
+    }
+
+    public double getMaxForkedHeapUsage() {
+        return maxForkedHeapUsage;
+    }
+
+    /**
+     * Retire a client's forked process once the heap still in use after a parse
+     * exceeds this fraction of its maximum heap, e.g. <code>0.8</code>.
+     * Default is <code>-1</code>, which disables the check.
+     *
+     * @param maxForkedHeapUsage
+     */
+    public void setMaxForkedHeapUsage(double maxForkedHeapUsage) {
+        this.maxForkedHeapUsage = maxForkedHeapUsage;
+    }
 }
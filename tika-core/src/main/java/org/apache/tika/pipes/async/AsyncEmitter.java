@@ -17,19 +17,13 @@
 package org.apache.tika.pipes.async;
 
 import java.io.IOException;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.tika.metrics.ParseMetrics;
 import org.apache.tika.pipes.emitter.EmitData;
 import org.apache.tika.pipes.emitter.Emitter;
 import org.apache.tika.pipes.emitter.EmitterManager;
@@ -37,108 +31,53 @@ import org.apache.tika.pipes.emitter.TikaEmitterException;
 import org.apache.tika.utils.ExceptionUtils;
 
 /**
- * Worker thread that takes EmitData off the queue, batches it
- * and tries to emit it as a batch
+ * Worker thread that emits batches of EmitData from the {@link EmitDispatcher}.
+ * It sleeps until a sub-queue reaches a size or byte threshold or is due to be
+ * emitted, rather than polling.
  */
 public class AsyncEmitter implements Callable<Integer> {
 
-    static final EmitData EMIT_DATA_STOP_SEMAPHORE = new EmitData(null, null);
     static final int EMITTER_FUTURE_CODE = 2;
 
     private static final Logger LOG = LoggerFactory.getLogger(AsyncEmitter.class);
 
-    private final AsyncConfig asyncConfig;
     private final EmitterManager emitterManager;
-    private final ArrayBlockingQueue<EmitData> emitDataQueue;
+    private final EmitDispatcher emitDispatcher;
 
-    Instant lastEmitted = Instant.now();
-
-    public AsyncEmitter(AsyncConfig asyncConfig, ArrayBlockingQueue<EmitData> emitData,
-                        EmitterManager emitterManager) {
-        this.asyncConfig = asyncConfig;
-        this.emitDataQueue = emitData;
+    AsyncEmitter(EmitDispatcher emitDispatcher, EmitterManager emitterManager) {
+        this.emitDispatcher = emitDispatcher;
         this.emitterManager = emitterManager;
     }
 
     @Override
     public Integer call() throws Exception {
-        EmitDataCache cache = new EmitDataCache(asyncConfig.getEmitMaxEstimatedBytes());
-
         while (true) {
-            EmitData emitData = emitDataQueue.poll(500, TimeUnit.MILLISECONDS);
-            if (emitData == EMIT_DATA_STOP_SEMAPHORE) {
-                cache.emitAll();
+            if (emitDispatcher.isStopping()) {
+                //other threads may hold some of the queues; they flush those themselves
+                while (emitDispatcher.hasData()) {
+                    emitDispatcher.emitReady(this::tryToEmit, true);
+                    if (emitDispatcher.hasData()) {
+                        emitDispatcher.awaitWork(10);
+                    }
+                }
                 return EMITTER_FUTURE_CODE;
             }
-            if (emitData != null) {
-                //this can block on emitAll
-                cache.add(emitData);
-            } else {
-                LOG.trace("Nothing on the async queue");
-            }
-            LOG.debug("cache size: ({}) bytes and extract count: {}", cache.estimatedSize,
-                    cache.size);
-            long elapsed = ChronoUnit.MILLIS.between(lastEmitted, Instant.now());
-            if (elapsed > asyncConfig.getEmitWithinMillis()) {
-                LOG.debug("{} elapsed > {}, going to emitAll", elapsed, asyncConfig.getEmitWithinMillis());
-                //this can block
-                cache.emitAll();
-            }
+            //this can block on emitting
+            long waitMillis = emitDispatcher.emitReady(this::tryToEmit, false);
+            emitDispatcher.awaitWork(waitMillis);
         }
     }
 
-    private class EmitDataCache {
-        private final long maxBytes;
-
-        long estimatedSize = 0;
-        int size = 0;
-        Map<String, List<EmitData>> map = new HashMap<>();
-
-        public EmitDataCache(long maxBytes) {
-            this.maxBytes = maxBytes;
-        }
-
-        void updateEstimatedSize(long newBytes) {
-            estimatedSize += newBytes;
-        }
-
-        void add(EmitData data) {
-            size++;
-            long sz = data.getEstimatedSizeBytes();
-            if (estimatedSize + sz > maxBytes) {
-                LOG.debug("estimated size ({}) > maxBytes({}), going to emitAll",
-                        (estimatedSize + sz), maxBytes);
-                emitAll();
-            }
-            List<EmitData> cached = map.computeIfAbsent(data.getEmitKey().getEmitterName(), k -> new ArrayList<>());
-            updateEstimatedSize(sz);
-            cached.add(data);
-        }
-
-        private void emitAll() {
-            int emitted = 0;
-            LOG.debug("about to emit {} files, {} estimated bytes", size, estimatedSize);
-            for (Map.Entry<String, List<EmitData>> e : map.entrySet()) {
-                Emitter emitter = emitterManager.getEmitter(e.getKey());
-                tryToEmit(emitter, e.getValue());
-                emitted += e.getValue().size();
-            }
-
-            LOG.debug("emitted: {} files", emitted);
-            estimatedSize = 0;
-            size = 0;
-            map.clear();
-            lastEmitted = Instant.now();
-        }
-
-        private void tryToEmit(Emitter emitter, List<EmitData> cachedEmitData) {
-
-            try {
-                emitter.emit(cachedEmitData);
-            } catch (IOException | TikaEmitterException e) {
-                LOG.warn("emitter class ({}): {}", emitter.getClass(),
-                        ExceptionUtils.getStackTrace(e));
-            }
+    private void tryToEmit(String emitterName, List<EmitData> batch) {
+        Emitter emitter = emitterManager.getEmitter(emitterName);
+        LOG.debug("about to emit {} files to {}", batch.size(), emitterName);
+        long start = ParseMetrics.start();
+        try {
+            emitter.emit(batch);
+            ParseMetrics.stop(start, ParseMetrics.EMIT, emitterName);
+        } catch (IOException | TikaEmitterException e) {
+            LOG.warn("emitter class ({}): {}", emitter.getClass(),
+                    ExceptionUtils.getStackTrace(e));
         }
     }
 }
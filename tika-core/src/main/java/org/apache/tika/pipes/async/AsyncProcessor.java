@@ -20,14 +20,12 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
@@ -39,7 +37,6 @@ import org.apache.tika.pipes.PipesClient;
 import org.apache.tika.pipes.PipesException;
 import org.apache.tika.pipes.PipesReporter;
 import org.apache.tika.pipes.PipesResult;
-import org.apache.tika.pipes.emitter.EmitData;
 import org.apache.tika.pipes.emitter.EmitterManager;
 import org.apache.tika.pipes.pipesiterator.PipesIterator;
 import org.apache.tika.pipes.pipesiterator.TotalCountResult;
@@ -57,17 +54,19 @@ public class AsyncProcessor implements Closeable {
 
     private static final Logger LOG = LoggerFactory.getLogger(AsyncProcessor.class);
 
-    private final ArrayBlockingQueue<FetchEmitTuple> fetchEmitTuples;
-    private final ArrayBlockingQueue<EmitData> emitData;
+    private final BoundedBatchQueue<FetchEmitTuple> fetchEmitTuples;
+    private final EmitDispatcher emitDispatcher;
     private final ExecutorCompletionService<Integer> executorCompletionService;
     private final ExecutorService executorService;
     private final AsyncConfig asyncConfig;
+    private final PipesClientPool clientPool;
+    private final WorkerScaler workerScaler;
     private final AtomicLong totalProcessed = new AtomicLong(0);
     private static long MAX_OFFER_WAIT_MS = 120000;
     private volatile int numParserThreadsFinished = 0;
     private volatile int numEmitterThreadsFinished = 0;
-    private boolean addedEmitterSemaphores = false;
-    boolean isShuttingDown = false;
+    private boolean stoppedEmitters = false;
+    volatile boolean isShuttingDown = false;
 
     public AsyncProcessor(Path tikaConfigPath) throws TikaException, IOException {
         this(tikaConfigPath, null);
@@ -75,13 +74,16 @@ public class AsyncProcessor implements Closeable {
 
     public AsyncProcessor(Path tikaConfigPath, PipesIterator pipesIterator) throws TikaException, IOException {
         this.asyncConfig = AsyncConfig.load(tikaConfigPath);
-        this.fetchEmitTuples = new ArrayBlockingQueue<>(asyncConfig.getQueueSize());
-        this.emitData = new ArrayBlockingQueue<>(100);
+        this.fetchEmitTuples = new BoundedBatchQueue<>(asyncConfig.getQueueSize());
+        this.emitDispatcher = new EmitDispatcher(asyncConfig);
         //+1 is the watcher thread
         this.executorService = Executors.newFixedThreadPool(
                 asyncConfig.getNumClients() + asyncConfig.getNumEmitters() + 1);
         this.executorCompletionService =
                 new ExecutorCompletionService<>(executorService);
+        this.clientPool = new PipesClientPool(asyncConfig);
+        this.workerScaler = new WorkerScaler(asyncConfig.getMinClients(),
+                asyncConfig.getNumClients());
         try {
             if (!tikaConfigPath.toAbsolutePath().equals(asyncConfig.getTikaConfig().toAbsolutePath())) {
                 LOG.warn("TikaConfig for AsyncProcessor ({}) is different " +
@@ -94,6 +96,8 @@ public class AsyncProcessor implements Closeable {
                     try {
                         Thread.sleep(500);
                         checkActive();
+                        workerScaler.adjust(fetchEmitTuples.size());
+                        asyncConfig.getPipesReporter().report(getClientPoolStats());
                     } catch (InterruptedException e) {
                         return WATCHER_FUTURE_CODE;
                     }
@@ -107,17 +111,18 @@ public class AsyncProcessor implements Closeable {
 
             for (int i = 0; i < asyncConfig.getNumClients(); i++) {
                 executorCompletionService.submit(
-                        new FetchEmitWorker(asyncConfig, fetchEmitTuples, emitData));
+                        new FetchEmitWorker(i, asyncConfig, fetchEmitTuples, emitDispatcher));
             }
 
             EmitterManager emitterManager = EmitterManager.load(asyncConfig.getTikaConfig());
             for (int i = 0; i < asyncConfig.getNumEmitters(); i++) {
                 executorCompletionService.submit(
-                        new AsyncEmitter(asyncConfig, emitData, emitterManager));
+                        new AsyncEmitter(emitDispatcher, emitterManager));
             }
         } catch (Exception e) {
             LOG.error("problem initializing AsyncProcessor", e);
             executorService.shutdownNow();
+            clientPool.close();
             asyncConfig.getPipesReporter().error(e);
             throw e;
         }
@@ -145,7 +150,7 @@ public class AsyncProcessor implements Closeable {
         counterThread.start();
     }
 
-    public synchronized boolean offer(List<FetchEmitTuple> newFetchEmitTuples, long offerMs)
+    public boolean offer(List<FetchEmitTuple> newFetchEmitTuples, long offerMs)
             throws PipesException, InterruptedException {
         if (isShuttingDown) {
             throw new IllegalStateException(
@@ -155,30 +160,15 @@ public class AsyncProcessor implements Closeable {
             throw new OfferLargerThanQueueSize(newFetchEmitTuples.size(),
                     asyncConfig.getQueueSize());
         }
-        long start = System.currentTimeMillis();
-        long elapsed = System.currentTimeMillis() - start;
-        while (elapsed < offerMs) {
-            if (fetchEmitTuples.remainingCapacity() > newFetchEmitTuples.size()) {
-                try {
-                    fetchEmitTuples.addAll(newFetchEmitTuples);
-                    return true;
-                } catch (IllegalStateException e) {
-                    //this means that the add all failed because the queue couldn't
-                    //take the full list
-                    LOG.debug("couldn't add full list", e);
-                }
-            }
-            Thread.sleep(100);
-            elapsed = System.currentTimeMillis() - start;
-        }
-        return false;
+        //all or nothing; blocks until there's room for the full list or the timeout elapses
+        return fetchEmitTuples.offerAll(newFetchEmitTuples, offerMs);
     }
 
     public int getCapacity() {
         return fetchEmitTuples.remainingCapacity();
     }
 
-    public synchronized boolean offer(FetchEmitTuple t, long offerMs)
+    public boolean offer(FetchEmitTuple t, long offerMs)
             throws PipesException, InterruptedException {
         if (fetchEmitTuples == null) {
             throw new IllegalStateException("queue hasn't been initialized yet.");
@@ -187,13 +177,13 @@ public class AsyncProcessor implements Closeable {
                     "Can't call offer after calling close() or " + "shutdownNow()");
         }
         checkActive();
-        return fetchEmitTuples.offer(t, offerMs, TimeUnit.MILLISECONDS);
+        return fetchEmitTuples.offer(t, offerMs);
     }
 
     public void finished() throws InterruptedException {
         for (int i = 0; i < asyncConfig.getNumClients(); i++) {
             boolean offered = fetchEmitTuples.offer(PipesIterator.COMPLETED_SEMAPHORE,
-                    MAX_OFFER_WAIT_MS, TimeUnit.MILLISECONDS);
+                    MAX_OFFER_WAIT_MS);
             if (! offered) {
                 throw new RuntimeException("Couldn't offer completed semaphore within " +
                         MAX_OFFER_WAIT_MS + " ms");
@@ -228,21 +218,9 @@ public class AsyncProcessor implements Closeable {
                 throw new RuntimeException(e);
             }
         }
-        if (numParserThreadsFinished == asyncConfig.getNumClients() && ! addedEmitterSemaphores) {
-            for (int i = 0; i < asyncConfig.getNumEmitters(); i++) {
-                try {
-                    boolean offered = emitData.offer(AsyncEmitter.EMIT_DATA_STOP_SEMAPHORE,
-                            MAX_OFFER_WAIT_MS,
-                            TimeUnit.MILLISECONDS);
-                    if (! offered) {
-                        throw new RuntimeException("Couldn't offer emit data stop semaphore " +
-                                "within " + MAX_OFFER_WAIT_MS + " ms");
-                    }
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-            addedEmitterSemaphores = true;
+        if (numParserThreadsFinished == asyncConfig.getNumClients() && ! stoppedEmitters) {
+            emitDispatcher.stop(asyncConfig.getNumEmitters());
+            stoppedEmitters = true;
         }
         return !(numParserThreadsFinished == asyncConfig.getNumClients() &&
                 numEmitterThreadsFinished == asyncConfig.getNumEmitters());
@@ -251,6 +229,7 @@ public class AsyncProcessor implements Closeable {
     @Override
     public void close() throws IOException {
         executorService.shutdownNow();
+        clientPool.close();
         asyncConfig.getPipesReporter().close();
     }
 
@@ -258,26 +237,42 @@ public class AsyncProcessor implements Closeable {
         return totalProcessed.get();
     }
 
+    public ClientPoolStats getClientPoolStats() {
+        return clientPool.getStats(workerScaler.getActiveWorkers());
+    }
+
     private class FetchEmitWorker implements Callable<Integer> {
 
+        private final int workerIndex;
         private final AsyncConfig asyncConfig;
-        private final ArrayBlockingQueue<FetchEmitTuple> fetchEmitTuples;
-        private final ArrayBlockingQueue<EmitData> emitDataQueue;
+        private final BoundedBatchQueue<FetchEmitTuple> fetchEmitTuples;
+        private final EmitDispatcher emitDispatcher;
 
-        private FetchEmitWorker(AsyncConfig asyncConfig,
-                                ArrayBlockingQueue<FetchEmitTuple> fetchEmitTuples,
-                                ArrayBlockingQueue<EmitData> emitDataQueue) {
+        private FetchEmitWorker(int workerIndex, AsyncConfig asyncConfig,
+                                BoundedBatchQueue<FetchEmitTuple> fetchEmitTuples,
+                                EmitDispatcher emitDispatcher) {
+            this.workerIndex = workerIndex;
             this.asyncConfig = asyncConfig;
             this.fetchEmitTuples = fetchEmitTuples;
-            this.emitDataQueue = emitDataQueue;
+            this.emitDispatcher = emitDispatcher;
         }
 
         @Override
         public Integer call() throws Exception {
 
-            try (PipesClient pipesClient = new PipesClient(asyncConfig)) {
+            PipesClient pipesClient = null;
+            try {
                 while (true) {
-                    FetchEmitTuple t = fetchEmitTuples.poll(1, TimeUnit.SECONDS);
+                    if (!workerScaler.isActive(workerIndex)) {
+                        //scaled down; don't hold on to a forked process while idle
+                        if (pipesClient != null) {
+                            clientPool.release(pipesClient);
+                            pipesClient = null;
+                        }
+                        workerScaler.awaitActive(workerIndex);
+                        continue;
+                    }
+                    FetchEmitTuple t = fetchEmitTuples.poll(1000);
                     if (t == null) {
                         //skip
                         if (LOG.isTraceEnabled()) {
@@ -287,8 +282,12 @@ public class AsyncProcessor implements Closeable {
                         if (LOG.isTraceEnabled()) {
                             LOG.trace("hit completed semaphore");
                         }
+                        workerScaler.finish();
                         return PARSER_FUTURE_CODE;
                     } else {
+                        if (pipesClient == null) {
+                            pipesClient = clientPool.acquire();
+                        }
                         PipesResult result = null;
                         long start = System.currentTimeMillis();
                         try {
@@ -304,9 +303,8 @@ public class AsyncProcessor implements Closeable {
                         long offerStart = System.currentTimeMillis();
                         if (result.getStatus() == PipesResult.STATUS.PARSE_SUCCESS ||
                                 result.getStatus() == PipesResult.STATUS.PARSE_SUCCESS_WITH_EXCEPTION) {
-                            boolean offered = emitDataQueue.offer(result.getEmitData(),
-                                    MAX_OFFER_WAIT_MS,
-                                    TimeUnit.MILLISECONDS);
+                            boolean offered = emitDispatcher.offer(result.getEmitData(),
+                                    MAX_OFFER_WAIT_MS);
                             if (! offered) {
                                 throw new RuntimeException("Couldn't offer emit data to queue " +
                                         "within " + MAX_OFFER_WAIT_MS + " ms");
@@ -319,8 +317,14 @@ public class AsyncProcessor implements Closeable {
                         long elapsed = System.currentTimeMillis() - start;
                         asyncConfig.getPipesReporter().report(t, result, elapsed);
                         totalProcessed.incrementAndGet();
+                        workerScaler.recordLatency(elapsed);
+                        pipesClient = clientPool.recycle(pipesClient, result);
                     }
                 }
+            } finally {
+                if (pipesClient != null) {
+                    pipesClient.close();
+                }
             }
         }
     }
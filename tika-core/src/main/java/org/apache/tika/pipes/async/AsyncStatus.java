@@ -37,6 +37,7 @@ public class AsyncStatus {
     private TotalCountResult totalCountResult = new TotalCountResult(0, TotalCountResult.STATUS.NOT_COMPLETED);
     private Map<PipesResult.STATUS, Long> statusCounts = new HashMap<>();
     private ASYNC_STATUS asyncStatus = ASYNC_STATUS.STARTED;
+    private ClientPoolStats clientPoolStats = new ClientPoolStats();
 
     private String crashMessage = StringUtils.EMPTY;
 
@@ -53,6 +54,10 @@ public class AsyncStatus {
         this.asyncStatus = status;
     }
 
+    public synchronized void updateClientPoolStats(ClientPoolStats clientPoolStats) {
+        this.clientPoolStats = clientPoolStats;
+    }
+
     public void updateCrash(String msg) {
         this.crashMessage = msg;
     }
@@ -81,10 +86,15 @@ public class AsyncStatus {
         return crashMessage;
     }
 
+    public ClientPoolStats getClientPoolStats() {
+        return clientPoolStats;
+    }
+
     @Override
     public String toString() {
         return "AsyncStatus{" + "started=" + started + ", lastUpdate=" + lastUpdate +
                 ", totalCountResult=" + totalCountResult + ", statusCounts=" + statusCounts +
-                ", asyncStatus=" + asyncStatus + ", crashMessage='" + crashMessage + '\'' + '}';
+                ", asyncStatus=" + asyncStatus + ", clientPoolStats=" + clientPoolStats +
+                ", crashMessage='" + crashMessage + '\'' + '}';
     }
 }
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.async;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded multi-producer, multi-consumer queue built on a lock-free
+ * {@link ConcurrentLinkedQueue}.
+ * <p>
+ * Capacity and the number of available items are tracked with two
+ * semaphores, so producers and consumers only block when the queue is
+ * full or empty, and never on each other. A whole batch can be offered
+ * atomically with {@link #offerAll(Collection, long)}: either every item
+ * fits within the timeout or none is added.
+ */
+class BoundedBatchQueue<T> {
+
+    private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+    private final int capacity;
+    private final Semaphore space;
+    private final Semaphore items = new Semaphore(0);
+
+    BoundedBatchQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        this.capacity = capacity;
+        this.space = new Semaphore(capacity);
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int size() {
+        return items.availablePermits();
+    }
+
+    int remainingCapacity() {
+        return space.availablePermits();
+    }
+
+    boolean offer(T t, long timeoutMillis) throws InterruptedException {
+        if (!space.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        queue.add(t);
+        items.release();
+        return true;
+    }
+
+    /**
+     * Adds all or none of the items.
+     *
+     * @throws IllegalArgumentException if there are more items than the queue's capacity
+     */
+    boolean offerAll(Collection<? extends T> batch, long timeoutMillis)
+            throws InterruptedException {
+        int n = batch.size();
+        if (n > capacity) {
+            throw new IllegalArgumentException(
+                    "batch size (" + n + ") is greater than capacity (" + capacity + ")");
+        }
+        if (!space.tryAcquire(n, timeoutMillis, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        queue.addAll(batch);
+        items.release(n);
+        return true;
+    }
+
+    /**
+     * @return the head of the queue, waiting up to the timeout for an item,
+     * or <code>null</code> if none became available
+     */
+    T poll(long timeoutMillis) throws InterruptedException {
+        if (!items.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+        return take();
+    }
+
+    /**
+     * @return the head of the queue or <code>null</code> if the queue is empty
+     */
+    T poll() {
+        if (!items.tryAcquire()) {
+            return null;
+        }
+        return take();
+    }
+
+    /**
+     * Only meaningful if there is a single consumer.
+     */
+    T peek() {
+        return queue.peek();
+    }
+
+    /**
+     * Moves up to <code>max</code> items into <code>target</code> without waiting.
+     *
+     * @return the number of items moved
+     */
+    int drainTo(Collection<? super T> target, int max) {
+        int n = Math.min(max, items.availablePermits());
+        while (n > 0 && !items.tryAcquire(n)) {
+            n = Math.min(max, items.availablePermits());
+        }
+        for (int i = 0; i < n; i++) {
+            target.add(queue.poll());
+        }
+        if (n > 0) {
+            space.release(n);
+        }
+        return n;
+    }
+
+    private T take() {
+        //an item permit guarantees that an item has been added
+        T t = queue.poll();
+        space.release();
+        return t;
+    }
+}
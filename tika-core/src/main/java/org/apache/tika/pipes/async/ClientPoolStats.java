@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.async;
+
+/**
+ * Snapshot of the state of the {@link AsyncProcessor}'s pool of PipesClients.
+ */
+public class ClientPoolStats {
+
+    private long coldStarts;
+    private long warmHits;
+    private long restarts;
+    private long retirements;
+    private int activeClients;
+    private int warmClients;
+
+    public ClientPoolStats() {
+    }
+
+    public ClientPoolStats(long coldStarts, long warmHits, long restarts, long retirements,
+                           int activeClients, int warmClients) {
+        this.coldStarts = coldStarts;
+        this.warmHits = warmHits;
+        this.restarts = restarts;
+        this.retirements = retirements;
+        this.activeClients = activeClients;
+        this.warmClients = warmClients;
+    }
+
+    /**
+     * @return number of clients a worker had to start itself because no warm
+     * client was available
+     */
+    public long getColdStarts() {
+        return coldStarts;
+    }
+
+    /**
+     * @return number of clients handed to a worker with their process already started
+     */
+    public long getWarmHits() {
+        return warmHits;
+    }
+
+    /**
+     * @return number of clients replaced after their process crashed, timed out
+     * or ran out of memory
+     */
+    public long getRestarts() {
+        return restarts;
+    }
+
+    /**
+     * @return number of clients retired proactively because they hit
+     * maxFilesProcessedPerProcess or their process grew too large
+     */
+    public long getRetirements() {
+        return retirements;
+    }
+
+    public int getActiveClients() {
+        return activeClients;
+    }
+
+    public int getWarmClients() {
+        return warmClients;
+    }
+
+    @Override
+    public String toString() {
+        return "ClientPoolStats{" + "coldStarts=" + coldStarts + ", warmHits=" + warmHits +
+                ", restarts=" + restarts + ", retirements=" + retirements + ", activeClients=" +
+                activeClients + ", warmClients=" + warmClients + '}';
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.tika.pipes.emitter.EmitData;
+
+/**
+ * Routes parsed {@link EmitData} from the fetch emit workers to the
+ * {@link AsyncEmitter}s.
+ * <p>
+ * Each emitter name has its own bounded sub-queue, so a slow emitter only
+ * backs up its own queue. Emitter threads are not tied to an emitter: an
+ * idle thread claims whichever sub-queue is ready, so work moves to the
+ * threads that are free. A sub-queue is ready once it holds
+ * {@link AsyncConfig#getEmitBatchSize()} items or
+ * {@link AsyncConfig#getEmitMaxEstimatedBytes()} bytes, in which case the
+ * producer wakes an emitter thread, or once
+ * {@link AsyncConfig#getEmitWithinMillis()} has passed since it was last emitted.
+ */
+class EmitDispatcher {
+
+    private final AsyncConfig asyncConfig;
+    private final int batchSize;
+    private final ConcurrentHashMap<String, EmitterQueue> queues = new ConcurrentHashMap<>();
+    private final Semaphore wakeups = new Semaphore(0);
+    private volatile boolean stopping = false;
+
+    EmitDispatcher(AsyncConfig asyncConfig) {
+        this.asyncConfig = asyncConfig;
+        //a full queue has to be ready, or producers could wait on it until emitWithinMillis
+        this.batchSize = Math.max(1, Math.min(asyncConfig.getEmitBatchSize(),
+                asyncConfig.getEmitQueueSize()));
+    }
+
+    boolean offer(EmitData emitData, long timeoutMillis) throws InterruptedException {
+        EmitterQueue queue = queues.computeIfAbsent(emitData.getEmitKey().getEmitterName(),
+                EmitterQueue::new);
+        if (!queue.items.offer(emitData, timeoutMillis)) {
+            return false;
+        }
+        queue.estimatedBytes.addAndGet(emitData.getEstimatedSizeBytes());
+        //a claimed queue is being emitted already and is checked again before it's released
+        if (!queue.claimed.get() && isFull(queue)) {
+            wakeups.release();
+        }
+        return true;
+    }
+
+    /**
+     * Wakes every emitter thread so that each flushes what is left and stops.
+     */
+    void stop(int numEmitterThreads) {
+        stopping = true;
+        wakeups.release(numEmitterThreads);
+    }
+
+    boolean isStopping() {
+        return stopping;
+    }
+
+    /**
+     * Waits until a sub-queue crosses a threshold or the timeout elapses.
+     */
+    void awaitWork(long timeoutMillis) throws InterruptedException {
+        wakeups.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Emits every sub-queue that is ready and isn't claimed by another thread.
+     * If <code>flush</code> is true, every sub-queue that holds any data is treated
+     * as ready.
+     *
+     * @return milliseconds until the next sub-queue becomes due
+     */
+    long emitReady(BatchEmitter batchEmitter, boolean flush) {
+        long emitWithinMillis = asyncConfig.getEmitWithinMillis();
+        long next = emitWithinMillis;
+        for (EmitterQueue queue : queues.values()) {
+            if (queue.items.size() == 0) {
+                continue;
+            }
+            long now = System.currentTimeMillis();
+            boolean due = flush || now - queue.lastEmitted >= emitWithinMillis;
+            if (!due && !isFull(queue)) {
+                next = Math.min(next, queue.lastEmitted + emitWithinMillis - now);
+                continue;
+            }
+            if (!queue.claimed.compareAndSet(false, true)) {
+                //another thread is emitting this queue
+                continue;
+            }
+            try {
+                emit(queue, batchEmitter, due);
+            } finally {
+                queue.claimed.set(false);
+            }
+            //a producer that filled the queue while it was claimed didn't wake anyone
+            if (isFull(queue)) {
+                wakeups.release();
+            }
+        }
+        return Math.max(1, next);
+    }
+
+    /**
+     * @return whether any sub-queue holds data
+     */
+    boolean hasData() {
+        for (EmitterQueue queue : queues.values()) {
+            if (queue.items.size() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isFull(EmitterQueue queue) {
+        return queue.items.size() >= batchSize ||
+                queue.estimatedBytes.get() >= asyncConfig.getEmitMaxEstimatedBytes();
+    }
+
+    private void emit(EmitterQueue queue, BatchEmitter batchEmitter, boolean all) {
+        //if the queue was due, emit everything; otherwise emit only full batches
+        while (queue.items.size() > 0 && (all || isFull(queue))) {
+            List<EmitData> batch = drainBatch(queue);
+            if (batch.isEmpty()) {
+                return;
+            }
+            batchEmitter.emit(queue.emitterName, batch);
+            queue.lastEmitted = System.currentTimeMillis();
+        }
+    }
+
+    private List<EmitData> drainBatch(EmitterQueue queue) {
+        long maxBytes = asyncConfig.getEmitMaxEstimatedBytes();
+        List<EmitData> batch = new ArrayList<>();
+        long batchBytes = 0;
+        //the claim makes this thread the queue's only consumer, so peek then poll is safe
+        EmitData next;
+        while (batch.size() < batchSize && (next = queue.items.peek()) != null) {
+            long sz = next.getEstimatedSizeBytes();
+            if (!batch.isEmpty() && batchBytes + sz > maxBytes) {
+                break;
+            }
+            //null if the producer hasn't finished adding the item
+            EmitData polled = queue.items.poll();
+            if (polled == null) {
+                break;
+            }
+            batch.add(polled);
+            batchBytes += sz;
+        }
+        queue.estimatedBytes.addAndGet(-batchBytes);
+        return batch;
+    }
+
+    interface BatchEmitter {
+        void emit(String emitterName, List<EmitData> batch);
+    }
+
+    private class EmitterQueue {
+        private final String emitterName;
+        private final BoundedBatchQueue<EmitData> items;
+        private final AtomicLong estimatedBytes = new AtomicLong(0);
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private volatile long lastEmitted = System.currentTimeMillis();
+
+        EmitterQueue(String emitterName) {
+            this.emitterName = emitterName;
+            this.items = new BoundedBatchQueue<>(asyncConfig.getEmitQueueSize());
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.async;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.tika.pipes.PipesClient;
+import org.apache.tika.pipes.PipesResult;
+import org.apache.tika.pipes.ServerHealth;
+
+/**
+ * Hands out {@link PipesClient}s to the {@link AsyncProcessor}'s workers.
+ * <p>
+ * If {@link AsyncConfig#getNumWarmClients()} is greater than zero, the pool keeps
+ * that many clients with their forked process already started. When a worker's
+ * client has to be replaced -- its process crashed, timed out, ran out of memory
+ * or was retired -- the worker swaps in a warm client instead of waiting for a new
+ * process to start, and the pool starts a new standby client in the background.
+ * <p>
+ * After every result, the pool decides whether the worker's client should be
+ * retired. Clients are retired once they hit
+ * {@link AsyncConfig#getMaxFilesProcessedPerProcess()} or once their health score
+ * reaches <code>1</code>. The health score is computed from the memory usage
+ * reported by the forked process, relative to
+ * {@link AsyncConfig#getMaxForkedRssBytes()} and
+ * {@link AsyncConfig#getMaxForkedHeapUsage()}.
+ */
+class PipesClientPool implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PipesClientPool.class);
+
+    private final AsyncConfig asyncConfig;
+    private final LinkedBlockingQueue<PipesClient> warmClients = new LinkedBlockingQueue<>();
+    private final AtomicInteger starting = new AtomicInteger(0);
+    //null if there are no warm clients
+    private final ExecutorService starter;
+
+    private final LongAdder coldStarts = new LongAdder();
+    private final LongAdder warmHits = new LongAdder();
+    private final LongAdder restarts = new LongAdder();
+    private final LongAdder retirements = new LongAdder();
+    private volatile boolean closed = false;
+
+    PipesClientPool(AsyncConfig asyncConfig) {
+        this.asyncConfig = asyncConfig;
+        if (asyncConfig.getNumWarmClients() > 0) {
+            AtomicInteger threadCount = new AtomicInteger(0);
+            starter = Executors.newFixedThreadPool(asyncConfig.getNumWarmClients(), r -> {
+                Thread t = new Thread(r, "pipes-client-starter-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            refill();
+        } else {
+            starter = null;
+        }
+    }
+
+    /**
+     * @return a warm client if one is available; otherwise a new client that
+     * will start its process on first use
+     */
+    PipesClient acquire() {
+        PipesClient client;
+        while ((client = warmClients.poll()) != null) {
+            if (client.isProcessAlive()) {
+                warmHits.increment();
+                refill();
+                return client;
+            }
+            //the standby process exited, e.g. after shutdownClientAfterMillis
+            closeQuietly(client);
+        }
+        coldStarts.increment();
+        refill();
+        return new PipesClient(asyncConfig);
+    }
+
+    /**
+     * Returns a client the worker no longer needs, e.g. because the worker was
+     * scaled down. The client becomes a warm client if one is needed.
+     */
+    void release(PipesClient client) {
+        if (starter != null && !closed && client.isProcessAlive() &&
+                warmClients.size() < asyncConfig.getNumWarmClients()) {
+            warmClients.offer(client);
+            return;
+        }
+        closeQuietly(client);
+    }
+
+    /**
+     * Called after each result.
+     *
+     * @return the client the worker should use for its next tuple: either
+     * <code>client</code> or, if <code>client</code> was retired, its replacement
+     */
+    PipesClient recycle(PipesClient client, PipesResult result) {
+        if (!needsReplacement(client, result)) {
+            return client;
+        }
+        closeQuietly(client);
+        return acquire();
+    }
+
+    private boolean needsReplacement(PipesClient client, PipesResult result) {
+        PipesResult.STATUS status = result.getStatus();
+        if (status == PipesResult.STATUS.OOM || status == PipesResult.STATUS.TIMEOUT ||
+                status == PipesResult.STATUS.UNSPECIFIED_CRASH || !client.isProcessAlive()) {
+            restarts.increment();
+            return true;
+        }
+        int maxFiles = asyncConfig.getMaxFilesProcessedPerProcess();
+        if (maxFiles > 0 && client.getFilesProcessed() >= maxFiles) {
+            retirements.increment();
+            return true;
+        }
+        if (asyncConfig.getMaxForkedRssBytes() <= 0 && asyncConfig.getMaxForkedHeapUsage() <= 0) {
+            return false;
+        }
+        try {
+            ServerHealth health = client.checkHealth();
+            double score = getHealthScore(health, asyncConfig.getMaxForkedRssBytes(),
+                    asyncConfig.getMaxForkedHeapUsage());
+            if (score >= 1.0) {
+                LOG.info("retiring client with health score {}: {}", score, health);
+                retirements.increment();
+                return true;
+            }
+        } catch (IOException e) {
+            LOG.warn("health check failed", e);
+            restarts.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return <code>0</code> for a process that uses no memory, <code>1</code> or more
+     * for a process that has reached one of the limits
+     */
+    static double getHealthScore(ServerHealth health, long maxRssBytes, double maxHeapUsage) {
+        double score = 0;
+        if (maxRssBytes > 0 && health.getRssBytes() > -1) {
+            score = Math.max(score, (double) health.getRssBytes() / maxRssBytes);
+        }
+        if (maxHeapUsage > 0 && health.getMaxHeapBytes() > 0) {
+            double heapUsage = (double) health.getUsedHeapBytes() / health.getMaxHeapBytes();
+            score = Math.max(score, heapUsage / maxHeapUsage);
+        }
+        return score;
+    }
+
+    ClientPoolStats getStats(int activeClients) {
+        return new ClientPoolStats(coldStarts.sum(), warmHits.sum(), restarts.sum(),
+                retirements.sum(), activeClients, warmClients.size());
+    }
+
+    private void refill() {
+        if (starter == null || closed) {
+            return;
+        }
+        while (true) {
+            int pending = starting.get();
+            if (warmClients.size() + pending >= asyncConfig.getNumWarmClients()) {
+                return;
+            }
+            if (starting.compareAndSet(pending, pending + 1)) {
+                starter.execute(this::startWarmClient);
+            }
+        }
+    }
+
+    private void startWarmClient() {
+        PipesClient client = new PipesClient(asyncConfig);
+        try {
+            client.start();
+            if (closed) {
+                closeQuietly(client);
+            } else {
+                warmClients.offer(client);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("couldn't start warm client", e);
+            closeQuietly(client);
+        } catch (InterruptedException e) {
+            closeQuietly(client);
+            Thread.currentThread().interrupt();
+        } finally {
+            starting.decrementAndGet();
+        }
+    }
+
+    private static void closeQuietly(PipesClient client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            LOG.warn("couldn't close client", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (starter != null) {
+            starter.shutdownNow();
+        }
+        PipesClient client;
+        while ((client = warmClients.poll()) != null) {
+            closeQuietly(client);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.async;
+
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scales the number of active fetch emit workers between
+ * {@link AsyncConfig#getMinClients()} and {@link AsyncConfig#getNumClients()}.
+ * <p>
+ * {@link #adjust(int)} is called periodically. It adds a worker while the queue
+ * holds more tuples than there are active workers, unless the 95th percentile of
+ * recent parse latencies has grown by more than half since the last worker was
+ * added, which suggests that the workers are already competing for resources.
+ * It removes a worker once the queue has been empty for a few consecutive calls.
+ * <p>
+ * Workers with an index at or above the number of active workers wait in
+ * {@link #awaitActive(int)}.
+ */
+class WorkerScaler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WorkerScaler.class);
+
+    private static final int LATENCY_WINDOW = 256;
+    private static final int IDLE_ADJUSTMENTS_BEFORE_SCALE_DOWN = 4;
+    private static final double MAX_LATENCY_GROWTH = 1.5;
+
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final Object lock = new Object();
+    private volatile int activeWorkers;
+    private volatile boolean finishing = false;
+
+    //guarded by this
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount = 0;
+    private long p95AtLastScaleUp = -1;
+    private int idleAdjustments = 0;
+
+    /**
+     * @param minWorkers minimum number of active workers; if less than <code>1</code>,
+     *                   all workers are always active
+     * @param maxWorkers total number of workers
+     */
+    WorkerScaler(int minWorkers, int maxWorkers) {
+        this.maxWorkers = maxWorkers;
+        this.minWorkers = minWorkers < 1 ? maxWorkers : Math.min(minWorkers, maxWorkers);
+        this.activeWorkers = this.minWorkers;
+    }
+
+    int getActiveWorkers() {
+        return finishing ? maxWorkers : activeWorkers;
+    }
+
+    boolean isActive(int workerIndex) {
+        return finishing || workerIndex < activeWorkers;
+    }
+
+    void awaitActive(int workerIndex) throws InterruptedException {
+        synchronized (lock) {
+            while (!isActive(workerIndex)) {
+                lock.wait(1000);
+            }
+        }
+    }
+
+    /**
+     * Activates every worker so that each can pick up its completed semaphore.
+     */
+    void finish() {
+        finishing = true;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    synchronized void recordLatency(long elapsedMillis) {
+        latencies[latencyCount++ % LATENCY_WINDOW] = elapsedMillis;
+    }
+
+    synchronized long getLatencyPercentile(double percentile) {
+        int n = Math.min(latencyCount, LATENCY_WINDOW);
+        if (n == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, n);
+        Arrays.sort(sorted);
+        int i = (int) Math.ceil(percentile * n) - 1;
+        return sorted[Math.max(0, Math.min(n - 1, i))];
+    }
+
+    void adjust(int queueDepth) {
+        if (minWorkers == maxWorkers || finishing) {
+            return;
+        }
+        synchronized (this) {
+            int active = activeWorkers;
+            if (queueDepth > active && active < maxWorkers) {
+                idleAdjustments = 0;
+                long p95 = getLatencyPercentile(0.95);
+                if (p95AtLastScaleUp < 0 || p95 <= p95AtLastScaleUp * MAX_LATENCY_GROWTH) {
+                    p95AtLastScaleUp = p95;
+                    setActiveWorkers(active + 1);
+                }
+            } else if (queueDepth == 0) {
+                if (++idleAdjustments >= IDLE_ADJUSTMENTS_BEFORE_SCALE_DOWN &&
+                        active > minWorkers) {
+                    idleAdjustments = 0;
+                    p95AtLastScaleUp = -1;
+                    setActiveWorkers(active - 1);
+                }
+            } else {
+                idleAdjustments = 0;
+            }
+        }
+    }
+
+    private void setActiveWorkers(int activeWorkers) {
+        LOG.debug("scaling active workers from {} to {}", this.activeWorkers, activeWorkers);
+        this.activeWorkers = activeWorkers;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.emitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * An emitter that can write the metadata of each document in a container as
+ * soon as that document has been parsed, instead of getting the whole list
+ * once the container is done.
+ * <p>
+ * With the recursive parse mode, the PipesServer streams to emitters that
+ * return <code>true</code> from {@link #isStreaming()}. The metadata objects
+ * arrive in the order the parses end, so the container comes last. The
+ * user metadata from the fetch emit tuple is added to the container, as
+ * with {@link #emit(String, java.util.List)}.
+ */
+public interface MetadataStreamEmitter extends Emitter {
+
+    /**
+     * @return whether the PipesServer should stream metadata to this emitter
+     */
+    default boolean isStreaming() {
+        return true;
+    }
+
+    /**
+     * Starts the output for an emit key. The emit is complete when the
+     * returned writer is closed.
+     */
+    MetadataWriter open(String emitKey) throws IOException, TikaEmitterException;
+
+    interface MetadataWriter extends Closeable {
+        void add(Metadata metadata) throws IOException;
+    }
+}
@@ -18,7 +18,6 @@ package org.apache.tika.sax;
 
 
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.util.Locale;
@@ -153,9 +152,8 @@ public class BasicContentHandlerFactory implements ContentHandlerFactory, WriteL
             if (writeLimit > -1) {
                 switch (type) {
                     case BODY:
-                        return new WriteOutContentHandler(
-                                new BodyContentHandler(new OutputStreamWriter(os, charset)),
-                                writeLimit);
+                        return new WriteOutContentHandler(new BodyContentHandler(
+                                Utf8OutputStreamWriter.newWriter(os, charset)), writeLimit);
                     case TEXT:
                         return new WriteOutContentHandler(
                                 new ToTextContentHandler(os, charset.name()), writeLimit);
@@ -172,7 +170,8 @@ public class BasicContentHandlerFactory implements ContentHandlerFactory, WriteL
             } else {
                 switch (type) {
                     case BODY:
-                        return new BodyContentHandler(new OutputStreamWriter(os, charset));
+                        return new BodyContentHandler(
+                                Utf8OutputStreamWriter.newWriter(os, charset));
                     case TEXT:
                         return new ToTextContentHandler(os, charset.name());
                     case HTML:
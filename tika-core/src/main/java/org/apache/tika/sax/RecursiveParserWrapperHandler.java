@@ -37,8 +37,8 @@ import org.apache.tika.utils.ParserUtils;
  * This caches the a metadata object for each embedded file and for the container file.
  * It places the extracted content in the metadata object, with this key:
  * {@link TikaCoreProperties#TIKA_CONTENT}
- * If memory is a concern, subclass AbstractRecursiveParserWrapperHandler to handle each
- * embedded document.
+ * If memory is a concern, use a {@link StreamingRecursiveParserWrapperHandler}, or
+ * subclass AbstractRecursiveParserWrapperHandler to handle each embedded document.
  * <p>
  * <b>NOTE: This handler must only be used with the {@link
  * org.apache.tika.parser.RecursiveParserWrapper}</b>
@@ -137,7 +137,7 @@ public class RecursiveParserWrapperHandler extends AbstractRecursiveParserWrappe
         return metadataList;
     }
 
-    void addContent(ContentHandler handler, Metadata metadata) {
+    static void addContent(ContentHandler handler, Metadata metadata) {
 
         if (handler.getClass().equals(DefaultHandler.class)) {
             //no-op: we can't rely on just testing for
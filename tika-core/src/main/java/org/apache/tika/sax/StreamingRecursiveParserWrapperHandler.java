@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import java.io.IOException;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.metadata.filter.MetadataFilter;
+import org.apache.tika.metadata.filter.NoOpFilter;
+
+/**
+ * An {@link AbstractRecursiveParserWrapperHandler} that hands each document's
+ * metadata to a {@link MetadataListener} as soon as that document has been parsed,
+ * instead of collecting them in a list like the {@link RecursiveParserWrapperHandler}.
+ * Nothing is kept after the listener returns, so memory use is bounded by the
+ * largest single document rather than by the whole container.
+ * <p>
+ * The metadata objects are the same ones that the {@link RecursiveParserWrapperHandler}
+ * collects, with the extracted content under {@link TikaCoreProperties#TIKA_CONTENT},
+ * but they arrive in the order the parses end: an embedded document comes after its
+ * own embedded documents, and the container comes last rather than first.
+ * <p>
+ * If the listener throws an exception, the listener is not called again, and the
+ * exception is available from {@link #getListenerException()} after the parse.
+ * <p>
+ * <b>NOTE: This handler must only be used with the {@link
+ * org.apache.tika.parser.RecursiveParserWrapper}</b>
+ * </p>
+ */
+public class StreamingRecursiveParserWrapperHandler extends AbstractRecursiveParserWrapperHandler {
+
+    /**
+     * Receives the metadata of each document, embedded documents first and the
+     * container last.
+     */
+    public interface MetadataListener {
+        void accept(Metadata metadata) throws IOException;
+    }
+
+    private final MetadataFilter metadataFilter;
+    private final MetadataListener listener;
+    private IOException listenerException;
+
+    public StreamingRecursiveParserWrapperHandler(ContentHandlerFactory contentHandlerFactory,
+                                                  MetadataListener listener) {
+        this(contentHandlerFactory, -1, NoOpFilter.NOOP_FILTER, listener);
+    }
+
+    public StreamingRecursiveParserWrapperHandler(ContentHandlerFactory contentHandlerFactory,
+                                                  int maxEmbeddedResources,
+                                                  MetadataFilter metadataFilter,
+                                                  MetadataListener listener) {
+        super(contentHandlerFactory, maxEmbeddedResources);
+        this.metadataFilter = metadataFilter;
+        this.listener = listener;
+    }
+
+    @Override
+    public void endEmbeddedDocument(ContentHandler contentHandler, Metadata metadata)
+            throws SAXException {
+        super.endEmbeddedDocument(contentHandler, metadata);
+        handle(contentHandler, metadata);
+    }
+
+    @Override
+    public void endDocument(ContentHandler contentHandler, Metadata metadata) throws SAXException {
+        super.endDocument(contentHandler, metadata);
+        handle(contentHandler, metadata);
+    }
+
+    /**
+     * @return the exception thrown by the listener, or <code>null</code> if it
+     * didn't throw one
+     */
+    public IOException getListenerException() {
+        return listenerException;
+    }
+
+    private void handle(ContentHandler contentHandler, Metadata metadata) throws SAXException {
+        if (listenerException != null) {
+            return;
+        }
+        RecursiveParserWrapperHandler.addContent(contentHandler, metadata);
+        try {
+            metadataFilter.filter(metadata);
+        } catch (TikaException e) {
+            throw new SAXException(e);
+        }
+        if (metadata.size() == 0) {
+            return;
+        }
+        try {
+            listener.accept(metadata);
+        } catch (IOException e) {
+            listenerException = e;
+            throw new SAXException(e);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Locale;
 
 import org.xml.sax.Attributes;
@@ -74,7 +75,8 @@ public class ToTextContentHandler extends DefaultHandler {
 
     /**
      * Creates a content handler that writes character events to
-     * the given output stream using the given encoding.
+     * the given output stream using the given encoding. UTF-8 is
+     * written with a {@link Utf8OutputStreamWriter}.
      *
      * @param stream   output stream
      * @param encoding output encoding
@@ -82,7 +84,7 @@ public class ToTextContentHandler extends DefaultHandler {
      */
     public ToTextContentHandler(OutputStream stream, String encoding)
             throws UnsupportedEncodingException {
-        this(new OutputStreamWriter(stream, encoding));
+        this(newWriter(stream, encoding));
     }
 
     /**
@@ -94,6 +96,18 @@ public class ToTextContentHandler extends DefaultHandler {
         this(new StringWriter());
     }
 
+    private static Writer newWriter(OutputStream stream, String encoding)
+            throws UnsupportedEncodingException {
+        try {
+            if (StandardCharsets.UTF_8.equals(Charset.forName(encoding))) {
+                return new Utf8OutputStreamWriter(stream);
+            }
+        } catch (IllegalArgumentException e) {
+            //let the OutputStreamWriter report the encoding
+        }
+        return new OutputStreamWriter(stream, encoding);
+    }
+
     /**
      * Writes the given characters to the given character stream.
      */
@@ -111,6 +125,38 @@ public class ToTextContentHandler extends DefaultHandler {
         }
     }
 
+    /**
+     * Writes the given character as {@link #characters(char[], int, int)}
+     * of this class would, without wrapping it in an array.
+     */
+    void writeRaw(char ch) throws SAXException {
+        if (styleDepth + scriptDepth != 0) {
+            return;
+        }
+
+        try {
+            writer.write(ch);
+        } catch (IOException e) {
+            throw new SAXException("Error writing: " + ch, e);
+        }
+    }
+
+    /**
+     * Writes the given string as {@link #characters(char[], int, int)}
+     * of this class would, without copying it to an array.
+     */
+    void writeRaw(String string) throws SAXException {
+        if (styleDepth + scriptDepth != 0) {
+            return;
+        }
+
+        try {
+            writer.write(string);
+        } catch (IOException e) {
+            throw new SAXException("Error writing: " + string, e);
+        }
+    }
+
 
     /**
      * Writes the given ignorable characters to the given character stream.
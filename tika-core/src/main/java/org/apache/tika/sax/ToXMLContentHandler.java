@@ -168,7 +168,7 @@ public class ToXMLContentHandler extends ToTextContentHandler {
      * @throws SAXException if the character could not be written
      */
     protected void write(char ch) throws SAXException {
-        super.characters(new char[]{ch}, 0, 1);
+        writeRaw(ch);
     }
 
     /**
@@ -178,7 +178,7 @@ public class ToXMLContentHandler extends ToTextContentHandler {
      * @throws SAXException if the character string could not be written
      */
     protected void write(String string) throws SAXException {
-        super.characters(string.toCharArray(), 0, string.length());
+        writeRaw(string);
     }
 
     /**
@@ -187,7 +187,7 @@ public class ToXMLContentHandler extends ToTextContentHandler {
      * @param ch     character array
      * @param from   start position in the array
      * @param to     end position in the array
-     * @param entity entity code
+     * @param entity entity reference
      * @return next position in the array,
      * after the characters plus one entity
      * @throws SAXException if the characters could not be written
@@ -195,9 +195,7 @@ public class ToXMLContentHandler extends ToTextContentHandler {
     private int writeCharsAndEntity(char[] ch, int from, int to, String entity)
             throws SAXException {
         super.characters(ch, from, to - from);
-        write('&');
         write(entity);
-        write(';');
         return to + 1;
     }
 
@@ -214,19 +212,25 @@ public class ToXMLContentHandler extends ToTextContentHandler {
     private void writeEscaped(char[] ch, int from, int to, boolean attribute) throws SAXException {
         int pos = from;
         while (pos < to) {
-            if (ch[pos] == '<') {
-                from = pos = writeCharsAndEntity(ch, from, pos, "lt");
-            } else if (ch[pos] == '>') {
-                from = pos = writeCharsAndEntity(ch, from, pos, "gt");
-            } else if (ch[pos] == '&') {
-                from = pos = writeCharsAndEntity(ch, from, pos, "amp");
-            } else if (attribute && ch[pos] == '"') {
-                from = pos = writeCharsAndEntity(ch, from, pos, "quot");
+            char c = ch[pos];
+            if (c > '>') {
+                //no meta character is above '>', so most characters stop here
+                pos++;
+            } else if (c == '<') {
+                from = pos = writeCharsAndEntity(ch, from, pos, "&lt;");
+            } else if (c == '>') {
+                from = pos = writeCharsAndEntity(ch, from, pos, "&gt;");
+            } else if (c == '&') {
+                from = pos = writeCharsAndEntity(ch, from, pos, "&amp;");
+            } else if (attribute && c == '"') {
+                from = pos = writeCharsAndEntity(ch, from, pos, "&quot;");
             } else {
                 pos++;
             }
         }
-        super.characters(ch, from, to - from);
+        if (to > from) {
+            super.characters(ch, from, to - from);
+        }
     }
 
     private static class ElementInfo {
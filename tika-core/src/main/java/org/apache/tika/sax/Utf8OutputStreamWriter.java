@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writer that encodes characters as UTF-8 straight into a byte buffer,
+ * without the {@link java.nio.charset.CharsetEncoder} and the buffer
+ * wrapping of an {@link OutputStreamWriter}, with a fast path for runs
+ * of ASCII. The bytes written are the same as those of an
+ * {@link OutputStreamWriter} for UTF-8: an unpaired surrogate is written
+ * as <code>?</code>, and a high surrogate at the end of a write is paired
+ * with the first character of the next one.
+ * <p>
+ * The byte buffers are taken from a pool shared by the writers, and are
+ * given back when the writer is flushed or closed. Like the handlers that
+ * write to it, the writer is not thread safe.
+ *
+ * @since Apache Tika 2.7.0
+ */
+public class Utf8OutputStreamWriter extends Writer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final BlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(64);
+
+    private final OutputStream out;
+    private final char[] chars = new char[1024];
+    private byte[] buffer;
+    private int length = 0;
+    //high surrogate at the end of the last write, or 0
+    private char highSurrogate = 0;
+
+    public Utf8OutputStreamWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * @return a {@link Utf8OutputStreamWriter} if the charset is UTF-8,
+     * an {@link OutputStreamWriter} otherwise
+     */
+    public static Writer newWriter(OutputStream out, Charset charset) {
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return new Utf8OutputStreamWriter(out);
+        }
+        return new OutputStreamWriter(out, charset);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        chars[0] = (char) c;
+        write(chars, 0, 1);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, chars.length);
+            str.getChars(off, off + n, chars, 0);
+            write(chars, 0, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        if (buffer == null) {
+            buffer = POOL.poll();
+            if (buffer == null) {
+                buffer = new byte[BUFFER_SIZE];
+            }
+        }
+        byte[] buf = buffer;
+        int pos = length;
+        int i = off;
+        int end = off + len;
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (pos > buf.length - 4) {
+                pos = drain(pos);
+            }
+            if (Character.isLowSurrogate(cbuf[i])) {
+                pos = putCodePoint(buf, pos, Character.toCodePoint(high, cbuf[i++]));
+            } else {
+                buf[pos++] = '?';
+            }
+        }
+        while (i < end) {
+            if (pos > buf.length - 4) {
+                pos = drain(pos);
+            }
+            char c = cbuf[i++];
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+                //the rest of the run of ASCII that fits in the buffer
+                int limit = Math.min(end, i + buf.length - pos);
+                while (i < limit && (c = cbuf[i]) < 0x80) {
+                    buf[pos++] = (byte) c;
+                    i++;
+                }
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)) {
+                if (i == end) {
+                    highSurrogate = c;
+                } else if (Character.isLowSurrogate(cbuf[i])) {
+                    pos = putCodePoint(buf, pos, Character.toCodePoint(c, cbuf[i++]));
+                } else {
+                    buf[pos++] = '?';
+                }
+            } else if (Character.isLowSurrogate(c)) {
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        length = pos;
+    }
+
+    private static int putCodePoint(byte[] buf, int pos, int cp) {
+        buf[pos++] = (byte) (0xf0 | (cp >> 18));
+        buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+        buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+        buf[pos++] = (byte) (0x80 | (cp & 0x3f));
+        return pos;
+    }
+
+    private int drain(int pos) throws IOException {
+        out.write(buffer, 0, pos);
+        length = 0;
+        return 0;
+    }
+
+    /**
+     * Writes the buffered bytes, and gives the buffer back to the pool.
+     * As with an {@link OutputStreamWriter}, a high surrogate at the end
+     * of the last write is kept for the next one.
+     */
+    @Override
+    public void flush() throws IOException {
+        release();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            chars[0] = '?';
+            write(chars, 0, 1);
+        }
+        try {
+            release();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void release() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        if (length > 0) {
+            drain(length);
+        }
+        POOL.offer(buffer);
+        buffer = null;
+    }
+}
@@ -19,6 +19,9 @@ package org.apache.tika.utils;
 import java.text.DateFormat;
 import java.text.DateFormatSymbols;
 import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -147,6 +150,10 @@ public class DateUtils {
      * @return
      */
     public Date tryToParse(String dateString) {
+        Date utc = tryToParseUtc(dateString);
+        if (utc != null) {
+            return utc;
+        }
         // Java doesn't like timezones in the form ss+hh:mm
         // It only likes the hhmm form, without the colon
         int n = dateString.length();
@@ -164,4 +171,53 @@ public class DateUtils {
         }
         return null;
     }
+
+    /**
+     * Parses dates in the format written by {@link #formatDate(Date)}, which
+     * is the first of the input formats, without a {@link DateFormat}. This is
+     * thread safe.
+     *
+     * @return the date, or <code>null</code> if the string isn't exactly in that
+     * format with fields in range, in which case the date formats decide
+     */
+    private static Date tryToParseUtc(String s) {
+        if (s.length() != 20 || s.charAt(4) != '-' || s.charAt(7) != '-' ||
+                s.charAt(10) != 'T' || s.charAt(13) != ':' || s.charAt(16) != ':' ||
+                s.charAt(19) != 'Z') {
+            return null;
+        }
+        int year = parseDigits(s, 0, 4);
+        int month = parseDigits(s, 5, 2);
+        int day = parseDigits(s, 8, 2);
+        int hour = parseDigits(s, 11, 2);
+        int minute = parseDigits(s, 14, 2);
+        int second = parseDigits(s, 17, 2);
+        //the date formats use the Julian calendar before the Gregorian cutover
+        if (year < 1583 || month < 1 || day < 1 || hour < 0 || hour > 23 || minute < 0 ||
+                minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        try {
+            return new Date(LocalDateTime.of(year, month, day, hour, minute, second)
+                    .toEpochSecond(ZoneOffset.UTC) * 1000);
+        } catch (DateTimeException e) {
+            //e.g. February 30th, which the lenient date formats roll over
+            return null;
+        }
+    }
+
+    /**
+     * @return the value of the ASCII digits, or <code>-1</code> if there's any other character
+     */
+    private static int parseDigits(String s, int offset, int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
 }
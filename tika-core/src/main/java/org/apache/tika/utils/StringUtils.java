@@ -16,6 +16,8 @@
  */
 package org.apache.tika.utils;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 
 public class StringUtils {
@@ -36,6 +38,8 @@ public class StringUtils {
 
     static int PAD_LIMIT = 10000;
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     public static boolean isEmpty(final CharSequence cs) {
         return cs == null || cs.length() == 0;
     }
@@ -207,6 +211,33 @@ public class StringUtils {
     }
 
 
+    /**
+     * @return the bytes as lower case hexadecimal digits, two per byte
+     * @since Apache Tika 2.7.0
+     */
+    public static String toHexString(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return a new SHA-256 digest, for keys to be encoded with
+     * {@link #toHexString(byte[])}
+     * @since Apache Tika 2.7.0
+     */
+    public static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
     public static String joinWith(String delimiter, List<String> lines) {
         if (lines.size() == 0) {
             return EMPTY;
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.apache.tika.metadata.filter.MetadataFilter;
+import org.apache.tika.parser.Parser;
+
+public class ServiceIndexTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    public void testSameAsServiceFiles() throws Exception {
+        ServiceIndex.write(tmp.resolve(ServiceIndex.FILE_NAME));
+        ServiceIndex index = ServiceIndex.load(tmp);
+        ServiceLoader loader = new ServiceLoader(ClassLoader.getSystemClassLoader());
+        for (Class<?> iface : new Class<?>[]{Parser.class, MetadataFilter.class}) {
+            List<String> expected = loader.identifyStaticServiceProviders(iface);
+            assertFalse(expected.isEmpty(), iface.getName());
+            assertEquals(expected, index.getProviders(iface.getName()));
+        }
+        assertNull(index.getProviders("org.apache.tika.NotAService"));
+    }
+
+    @Test
+    public void testNoIndex() throws Exception {
+        assertNull(ServiceIndex.load(null));
+        assertNull(ServiceIndex.load(tmp));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.detect;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ByteClassStatisticsTest {
+
+    /**
+     * Bytes drawn from these pools make up the random input: text, text
+     * with control bytes, UTF-8 and arbitrary bytes.
+     */
+    private static final byte[][] POOLS = {
+            "The quick brown fox jumps over the lazy dog.".getBytes(UTF_8),
+            "line\tone\r\nline\u000btwo\u0000\u001b\u007f".getBytes(UTF_8),
+            "café 中文 😀 naïve".getBytes(UTF_8),
+            all()};
+
+    @Test
+    public void testSameAsTextStatistics() {
+        Random random = new Random(20);
+        //how often each predicate held, so that both outcomes are covered
+        int mostlyAscii = 0;
+        int utf8 = 0;
+        for (int i = 0; i < 10000; i++) {
+            byte[] bytes = new byte[random.nextInt(600)];
+            int mix = random.nextInt(1 << POOLS.length) | 1;
+            for (int j = 0; j < bytes.length; j++) {
+                int pool;
+                do {
+                    pool = random.nextInt(POOLS.length);
+                } while ((mix & (1 << pool)) == 0);
+                bytes[j] = POOLS[pool][random.nextInt(POOLS[pool].length)];
+            }
+
+            TextStatistics expected = new TextStatistics();
+            ByteClassStatistics actual = new ByteClassStatistics();
+            //fed in pieces at arbitrary offsets
+            for (int from = 0; from < bytes.length; ) {
+                int length = Math.min(bytes.length - from, random.nextInt(40));
+                expected.addData(bytes, from, length);
+                actual.addData(bytes, from, length);
+                from += length;
+            }
+
+            assertEquals(expected.count(), actual.count());
+            assertEquals(expected.countControl(), actual.count(ByteClassStatistics.CONTROL));
+            assertEquals(expected.countSafeAscii(), actual.count(ByteClassStatistics.ASCII) +
+                    actual.count(ByteClassStatistics.SAFE_CONTROL));
+            assertEquals(expected.countEightBit(),
+                    actual.count(ByteClassStatistics.CONTINUATION) +
+                            actual.count(ByteClassStatistics.LEADING_2) +
+                            actual.count(ByteClassStatistics.LEADING_3) +
+                            actual.count(ByteClassStatistics.LEADING_4) +
+                            actual.count(ByteClassStatistics.INVALID));
+            assertEquals(expected.isMostlyAscii(), actual.isMostlyAscii());
+            assertEquals(expected.looksLikeUTF8(), actual.looksLikeUTF8());
+            mostlyAscii += actual.isMostlyAscii() ? 1 : 0;
+            utf8 += actual.looksLikeUTF8() ? 1 : 0;
+        }
+        assertTrue(mostlyAscii > 1000 && mostlyAscii < 9000, "mostly ascii " + mostlyAscii);
+        assertTrue(utf8 > 1000 && utf8 < 9000, "utf8 " + utf8);
+    }
+
+    private static byte[] all() {
+        byte[] all = new byte[256];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = (byte) i;
+        }
+        return all;
+    }
+}
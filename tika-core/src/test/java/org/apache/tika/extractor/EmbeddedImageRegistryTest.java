@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.extractor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class EmbeddedImageRegistryTest {
+
+    @Test
+    public void testRegister() throws Exception {
+        EmbeddedImageRegistry registry = new EmbeddedImageRegistry(10);
+        String logo = key("logo");
+        assertEquals(64, logo.length());
+        assertEquals(logo, key("logo"));
+        assertNotEquals(logo, key("stamp"));
+
+        assertNull(registry.getCanonicalName(logo));
+        assertEquals("a.pdf/image-1-1.png", registry.register(logo, "a.pdf/image-1-1.png"));
+        //the first name stays the canonical one
+        assertEquals("a.pdf/image-1-1.png", registry.register(logo, "b.pdf/image-1-1.png"));
+        assertEquals("a.pdf/image-1-1.png", registry.getCanonicalName(logo));
+        assertEquals(1, registry.getHits());
+        assertEquals(1, registry.getMisses());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        EmbeddedImageRegistry registry = new EmbeddedImageRegistry(2);
+        registry.register(key("1"), "1");
+        registry.register(key("2"), "2");
+        //1 is now more recently used than 2
+        assertEquals("1", registry.getCanonicalName(key("1")));
+        registry.register(key("3"), "3");
+        assertEquals(2, registry.size());
+        assertNull(registry.getCanonicalName(key("2")));
+        assertEquals("1", registry.getCanonicalName(key("1")));
+        assertEquals("3", registry.getCanonicalName(key("3")));
+    }
+
+    private static String key(String bytes) throws Exception {
+        return EmbeddedImageRegistry.getKey(
+                new ByteArrayInputStream(bytes.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -23,8 +23,13 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Locale;
 import java.util.Properties;
@@ -473,6 +478,67 @@ public class TestMetadata extends TikaTest {
         assertEquals(meta1.hashCode(), meta2.hashCode());
     }
 
+    @Test
+    public void testManyFields() {
+        //enough fields for the lookups to go through the index
+        Metadata meta = new Metadata();
+        for (int i = 0; i < 100; i++) {
+            meta.add("key" + i, "value" + i);
+            meta.add(TikaCoreProperties.SUBJECT, "subject" + i);
+        }
+        assertEquals(101, meta.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value" + i, meta.get("key" + i));
+        }
+        assertEquals(100, meta.getValues(TikaCoreProperties.SUBJECT).length);
+        assertEquals("subject99", meta.getValues(TikaCoreProperties.SUBJECT)[99]);
+
+        for (int i = 0; i < 100; i += 2) {
+            meta.remove("key" + i);
+        }
+        assertEquals(51, meta.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 0 ? null : "value" + i, meta.get("key" + i));
+        }
+        //names stay in insertion order
+        String[] names = meta.names();
+        assertEquals(TikaCoreProperties.SUBJECT.getName(), names[0]);
+        assertEquals("key1", names[1]);
+        assertEquals("key99", names[50]);
+    }
+
+    @Test
+    public void testValuesAreNotModifiedByLaterAdds() {
+        Metadata meta = new Metadata();
+        meta.add("key", "value1");
+        meta.add("key", "value2");
+        String[] values = meta.getValues("key");
+        meta.add("key", "value3");
+        assertEquals(Arrays.asList("value1", "value2"), Arrays.asList(values));
+        assertEquals(Arrays.asList("value1", "value2", "value3"),
+                Arrays.asList(meta.getValues("key")));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        Metadata meta = new Metadata();
+        meta.add("key", "value1");
+        meta.add("key", "value2");
+        meta.set(TikaCoreProperties.TITLE, "title");
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(meta);
+        }
+        Metadata deserialized;
+        try (ObjectInputStream ois =
+                     new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            deserialized = (Metadata) ois.readObject();
+        }
+        assertEquals(meta, deserialized);
+        deserialized.add("key", "value3");
+        assertEquals(3, deserialized.getValues("key").length);
+    }
+
     @Test
     public void testToStringWithManyEntries() {
         Metadata m = new Metadata();
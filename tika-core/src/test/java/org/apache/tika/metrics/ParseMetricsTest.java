@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import org.apache.tika.detect.Detector;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.extractor.EmbeddedDocumentUtil;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.AutoDetectParserConfig;
+import org.apache.tika.parser.CompositeParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
+
+public class ParseMetricsTest {
+
+    @Test
+    public void testListener() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        ParseMetrics.addListener(listener);
+        try {
+            assertTrue(ParseMetrics.isEnabled());
+            parse(AutoDetectParserConfig.DEFAULT, new Metadata());
+        } finally {
+            ParseMetrics.removeListener(listener);
+        }
+        assertEquals("detect " + TextDetector.class.getName(), listener.times.get(0));
+        assertEquals("parse " + TextParser.class.getName() + " text/plain 0",
+                listener.times.get(1));
+        assertEquals("handler", listener.times.get(2));
+        assertEquals(3, listener.times.size());
+
+        //nothing once removed
+        parse(AutoDetectParserConfig.DEFAULT, new Metadata());
+        assertEquals(3, listener.times.size());
+        assertEquals(ParseMetrics.DISABLED, ParseMetrics.start());
+    }
+
+    @Test
+    public void testNestedCompositeParser() throws Exception {
+        EmbeddingParser embeddingParser = new EmbeddingParser();
+        //as the DefaultParser within an AutoDetectParser
+        AutoDetectParser parser = new AutoDetectParser(new TextDetector(),
+                new CompositeParser(MediaTypeRegistry.getDefaultRegistry(), embeddingParser));
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
+        RecordingListener listener = new RecordingListener();
+        ParseMetrics.addListener(listener);
+        try (InputStream is = new ByteArrayInputStream("hello world".getBytes(UTF_8))) {
+            parser.parse(is, new BodyContentHandler(), new Metadata(), context);
+        } finally {
+            ParseMetrics.removeListener(listener);
+        }
+        List<String> parses = new ArrayList<>();
+        for (String time : listener.times) {
+            if (time.startsWith(ParseMetrics.PARSE + " ")) {
+                parses.add(time);
+            }
+        }
+        //once per document, with the type it was dispatched by rather than the
+        //content type that the parser set
+        assertEquals(Arrays.asList(
+                "parse " + EmbeddingParser.class.getName() + " text/plain 1",
+                "parse " + EmbeddingParser.class.getName() + " text/plain 0"), parses);
+    }
+
+    @Test
+    public void testRecordTimings() throws Exception {
+        assertFalse(ParseMetrics.isEnabled());
+        Metadata metadata = new Metadata();
+        parse(AutoDetectParserConfig.DEFAULT, metadata);
+        assertNull(metadata.get(TikaCoreProperties.PARSER_TIME_MILLIS));
+
+        AutoDetectParserConfig config = new AutoDetectParserConfig();
+        config.setRecordTimings(true);
+        metadata = new Metadata();
+        parse(config, metadata);
+        assertNotNull(metadata.get(TikaCoreProperties.DETECT_TIME_MILLIS));
+        assertNotNull(metadata.get(TikaCoreProperties.PARSER_TIME_MILLIS));
+        assertNotNull(metadata.get(TikaCoreProperties.HANDLER_TIME_MILLIS));
+        //left to the RecursiveParserWrapper
+        assertNull(metadata.get(TikaCoreProperties.PARSE_TIME_MILLIS));
+    }
+
+    @Test
+    public void testSpillBytes() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        ParseMetrics.addListener(listener);
+        try (TemporaryResources tmp = new TemporaryResources()) {
+            TikaInputStream tis = TikaInputStream.get(
+                    new ByteArrayInputStream(new byte[1234]), tmp, new Metadata());
+            tis.getPath();
+        } finally {
+            ParseMetrics.removeListener(listener);
+        }
+        assertEquals(Collections.singletonList("spill_bytes 1234"), listener.counts);
+    }
+
+    @Test
+    public void testLabelNames() {
+        assertArrayEquals(new String[]{"parser", "type", "depth"},
+                ParseMetrics.getLabelNames(ParseMetrics.PARSE));
+        assertEquals(0, ParseMetrics.getLabelNames(ParseMetrics.SPILL_BYTES).length);
+    }
+
+    private static void parse(AutoDetectParserConfig config, Metadata metadata)
+            throws Exception {
+        AutoDetectParser parser = new AutoDetectParser(new TextDetector(), new TextParser());
+        parser.setAutoDetectParserConfig(config);
+        try (InputStream is = new ByteArrayInputStream("hello world".getBytes(UTF_8))) {
+            parser.parse(is, new BodyContentHandler(), metadata, new ParseContext());
+        }
+    }
+
+    private static class RecordingListener implements MetricsListener {
+
+        private final List<String> times = new ArrayList<>();
+        private final List<String> counts = new ArrayList<>();
+
+        @Override
+        public synchronized void recordTime(String name, long nanos, String[] labels) {
+            assertTrue(nanos >= 0);
+            times.add(join(name, labels));
+        }
+
+        @Override
+        public synchronized void recordCount(String name, long count, String[] labels) {
+            counts.add(join(name, labels) + " " + count);
+        }
+
+        private static String join(String name, String[] labels) {
+            StringBuilder sb = new StringBuilder(name);
+            for (String label : labels) {
+                sb.append(' ').append(label);
+            }
+            return sb.toString();
+        }
+    }
+
+    private static class TextDetector implements Detector {
+        @Override
+        public MediaType detect(InputStream input, Metadata metadata) {
+            return MediaType.TEXT_PLAIN;
+        }
+    }
+
+    /**
+     * Parses one embedded document out of the container, and sets a charset
+     * on the content type as the text parsers do.
+     */
+    private static class EmbeddingParser extends AbstractParser {
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.singleton(MediaType.TEXT_PLAIN);
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            metadata.set(Metadata.CONTENT_TYPE, "text/plain; charset=UTF-8");
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            if (metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY) == null) {
+                Metadata embedded = new Metadata();
+                embedded.set(TikaCoreProperties.RESOURCE_NAME_KEY, "embedded.txt");
+                EmbeddedDocumentExtractor extractor =
+                        EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context);
+                try (InputStream is = new ByteArrayInputStream("embedded".getBytes(UTF_8))) {
+                    extractor.parseEmbedded(is, xhtml, embedded, true);
+                }
+            }
+            xhtml.endDocument();
+        }
+    }
+
+    private static class TextParser extends AbstractParser {
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.singleton(MediaType.TEXT_PLAIN);
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            xhtml.element("p", "hello world");
+            xhtml.endDocument();
+        }
+    }
+}
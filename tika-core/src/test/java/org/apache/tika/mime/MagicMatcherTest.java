@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.detect.MagicDetector;
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Checks that the {@link MagicMatcher} gives the same results as evaluating
+ * every magic in order.
+ */
+public class MagicMatcherTest {
+
+    private static final String[] HEADERS = {"%PDF-1.4\n", "PK\u0003\u0004\u0014\u0000\u0006\u0000",
+            "\u00D0\u00CF\u0011\u00E0\u00A1\u00B1\u001A\u00E1", "<?xml version=\"1.0\"?>",
+            "<!DOCTYPE html><html>", "<html><head><title>", "GIF89a", "\u0089PNG\r\n\u001A\n",
+            "\u00FF\u00D8\u00FF\u00E0\u0000\u0010JFIF", "{\\rtf1\\ansi", "ID3\u0003", "RIFF\u0000\u0000\u0000\u0000WAVEfmt ",
+            "\u001F\u008B\u0008", "BZh91AY", "7z\u00BC\u00AF'\u001C", "Rar!\u001A\u0007",
+            "\u00EF\u00BB\u00BF<?xml version=\"1.0\"?><svg xmlns=\"http://www.w3.org/2000/svg\">",
+            "From: someone@example.com\r\nSubject: hi\r\n", "MZ\u0090\u0000", "\u007FELF\u0002\u0001",
+            "#!/bin/sh\n", "%!PS-Adobe-3.0", "II*\u0000", "MM\u0000*", "OggS\u0000\u0002",
+            "\u0000\u0000\u0000\u0018ftypmp42", "BEGIN:VCARD\r\n", "{\"a\": 1}", "hello world"};
+
+    private static MimeTypes mimeTypes;
+    private static List<Magic> magics;
+
+    @BeforeAll
+    public static void setUp() throws MimeTypeException {
+        mimeTypes = MimeTypes.getDefaultMimeTypes();
+        magics = new ArrayList<>();
+        for (MediaType type : mimeTypes.getMediaTypeRegistry().getTypes()) {
+            magics.addAll(mimeTypes.forName(type.toString()).getMagics());
+        }
+        Collections.sort(magics);
+    }
+
+    @Test
+    public void testSameAsLinear() throws IOException {
+        MagicMatcher matcher = new MagicMatcher(magics);
+        List<byte[]> samples = getSamples();
+        for (byte[] data : samples) {
+            assertEquals(linear(magics, data), matcher.match(data),
+                    new String(data, 0, Math.min(data.length, 40), ISO_8859_1));
+        }
+        //no index if the magics aren't in priority order
+        List<Magic> reversed = new ArrayList<>(magics);
+        Collections.reverse(reversed);
+        MagicMatcher unsorted = new MagicMatcher(reversed);
+        for (byte[] data : samples) {
+            assertEquals(linear(reversed, data), unsorted.match(data));
+        }
+    }
+
+    @Test
+    public void testMagicDetectorMatches() throws IOException {
+        List<MagicDetector> detectors = new ArrayList<>();
+        for (Magic magic : magics) {
+            collect(magic.getClause(), detectors);
+        }
+        assertTrue(detectors.size() > 100);
+        for (byte[] data : getSamples()) {
+            for (MagicDetector detector : detectors) {
+                boolean expected = detector.detect(new UnsynchronizedByteArrayInputStream(data),
+                        new Metadata()) != MediaType.OCTET_STREAM;
+                assertEquals(expected, detector.matches(data), detector.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testMagicScanner() throws IOException {
+        List<MagicDetector> detectors = new ArrayList<>();
+        for (Magic magic : magics) {
+            collect(magic.getClause(), detectors);
+        }
+        for (boolean ignoreCase : new boolean[]{false, true}) {
+            List<MagicDetector> scanned = new ArrayList<>();
+            for (MagicDetector detector : detectors) {
+                if (!detector.isRegex() && !detector.isMasked() && detector.getLength() > 0 &&
+                        detector.isStringIgnoreCase() == ignoreCase) {
+                    scanned.add(detector);
+                }
+            }
+            assertTrue(scanned.size() > 10);
+            MagicScanner scanner = new MagicScanner(scanned, ignoreCase);
+            for (byte[] data : getSamples()) {
+                long[] matches = scanner.scan(data);
+                for (int i = 0; i < scanned.size(); i++) {
+                    assertEquals(scanned.get(i).matches(data), (matches[i >> 6] & (1L << i)) != 0,
+                            scanned.get(i).toString());
+                }
+            }
+        }
+    }
+
+    private static List<MimeType> linear(List<Magic> magics, byte[] data) {
+        List<MimeType> result = new ArrayList<>();
+        int currentPriority = -1;
+        for (Magic magic : magics) {
+            if (currentPriority > 0 && currentPriority > magic.getPriority()) {
+                break;
+            }
+            if (magic.eval(data)) {
+                result.add(magic.getType());
+                currentPriority = magic.getPriority();
+            }
+        }
+        return result;
+    }
+
+    private static void collect(Clause clause, List<MagicDetector> detectors) {
+        if (clause instanceof MagicMatch) {
+            detectors.add(((MagicMatch) clause).getDetector());
+        } else if (clause instanceof AndClause) {
+            for (Clause c : ((AndClause) clause).getClauses()) {
+                collect(c, detectors);
+            }
+        } else if (clause instanceof OrClause) {
+            for (Clause c : ((OrClause) clause).getClauses()) {
+                collect(c, detectors);
+            }
+        } else if (clause instanceof MinShouldMatchClause) {
+            for (Clause c : ((MinShouldMatchClause) clause).getClauses()) {
+                collect(c, detectors);
+            }
+        }
+    }
+
+    private static List<byte[]> getSamples() throws IOException {
+        List<byte[]> samples = new ArrayList<>();
+        int minLength = mimeTypes.getMinLength();
+        try (Stream<Path> files = Files.walk(Paths.get("src/test/resources"))) {
+            for (Path p : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                byte[] bytes = Files.readAllBytes(p);
+                samples.add(Arrays.copyOf(bytes, Math.min(bytes.length, minLength)));
+            }
+        }
+        Random random = new Random(42);
+        for (String header : HEADERS) {
+            byte[] h = header.getBytes(ISO_8859_1);
+            samples.add(h);
+            for (int i = 0; i < 5; i++) {
+                byte[] data = new byte[h.length + random.nextInt(2048)];
+                random.nextBytes(data);
+                System.arraycopy(h, 0, data, 0, h.length);
+                samples.add(data);
+                //truncated
+                samples.add(Arrays.copyOf(h, random.nextInt(h.length)));
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            byte[] data = new byte[random.nextInt(1024)];
+            random.nextBytes(data);
+            samples.add(data);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+
+public class MimeTypesSnapshotTest {
+
+    private static final String CUSTOM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+            "<mime-info>" +
+            "  <mime-type type=\"application/x-snapshot\">" +
+            "    <_comment>  Snapshot &amp; test </_comment>" +
+            "    <acronym>SNAP</acronym>" +
+            "    <tika:link>https://tika.apache.org/</tika:link>" +
+            "    <alias type=\"application/x-snap\"/>" +
+            "    <sub-class-of type=\"text/plain\"/>" +
+            "    <magic priority=\"60\">" +
+            "      <match value=\"SNAP\" type=\"string\" offset=\"0\">" +
+            "        <match value=\"0x01\" type=\"byte\" offset=\"4\"/>" +
+            "      </match>" +
+            "    </magic>" +
+            "    <glob pattern=\"*.snap\"/>" +
+            "  </mime-type>" +
+            "</mime-info>";
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    public void testSameAsXml() throws Exception {
+        byte[][] sources = MimeTypesFactory.readAll(MimeTypesFactory
+                .getURLs(MimeTypesFactory.CORE_FILE, MimeTypesFactory.EXTENSION_FILE, null));
+        sources = new byte[][]{sources[0], CUSTOM.getBytes(UTF_8)};
+        Path snapshot = tmp.resolve(MimeTypesSnapshot.FILE_NAME);
+        MimeTypesSnapshot.write(snapshot, sources);
+
+        MimeTypes expected = MimeTypesFactory.create(
+                TikaInputStream.get(sources[0]), TikaInputStream.get(sources[1]));
+        MimeTypes actual = MimeTypesSnapshot.read(snapshot, sources);
+        assertEquals(expected.getMediaTypeRegistry().getTypes(),
+                actual.getMediaTypeRegistry().getTypes());
+        for (MediaType type : expected.getMediaTypeRegistry().getTypes()) {
+            MimeType e = expected.forName(type.toString());
+            MimeType a = actual.forName(type.toString());
+            assertEquals(e.getDescription(), a.getDescription(), type.toString());
+            assertEquals(e.getExtensions(), a.getExtensions(), type.toString());
+            assertEquals(e.getLinks(), a.getLinks(), type.toString());
+            assertEquals(e.getMagics().toString(), a.getMagics().toString(), type.toString());
+            assertEquals(expected.getMediaTypeRegistry().getAliases(type),
+                    actual.getMediaTypeRegistry().getAliases(type), type.toString());
+            assertEquals(expected.getMediaTypeRegistry().getSupertype(type),
+                    actual.getMediaTypeRegistry().getSupertype(type), type.toString());
+        }
+
+        MimeType custom = actual.forName("application/x-snapshot");
+        assertEquals("Snapshot & test", custom.getDescription());
+        assertEquals("SNAP", custom.getAcronym());
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, "test.snap");
+        assertEquals(custom.getType(), actual.detect(
+                TikaInputStream.get(new byte[]{'S', 'N', 'A', 'P', 1}), metadata));
+        assertEquals(MediaType.APPLICATION_XML, actual.detect(
+                TikaInputStream.get("<?xml version=\"1.0\"?><a/>".getBytes(UTF_8)),
+                new Metadata()));
+    }
+
+    @Test
+    public void testOtherSources() throws Exception {
+        byte[][] sources = {CUSTOM.getBytes(UTF_8)};
+        Path snapshot = tmp.resolve(MimeTypesSnapshot.FILE_NAME);
+        MimeTypesSnapshot.write(snapshot, sources);
+        assertNull(MimeTypesSnapshot.read(snapshot,
+                new byte[][]{CUSTOM.replace("SNAP", "SNAQ").getBytes(UTF_8)}));
+        assertNull(MimeTypesSnapshot.read(snapshot, new byte[][]{sources[0], sources[0]}));
+    }
+}
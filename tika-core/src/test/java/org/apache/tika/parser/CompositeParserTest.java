@@ -20,6 +20,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import java.io.ByteArrayInputStream;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -150,4 +151,92 @@ public class CompositeParserTest {
         assertEquals("True", metadata.get("BMP"));
         assertEquals("True", metadata.get("Alias"));
     }
+
+    @Test
+    public void testIndexMatchesGetParsers() throws Exception {
+        TikaConfig config = TikaConfig.getDefaultConfig();
+        MediaTypeRegistry registry = config.getMediaTypeRegistry();
+        Parser text = new DummyParser(Collections.singleton(MediaType.TEXT_PLAIN),
+                new HashMap<>(), null);
+        Parser xml = new DummyParser(Collections.singleton(MediaType.APPLICATION_XML),
+                new HashMap<>(), null);
+        Parser any = new DummyParser(Collections.singleton(MediaType.OCTET_STREAM),
+                new HashMap<>(), null);
+        CompositeParser composite = new CompositeParser(registry, text, xml, any);
+        ParseContext context = new ParseContext();
+        for (MediaType type : registry.getTypes()) {
+            assertEquals(getParserByWalking(composite, registry, type, context),
+                    getParser(composite, type, context), type.toString());
+        }
+        assertEquals(composite.getParsers(context).keySet(),
+                composite.getSupportedTypes(context));
+
+        //the index is rebuilt when the parsers change
+        Map<MediaType, Parser> parsers = new HashMap<>();
+        parsers.put(MediaType.TEXT_PLAIN, xml);
+        composite.setParsers(parsers);
+        assertEquals(xml, ((ParserDecorator) getParser(composite, MediaType.TEXT_PLAIN, context))
+                .getWrappedParser());
+        assertEquals(composite.getFallback(),
+                getParser(composite, MediaType.application("pdf"), context));
+    }
+
+    @Test
+    public void testContextDependentParser() throws Exception {
+        Parser text = new DummyParser(Collections.singleton(MediaType.TEXT_PLAIN),
+                new HashMap<>(), null);
+        Parser html = new DummyParser(Collections.singleton(MediaType.TEXT_HTML),
+                new HashMap<>(), null);
+        Parser dependent = new SkippableParser();
+        CompositeParser composite =
+                new CompositeParser(MediaTypeRegistry.getDefaultRegistry(), text, dependent);
+        CompositeParser outer =
+                new CompositeParser(MediaTypeRegistry.getDefaultRegistry(), html, composite);
+        ParseContext context = new ParseContext();
+        ParseContext skip = new ParseContext();
+        skip.set(SkippableParser.class, (SkippableParser) dependent);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(dependent, getParser(composite, MediaType.TEXT_PLAIN, context));
+            assertEquals(text, getParser(composite, MediaType.TEXT_PLAIN, skip));
+            assertEquals(2, composite.getSupportedTypes(context).size());
+            assertEquals(1, composite.getSupportedTypes(skip).size());
+            assertEquals(3, outer.getSupportedTypes(context).size());
+            assertEquals(2, outer.getSupportedTypes(skip).size());
+        }
+    }
+
+    private static Parser getParser(CompositeParser composite, MediaType type,
+                                    ParseContext context) {
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, type.toString());
+        return composite.getParser(metadata, context);
+    }
+
+    private static Parser getParserByWalking(CompositeParser composite,
+                                             MediaTypeRegistry registry, MediaType type,
+                                             ParseContext context) {
+        Map<MediaType, Parser> map = composite.getParsers(context);
+        for (MediaType t = registry.normalize(type); t != null; t = registry.getSupertype(t)) {
+            if (map.containsKey(t)) {
+                return map.get(t);
+            }
+        }
+        return composite.getFallback();
+    }
+
+    /**
+     * Supports text/plain and application/xhtml+xml unless it is in the parse context.
+     */
+    @SuppressWarnings("serial")
+    private static class SkippableParser extends EmptyParser implements ContextDependentParser {
+
+        private static final Set<MediaType> TYPES = new HashSet<>(
+                Arrays.asList(MediaType.TEXT_PLAIN, MediaType.application("xhtml+xml")));
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return context.get(SkippableParser.class) == null ? TYPES : Collections.emptySet();
+        }
+    }
 }
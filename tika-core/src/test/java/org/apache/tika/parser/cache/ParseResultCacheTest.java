@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.RecursiveParserWrapper;
+import org.apache.tika.sax.BasicContentHandlerFactory;
+import org.apache.tika.sax.EmbeddedContentHandler;
+import org.apache.tika.sax.RecursiveParserWrapperHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
+
+public class ParseResultCacheTest {
+
+    private static final Map<String, List<String>> CHILDREN = new HashMap<>();
+
+    static {
+        CHILDREN.put("a", Arrays.asList("x", "y"));
+        CHILDREN.put("b", Arrays.asList("x", "z"));
+        CHILDREN.put("x", Collections.singletonList("w"));
+        CHILDREN.put("c", Arrays.asList("y", "bad"));
+    }
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void testReplay() throws Exception {
+        ParseResultCache cache = new ParseResultCache("test", 1024 * 1024);
+        TreeParser parser = new TreeParser();
+        List<Metadata> parsed = parse(parser, "a", cache);
+        assertEquals(4, parser.parses);
+        assertEquals(0, cache.getHits());
+
+        List<Metadata> replayed = parse(parser, "a", cache);
+        assertEquals(4, parser.parses);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getBytesSaved());
+        assertSameResults(parsed, replayed);
+    }
+
+    @Test
+    public void testEmbeddedReplay() throws Exception {
+        ParseResultCache cache = new ParseResultCache("test", 1024 * 1024);
+        TreeParser parser = new TreeParser();
+        parse(parser, "a", cache);
+        List<Metadata> withCache = parse(parser, "b", cache);
+        //b and z were parsed, x and w came from the cache
+        assertEquals(6, parser.parses);
+        assertEquals(1, cache.getHits());
+
+        List<Metadata> expected = parse(new TreeParser(), "b", null);
+        assertSameResults(expected, withCache);
+        assertEquals("/x/w", withCache.get(1).get(TikaCoreProperties.EMBEDDED_RESOURCE_PATH));
+        assertEquals("/1/2", withCache.get(1).get(TikaCoreProperties.EMBEDDED_ID_PATH));
+        assertEquals("/3", withCache.get(3).get(TikaCoreProperties.EMBEDDED_ID_PATH));
+    }
+
+    @Test
+    public void testFailuresAreNotCached() throws Exception {
+        ParseResultCache cache = new ParseResultCache("test", 1024 * 1024);
+        TreeParser parser = new TreeParser();
+        parse(parser, "c", cache);
+        assertEquals(3, parser.parses);
+        parse(parser, "c", cache);
+        //only y was cached
+        assertEquals(5, parser.parses);
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        TreeParser parser = new TreeParser();
+        parse(parser, "a", new ParseResultCache("one", 1024 * 1024));
+        parse(parser, "a", new ParseResultCache("two", 1024 * 1024));
+        assertEquals(8, parser.parses);
+    }
+
+    @Test
+    public void testSegmentStore() throws Exception {
+        TreeParser parser = new TreeParser();
+        try (ParseResultCache cache = new ParseResultCache("test", 1024 * 1024, directory,
+                1024 * 1024)) {
+            parse(parser, "a", cache);
+            assertTrue(cache.getDiskBytes() > 0);
+        }
+        try (ParseResultCache cache = new ParseResultCache("test", 1024 * 1024, directory,
+                1024 * 1024)) {
+            parse(parser, "a", cache);
+            assertEquals(4, parser.parses);
+            assertEquals(1, cache.getHits());
+        }
+    }
+
+    @Test
+    public void testSegmentEviction() throws Exception {
+        byte[] value = new byte[400];
+        try (SegmentStore store = new SegmentStore(directory, 4096)) {
+            for (int i = 0; i < 40; i++) {
+                Arrays.fill(value, (byte) i);
+                store.put("key" + i, value);
+            }
+            assertTrue(store.getBytes() <= 4096);
+            assertNull(store.get("key0"));
+            assertArrayEquals(value, store.get("key39"));
+        }
+        try (SegmentStore store = new SegmentStore(directory, 4096)) {
+            assertNotNull(store.get("key39"));
+        }
+    }
+
+    @Test
+    public void testLruEviction() {
+        OffHeapLruStore store = new OffHeapLruStore(100);
+        store.put("a", new byte[40]);
+        store.put("b", new byte[40]);
+        store.get("a");
+        store.put("c", new byte[40]);
+        assertNotNull(store.get("a"));
+        assertNull(store.get("b"));
+        assertEquals(80, store.getBytes());
+    }
+
+    private static List<Metadata> parse(Parser parser, String name, ParseResultCache cache)
+            throws IOException, SAXException, TikaException {
+        RecursiveParserWrapperHandler handler = new RecursiveParserWrapperHandler(
+                new BasicContentHandlerFactory(BasicContentHandlerFactory.HANDLER_TYPE.TEXT, -1));
+        ParseContext context = new ParseContext();
+        if (cache != null) {
+            context.set(ParseResultCache.class, cache);
+        }
+        new RecursiveParserWrapper(parser).parse(stream(name), handler, new Metadata(), context);
+        return handler.getMetadataList();
+    }
+
+    private static InputStream stream(String name) {
+        return new UnsynchronizedByteArrayInputStream(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertSameResults(List<Metadata> expected, List<Metadata> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Metadata e = expected.get(i);
+            Metadata a = actual.get(i);
+            e.remove(TikaCoreProperties.PARSE_TIME_MILLIS.getName());
+            a.remove(TikaCoreProperties.PARSE_TIME_MILLIS.getName());
+            assertEquals(e, a);
+        }
+    }
+
+    /**
+     * Writes "content of" the name in the stream and parses the embedded
+     * documents listed in {@link #CHILDREN}; fails to parse "bad".
+     */
+    private static class TreeParser extends AbstractParser {
+
+        private int parses = 0;
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.singleton(MediaType.OCTET_STREAM);
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            parses++;
+            String name = IOUtils.toString(stream, StandardCharsets.UTF_8);
+            if (name.equals("bad")) {
+                throw new TikaException("bad");
+            }
+            metadata.set("name", name);
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            xhtml.element("p", "content of " + name);
+            for (String child : CHILDREN.getOrDefault(name, Collections.emptyList())) {
+                Metadata embedded = new Metadata();
+                embedded.set(TikaCoreProperties.RESOURCE_NAME_KEY, child);
+                context.get(Parser.class).parse(stream(child),
+                        new EmbeddedContentHandler(xhtml), embedded, context);
+            }
+            xhtml.endDocument();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.digest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.DigestingParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.utils.StringUtils;
+
+public class DigestingInputStreamTest {
+
+    private static final String[] ALGORITHMS = {"MD5", "SHA-1", "SHA-256"};
+
+    private static final DigestingParser.Encoder HEX = StringUtils::toHexString;
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    public void testSinglePass() throws Exception {
+        Random random = new Random(21);
+        for (int length : new int[]{0, 1, 100, 5000, 70000}) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            for (int markLimit : new int[]{10, 10000, 100000}) {
+                CompositeDigester digester = newDigester(markLimit);
+
+                Metadata metadata = new Metadata();
+                try (InputStream is = new ByteArrayInputStream(bytes)) {
+                    digester.digest(is, metadata, new ParseContext());
+                }
+                assertDigests(bytes, metadata);
+
+                //the stream is reset for the parser
+                metadata = new Metadata();
+                try (TikaInputStream tis = TikaInputStream.get(bytes)) {
+                    digester.digest(tis, metadata, new ParseContext());
+                    assertArrayEquals(bytes, readAll(tis));
+                }
+                assertDigests(bytes, metadata);
+
+                Path file = Files.write(tmp.resolve("file-" + length), bytes);
+                metadata = new Metadata();
+                try (TikaInputStream tis = TikaInputStream.get(file)) {
+                    digester.digest(tis, metadata, new ParseContext());
+                    assertArrayEquals(bytes, readAll(tis));
+                }
+                assertDigests(bytes, metadata);
+            }
+        }
+    }
+
+    @Test
+    public void testDigestDuringParse() throws Exception {
+        Random random = new Random(22);
+        byte[] bytes = new byte[100000];
+        random.nextBytes(bytes);
+        //parsers that read some, all or none of the stream, and skip or close it
+        for (int toRead : new int[]{0, 10, 20000, bytes.length, -1}) {
+            for (boolean close : new boolean[]{false, true}) {
+                PrefixParser parser = new PrefixParser(toRead, close);
+                Metadata metadata = new Metadata();
+                new DigestingParser(parser, newDigester(10), true)
+                        .parse(new ByteArrayInputStream(bytes), new DefaultHandler(), metadata,
+                                new ParseContext());
+                assertDigests(bytes, metadata);
+                int expected = toRead < 0 ? bytes.length : toRead;
+                assertArrayEquals(Arrays.copyOf(bytes, expected), parser.read);
+            }
+        }
+    }
+
+    @Test
+    public void testDigestDuringFailedParse() throws Exception {
+        byte[] bytes = new byte[20000];
+        new Random(23).nextBytes(bytes);
+        Metadata metadata = new Metadata();
+        assertThrows(TikaException.class, () -> new DigestingParser(new PrefixParser(-2, false),
+                newDigester(10), true).parse(new ByteArrayInputStream(bytes),
+                new DefaultHandler(), metadata, new ParseContext()));
+        assertDigests(bytes, metadata);
+    }
+
+    private static CompositeDigester newDigester(int markLimit) {
+        DigestingParser.Digester[] digesters = new DigestingParser.Digester[ALGORITHMS.length];
+        for (int i = 0; i < ALGORITHMS.length; i++) {
+            digesters[i] = new InputStreamDigester(markLimit, ALGORITHMS[i], HEX);
+        }
+        return new CompositeDigester(digesters);
+    }
+
+    private static void assertDigests(byte[] bytes, Metadata metadata) throws Exception {
+        for (String algorithm : ALGORITHMS) {
+            assertEquals(HEX.encode(MessageDigest.getInstance(algorithm).digest(bytes)),
+                    metadata.get(TikaCoreProperties.TIKA_META_PREFIX + "digest" +
+                            TikaCoreProperties.NAMESPACE_PREFIX_DELIMITER + algorithm),
+                    algorithm);
+        }
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int n = is.read(buffer); n != -1; n = is.read(buffer)) {
+            bos.write(buffer, 0, n);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * Reads the first bytes of the stream, then skips a few more. Reads all
+     * of it if the count is -1, and fails after reading some if it is -2.
+     */
+    private static class PrefixParser extends AbstractParser {
+
+        private final int toRead;
+        private final boolean close;
+        private byte[] read;
+
+        PrefixParser(int toRead, boolean close) {
+            this.toRead = toRead;
+            this.close = close;
+        }
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.singleton(MediaType.OCTET_STREAM);
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, TikaException {
+            if (toRead < 0) {
+                read = readAll(stream);
+                if (toRead == -2) {
+                    throw new TikaException("failed");
+                }
+                return;
+            }
+            read = new byte[toRead];
+            for (int n = 0; n < toRead; ) {
+                n += stream.read(read, n, toRead - n);
+            }
+            stream.skip(1000);
+            if (close) {
+                stream.close();
+            }
+        }
+    }
+}
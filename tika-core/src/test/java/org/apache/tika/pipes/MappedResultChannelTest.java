@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.pipes.emitter.EmitData;
+import org.apache.tika.pipes.emitter.EmitKey;
+
+public class MappedResultChannelTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.TIKA_CONTENT, "some content");
+        EmitData emitData = new EmitData(new EmitKey("es", "key"),
+                Collections.singletonList(metadata));
+
+        Path directory;
+        try (TemporaryResources tmp = new TemporaryResources()) {
+            directory = MappedResultChannel.createDirectory(tmp);
+            for (boolean binary : new boolean[]{true, false}) {
+                Path file = MappedResultChannel.write(directory, binary ?
+                        PipesCodec.encode(emitData, -1) : PipesCodec.serialize(emitData));
+                EmitData read = MappedResultChannel.read(directory, file);
+                assertEquals(emitData.getEmitKey(), read.getEmitKey());
+                assertEquals(emitData.getMetadataList(), read.getMetadataList());
+                assertFalse(Files.exists(file));
+            }
+
+            //left over from a crashed server
+            Path file = MappedResultChannel.write(directory, PipesCodec.encode(emitData, -1));
+            MappedResultChannel.clean(directory);
+            assertFalse(Files.exists(file));
+            assertTrue(Files.isDirectory(directory));
+        }
+        assertFalse(Files.exists(directory));
+    }
+
+    @Test
+    public void testOutsideOfDirectory() throws Exception {
+        try (TemporaryResources tmp = new TemporaryResources()) {
+            Path directory = MappedResultChannel.createDirectory(tmp);
+            Path other = tmp.createTempFile();
+            assertThrows(IOException.class, () -> MappedResultChannel.read(directory, other));
+        }
+    }
+}
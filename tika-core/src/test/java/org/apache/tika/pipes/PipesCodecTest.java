@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.pipes.emitter.EmitData;
+import org.apache.tika.pipes.emitter.EmitKey;
+import org.apache.tika.pipes.fetcher.FetchKey;
+import org.apache.tika.sax.BasicContentHandlerFactory;
+
+public class PipesCodecTest {
+
+    @Test
+    public void testFetchEmitTuple() throws Exception {
+        Metadata metadata = new Metadata();
+        metadata.add("k1", "v1");
+        metadata.add("k1", "v2");
+        metadata.set("k2", null);
+        FetchEmitTuple t = new FetchEmitTuple("id", new FetchKey("fs", "a/b.pdf", 10, 100),
+                new EmitKey("es", "a/b.pdf"), metadata,
+                new HandlerConfig(BasicContentHandlerFactory.HANDLER_TYPE.HTML,
+                        HandlerConfig.PARSE_MODE.CONCATENATE, 1000, 5, true),
+                FetchEmitTuple.ON_PARSE_EXCEPTION.SKIP);
+
+        byte[] bytes = PipesCodec.encode(t, 1024).toByteArray();
+        assertTrue(PipesCodec.isBinary(bytes));
+        PipesCodec.Request request = PipesCodec.decodeFetchEmitTuple(bytes);
+        assertEquals(1024, request.getCompressionThresholdBytes());
+
+        FetchEmitTuple decoded = request.getFetchEmitTuple();
+        assertEquals(t, decoded);
+        assertEquals(10, decoded.getFetchKey().getRangeStart());
+        assertEquals(100, decoded.getFetchKey().getRangeEnd());
+        assertEquals(FetchEmitTuple.ON_PARSE_EXCEPTION.SKIP, decoded.getOnParseException());
+        assertArrayEquals(new String[]{"v1", "v2"}, decoded.getMetadata().getValues("k1"));
+    }
+
+    @Test
+    public void testEmitData() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("the quick brown fox jumped over the lazy dog ");
+        }
+        String content = sb.toString();
+        List<Metadata> metadataList = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Metadata m = new Metadata();
+            m.set(TikaCoreProperties.TIKA_CONTENT, content + i);
+            m.set(Metadata.CONTENT_TYPE, "application/pdf");
+            m.add(TikaCoreProperties.TIKA_META_EXCEPTION_WARNING, "warn " + i);
+            metadataList.add(m);
+        }
+        EmitData emitData = new EmitData(new EmitKey("es", "key"), metadataList, "stack");
+
+        byte[] plain = PipesCodec.encode(emitData, -1).toByteArray();
+        byte[] compressed = PipesCodec.encode(emitData, 1024).toByteArray();
+        assertTrue(compressed.length < plain.length);
+
+        for (byte[] bytes : new byte[][]{plain, compressed}) {
+            EmitData decoded = PipesCodec.decodeEmitData(bytes);
+            assertEquals(emitData.getEmitKey(), decoded.getEmitKey());
+            assertEquals(metadataList, decoded.getMetadataList());
+            assertEquals("stack", decoded.getContainerStackTrace());
+        }
+    }
+
+    @Test
+    public void testNulls() throws Exception {
+        EmitData emitData = new EmitData(null, new ArrayList<>(), null);
+        EmitData decoded = PipesCodec.decodeEmitData(PipesCodec.encode(emitData, 0).toByteArray());
+        assertNull(decoded.getEmitKey());
+        assertEquals(0, decoded.getMetadataList().size());
+        assertEquals("", decoded.getContainerStackTrace());
+    }
+
+    @Test
+    public void testFetchEmitTupleNulls() throws Exception {
+        FetchEmitTuple t = new FetchEmitTuple(null, null, null, null, null, null);
+        FetchEmitTuple decoded = PipesCodec.decodeFetchEmitTuple(
+                PipesCodec.encode(t, -1).toByteArray()).getFetchEmitTuple();
+        assertNull(decoded.getId());
+        assertNull(decoded.getFetchKey());
+        assertNull(decoded.getEmitKey());
+        assertNull(decoded.getMetadata());
+        assertNull(decoded.getOnParseException());
+        assertEquals(HandlerConfig.DEFAULT_HANDLER_CONFIG, decoded.getHandlerConfig());
+
+        t = new FetchEmitTuple("id", new FetchKey("fs", null), new EmitKey(null, "key"),
+                new Metadata(), new HandlerConfig(null, null, -1, -1, false), null);
+        decoded = PipesCodec.decodeFetchEmitTuple(PipesCodec.encode(t, -1).toByteArray())
+                .getFetchEmitTuple();
+        assertEquals(t, decoded);
+        assertNull(decoded.getHandlerConfig().getType());
+        assertNull(decoded.getHandlerConfig().getParseMode());
+    }
+
+    @Test
+    public void testJavaSerializationIsNotBinary() throws Exception {
+        FetchEmitTuple t = new FetchEmitTuple("id", new FetchKey("fs", "key"),
+                new EmitKey("es", "key"));
+        byte[] bytes = PipesCodec.serialize(t).toByteArray();
+        assertFalse(PipesCodec.isBinary(bytes));
+        assertEquals(t, PipesCodec.deserialize(bytes));
+    }
+}
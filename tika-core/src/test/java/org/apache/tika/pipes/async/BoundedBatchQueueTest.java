@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.pipes.emitter.EmitData;
+import org.apache.tika.pipes.emitter.EmitKey;
+
+public class BoundedBatchQueueTest {
+
+    @Test
+    public void testOfferAll() throws Exception {
+        BoundedBatchQueue<Integer> queue = new BoundedBatchQueue<>(5);
+        assertTrue(queue.offerAll(Arrays.asList(1, 2, 3), 10));
+        //all or nothing
+        assertFalse(queue.offerAll(Arrays.asList(4, 5, 6), 10));
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.remainingCapacity());
+        assertThrows(IllegalArgumentException.class,
+                () -> queue.offerAll(Arrays.asList(1, 2, 3, 4, 5, 6), 10));
+
+        assertEquals(Integer.valueOf(1), queue.poll(10));
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained, 10));
+        assertEquals(Arrays.asList(2, 3), drained);
+        assertNull(queue.poll(10));
+        assertEquals(5, queue.remainingCapacity());
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        int producers = 4;
+        int perProducer = 10000;
+        BoundedBatchQueue<Integer> queue = new BoundedBatchQueue<>(16);
+        ExecutorService ex = Executors.newFixedThreadPool(producers * 2);
+        try {
+            List<Future<Long>> consumers = new ArrayList<>();
+            for (int i = 0; i < producers; i++) {
+                final int start = i * perProducer;
+                ex.submit(() -> {
+                    for (int j = start; j < start + perProducer; j++) {
+                        assertTrue(queue.offer(j, 10000));
+                    }
+                    return null;
+                });
+                consumers.add(ex.submit(() -> {
+                    long sum = 0;
+                    for (int j = 0; j < perProducer; j++) {
+                        Integer v = queue.poll(10000);
+                        sum += v;
+                    }
+                    return sum;
+                }));
+            }
+            long sum = 0;
+            for (Future<Long> f : consumers) {
+                sum += f.get();
+            }
+            long n = (long) producers * perProducer;
+            assertEquals(n * (n - 1) / 2, sum);
+            assertEquals(0, queue.size());
+        } finally {
+            ex.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEmitDispatcher() throws Exception {
+        AsyncConfig asyncConfig = new AsyncConfig();
+        asyncConfig.setEmitBatchSize(10);
+        asyncConfig.setEmitQueueSize(20);
+        asyncConfig.setEmitWithinMillis(60000);
+        asyncConfig.setEmitMaxEstimatedBytes(Long.MAX_VALUE);
+        EmitDispatcher dispatcher = new EmitDispatcher(asyncConfig);
+
+        Map<String, AtomicInteger> emitted = new ConcurrentHashMap<>();
+        EmitDispatcher.BatchEmitter batchEmitter = (name, batch) ->
+                emitted.computeIfAbsent(name, k -> new AtomicInteger()).addAndGet(batch.size());
+
+        for (int i = 0; i < 15; i++) {
+            assertTrue(dispatcher.offer(emitData("a", i), 10));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertTrue(dispatcher.offer(emitData("b", i), 10));
+        }
+        //"a" crossed the batch size; "b" isn't due yet
+        dispatcher.emitReady(batchEmitter, false);
+        assertEquals(10, emitted.get("a").get());
+        assertNull(emitted.get("b"));
+
+        dispatcher.stop(1);
+        assertTrue(dispatcher.isStopping());
+        dispatcher.emitReady(batchEmitter, true);
+        assertFalse(dispatcher.hasData());
+        assertEquals(15, emitted.get("a").get());
+        assertEquals(3, emitted.get("b").get());
+    }
+
+    private static EmitData emitData(String emitterName, int i) {
+        return new EmitData(new EmitKey(emitterName, "key-" + i),
+                Collections.singletonList(new Metadata()));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.pipes.ServerHealth;
+
+public class WorkerScalerTest {
+
+    @Test
+    public void testFixed() {
+        WorkerScaler scaler = new WorkerScaler(-1, 4);
+        scaler.adjust(1000);
+        assertEquals(4, scaler.getActiveWorkers());
+        assertTrue(scaler.isActive(3));
+    }
+
+    @Test
+    public void testScaleUpAndDown() {
+        WorkerScaler scaler = new WorkerScaler(1, 3);
+        assertEquals(1, scaler.getActiveWorkers());
+        assertFalse(scaler.isActive(1));
+
+        scaler.recordLatency(100);
+        scaler.adjust(10);
+        assertEquals(2, scaler.getActiveWorkers());
+        assertTrue(scaler.isActive(1));
+
+        //latency more than doubled since the last scale up; hold
+        for (int i = 0; i < 300; i++) {
+            scaler.recordLatency(300);
+        }
+        scaler.adjust(10);
+        assertEquals(2, scaler.getActiveWorkers());
+
+        for (int i = 0; i < 4; i++) {
+            scaler.adjust(0);
+        }
+        assertEquals(1, scaler.getActiveWorkers());
+
+        scaler.finish();
+        assertEquals(3, scaler.getActiveWorkers());
+        assertTrue(scaler.isActive(2));
+    }
+
+    @Test
+    public void testLatencyPercentile() {
+        WorkerScaler scaler = new WorkerScaler(1, 2);
+        assertEquals(-1, scaler.getLatencyPercentile(0.95));
+        for (int i = 1; i <= 100; i++) {
+            scaler.recordLatency(i);
+        }
+        assertEquals(95, scaler.getLatencyPercentile(0.95));
+        assertEquals(50, scaler.getLatencyPercentile(0.5));
+    }
+
+    @Test
+    public void testHealthScore() {
+        ServerHealth health = new ServerHealth(400, 1000, 2000);
+        assertEquals(0.0, PipesClientPool.getHealthScore(health, -1, -1), 0.0001);
+        assertEquals(0.5, PipesClientPool.getHealthScore(health, 4000, -1), 0.0001);
+        assertEquals(1.0, PipesClientPool.getHealthScore(health, 4000, 0.4), 0.0001);
+        //rss isn't reported on every platform
+        assertEquals(0.0, PipesClientPool.getHealthScore(new ServerHealth(0, 1000, -1), 10, -1),
+                0.0001);
+    }
+}
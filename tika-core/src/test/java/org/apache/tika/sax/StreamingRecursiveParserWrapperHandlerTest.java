@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.RecursiveParserWrapper;
+
+public class StreamingRecursiveParserWrapperHandlerTest {
+
+    private static final Map<String, List<String>> CHILDREN = new HashMap<>();
+
+    static {
+        CHILDREN.put("container", Arrays.asList("one", "two"));
+        CHILDREN.put("one", Collections.singletonList("three"));
+    }
+
+    @Test
+    public void testSameAsRecursiveParserWrapperHandler() throws Exception {
+        List<Metadata> streamed = new ArrayList<>();
+        StreamingRecursiveParserWrapperHandler handler =
+                new StreamingRecursiveParserWrapperHandler(new BasicContentHandlerFactory(
+                        BasicContentHandlerFactory.HANDLER_TYPE.TEXT, -1), streamed::add);
+        parse(handler);
+        assertEquals(Arrays.asList("three", "one", "two", "container"), getNames(streamed));
+        assertEquals("content of three",
+                streamed.get(0).get(TikaCoreProperties.TIKA_CONTENT).trim());
+
+        RecursiveParserWrapperHandler listHandler =
+                new RecursiveParserWrapperHandler(new BasicContentHandlerFactory(
+                        BasicContentHandlerFactory.HANDLER_TYPE.TEXT, -1));
+        parse(listHandler);
+        List<Metadata> expected = new ArrayList<>(listHandler.getMetadataList());
+        //the container comes last
+        expected.add(expected.remove(0));
+        assertEquals(getNames(expected), getNames(streamed));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).get(TikaCoreProperties.TIKA_CONTENT),
+                    streamed.get(i).get(TikaCoreProperties.TIKA_CONTENT));
+            assertEquals(expected.get(i).get(TikaCoreProperties.EMBEDDED_RESOURCE_PATH),
+                    streamed.get(i).get(TikaCoreProperties.EMBEDDED_RESOURCE_PATH));
+        }
+    }
+
+    @Test
+    public void testListenerException() throws Exception {
+        List<Metadata> streamed = new ArrayList<>();
+        IOException failure = new IOException("closed");
+        StreamingRecursiveParserWrapperHandler handler =
+                new StreamingRecursiveParserWrapperHandler(new BasicContentHandlerFactory(
+                        BasicContentHandlerFactory.HANDLER_TYPE.TEXT, -1), metadata -> {
+                            if (streamed.size() == 1) {
+                                throw failure;
+                            }
+                            streamed.add(metadata);
+                        });
+        assertThrows(SAXException.class, () -> parse(handler));
+        assertEquals(1, streamed.size());
+        assertSame(failure, handler.getListenerException());
+    }
+
+    private static void parse(AbstractRecursiveParserWrapperHandler handler)
+            throws IOException, SAXException, TikaException {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, "container");
+        new RecursiveParserWrapper(new TreeParser()).parse(
+                new UnsynchronizedByteArrayInputStream(new byte[0]), handler, metadata,
+                new ParseContext());
+    }
+
+    private static List<String> getNames(List<Metadata> metadataList) {
+        List<String> names = new ArrayList<>();
+        for (Metadata m : metadataList) {
+            names.add(m.get(TikaCoreProperties.RESOURCE_NAME_KEY));
+        }
+        return names;
+    }
+
+    /**
+     * Writes "content of" the resource name and parses the embedded documents
+     * listed in {@link #CHILDREN}.
+     */
+    private static class TreeParser extends AbstractParser {
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.singleton(MediaType.OCTET_STREAM);
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            String name = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            xhtml.element("p", "content of " + name);
+            for (String child : CHILDREN.getOrDefault(name, Collections.emptyList())) {
+                Metadata embedded = new Metadata();
+                embedded.set(TikaCoreProperties.RESOURCE_NAME_KEY, child);
+                context.get(Parser.class).parse(
+                        new UnsynchronizedByteArrayInputStream(new byte[0]),
+                        new EmbeddedContentHandler(xhtml), embedded, context);
+            }
+            xhtml.endDocument();
+        }
+    }
+}
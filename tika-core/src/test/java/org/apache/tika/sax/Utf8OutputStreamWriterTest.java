@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.helpers.AttributesImpl;
+
+public class Utf8OutputStreamWriterTest {
+
+    private static final char[] CHARS = {'a', 'Z', ' ', '<', '&', '"', 'é', '߿',
+            'ࠀ', '中', '￿', '\ud83d', '\ude00', '\ud800', '\udfff'};
+
+    @Test
+    public void testSameBytesAsOutputStreamWriter() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            char[] chars = new char[random.nextInt(20000)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = CHARS[random.nextInt(CHARS.length)];
+            }
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            Writer expectedWriter = new OutputStreamWriter(expected, UTF_8);
+            Writer actualWriter = new Utf8OutputStreamWriter(actual);
+            //writes that split the surrogate pairs
+            for (int from = 0; from < chars.length; ) {
+                int length = Math.min(chars.length - from, random.nextInt(100));
+                if (length == 1 && random.nextBoolean()) {
+                    expectedWriter.write(chars[from]);
+                    actualWriter.write(chars[from]);
+                } else {
+                    String string = new String(chars, from, length);
+                    expectedWriter.write(string);
+                    actualWriter.write(string);
+                }
+                from += length;
+                if (random.nextInt(50) == 0) {
+                    expectedWriter.flush();
+                    actualWriter.flush();
+                }
+            }
+            expectedWriter.close();
+            actualWriter.close();
+            assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+        }
+    }
+
+    @Test
+    public void testToXMLContentHandler() throws Exception {
+        ByteArrayOutputStream utf8 = new ByteArrayOutputStream();
+        ByteArrayOutputStream utf16 = new ByteArrayOutputStream();
+        ToXMLContentHandler utf8Handler = new ToXMLContentHandler(utf8, "UTF-8");
+        ToXMLContentHandler utf16Handler = new ToXMLContentHandler(utf16, "UTF-16");
+        AttributesImpl atts = new AttributesImpl();
+        atts.addAttribute("", "href", "href", "CDATA", "a?b=\"c\"&d=<e>");
+        String text = "café & <中文> 😀 \"q\"";
+        for (ToXMLContentHandler handler : new ToXMLContentHandler[]{utf8Handler,
+                utf16Handler}) {
+            handler.startDocument();
+            handler.startElement("", "a", "a", atts);
+            handler.characters(text.toCharArray(), 0, text.length());
+            handler.endElement("", "a", "a");
+            handler.startElement("", "br", "br", new AttributesImpl());
+            handler.endElement("", "br", "br");
+            handler.endDocument();
+        }
+        assertArrayEquals(
+                new String(utf16.toByteArray(), "UTF-16").replace("UTF-16", "UTF-8")
+                        .getBytes(UTF_8), utf8.toByteArray());
+    }
+}
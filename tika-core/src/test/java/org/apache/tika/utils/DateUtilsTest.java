@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.text.DateFormat;
+import java.text.DateFormatSymbols;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class DateUtilsTest {
+
+    @Test
+    public void testUtcSameAsDateFormat() throws ParseException {
+        DateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'",
+                new DateFormatSymbols(Locale.US));
+        df.setTimeZone(DateUtils.UTC);
+        DateUtils dateUtils = new DateUtils();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            Date date = new Date((long) (random.nextDouble() * 253402300799000L));
+            String s = DateUtils.formatDate(date);
+            assertEquals(df.parse(s), dateUtils.tryToParse(s), s);
+        }
+        //out of range fields are rolled over by the lenient date format
+        for (String s : new String[]{"2007-02-30T09:02:31Z", "2007-13-01T09:02:31Z",
+                "2007-09-15T24:02:31Z", "2007-09-15T09:60:31Z", "2007-09-15T09:02:60Z",
+                "1582-10-10T00:00:00Z", "0001-01-01T00:00:00Z", "2000-02-29T23:59:59Z"}) {
+            assertEquals(df.parse(s), dateUtils.tryToParse(s), s);
+        }
+    }
+
+    @Test
+    public void testOtherFormats() {
+        DateUtils dateUtils = new DateUtils();
+        assertEquals("2007-09-15T09:02:31Z",
+                DateUtils.formatDate(dateUtils.tryToParse("2007-09-15T11:02:31+02:00")));
+        assertEquals("2007-09-15T12:00:00Z",
+                DateUtils.formatDate(dateUtils.tryToParse("2007-09-15")));
+        assertEquals("2007-09-15T12:00:00Z",
+                DateUtils.formatDate(dateUtils.tryToParse("2007:09:15")));
+        assertEquals(null, dateUtils.tryToParse("not a date"));
+    }
+}
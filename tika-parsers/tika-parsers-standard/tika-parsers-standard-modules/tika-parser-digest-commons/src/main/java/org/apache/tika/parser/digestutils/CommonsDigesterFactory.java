@@ -27,6 +27,7 @@ public class CommonsDigesterFactory implements DigestingParser.DigesterFactory {
 
     private int markLimit = 1000000;
     private String algorithmString = "md5";
+    private boolean digestDuringParse = false;
 
     @Override
     public DigestingParser.Digester build() {
@@ -42,4 +43,20 @@ public class CommonsDigesterFactory implements DigestingParser.DigesterFactory {
     public void setAlgorithmString(String algorithmString) {
         this.algorithmString = algorithmString;
     }
+
+    /**
+     * @param digestDuringParse whether to digest the bytes of a document as it
+     *                          is parsed, rather than reading it before the parse
+     * @see DigestingParser#DigestingParser(org.apache.tika.parser.Parser,
+     * DigestingParser.Digester, boolean)
+     */
+    @Field
+    public void setDigestDuringParse(boolean digestDuringParse) {
+        this.digestDuringParse = digestDuringParse;
+    }
+
+    @Override
+    public boolean isDigestDuringParse() {
+        return digestDuringParse;
+    }
 }
@@ -180,4 +180,13 @@ public abstract class AbstractOfficeParser extends AbstractParser {
     public boolean isIncludeHeadersAndFooters() {
         return defaultOfficeParserConfig.isIncludeHeadersAndFooters();
     }
+
+    @Field
+    public void setSheetThreads(int sheetThreads) {
+        defaultOfficeParserConfig.setSheetThreads(sheetThreads);
+    }
+
+    public int getSheetThreads() {
+        return defaultOfficeParserConfig.getSheetThreads();
+    }
 }
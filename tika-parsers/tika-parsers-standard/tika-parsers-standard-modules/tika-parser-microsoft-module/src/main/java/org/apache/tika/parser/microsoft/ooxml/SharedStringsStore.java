@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft.ooxml;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.utils.XMLReaderUtils;
+
+/**
+ * Shared strings table of a workbook that the sheets can read from several
+ * threads at once.
+ * <p>
+ * The strings are read as {@link ReadOnlySharedStringsTable} reads them, but
+ * they are kept as UTF-8 in chunks of direct buffers rather than as objects
+ * on the heap. Once the chunks add up to more than the maximum, the following
+ * ones are written to a temporary file and mapped, so that the strings of
+ * very large tables are paged in by the operating system when they are read.
+ */
+class SharedStringsStore extends DefaultHandler implements SharedStrings, Closeable {
+
+    static final int CHUNK_BYTES = 1024 * 1024;
+
+    static final long MAX_DIRECT_BYTES = 64L * 1024 * 1024;
+
+    private final boolean includePhoneticRuns;
+    private final long maxDirectBytes;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    //chunk, offset and length of each string
+    private int[] locations = new int[3 * 1024];
+    private int uniqueCount = 0;
+    private int count = 0;
+    private int size = 0;
+
+    private final byte[] pending = new byte[CHUNK_BYTES];
+    private int pendingLength = 0;
+    private long directBytes = 0;
+    private Path file;
+    private FileChannel channel;
+    private long fileBytes = 0;
+
+    private final StringBuilder characters = new StringBuilder(64);
+    private boolean tIsOpen = false;
+    private boolean inRPh = false;
+
+    SharedStringsStore(boolean includePhoneticRuns, long maxDirectBytes) {
+        this.includePhoneticRuns = includePhoneticRuns;
+        this.maxDirectBytes = maxDirectBytes;
+    }
+
+    /**
+     * @return the shared strings of the package, which has no strings if it
+     * has no shared strings part
+     */
+    static SharedStringsStore load(OPCPackage pkg, boolean includePhoneticRuns,
+                                   ParseContext context)
+            throws IOException, SAXException, TikaException {
+        SharedStringsStore store = new SharedStringsStore(includePhoneticRuns, MAX_DIRECT_BYTES);
+        try {
+            List<PackagePart> parts =
+                    pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+            if (!parts.isEmpty()) {
+                try (InputStream is = parts.get(0).getInputStream()) {
+                    XMLReaderUtils.parseSAX(is, store, context);
+                }
+            }
+            store.flush();
+        } catch (IOException | SAXException | TikaException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    @Override
+    public RichTextString getItemAt(int idx) {
+        if (idx < 0 || idx >= size) {
+            throw new IndexOutOfBoundsException("no shared string " + idx + " of " + size);
+        }
+        //duplicate so that the reads of several threads don't share a position
+        ByteBuffer chunk = chunks.get(locations[3 * idx]).duplicate();
+        chunk.position(locations[3 * idx + 1]);
+        byte[] bytes = new byte[locations[3 * idx + 2]];
+        chunk.get(bytes);
+        return new XSSFRichTextString(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public int getUniqueCount() {
+        return uniqueCount;
+    }
+
+    /**
+     * @return number of strings read
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return bytes kept in the temporary file
+     */
+    long getFileBytes() {
+        return fileBytes;
+    }
+
+    /**
+     * @return the temporary file, or <code>null</code> if there is none
+     */
+    Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunks.clear();
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                //the file can't be deleted while it is mapped on some platforms
+                file.toFile().deleteOnExit();
+            }
+            file = null;
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String name, Attributes attributes) {
+        if (uri != null && !uri.equals(XSSFRelation.NS_SPREADSHEETML)) {
+            return;
+        }
+        if ("sst".equals(localName)) {
+            String count = attributes.getValue("count");
+            if (count != null) {
+                this.count = (int) Long.parseLong(count);
+            }
+            String uniqueCount = attributes.getValue("uniqueCount");
+            if (uniqueCount != null) {
+                this.uniqueCount = (int) Long.parseLong(uniqueCount);
+            }
+        } else if ("si".equals(localName)) {
+            characters.setLength(0);
+        } else if ("t".equals(localName)) {
+            tIsOpen = true;
+        } else if ("rPh".equals(localName)) {
+            inRPh = true;
+            //as in ReadOnlySharedStringsTable, this assumes that rPh comes after the <t>
+            if (includePhoneticRuns && characters.length() > 0) {
+                characters.append(" ");
+            }
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String name) throws SAXException {
+        if (uri != null && !uri.equals(XSSFRelation.NS_SPREADSHEETML)) {
+            return;
+        }
+        if ("si".equals(localName)) {
+            try {
+                add(characters.toString());
+            } catch (IOException e) {
+                throw new SAXException("can't write shared strings", e);
+            }
+        } else if ("t".equals(localName)) {
+            tIsOpen = false;
+        } else if ("rPh".equals(localName)) {
+            inRPh = false;
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (tIsOpen) {
+            if (inRPh && includePhoneticRuns) {
+                characters.append(ch, start, length);
+            } else if (!inRPh) {
+                characters.append(ch, start, length);
+            }
+        }
+    }
+
+    void add(String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > CHUNK_BYTES - pendingLength) {
+            flush();
+        }
+        if (locations.length < 3 * (size + 1)) {
+            locations = Arrays.copyOf(locations, 2 * locations.length);
+        }
+        if (bytes.length > CHUNK_BYTES) {
+            //a chunk of its own
+            locations[3 * size] = chunks.size();
+            locations[3 * size + 1] = 0;
+            store(bytes, bytes.length);
+        } else {
+            //the pending bytes become the next chunk
+            locations[3 * size] = chunks.size();
+            locations[3 * size + 1] = pendingLength;
+            System.arraycopy(bytes, 0, pending, pendingLength, bytes.length);
+            pendingLength += bytes.length;
+        }
+        locations[3 * size + 2] = bytes.length;
+        size++;
+    }
+
+    void flush() throws IOException {
+        if (pendingLength > 0) {
+            store(pending, pendingLength);
+            pendingLength = 0;
+        }
+    }
+
+    private void store(byte[] bytes, int length) throws IOException {
+        if (directBytes + length <= maxDirectBytes) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(length);
+            chunk.put(bytes, 0, length);
+            chunk.flip();
+            chunks.add(chunk);
+            directBytes += length;
+            return;
+        }
+        if (channel == null) {
+            file = Files.createTempFile("tika-shared-strings-", ".tmp");
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        ByteBuffer src = ByteBuffer.wrap(bytes, 0, length);
+        while (src.hasRemaining()) {
+            channel.write(src, fileBytes + src.position());
+        }
+        chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, fileBytes, length));
+        fileBytes += length;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft.ooxml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.sax.XHTMLContentHandler;
+
+/**
+ * Buffers the content of a sheet that is parsed on another thread than the
+ * one that writes the workbook, in a compact form: the elements are the
+ * indexes of their names and the text is held in one array.
+ * <p>
+ * The content is written to an {@link XHTMLContentHandler}, which starts
+ * the body before anything is buffered. The ignorable whitespace that it
+ * adds is dropped, as the handler that the content is replayed to adds it again.
+ */
+class SheetEventBuffer extends DefaultHandler {
+
+    private static final int START = 0;
+    private static final int END = 1;
+    private static final int CHARACTERS = 2;
+    private static final Attributes EMPTY_ATTRIBUTES = new AttributesImpl();
+
+    private final XHTMLContentHandler xhtml;
+    //op, then the name and attributes of START, the name of END or the length of CHARACTERS
+    private int[] events = new int[1024];
+    private int eventsLength = 0;
+    private char[] text = new char[4096];
+    private int textLength = 0;
+    private final List<String[]> names = new ArrayList<>();
+    private final List<Attributes> attributes = new ArrayList<>();
+    private boolean recording = false;
+
+    SheetEventBuffer() throws SAXException {
+        xhtml = new XHTMLContentHandler(this, new Metadata());
+        xhtml.startDocument();
+        xhtml.characters(new char[0], 0, 0);
+        recording = true;
+    }
+
+    /**
+     * @return the handler that writes to this buffer
+     */
+    XHTMLContentHandler getXHTML() {
+        return xhtml;
+    }
+
+    /**
+     * Writes the buffered content.
+     */
+    void replay(ContentHandler handler) throws SAXException {
+        int textOffset = 0;
+        for (int i = 0; i < eventsLength; ) {
+            switch (events[i]) {
+                case START: {
+                    String[] name = names.get(events[i + 1]);
+                    int atts = events[i + 2];
+                    handler.startElement(name[0], name[1], name[2],
+                            atts < 0 ? EMPTY_ATTRIBUTES : attributes.get(atts));
+                    i += 3;
+                    break;
+                }
+                case END: {
+                    String[] name = names.get(events[i + 1]);
+                    handler.endElement(name[0], name[1], name[2]);
+                    i += 2;
+                    break;
+                }
+                default: {
+                    int length = events[i + 1];
+                    handler.characters(text, textOffset, length);
+                    textOffset += length;
+                    i += 2;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) {
+        if (!recording) {
+            return;
+        }
+        int attsIndex = -1;
+        if (atts.getLength() > 0) {
+            attsIndex = attributes.size();
+            attributes.add(new AttributesImpl(atts));
+        }
+        add(START, getName(uri, localName, qName), attsIndex);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        if (recording) {
+            add(END, getName(uri, localName, qName));
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (!recording || length == 0) {
+            return;
+        }
+        if (textLength + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(2 * text.length, textLength + length));
+        }
+        System.arraycopy(ch, start, text, textLength, length);
+        textLength += length;
+        add(CHARACTERS, length);
+    }
+
+    private int getName(String uri, String localName, String qName) {
+        //a sheet only has a handful of element names
+        for (int i = 0; i < names.size(); i++) {
+            String[] name = names.get(i);
+            if (name[2].equals(qName) && name[1].equals(localName) && name[0].equals(uri)) {
+                return i;
+            }
+        }
+        names.add(new String[]{uri, localName, qName});
+        return names.size() - 1;
+    }
+
+    private void add(int... values) {
+        if (eventsLength + values.length > events.length) {
+            events = Arrays.copyOf(events, 2 * events.length);
+        }
+        System.arraycopy(values, 0, events, eventsLength, values.length);
+        eventsLength += values.length;
+    }
+}
@@ -19,13 +19,23 @@ package org.apache.tika.parser.microsoft.ooxml;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.poi.hssf.extractor.ExcelExtractor;
 import org.apache.poi.ooxml.extractor.POIXMLTextExtractor;
@@ -47,6 +57,8 @@ import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
 import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
 import org.apache.poi.xssf.extractor.XSSFEventBasedExcelExtractor;
 import org.apache.poi.xssf.model.Comments;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.Styles;
 import org.apache.poi.xssf.model.StylesTable;
 import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.apache.poi.xssf.usermodel.XSSFDrawing;
@@ -85,6 +97,7 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
     protected final Map<String, String> drawingHyperlinks = new HashMap<>();
     protected Metadata metadata;
     protected ParseContext parseContext;
+    private final Locale locale;
 
     public XSSFExcelExtractorDecorator(ParseContext context, POIXMLTextExtractor extractor,
                                        Locale locale) {
@@ -92,18 +105,27 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
 
         this.parseContext = context;
         this.extractor = (XSSFEventBasedExcelExtractor) extractor;
+        this.locale = locale;
         configureExtractor(this.extractor, locale);
 
+        formatter = newFormatter();
+    }
+
+    /**
+     * @return a new formatter; formatters can't be shared by several threads
+     */
+    private DataFormatter newFormatter() {
+        TikaExcelDataFormatter formatter;
         if (locale == null) {
             formatter = new TikaExcelDataFormatter();
         } else {
             formatter = new TikaExcelDataFormatter(locale);
         }
-        OfficeParserConfig officeParserConfig = context.get(OfficeParserConfig.class);
+        OfficeParserConfig officeParserConfig = parseContext.get(OfficeParserConfig.class);
         if (officeParserConfig != null) {
-            ((TikaExcelDataFormatter) formatter)
-                    .setDateFormatOverride(officeParserConfig.getDateFormatOverride());
+            formatter.setDateFormatOverride(officeParserConfig.getDateFormatOverride());
         }
+        return formatter;
     }
 
     protected void configureExtractor(POIXMLTextExtractor extractor, Locale locale) {
@@ -135,7 +157,6 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
             throws SAXException, XmlException, IOException {
         OPCPackage container = extractor.getPackage();
 
-        ReadOnlySharedStringsTable strings;
         XSSFReader.SheetIterator iter;
         XSSFReader xssfReader;
         StylesTable styles;
@@ -144,11 +165,31 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
             styles = xssfReader.getStylesTable();
 
             iter = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
-            strings = new ReadOnlySharedStringsTable(container, config.isConcatenatePhoneticRuns());
         } catch (OpenXML4JException e) {
             throw new XmlException(e);
         }
 
+        if (config.getSheetThreads() > 1) {
+            buildSheetsConcurrently(xhtml, container, styles, iter, config.getSheetThreads());
+        } else {
+            ReadOnlySharedStringsTable strings =
+                    new ReadOnlySharedStringsTable(container, config.isConcatenatePhoneticRuns());
+            buildSheets(xhtml, styles, strings, iter);
+        }
+
+        //consider adding this back to POI
+        try (InputStream wbData = xssfReader.getWorkbookData()) {
+            XMLReaderUtils
+                    .parseSAX(wbData, new AbsPathExtractorHandler(),
+                            parseContext);
+        } catch (InvalidFormatException | TikaException e) {
+            //swallow
+        }
+    }
+
+    private void buildSheets(XHTMLContentHandler xhtml, StylesTable styles,
+                             ReadOnlySharedStringsTable strings, XSSFReader.SheetIterator iter)
+            throws SAXException, IOException {
         while (iter.hasNext()) {
             SheetTextAsHTML sheetExtractor = new SheetTextAsHTML(config, xhtml);
             PackagePart sheetPart = null;
@@ -197,19 +238,147 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
             // All done with this sheet
             xhtml.endElement("div");
         }
+    }
 
-        //consider adding this back to POI
-        try (InputStream wbData = xssfReader.getWorkbookData()) {
-            XMLReaderUtils
-                    .parseSAX(wbData, new AbsPathExtractorHandler(),
-                            parseContext);
-        } catch (InvalidFormatException | TikaException e) {
-            //swallow
+    /**
+     * Parses the sheets on up to <code>threads</code> threads, and writes
+     * each one as {@link #buildSheets} would, once the sheets before it have
+     * been written. No more than twice as many sheets as threads are held
+     * in memory at the same time.
+     */
+    private void buildSheetsConcurrently(XHTMLContentHandler xhtml, OPCPackage container,
+                                         StylesTable styles, XSSFReader.SheetIterator iter,
+                                         int threads) throws SAXException, IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, threadFactory());
+        Deque<ConcurrentSheet> pending = new ArrayDeque<>();
+        SharedStringsStore strings = null;
+        try {
+            strings = SharedStringsStore.load(container, config.isConcatenatePhoneticRuns(),
+                    parseContext);
+            while (iter.hasNext()) {
+                InputStream stream = iter.next();
+                ConcurrentSheet sheet = new ConcurrentSheet(iter.getSheetName(),
+                        iter.getSheetPart(), stream);
+                pending.addLast(sheet);
+                sheetParts.add(sheet.part);
+                addDrawingHyperLinks(sheet.part, sheet.drawingHyperlinks);
+                if (config.isIncludeShapeBasedContent()) {
+                    sheet.shapes = iter.getShapes();
+                }
+                Comments comments = iter.getSheetComments();
+                SharedStrings sharedStrings = strings;
+                sheet.future = pool.submit(() -> {
+                    try (InputStream is = stream) {
+                        return parseSheet(sheet.extractor, comments, styles, sharedStrings, is);
+                    }
+                });
+                while (pending.size() >= 2 * threads) {
+                    writeSheet(pending.removeFirst(), xhtml);
+                }
+            }
+            while (!pending.isEmpty()) {
+                writeSheet(pending.removeFirst(), xhtml);
+            }
+        } catch (TikaException e) {
+            throw new RuntimeException("SAX parser appears to be broken - " + e.getMessage());
+        } finally {
+            pool.shutdownNow();
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            //sheets that were never parsed
+            for (ConcurrentSheet sheet : pending) {
+                sheet.stream.close();
+            }
+            if (strings != null) {
+                strings.close();
+            }
+        }
+    }
+
+    private void writeSheet(ConcurrentSheet sheet, XHTMLContentHandler xhtml)
+            throws SAXException, IOException {
+        boolean hasProtection;
+        try {
+            hasProtection = sheet.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for sheet " + sheet.name);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof TikaException) {
+                throw new RuntimeException(
+                        "SAX parser appears to be broken - " + cause.getMessage());
+            }
+            throw new IOException("can't parse sheet " + sheet.name, cause);
+        }
+        if (hasProtection) {
+            metadata.set(TikaCoreProperties.PROTECTED, "true");
+        }
+        //as they would be if the sheets before this one had just been read
+        drawingHyperlinks.putAll(sheet.drawingHyperlinks);
+
+        xhtml.startElement("div");
+        xhtml.element("h1", sheet.name);
+        xhtml.startElement("table");
+        xhtml.startElement("tbody");
+        sheet.buffer.replay(xhtml);
+        xhtml.endElement("tbody");
+        xhtml.endElement("table");
+
+        for (String header : sheet.extractor.headers) {
+            extractHeaderFooter(header, xhtml);
+        }
+        for (String footer : sheet.extractor.footers) {
+            extractHeaderFooter(footer, xhtml);
         }
+        if (config.isIncludeShapeBasedContent()) {
+            processShapes(sheet.shapes, xhtml);
+        }
+        extractHyperLinks(sheet.part, xhtml);
+        xhtml.endElement("div");
+    }
+
+    /**
+     * Parses a sheet on one of the threads of {@link #buildSheetsConcurrently}.
+     *
+     * @return whether the sheet is protected
+     */
+    private boolean parseSheet(SheetContentsHandler sheetContentsHandler, Comments comments,
+                               Styles styles, SharedStrings strings,
+                               InputStream sheetInputStream)
+            throws IOException, SAXException, TikaException {
+        XSSFSheetInterestingPartsCapturer handler = new XSSFSheetInterestingPartsCapturer(
+                new XSSFSheetXMLHandler(styles, comments, strings, sheetContentsHandler,
+                        newFormatter(), false));
+        XMLReaderUtils.parseSAX(sheetInputStream, handler, parseContext);
+        return handler.hasProtection;
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "xlsx-sheet-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
     }
 
 
     protected void addDrawingHyperLinks(PackagePart sheetPart) {
+        addDrawingHyperLinks(sheetPart, drawingHyperlinks);
+    }
+
+    private static void addDrawingHyperLinks(PackagePart sheetPart,
+                                             Map<String, String> drawingHyperlinks) {
         try {
             for (PackageRelationship rel : sheetPart
                     .getRelationshipsByType(XSSFRelation.DRAWINGS.getRelation())) {
@@ -404,6 +573,29 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
         return parts;
     }
 
+    /**
+     * A sheet parsed by {@link #buildSheetsConcurrently}, with what is
+     * written around its content.
+     */
+    private class ConcurrentSheet {
+        private final String name;
+        private final PackagePart part;
+        private final InputStream stream;
+        private final Map<String, String> drawingHyperlinks = new HashMap<>();
+        private final SheetEventBuffer buffer;
+        private final SheetTextAsHTML extractor;
+        private List<XSSFShape> shapes;
+        private Future<Boolean> future;
+
+        ConcurrentSheet(String name, PackagePart part, InputStream stream) throws SAXException {
+            this.name = name;
+            this.part = part;
+            this.stream = stream;
+            this.buffer = new SheetEventBuffer();
+            this.extractor = new SheetTextAsHTML(config, buffer.getXHTML());
+        }
+    }
+
     /**
      * Turns formatted sheet events into HTML
      */
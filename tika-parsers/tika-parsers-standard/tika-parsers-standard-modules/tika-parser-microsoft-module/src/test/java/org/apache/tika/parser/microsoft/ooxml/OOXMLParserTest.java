@@ -481,6 +481,22 @@ public class OOXMLParserTest extends MultiThreadedTikaTest {
 
     }
 
+    @Test
+    public void testConcurrentSheets() throws Exception {
+        for (String file : new String[]{"testEXCEL.xlsx", "testEXCEL-formats.xlsx",
+                "testComment.xlsx", "protectedSheets.xlsx"}) {
+            OfficeParserConfig config = new OfficeParserConfig();
+            config.setSheetThreads(3);
+            ParseContext context = new ParseContext();
+            context.set(OfficeParserConfig.class, config);
+            XMLResult concurrent = getXML(file, context);
+            XMLResult serial = getXML(file);
+            assertEquals(serial.xml, concurrent.xml, file);
+            assertEquals(serial.metadata.get(TikaCoreProperties.PROTECTED),
+                    concurrent.metadata.get(TikaCoreProperties.PROTECTED), file);
+        }
+    }
+
     /**
      * An excel document which is password protected.
      * See TIKA-437.
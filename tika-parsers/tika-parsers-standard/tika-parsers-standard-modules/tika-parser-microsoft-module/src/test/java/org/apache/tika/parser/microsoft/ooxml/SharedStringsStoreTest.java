@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft.ooxml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class SharedStringsStoreTest {
+
+    private static final char[] CHARS = {'a', 'b', ' ', '\u00e9', '\u4e2d'};
+
+    @Test
+    public void testSpillToFile() throws Exception {
+        Random random = new Random(17);
+        List<String> strings = new ArrayList<>();
+        //one chunk in memory, the others in the file
+        SharedStringsStore store = new SharedStringsStore(false, SharedStringsStore.CHUNK_BYTES);
+        Path file;
+        try {
+            for (int i = 0; i < 40; i++) {
+                //most don't fit the rest of a chunk, some are bigger than a chunk
+                int length = i % 13 == 12 ? SharedStringsStore.CHUNK_BYTES + 1 :
+                        random.nextInt(200000);
+                String string = randomString(random, length);
+                strings.add(string);
+                store.add(string);
+            }
+            store.flush();
+            assertTrue(store.getFileBytes() > 0);
+            file = store.getFile();
+            assertTrue(Files.isRegularFile(file));
+
+            assertEquals(strings.size(), store.size());
+            for (int i = strings.size() - 1; i >= 0; i--) {
+                assertEquals(strings.get(i), store.getItemAt(i).getString(), "string " + i);
+            }
+        } finally {
+            store.close();
+        }
+        assertNull(store.getFile());
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testInMemory() throws Exception {
+        try (SharedStringsStore store =
+                     new SharedStringsStore(false, SharedStringsStore.MAX_DIRECT_BYTES)) {
+            store.add("first");
+            store.add("");
+            store.add("third");
+            store.flush();
+            assertEquals(0, store.getFileBytes());
+            assertNull(store.getFile());
+            assertEquals("first", store.getItemAt(0).getString());
+            assertEquals("", store.getItemAt(1).getString());
+            assertEquals("third", store.getItemAt(2).getString());
+        }
+    }
+
+    private static String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = CHARS[random.nextInt(CHARS.length)];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.ocr;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.cache.BoundedLruCache;
+import org.apache.tika.utils.StringUtils;
+
+/**
+ * Least recently used cache of tesseract's output, keyed by a digest of the
+ * image and of the settings that change the output, so that images that
+ * come up again and again, such as logos and stamps, are OCR'd once.
+ * The cache is thread safe.
+ */
+public class OCRResultCache {
+
+    private final BoundedLruCache<Result> results;
+    private long hits = 0;
+    private long misses = 0;
+    private long millisSaved = 0;
+
+    /**
+     * @param maxBytes bound on the size of the outputs kept
+     */
+    public OCRResultCache(long maxBytes) {
+        this.results = new BoundedLruCache<>(maxBytes, result -> result.output.length);
+    }
+
+    /**
+     * @return the key of an image OCR'd with the given config
+     */
+    static String getKey(Path image, TesseractOCRConfig config) throws IOException {
+        MessageDigest digest = StringUtils.newSha256Digest();
+        byte[] buffer = new byte[8192];
+        try (InputStream is = Files.newInputStream(image)) {
+            for (int read = is.read(buffer); read > -1; read = is.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        digest.update(config.getFingerprint().getBytes(StandardCharsets.UTF_8));
+        return StringUtils.toHexString(digest.digest());
+    }
+
+    /**
+     * @return the cached result, or <code>null</code> if there is none
+     */
+    synchronized Result get(String key) {
+        Result result = results.get(key);
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+            millisSaved += result.millis;
+        }
+        return result;
+    }
+
+    void put(String key, Result result) {
+        results.put(key, result);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return how long the OCR of the images whose results came from the
+     * cache took when they were OCR'd
+     */
+    public synchronized long getMillisSaved() {
+        return millisSaved;
+    }
+
+    /**
+     * @return size of the outputs kept
+     */
+    public long getBytes() {
+        return results.getBytes();
+    }
+
+    /**
+     * Tesseract's output for an image, with the metadata that preprocessing
+     * added and the time that preprocessing and OCR took.
+     */
+    static class Result {
+        private final byte[] output;
+        private final Metadata metadata;
+        private final long millis;
+
+        Result(byte[] output, Metadata metadata, long millis) {
+            this.output = output;
+            this.metadata = metadata;
+            this.millis = millis;
+        }
+
+        byte[] getOutput() {
+            return output;
+        }
+
+        Metadata getMetadata() {
+            return metadata;
+        }
+
+        long getMillis() {
+            return millis;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -561,6 +562,30 @@ public class TesseractOCRConfig implements Serializable {
         return updated;
     }
 
+    /**
+     * @return a string that is the same for configs with the same settings
+     */
+    String getFingerprint() {
+        StringBuilder sb = new StringBuilder();
+        for (Field field : this.getClass().getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) ||
+                    "userConfigured".equals(field.getName())) {
+                continue;
+            }
+            Object value;
+            try {
+                value = field.get(this);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("can't read " + field.getName(), e);
+            }
+            if (value instanceof Map) {
+                value = new TreeMap<>((Map<?, ?>) value);
+            }
+            sb.append(field.getName()).append('=').append(value).append('\n');
+        }
+        return sb.toString();
+    }
+
     public enum OUTPUT_TYPE {
         TXT, HOCR
     }
@@ -22,6 +22,7 @@ import static org.apache.tika.sax.XHTMLContentHandler.XHTML;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -69,8 +70,10 @@ import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.Property;
+import org.apache.tika.metrics.ParseMetrics;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractExternalProcessParser;
+import org.apache.tika.parser.ContextDependentParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.external.ExternalParser;
 import org.apache.tika.sax.XHTMLContentHandler;
@@ -89,12 +92,25 @@ import org.apache.tika.utils.XMLReaderUtils;
  * parseContext.set(TesseractOCRConfig.class, config);<br>
  * </p>
  */
-public class TesseractOCRParser extends AbstractExternalProcessParser implements Initializable {
+public class TesseractOCRParser extends AbstractExternalProcessParser
+        implements Initializable, ContextDependentParser {
 
     public static final String TESS_META = "tess:";
     public static final Property IMAGE_ROTATION = Property.externalRealSeq(TESS_META + "rotation");
     public static final Property IMAGE_MAGICK =
             Property.externalBooleanSeq(TESS_META + "image_magick_processed");
+    /**
+     * Whether the output for an image came from the {@link OCRResultCache};
+     * one value for each image OCR'd while the cache is on.
+     */
+    public static final Property OCR_CACHE_HIT =
+            Property.internalBooleanSequence(TESS_META + "cache_hit");
+    /**
+     * Milliseconds that the OCR of an image took when it was cached; one
+     * value for each hit.
+     */
+    public static final Property OCR_CACHE_MILLIS_SAVED =
+            Property.internalIntegerSequence(TESS_META + "cache_millis_saved");
     private static final String TESSDATA_PREFIX = "TESSDATA_PREFIX";
 
     public static final Property
@@ -140,6 +156,8 @@ public class TesseractOCRParser extends AbstractExternalProcessParser implements
     private boolean hasTesseract;
     private boolean hasImageMagick;
     private ImagePreprocessor imagePreprocessor;
+    private long ocrCacheMaxBytes = 0;
+    private OCRResultCache ocrCache;
 
     public static String getImageMagickProg() {
         return System.getProperty("os.name").startsWith("Windows") ? "magick" : "convert";
@@ -275,6 +293,16 @@ public class TesseractOCRParser extends AbstractExternalProcessParser implements
             long size = tikaInputStream.getLength();
 
             if (size >= config.getMinFileSizeToOcr() && size <= config.getMaxFileSizeToOcr()) {
+                String cacheKey = null;
+                if (ocrCache != null) {
+                    cacheKey = OCRResultCache.getKey(input, config);
+                    if (extractCachedOutput(cacheKey, xhtml, metadata, parseContext, config)) {
+                        return;
+                    }
+                }
+                //with the cache, preprocessing records its metadata with the output
+                Metadata ocrMetadata = cacheKey == null ? metadata : new Metadata();
+                long start = System.currentTimeMillis();
 
                 // Process image
                 if (config.isEnableImagePreprocessing() || config.isApplyRotation()) {
@@ -291,7 +319,7 @@ public class TesseractOCRParser extends AbstractExternalProcessParser implements
                         try (TemporaryResources tmp = new TemporaryResources()) {
                             Path tmpFile = tmp.createTempFile();
                             Files.copy(input, tmpFile, StandardCopyOption.REPLACE_EXISTING);
-                            imagePreprocessor.process(tmpFile, tmpFile, metadata, config);
+                            imagePreprocessor.process(tmpFile, tmpFile, ocrMetadata, config);
                             doOCR(tmpFile.toFile(), tmpOCROutputFile, config, parseContext);
                         }
                     }
@@ -299,21 +327,23 @@ public class TesseractOCRParser extends AbstractExternalProcessParser implements
                     doOCR(input.toFile(), tmpOCROutputFile, config, parseContext);
                 }
 
-                String extension = config.getPageSegMode().equals("0") ? "osd" :
-                        config.getOutputType().toString().toLowerCase(Locale.US);
                 // Tesseract appends the output type (.txt or .hocr or .osd) to output file name
                 tmpTxtOutput = new File(tmpOCROutputFile.getAbsolutePath() +
-                        "." + extension);
-
-                if (tmpTxtOutput.exists()) {
+                        "." + getOutputExtension(config));
+
+                if (cacheKey != null) {
+                    byte[] output = tmpTxtOutput.exists() ?
+                            Files.readAllBytes(tmpTxtOutput.toPath()) : new byte[0];
+                    ocrCache.put(cacheKey, new OCRResultCache.Result(output, ocrMetadata,
+                            System.currentTimeMillis() - start));
+                    addAll(ocrMetadata, metadata);
+                    if (tmpTxtOutput.exists()) {
+                        extractOutput(new ByteArrayInputStream(output), xhtml, metadata,
+                                parseContext, config);
+                    }
+                } else if (tmpTxtOutput.exists()) {
                     try (InputStream is = new FileInputStream(tmpTxtOutput)) {
-                        if (config.getPageSegMode().equals("0")) {
-                            extractOSD(is, metadata);
-                        } else if (config.getOutputType().equals(TesseractOCRConfig.OUTPUT_TYPE.HOCR)) {
-                            extractHOCROutput(is, parseContext, xhtml);
-                        } else {
-                            extractOutput(is, xhtml);
-                        }
+                        extractOutput(is, xhtml, metadata, parseContext, config);
                     }
                 }
             }
@@ -324,6 +354,53 @@ public class TesseractOCRParser extends AbstractExternalProcessParser implements
         }
     }
 
+    /**
+     * Writes the cached output for the key, if there is one.
+     *
+     * @return whether there was
+     */
+    private boolean extractCachedOutput(String cacheKey, ContentHandler xhtml, Metadata metadata,
+                                        ParseContext parseContext, TesseractOCRConfig config)
+            throws IOException, SAXException, TikaException {
+        OCRResultCache.Result cached = ocrCache.get(cacheKey);
+        metadata.add(OCR_CACHE_HIT, Boolean.toString(cached != null));
+        if (cached == null) {
+            return false;
+        }
+        metadata.add(OCR_CACHE_MILLIS_SAVED, (int) cached.getMillis());
+        addAll(cached.getMetadata(), metadata);
+        if (cached.getOutput().length > 0) {
+            extractOutput(new ByteArrayInputStream(cached.getOutput()), xhtml, metadata,
+                    parseContext, config);
+        }
+        return true;
+    }
+
+    private static void addAll(Metadata from, Metadata to) {
+        for (String name : from.names()) {
+            for (String value : from.getValues(name)) {
+                to.add(name, value);
+            }
+        }
+    }
+
+    private static String getOutputExtension(TesseractOCRConfig config) {
+        return config.getPageSegMode().equals("0") ? "osd" :
+                config.getOutputType().toString().toLowerCase(Locale.US);
+    }
+
+    private void extractOutput(InputStream is, ContentHandler xhtml, Metadata metadata,
+                               ParseContext parseContext, TesseractOCRConfig config)
+            throws IOException, SAXException, TikaException {
+        if (config.getPageSegMode().equals("0")) {
+            extractOSD(is, metadata);
+        } else if (config.getOutputType().equals(TesseractOCRConfig.OUTPUT_TYPE.HOCR)) {
+            extractHOCROutput(is, parseContext, xhtml);
+        } else {
+            extractOutput(is, xhtml);
+        }
+    }
+
     private void extractOSD(InputStream is, Metadata metadata) throws IOException {
         Matcher matcher = Pattern.compile("^([^:]+):\\s+(.*)").matcher("");
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(is,
@@ -406,10 +483,12 @@ public class TesseractOCRParser extends AbstractExternalProcessParser implements
         String id = null;
         long timeoutMillis = TikaTaskTimeout.getTimeoutMillis(parseContext,
                 config.getTimeoutSeconds() * 1000);
+        long start = ParseMetrics.start();
         try {
             process = pb.start();
             id = register(process);
             runOCRProcess(process, timeoutMillis);
+            ParseMetrics.stop(start, ParseMetrics.OCR, getClass().getName());
         } finally {
             if (process != null) {
                 process.destroyForcibly();
@@ -831,6 +910,30 @@ public class TesseractOCRParser extends AbstractExternalProcessParser implements
     public boolean isPreloadLangs() {
         return this.preloadLangs;
     }
+
+    /**
+     * If greater than 0, tesseract's output is kept in an {@link OCRResultCache}
+     * of up to this many bytes, and images that have already been OCR'd with
+     * the same settings aren't OCR'd again. The default is 0: no cache.
+     *
+     * @param ocrCacheMaxBytes
+     */
+    @Field
+    public void setOcrCacheMaxBytes(long ocrCacheMaxBytes) {
+        this.ocrCacheMaxBytes = ocrCacheMaxBytes;
+        this.ocrCache = ocrCacheMaxBytes > 0 ? new OCRResultCache(ocrCacheMaxBytes) : null;
+    }
+
+    public long getOcrCacheMaxBytes() {
+        return ocrCacheMaxBytes;
+    }
+
+    /**
+     * @return the cache, or <code>null</code> if there is none
+     */
+    public OCRResultCache getOcrCache() {
+        return ocrCache;
+    }
     public TesseractOCRConfig getDefaultConfig() {
         return defaultConfig;
     }
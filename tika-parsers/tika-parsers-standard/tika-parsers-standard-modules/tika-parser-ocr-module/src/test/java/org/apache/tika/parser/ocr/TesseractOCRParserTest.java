@@ -303,6 +303,28 @@ public class TesseractOCRParserTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testCache() throws Exception {
+        assumeTrue(canRun(), "can run OCR");
+        TesseractOCRParser parser = new TesseractOCRParser();
+        parser.setOcrCacheMaxBytes(1024 * 1024);
+        parser.initialize(Collections.EMPTY_MAP);
+
+        Metadata first = getMetadata(MediaType.image("png"));
+        String ocr = getXML("testOCR_spacing.png", parser, first).xml;
+        assertContains("The quick", ocr);
+        assertEquals("false", first.get(TesseractOCRParser.OCR_CACHE_HIT));
+
+        //tesseract can't be run any more, so the output must come from the cache
+        parser.setTesseractPath(new File("no-such-tesseract").getAbsolutePath());
+        Metadata second = getMetadata(MediaType.image("png"));
+        assertEquals(ocr, getXML("testOCR_spacing.png", parser, second).xml);
+        assertEquals("true", second.get(TesseractOCRParser.OCR_CACHE_HIT));
+        assertNotNull(second.getInt(TesseractOCRParser.OCR_CACHE_MILLIS_SAVED));
+        assertEquals(1, parser.getOcrCache().getHits());
+        assertEquals(1, parser.getOcrCache().getMisses());
+    }
+
     @Test
     public void testTrailingSlashInPathBehavior() {
 
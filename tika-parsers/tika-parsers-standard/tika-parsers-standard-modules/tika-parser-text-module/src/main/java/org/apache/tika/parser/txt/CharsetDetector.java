@@ -59,6 +59,15 @@ public class CharsetDetector {
      * List of recognizers for all charsets known to the implementation.
      */
     private static final List<CSRecognizerInfo> ALL_CS_RECOGNIZERS;
+    /*
+     * Index of the last recognizer in ALL_CS_RECOGNIZERS that can report the
+     * maximum confidence.  The single byte recognizers after it never do.
+     */
+    private static final int LAST_DECISIVE_RECOGNIZER;
+    /*
+     * Detectors reused by the detections of a thread, see getThreadLocal().
+     */
+    private static final ThreadLocal<CharsetDetector> THREAD_LOCAL = new ThreadLocal<>();
 
     static {
         List<CSRecognizerInfo> list = new ArrayList<>();
@@ -109,6 +118,13 @@ public class CharsetDetector {
 
         list.add(new CSRecognizerInfo(new CharsetRecog_sbcs.CharsetRecog_IBM866_ru(), true));
         ALL_CS_RECOGNIZERS = Collections.unmodifiableList(list);
+        int last = 0;
+        for (int i = 0; i < list.size(); i++) {
+            if (!(list.get(i).recognizer instanceof CharsetRecog_sbcs)) {
+                last = i;
+            }
+        }
+        LAST_DECISIVE_RECOGNIZER = last;
     }
 
     /*
@@ -137,6 +153,7 @@ public class CharsetDetector {
     private boolean fStripTags =   // If true, setText() will strip tags from input text.
             false;
     private boolean[] fEnabledRecognizers;   // If not null, active set of charset recognizers had
+    private byte[] fStreamBytes;  // Head of the last input stream, reused by the next one.
 
     /**
      * Constructor
@@ -152,6 +169,49 @@ public class CharsetDetector {
         fInputBytes = new byte[kBufSize];
     }
 
+    /**
+     * Get a detector that is reused by the detections of the calling thread,
+     * so that its buffers are only allocated once per thread. The detector is
+     * {@link #reset() reset} before it is returned; it must not be used by
+     * another thread, nor after the next call of this method by the same thread.
+     * <p>
+     * This is a Tika addition to ICU.
+     *
+     * @param markLimit how far into the input to look
+     * @return the detector of the calling thread
+     */
+    public static CharsetDetector getThreadLocal(int markLimit) {
+        CharsetDetector detector = THREAD_LOCAL.get();
+        if (detector == null || detector.kBufSize != markLimit) {
+            detector = new CharsetDetector(markLimit);
+            THREAD_LOCAL.set(detector);
+        } else {
+            detector.reset();
+        }
+        return detector;
+    }
+
+    /**
+     * Forget the input, the declared encoding, the input filter setting and
+     * the enabled charsets, so that the detector can be used again as if it
+     * were new. The buffers of the detector are kept.
+     * <p>
+     * This is a Tika addition to ICU.
+     *
+     * @return This CharsetDetector
+     */
+    public CharsetDetector reset() {
+        fInputLen = 0;
+        fC1Bytes = false;
+        fDeclaredEncoding = null;
+        fRawInput = null;
+        fRawLength = 0;
+        fInputStream = null;
+        fStripTags = false;
+        fEnabledRecognizers = null;
+        return this;
+    }
+
     /**
      * Get the names of all charsets supported by <code>CharsetDetector</code> class.
      * <p>
@@ -231,9 +291,13 @@ public class CharsetDetector {
     public CharsetDetector setText(InputStream in) throws IOException {
         fInputStream = in;
         fInputStream.mark(kBufSize);
-        byte[] inputBytes = new byte[kBufSize];   // Always make a new buffer because the
-        //   previous one may have come from the caller,
-        //   in which case we can't touch it.
+        // Unlike the previous input, which may have come from the caller, this buffer
+        //   is ours; a match of a stream reads the stream again rather than the buffer,
+        //   so it can be reused.
+        if (fStreamBytes == null) {
+            fStreamBytes = new byte[kBufSize];
+        }
+        byte[] inputBytes = fStreamBytes;
         long bytesRead = -1;
         try {
             bytesRead = IOUtils.read(fInputStream, inputBytes);
@@ -272,17 +336,20 @@ public class CharsetDetector {
      * @stable ICU 3.4
      */
     public CharsetMatch detect() {
-//   TODO:  A better implementation would be to copy the detect loop from
-//          detectAll(), and cut it short as soon as a match with a high confidence
-//          is found.  This is something to be done later, after things are otherwise
-//          working.
-        CharsetMatch[] matches = detectAll();
+        // Tika modification: once a match has the maximum confidence, the single
+        //   byte recognizers, which never reach it, are not run.  As before, the
+        //   last recognizer to reach the maximum wins.
+        List<CharsetMatch> matches = match(true);
 
-        if (matches == null || matches.length == 0) {
+        if (matches.isEmpty()) {
             return null;
         }
+        if (matches.size() == 1) {
+            return matches.get(0);
+        }
 
-        return matches[0];
+        Collections.sort(matches);      // CharsetMatch compares on confidence
+        return matches.get(matches.size() - 1);
     }
 
     /**
@@ -300,11 +367,25 @@ public class CharsetDetector {
      * @stable ICU 3.4
      */
     public CharsetMatch[] detectAll() {
+        List<CharsetMatch> matches = match(false);
+        Collections.sort(matches);      // CharsetMatch compares on confidence
+        Collections.reverse(matches);   //  Put best match first.
+        return matches.toArray(new CharsetMatch[0]);
+    }
+
+    /*
+     *  match - run the recognizers in order, and remember all the matches
+     *          with a quality > 0.  If decisive is true and a match has the
+     *          maximum quality, the last such match is the only one returned,
+     *          without running the recognizers that can't reach it.
+     */
+    private List<CharsetMatch> match(boolean decisive) {
         CharsetRecognizer csr;
         int i;
         CharsetMatch charsetMatch;
         int confidence;
-        ArrayList<CharsetMatch> matches = new ArrayList<>();
+        List<CharsetMatch> matches = new ArrayList<>();
+        CharsetMatch decisiveMatch = null;
         //  Iterate over all possible charsets, remember all that
         //    give a match quality > 0.
         for (i = 0; i < ALL_CS_RECOGNIZERS.size(); i++) {
@@ -324,13 +405,38 @@ public class CharsetDetector {
                     }
                     CharsetMatch m = new CharsetMatch(this, csr, confidence, charsetMatch.getName(),
                             charsetMatch.getLanguage());
+                    if (confidence == MAX_CONFIDENCE) {
+                        decisiveMatch = m;
+                    }
                     matches.add(m);
                 }
             }
+            if (decisive && decisiveMatch != null && i >= LAST_DECISIVE_RECOGNIZER) {
+                matches.clear();
+                matches.add(decisiveMatch);
+                return matches;
+            }
         }
-        Collections.sort(matches);      // CharsetMatch compares on confidence
-        Collections.reverse(matches);   //  Put best match first.
-        return matches.toArray(new CharsetMatch[0]);
+        return matches;
+    }
+
+    /*
+     *  skipAscii - index of the first byte of bytes[from, to) that is not
+     *              7 bit ASCII, or to if they all are.  The bytes are tested
+     *              eight at a time, in a loop that the JIT can unroll.
+     */
+    static int skipAscii(byte[] bytes, int from, int to) {
+        int i = from;
+        for (int end = to - 7; i < end; i += 8) {
+            if ((bytes[i] | bytes[i + 1] | bytes[i + 2] | bytes[i + 3] | bytes[i + 4] |
+                    bytes[i + 5] | bytes[i + 6] | bytes[i + 7]) < 0) {
+                break;
+            }
+        }
+        while (i < to && bytes[i] >= 0) {
+            i++;
+        }
+        return i;
     }
 
     /**
@@ -34,12 +34,10 @@ class CharsetRecog_UTF8 extends CharsetRecognizer {
             hasBOM = true;
         }
 
-        // Scan for multi-byte sequences
-        for (i = 0; i < det.fRawLength; i++) {
+        // Scan for multi-byte sequences, skipping runs of ASCII
+        for (i = CharsetDetector.skipAscii(input, 0, det.fRawLength); i < det.fRawLength;
+                i = CharsetDetector.skipAscii(input, i + 1, det.fRawLength)) {
             int b = input[i];
-            if ((b & 0x80) == 0) {
-                continue;   // ASCII
-            }
 
             // Hi bit on char found.  Figure out how long the sequence should be
             if ((b & 0x0e0) == 0x0c0) {
@@ -46,7 +46,7 @@ public class Icu4jEncodingDetector implements EncodingDetector {
             return null;
         }
 
-        CharsetDetector detector = new CharsetDetector(markLimit);
+        CharsetDetector detector = CharsetDetector.getThreadLocal(markLimit);
 
         String incomingCharset = metadata.get(Metadata.CONTENT_ENCODING);
         String incomingType = metadata.get(Metadata.CONTENT_TYPE);
@@ -73,6 +73,18 @@ public class Icu4jEncodingDetector implements EncodingDetector {
 
         detector.setText(input);
 
+        if (ignoreCharsets.isEmpty()) {
+            CharsetMatch match = detector.detect();
+            if (match == null) {
+                return null;
+            }
+            try {
+                return CharsetUtils.forName(match.getNormalizedName());
+            } catch (IllegalArgumentException e) {
+                // try the other matches
+            }
+        }
+
         for (CharsetMatch match : detector.detectAll()) {
             try {
                 String n = match.getNormalizedName();
@@ -16,7 +16,11 @@
  */
 package org.apache.tika.parser.txt;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
@@ -130,6 +134,66 @@ public class CharsetDetectorTest extends TikaTest {
         assertEquals("UTF-8", detector.detect().getName());
     }
 
+    @Test
+    public void testThreadLocal() throws Exception {
+        CharsetDetector detector = CharsetDetector.getThreadLocal(1000);
+        assertSame(detector, CharsetDetector.getThreadLocal(1000));
+        assertNotSame(detector, CharsetDetector.getThreadLocal(2000));
+
+        detector = CharsetDetector.getThreadLocal(1000);
+        detector.enableInputFilter(true);
+        detector.setDeclaredEncoding("windows-1256");
+        String computer = "\u0627\u0644\u062D\u0627\u0633\u0648\u0628 ";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append(computer);
+        }
+        detector.setText(new ByteArrayInputStream(sb.toString().getBytes("windows-1256")));
+        CharsetMatch match = detector.detect();
+        assertEquals("windows-1256", match.getName());
+
+        //the settings are reset, and the stream buffer is reused
+        detector = CharsetDetector.getThreadLocal(1000);
+        assertFalse(detector.inputFilterEnabled());
+        detector.setText(new ByteArrayInputStream(sb.toString().getBytes(UTF_8)));
+        assertEquals("UTF-8", detector.detect().getName());
+        //the first match still reads its own stream
+        assertEquals(sb.toString(), match.getString());
+    }
+
+    @Test
+    public void testDecisiveMatch() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append("na\u00efve caf\u00e9 ");
+        }
+        CharsetDetector detector = new CharsetDetector();
+        detector.setText(sb.toString().getBytes(UTF_8));
+        CharsetMatch match = detector.detect();
+        assertEquals("UTF-8", match.getName());
+        assertEquals(100, match.getConfidence());
+        //all the matches are still there
+        CharsetMatch[] matches = detector.detectAll();
+        assertEquals("UTF-8", matches[0].getName());
+        assertTrue(matches.length > 1);
+    }
+
+    @Test
+    public void testUTF32LEWithBOM() throws Exception {
+        //UTF-16LE also reaches the maximum confidence on the FF FE of the BOM
+        byte[] text = "UTF-32 with a byte order mark".getBytes("UTF-32LE");
+        byte[] bytes = new byte[text.length + 4];
+        bytes[0] = (byte) 0xFF;
+        bytes[1] = (byte) 0xFE;
+        System.arraycopy(text, 0, bytes, 4, text.length);
+        CharsetDetector detector = new CharsetDetector();
+        detector.setText(bytes);
+        assertEquals("UTF-32LE", detector.detect().getName());
+        assertEquals("UTF-32LE", detector.detectAll()[0].getName());
+        assertEquals("UTF-32LE", new Icu4jEncodingDetector()
+                .detect(new ByteArrayInputStream(bytes), new Metadata()).name());
+    }
+
     @Test
     public void testIgnoreCharset() throws Exception {
         //TIKA-3516, TIKA-3525, TIKA-1236
@@ -114,6 +114,17 @@ public class DigestingParserTest extends TikaTest {
         assertNull(m.get(P + CommonsDigester.DigestAlgorithm.MD2.toString()));
     }
 
+    @Test
+    public void testDigestDuringParse() throws Exception {
+        Metadata m = new Metadata();
+        getXML("test_recursive_embedded.docx", new DigestingParser(AUTO_DETECT_PARSER,
+                new CommonsDigester(100, "md5,sha256,sha1:32"), true), m);
+        assertEquals("59f626e09a8c16ab6dbc2800c685f772", m.get(P + "MD5"));
+        assertEquals("c4b7fab030a8b6a9d6691f6699ac8e6f" + "82bc53764a0f1430d134ae3b70c32654",
+                m.get(P + "SHA256"));
+        assertEquals("PIPQAHIWHLEQ3DVFJQCQ7L22HADZPCFG", m.get(P + "SHA1"));
+    }
+
     @Test
     public void testReset() throws Exception {
         String expectedMD5 = "59f626e09a8c16ab6dbc2800c685f772";
@@ -39,6 +39,8 @@ public class OfficeParserConfig extends BaseParserConfig implements Serializable
 
     private String dateOverrideFormat = null;
 
+    private int sheetThreads = 1;
+
     // PUTHURR
     private boolean includeSlideShowEmbeddedResources = true;
 
@@ -280,6 +282,23 @@ public class OfficeParserConfig extends BaseParserConfig implements Serializable
     public void setDateOverrideFormat(String format) {
         this.dateOverrideFormat = format;
     }
-}
 
+    public int getSheetThreads() {
+        return sheetThreads;
+    }
 
+    /**
+     * If greater than 1, the sheets of xlsx and xlsm workbooks are parsed
+     * on up to this many threads. Each sheet's content is buffered until the
+     * sheets before it have been written, so the output is the same as when
+     * the sheets are parsed one after the other. The shared strings table is
+     * then kept outside of the heap, and in a temporary file if it is large.
+     * <p>
+     * Default: <code>1</code>
+     *
+     * @param sheetThreads
+     */
+    public void setSheetThreads(int sheetThreads) {
+        this.sheetThreads = sheetThreads;
+    }
+}
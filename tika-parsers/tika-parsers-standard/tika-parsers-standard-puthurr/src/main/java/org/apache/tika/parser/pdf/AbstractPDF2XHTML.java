@@ -106,6 +106,7 @@ import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Font;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.PDF;
+import org.apache.tika.metadata.Property;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.ParseContext;
@@ -144,7 +145,7 @@ class AbstractPDF2XHTML extends PDFTextStripper {
      */
     private final SimpleDateFormat dateFormat =
             new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.ROOT);
-    private final Set<String> fontNames = new HashSet<>();
+    final Set<String> fontNames = new HashSet<>();
     //zero-based pageIndex
     int pageIndex = 0;
     int startPage = -1;
@@ -156,14 +157,24 @@ class AbstractPDF2XHTML extends PDFTextStripper {
     // Total number of pages
     int totalPagesCount = -1;
 
+    //if not null, pages are OCR'd concurrently; the xhtml writes to it
+    PageOCRPipeline ocrPipeline;
+
     AbstractPDF2XHTML(PDDocument pdDocument, ContentHandler handler, ParseContext context,
                       Metadata metadata, PDFParserConfig config) throws IOException {
+        this(pdDocument, handler, context, metadata, config,
+                EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context));
+    }
+
+    AbstractPDF2XHTML(PDDocument pdDocument, ContentHandler handler, ParseContext context,
+                      Metadata metadata, PDFParserConfig config,
+                      EmbeddedDocumentExtractor embeddedDocumentExtractor) throws IOException {
         this.pdDocument = pdDocument;
         this.xhtml = new XHTMLContentHandler(handler, metadata);
         this.context = context;
         this.metadata = metadata;
         this.config = config;
-        embeddedDocumentExtractor = EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context);
+        this.embeddedDocumentExtractor = embeddedDocumentExtractor;
         if (config.getOcrStrategy() == NO_OCR) {
             ocrParser = null;
         } else {
@@ -494,12 +505,61 @@ class AbstractPDF2XHTML extends PDFTextStripper {
                 config.getOcrRenderingStrategy() == PDFParserConfig.OCR_RENDERING_STRATEGY.NO_TEXT ?
                         new NoTextPDFRenderer(pdDocument) : new PDFRenderer(pdDocument);
 
+        if (ocrPipeline != null) {
+            ocrPipeline.submit(pageIndex + 1, () -> {
+                BufferedImage pageImage = renderCurrentPage(renderer);
+                return pageImage == null ? null :
+                        (handler, pageMetadata) -> ocr(pageImage, ocrImageMediaType, handler,
+                                pageMetadata);
+            }, this::ocrDone);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        BufferedImage image = renderCurrentPage(renderer);
+        if (image == null) {
+            return;
+        }
+        try {
+            ocr(image, ocrImageMediaType, xhtml, metadata);
+        } catch (IOException e) {
+            handleCatchableIOE(e);
+        } catch (SAXException e) {
+            throw new IOException("error writing OCR content from PDF", e);
+        } finally {
+            recordOCRTime(pageIndex + 1, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * @return the image of the current page, or <code>null</code> if it couldn't be rendered
+     */
+    private BufferedImage renderCurrentPage(PDFRenderer renderer) {
+        try {
+            return renderer.renderImageWithDPI(pageIndex, config.getOcrDPI(),
+                    config.getOcrImageType());
+        } catch (SecurityException e) {
+            //throw SecurityExceptions immediately
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            //image rendering can throw a variety of runtime exceptions, not just
+            // IOExceptions...
+            //need to have a wide catch
+            metadata.add(TikaCoreProperties.TIKA_META_EXCEPTION_EMBEDDED_STREAM,
+                    ExceptionUtils.getStackTrace(e));
+            return null;
+        }
+    }
+
+    /**
+     * OCRs the image of a page. This doesn't touch the document, so it can run
+     * on the threads of the {@link PageOCRPipeline}.
+     */
+    private void ocr(BufferedImage image, MediaType ocrImageMediaType, ContentHandler handler,
+                     Metadata ocrMetadata) throws IOException, SAXException, TikaException {
         try (TemporaryResources tmp = new TemporaryResources()) {
             int dpi = config.getOcrDPI();
             Path tmpFile = null;
             try {
-                BufferedImage image =
-                        renderer.renderImageWithDPI(pageIndex, dpi, config.getOcrImageType());
                 tmpFile = tmp.createTempFile();
                 try (OutputStream os = Files.newOutputStream(tmpFile)) {
                     //TODO: get output format from TesseractConfig
@@ -507,31 +567,90 @@ class AbstractPDF2XHTML extends PDFTextStripper {
                             config.getOcrImageQuality());
                 }
             } catch (SecurityException e) {
-                //throw SecurityExceptions immediately
                 throw e;
             } catch (IOException | RuntimeException e) {
-                //image rendering can throw a variety of runtime exceptions, not just
-                // IOExceptions...
-                //need to have a wide catch
-                metadata.add(TikaCoreProperties.TIKA_META_EXCEPTION_EMBEDDED_STREAM,
+                ocrMetadata.add(TikaCoreProperties.TIKA_META_EXCEPTION_EMBEDDED_STREAM,
                         ExceptionUtils.getStackTrace(e));
                 return;
             }
             try (InputStream is = TikaInputStream.get(tmpFile)) {
-                metadata.set(TikaCoreProperties.CONTENT_TYPE_PARSER_OVERRIDE,
+                ocrMetadata.set(TikaCoreProperties.CONTENT_TYPE_PARSER_OVERRIDE,
                         ocrImageMediaType.toString());
-                ocrParser.parse(is, new EmbeddedContentHandler(new BodyContentHandler(xhtml)),
-                        metadata, context);
+                ocrParser.parse(is, new EmbeddedContentHandler(new BodyContentHandler(handler)),
+                        ocrMetadata, context);
+            }
+        }
+    }
+
+    private void recordOCRTime(int pageNumber, long millis) {
+        metadata.add(PDF.OCR_PAGES, pageNumber);
+        metadata.add(PDF.OCR_PAGE_MILLIS, (int) millis);
+    }
+
+    /**
+     * Called by the {@link PageOCRPipeline} before the OCR'd text of a page is
+     * written, where {@link #doOCROnCurrentPage(PDFParserConfig.OCR_STRATEGY)}
+     * would have written it.
+     */
+    private void ocrDone(PageOCRPipeline.Page page) throws IOException {
+        mergeMetadata(page.getMetadata(), metadata);
+        recordOCRTime(page.getPageNumber(), page.getMillis());
+        Throwable failure = page.getFailure();
+        if (failure instanceof IOException) {
+            handleCatchableIOE((IOException) failure);
+        } else if (failure instanceof SAXException) {
+            handleCatchableIOE(new IOException("error writing OCR content from PDF", failure));
+        } else if (failure instanceof TikaException) {
+            throw new IOException("Unable to end a page", failure);
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    /**
+     * Writes the pages that the {@link PageOCRPipeline} is done with; if
+     * <code>wait</code>, waits for all of them.
+     */
+    private void drainOCR(boolean wait) throws IOException {
+        try {
+            if (wait) {
+                ocrPipeline.finish(this::ocrDone);
+            } else {
+                ocrPipeline.drain(this::ocrDone);
             }
         } catch (IOException e) {
-            handleCatchableIOE(e);
-        } catch (SAXException e) {
-            throw new IOException("error writing OCR content from PDF", e);
+            if (WriteLimitReachedException.isWriteLimitReached(e)) {
+                metadata.set(TikaCoreProperties.WRITE_LIMIT_REACHED, "true");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Adds metadata extracted apart from the document's, e.g. on another
+     * thread, to the document's: single valued properties are set, the
+     * values of the others are added.
+     */
+    static void mergeMetadata(Metadata from, Metadata to) {
+        for (String name : from.names()) {
+            Property property = Property.get(name);
+            if (property != null && !property.isMultiValuePermitted()) {
+                to.set(name, from.get(name));
+            } else {
+                for (String value : from.getValues(name)) {
+                    to.add(name, value);
+                }
+            }
         }
     }
 
     @Override
     protected void endPage(PDPage page) throws IOException {
+        if (ocrPipeline != null) {
+            drainOCR(false);
+        }
         metadata.add(PDF.CHARACTERS_PER_PAGE, totalCharsPerPage);
         metadata.add(PDF.UNMAPPED_UNICODE_CHARS_PER_PAGE, unmappedUnicodeCharsPerPage);
 
@@ -782,6 +901,17 @@ class AbstractPDF2XHTML extends PDFTextStripper {
 
     @Override
     protected void endDocument(PDDocument pdf) throws IOException {
+        if (ocrPipeline != null) {
+            drainOCR(true);
+        }
+        String[] ocrPageMillis = metadata.getValues(PDF.OCR_PAGE_MILLIS);
+        if (ocrPageMillis.length > 0) {
+            long ocrMillis = 0;
+            for (String millis : ocrPageMillis) {
+                ocrMillis += Long.parseLong(millis);
+            }
+            metadata.set(PDF.OCR_MILLIS, (int) Math.min(ocrMillis, Integer.MAX_VALUE));
+        }
         try {
             // Extract text for any bookmarks:
             if (config.isExtractBookmarksText()) {
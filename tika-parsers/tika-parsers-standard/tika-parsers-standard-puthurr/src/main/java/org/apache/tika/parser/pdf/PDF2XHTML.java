@@ -21,6 +21,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -30,12 +32,16 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
 import org.apache.pdfbox.filter.MissingImageReaderException;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDPageTree;
 import org.apache.pdfbox.pdmodel.common.PDStream;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
@@ -50,7 +56,9 @@ import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
 
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
 import org.apache.tika.extractor.EmbeddedDocumentUtil;
+import org.apache.tika.extractor.EmbeddedImageRegistry;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
@@ -81,11 +89,37 @@ class PDF2XHTML extends AbstractPDF2XHTML {
     // puthurr - Image number starting to 1 -
     private AtomicInteger inlineImageCounter = new AtomicInteger(1);
 
+    //extracts the pages in ranges, if the config asks for it
+    private PDFPageRangeExtractor pageRangeExtractor;
+
+    //set if this extracts a range of the pages of the document for the pageRangeExtractor
+    private PDFPageRangeExtractor.Range range;
+    //the document that the images of the range are extracted from
+    private PDDocument imageDocument;
+
     PDF2XHTML(PDDocument document, ContentHandler handler, ParseContext context, Metadata metadata,
               PDFParserConfig config) throws IOException {
         super(document, handler, context, metadata, config);
     }
 
+    PDF2XHTML(PDDocument document, ContentHandler handler, ParseContext context, Metadata metadata,
+              PDFParserConfig config, EmbeddedDocumentExtractor embeddedDocumentExtractor)
+            throws IOException {
+        super(document, handler, context, metadata, config, embeddedDocumentExtractor);
+    }
+
+    static PDF2XHTML newInstance(PDDocument document, ContentHandler handler,
+                                 ParseContext context, Metadata metadata, PDFParserConfig config,
+                                 EmbeddedDocumentExtractor embeddedDocumentExtractor)
+            throws IOException {
+        if (config.isDetectAngles()) {
+            return new AngleDetectingPDF2XHTML(document, handler, context, metadata, config,
+                    embeddedDocumentExtractor);
+        }
+        return new PDF2XHTML(document, handler, context, metadata, config,
+                embeddedDocumentExtractor);
+    }
+
     /**
      * Converts the given PDF document (and related metadata) to a stream
      * of XHTML SAX events sent to the given content handler.
@@ -99,18 +133,39 @@ class PDF2XHTML extends AbstractPDF2XHTML {
     public static void process(PDDocument document, ContentHandler handler, ParseContext context,
                                Metadata metadata, PDFParserConfig config)
             throws SAXException, TikaException {
+        process(document, handler, context, metadata, config, null);
+    }
+
+    /**
+     * Same as {@link #process(PDDocument, ContentHandler, ParseContext, Metadata,
+     * PDFParserConfig)}, but extracts the pages in ranges on several threads if
+     * {@link PDFParserConfig#getPageRangeSize()} is set and the document is big enough.
+     *
+     * @param loader loads the copies of the document that the ranges are extracted
+     *               from; if <code>null</code>, the pages are extracted in order
+     */
+    static void process(PDDocument document, ContentHandler handler, ParseContext context,
+                        Metadata metadata, PDFParserConfig config,
+                        PDFPageRangeExtractor.DocumentLoader loader)
+            throws SAXException, TikaException {
         PDF2XHTML pdf2XHTML = null;
+        PageOCRPipeline ocrPipeline = null;
         try {
+            if (PageOCRPipeline.isEnabled(config)) {
+                ocrPipeline = new PageOCRPipeline(handler, config.getOcrThreads());
+                handler = ocrPipeline;
+            }
             // Extract text using a dummy Writer as we override the
             // key methods to output to the given content
             // handler.
-            if (config.isDetectAngles()) {
-                pdf2XHTML =
-                        new AngleDetectingPDF2XHTML(document, handler, context, metadata, config);
-            } else {
-                pdf2XHTML = new PDF2XHTML(document, handler, context, metadata, config);
-            }
+            pdf2XHTML = newInstance(document, handler, context, metadata, config,
+                    EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context));
+            pdf2XHTML.ocrPipeline = ocrPipeline;
             config.configure(pdf2XHTML);
+            if (loader != null) {
+                pdf2XHTML.pageRangeExtractor =
+                        new PDFPageRangeExtractor(pdf2XHTML, handler, loader, context, config);
+            }
 
             pdf2XHTML.writeText(document, new Writer() {
                 @Override
@@ -131,6 +186,10 @@ class PDF2XHTML extends AbstractPDF2XHTML {
             } else {
                 throw new TikaException("Unable to extract PDF content", e);
             }
+        } finally {
+            if (ocrPipeline != null) {
+                ocrPipeline.close();
+            }
         }
         if (pdf2XHTML.exceptions.size() > 0) {
             //throw the first
@@ -138,8 +197,54 @@ class PDF2XHTML extends AbstractPDF2XHTML {
         }
     }
 
+    /**
+     * Makes this extract a range of the pages for the {@link PDFPageRangeExtractor},
+     * numbering the images with those of the extraction of the whole document.
+     */
+    void setRange(PDFPageRangeExtractor.Range range, PDF2XHTML document) {
+        this.range = range;
+        this.imageDocument = document.pdDocument;
+        this.processedInlineImages = document.processedInlineImages;
+        this.inlineImageCounter = document.inlineImageCounter;
+    }
+
+    @Override
+    protected void startDocument(PDDocument pdf) throws IOException {
+        if (range == null) {
+            super.startDocument(pdf);
+            return;
+        }
+        try {
+            range.startBody(xhtml);
+        } catch (SAXException e) {
+            throw new IOException("Unable to start a document", e);
+        }
+    }
+
+    @Override
+    protected void endDocument(PDDocument pdf) throws IOException {
+        //the rest of the document is written by the extraction of the whole document
+        if (range == null) {
+            super.endDocument(pdf);
+        }
+    }
+
+    @Override
+    protected void processPages(PDPageTree pages) throws IOException {
+        if (pageRangeExtractor != null && pageRangeExtractor.shouldSplit(pages.getCount())) {
+            totalPagesCount = pages.getCount();
+            pageRangeExtractor.extract(pages.getCount());
+            pageIndex = pages.getCount();
+        } else {
+            super.processPages(pages);
+        }
+    }
+
     @Override
     public void processPage(PDPage page) throws IOException {
+        if (range != null) {
+            range.checkCancelled();
+        }
         try {
             super.processPage(page);
         } catch (IOException e) {
@@ -236,6 +341,11 @@ class PDF2XHTML extends AbstractPDF2XHTML {
         if (config.isExtractInlineImages() == false) {
             return;
         }
+        if (range != null) {
+            //images are numbered in page order, on the pages of the whole document
+            range.awaitTurn();
+            page = imageDocument.getPage(pageIndex);
+        }
 
         // Set a flag to convert the page to image or not.
         // Initialized with the config parameter allPagesAsImages.
@@ -358,6 +468,21 @@ class PDF2XHTML extends AbstractPDF2XHTML {
                 TikaCoreProperties.EmbeddedResourceType.INLINE.toString());
 
         if (embeddedDocumentExtractor.shouldParseEmbedded(imgMetadata)) {
+            EmbeddedImageRegistry registry =
+                    context.get(EmbeddedImageRegistry.class, config.getImageRegistry());
+            String imageKey = registry == null ? null : getImageKey(pdImage, suffix);
+            if (imageKey != null) {
+                String canonicalName = registry.getCanonicalName(imageKey);
+                if (canonicalName != null) {
+                    //extracted before, skip the decoding and the embedded parse
+                    attr.addAttribute("", "canonical", "canonical", "CDATA", canonicalName);
+                    adjustImageWidthHeightAttributes(attr, imgMetadata, pdImage.getWidth(),
+                            pdImage.getHeight());
+                    metadata.add(TikaCoreProperties.DUPLICATE_EMBEDDED_RESOURCES, fileName);
+                    writeImageTag(attr);
+                    return;
+                }
+            }
             ByteArrayOutputStream buffer = new ByteArrayOutputStream();
             try {
                 //extract the metadata contained outside of the image
@@ -385,6 +510,10 @@ class PDF2XHTML extends AbstractPDF2XHTML {
 
                     adjustImageWidthHeightAttributes(attr, imgMetadata, pdImage.getWidth(), pdImage.getHeight());
                 }
+                if (imageKey != null) {
+                    String canonicalName = registry.register(imageKey, getCanonicalName(fileName));
+                    attr.addAttribute("", "canonical", "canonical", "CDATA", canonicalName);
+                }
             } catch (IOException e) {
                 handleCatchableIOE(e);
             }
@@ -393,6 +522,71 @@ class PDF2XHTML extends AbstractPDF2XHTML {
         writeImageTag(attr);
     }
 
+    /**
+     * @return the name under which an image extracted with the given name is
+     * registered in the {@link EmbeddedImageRegistry}, qualified by the
+     * name of the document if it is known
+     */
+    private String getCanonicalName(String fileName) {
+        String documentName = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
+        return documentName == null ? fileName : documentName + "/" + fileName;
+    }
+
+    /**
+     * @return the key of the image in the {@link EmbeddedImageRegistry}, from
+     * its undecoded bytes and the entries of its dictionary that change how it
+     * is decoded, or <code>null</code> if it is an inline image or it couldn't
+     * be read
+     */
+    private static String getImageKey(PDImage pdImage, String suffix) {
+        if (!(pdImage instanceof PDImageXObject)) {
+            return null;
+        }
+        PDImageXObject image = (PDImageXObject) pdImage;
+        COSStream stream = image.getCOSObject();
+        MessageDigest digest = EmbeddedImageRegistry.newDigest();
+        String header = suffix + ' ' + image.getWidth() + ' ' + image.getHeight() + ' ' +
+                image.getBitsPerComponent() + ' ' + image.isStencil();
+        digest.update(header.getBytes(StandardCharsets.UTF_8));
+        try {
+            update(digest, stream, 0);
+            update(digest, stream.getDictionaryObject(COSName.DECODE_PARMS, COSName.DP), 0);
+            update(digest, stream.getDictionaryObject(COSName.COLORSPACE, COSName.CS), 0);
+            update(digest, stream.getDictionaryObject(COSName.DECODE, COSName.D), 0);
+            update(digest, stream.getDictionaryObject(COSName.SMASK), 0);
+            update(digest, stream.getDictionaryObject(COSName.MASK), 0);
+        } catch (IOException e) {
+            return null;
+        }
+        return EmbeddedImageRegistry.getKey(digest);
+    }
+
+    private static void update(MessageDigest digest, COSBase base, int depth) throws IOException {
+        if (depth > 8) {
+            throw new IOException("image dictionary too deep");
+        }
+        if (base instanceof COSObject) {
+            base = ((COSObject) base).getObject();
+        }
+        if (base instanceof COSStream) {
+            COSStream stream = (COSStream) base;
+            update(digest, stream.getFilters(), depth + 1);
+            try (InputStream is = stream.createRawInputStream()) {
+                EmbeddedImageRegistry.update(digest, is);
+            }
+        } else if (base instanceof COSArray) {
+            for (COSBase item : (COSArray) base) {
+                update(digest, item, depth + 1);
+            }
+        } else if (base instanceof COSString) {
+            digest.update(((COSString) base).getBytes());
+        } else if (base != null) {
+            //names, numbers and the like
+            digest.update(base.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
     private AttributesImpl buildImageAttributes(int imageNumber, Metadata imgMetadata, String fileName) {
         return buildImageAttributes(imageNumber, imgMetadata, fileName, 0, 0);
     }
@@ -506,8 +700,10 @@ class PDF2XHTML extends AbstractPDF2XHTML {
 
         private AngleDetectingPDF2XHTML(PDDocument document, ContentHandler handler,
                                         ParseContext context, Metadata metadata,
-                                        PDFParserConfig config) throws IOException {
-            super(document, handler, context, metadata, config);
+                                        PDFParserConfig config,
+                                        EmbeddedDocumentExtractor embeddedDocumentExtractor)
+                throws IOException {
+            super(document, handler, context, metadata, config, embeddedDocumentExtractor);
         }
 
         @Override
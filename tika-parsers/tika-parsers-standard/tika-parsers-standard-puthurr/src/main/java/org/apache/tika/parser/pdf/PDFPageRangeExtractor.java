@@ -0,0 +1,483 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.pdf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.XHTMLContentHandler;
+
+/**
+ * Extracts the pages of a document in ranges of
+ * {@link PDFParserConfig#getPageRangeSize()} pages on up to
+ * {@link PDFParserConfig#getPageRangeThreads()} workers, and writes them to the
+ * handler in page order, as if the pages had been extracted one after the other.
+ * <p>
+ * Each worker loads its own copy of the document, because PDFBox documents
+ * can't be read by several threads, and takes the next range to extract when
+ * it is done with one. The content of a range is recorded until all the
+ * ranges before it have been written, then it is written out and the rest of
+ * the range goes straight to the handler. The metadata that a range adds
+ * (characters per page, warnings, etc.) is merged into the document's metadata
+ * in range order.
+ * <p>
+ * Anything that has to happen in document order waits for the turn of its
+ * range: embedded documents (attachments, actions) are handed to the
+ * document's {@link EmbeddedDocumentExtractor} only then, and inline images
+ * are numbered and extracted from the document that the parser loaded, so
+ * that their ids and <code>image-PPPPP-NNNNN</code> names, and which of them
+ * are skipped as duplicates, are the same as when the pages are extracted in
+ * order. Text extraction and OCR of the pages run in parallel; image
+ * extraction doesn't.
+ */
+class PDFPageRangeExtractor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PDFPageRangeExtractor.class);
+
+    private static final Writer NULL_WRITER = new Writer() {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * Loads a copy of the document for a worker.
+     */
+    interface DocumentLoader {
+
+        /**
+         * Called on the parsing thread once the document is known to be extracted
+         * in ranges, before the workers start loading copies.
+         */
+        default void prepare() throws IOException {
+        }
+
+        PDDocument load() throws IOException;
+    }
+
+    private final PDF2XHTML document;
+    private final ContentHandler handler;
+    private final DocumentLoader loader;
+    private final ParseContext context;
+    private final PDFParserConfig config;
+
+    /**
+     * @param document the extraction of the whole document
+     * @param handler  the handler that the document's XHTML is written to
+     * @param loader   loads the copies of the document for the workers
+     */
+    PDFPageRangeExtractor(PDF2XHTML document, ContentHandler handler, DocumentLoader loader,
+                          ParseContext context, PDFParserConfig config) {
+        this.document = document;
+        this.handler = handler;
+        this.loader = loader;
+        this.context = context;
+        this.config = config;
+    }
+
+    /**
+     * @return whether a document with this many pages should be extracted in ranges
+     */
+    boolean shouldSplit(int numberOfPages) {
+        return config.getPageRangeSize() > 0 && numberOfPages > config.getPageRangeSize() &&
+                getThreads() > 1;
+    }
+
+    /**
+     * Extracts all the pages; this returns when they have all been written.
+     *
+     * @throws IOException the first exception that stopped the extraction of a range,
+     *                     as it would have stopped the extraction of the whole document
+     */
+    void extract(int numberOfPages) throws IOException {
+        loader.prepare();
+        int rangeSize = config.getPageRangeSize();
+        List<Range> ranges = new ArrayList<>();
+        for (int first = 0; first < numberOfPages; first += rangeSize) {
+            ranges.add(new Range(first, Math.min(numberOfPages, first + rangeSize) - 1,
+                    document.embeddedDocumentExtractor));
+        }
+        int workers = Math.min(getThreads(), ranges.size());
+        AtomicInteger nextRange = new AtomicInteger();
+        AtomicInteger liveWorkers = new AtomicInteger(workers);
+        ExecutorService pool = Executors.newFixedThreadPool(workers, threadFactory());
+        try {
+            for (int i = 0; i < workers; i++) {
+                pool.execute(() -> work(ranges, nextRange, liveWorkers));
+            }
+            //the ranges are written below the body of the document
+            try {
+                document.xhtml.characters(new char[0], 0, 0);
+            } catch (SAXException e) {
+                throw new IOException("Unable to start the pages", e);
+            }
+            for (Range range : ranges) {
+                try {
+                    range.write(handler);
+                } catch (SAXException e) {
+                    throw new IOException("Unable to write pages " + range, e);
+                }
+                range.awaitDone();
+                merge(range);
+                range.rethrow();
+            }
+        } finally {
+            for (Range range : ranges) {
+                range.cancel();
+            }
+            pool.shutdownNow();
+            //the workers stop at their next page, let them close their copies
+            //before the file they were loaded from goes away
+            awaitTermination(pool, "page range workers");
+        }
+    }
+
+    private int getThreads() {
+        return config.getPageRangeThreads() > 0 ? config.getPageRangeThreads() :
+                Runtime.getRuntime().availableProcessors();
+    }
+
+    private void work(List<Range> ranges, AtomicInteger nextRange, AtomicInteger liveWorkers) {
+        PDDocument pdDocument;
+        try {
+            pdDocument = loader.load();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("page range worker failed to load the document", e);
+            //the other workers extract the remaining ranges, they are only
+            //left over once the last worker is gone
+            if (liveWorkers.decrementAndGet() == 0) {
+                int i;
+                while ((i = nextRange.getAndIncrement()) < ranges.size()) {
+                    ranges.get(i).done(e);
+                }
+            }
+            return;
+        }
+        try {
+            int i;
+            while ((i = nextRange.getAndIncrement()) < ranges.size()) {
+                Range range = ranges.get(i);
+                try {
+                    extract(pdDocument, range);
+                    range.done(null);
+                } catch (Throwable t) {
+                    range.done(t);
+                }
+            }
+        } finally {
+            liveWorkers.decrementAndGet();
+            try {
+                pdDocument.close();
+            } catch (IOException e) {
+                LOG.warn("problem closing a copy of the document", e);
+            }
+        }
+    }
+
+    private void extract(PDDocument pdDocument, Range range) throws IOException {
+        PDF2XHTML pdf2XHTML = PDF2XHTML.newInstance(pdDocument, range, context, range.metadata,
+                config, range.embeddedDocumentExtractor);
+        config.configure(pdf2XHTML);
+        pdf2XHTML.setRange(range, document);
+        pdf2XHTML.setStartPage(range.first + 1);
+        pdf2XHTML.setEndPage(range.last + 1);
+        try {
+            pdf2XHTML.writeText(pdDocument, NULL_WRITER);
+        } finally {
+            range.exceptions.addAll(pdf2XHTML.exceptions);
+            range.fontNames.addAll(pdf2XHTML.fontNames);
+        }
+    }
+
+    /**
+     * Adds the metadata of a range to that of the document. Values of fields that
+     * can have many are appended, as they are when each page adds its own; fields
+     * with a single value take that of the last range that set them.
+     */
+    private void merge(Range range) {
+        AbstractPDF2XHTML.mergeMetadata(range.metadata, document.metadata);
+        document.exceptions.addAll(range.exceptions);
+        document.fontNames.addAll(range.fontNames);
+    }
+
+    /**
+     * Waits for the threads of a pool that has been shut down to stop.
+     */
+    static void awaitTermination(ExecutorService pool, String threads) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+                LOG.warn("still waiting for {} to stop", threads);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "pdf-page-range-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * A range of pages and the handler that its {@link PDF2XHTML} writes to. The
+     * events in the body are recorded until the range's turn comes, then they are
+     * written and the handler passes the rest of them on.
+     */
+    static class Range extends DefaultHandler {
+
+        private interface Event {
+            void write(ContentHandler handler) throws SAXException;
+        }
+
+        //zero-based, inclusive
+        private final int first;
+        private final int last;
+        private final Metadata metadata = new Metadata();
+        private final List<IOException> exceptions = new ArrayList<>();
+        private final Set<String> fontNames = new HashSet<>();
+        private final EmbeddedDocumentExtractor embeddedDocumentExtractor;
+        private final List<Event> events = new ArrayList<>();
+        private boolean recording = false;
+        private ContentHandler target;
+        private boolean cancelled = false;
+        private boolean done = false;
+        private Throwable failure;
+
+        private Range(int first, int last, EmbeddedDocumentExtractor embeddedDocumentExtractor) {
+            this.first = first;
+            this.last = last;
+            this.embeddedDocumentExtractor =
+                    new TurnTakingEmbeddedDocumentExtractor(embeddedDocumentExtractor);
+        }
+
+        /**
+         * Starts the body of the range's XHTML; the document's head and the start
+         * of its body have already been written.
+         */
+        void startBody(XHTMLContentHandler xhtml) throws SAXException {
+            xhtml.startDocument();
+            xhtml.characters(new char[0], 0, 0);
+            synchronized (this) {
+                recording = true;
+            }
+        }
+
+        /**
+         * Waits until all the ranges before this one have been written.
+         *
+         * @throws IOException if the extraction was cancelled in the meantime
+         */
+        synchronized void awaitTurn() throws IOException {
+            try {
+                while (target == null && !cancelled) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted waiting for pages " + this);
+            }
+            checkCancelled();
+        }
+
+        synchronized void checkCancelled() throws IOException {
+            if (cancelled) {
+                throw new IOException("extraction of pages " + this + " was cancelled");
+            }
+        }
+
+        private synchronized void write(ContentHandler handler) throws SAXException {
+            for (Event event : events) {
+                event.write(handler);
+            }
+            events.clear();
+            target = handler;
+            notifyAll();
+        }
+
+        private synchronized void done(Throwable t) {
+            done = true;
+            failure = t;
+            notifyAll();
+        }
+
+        private synchronized void awaitDone() throws IOException {
+            try {
+                while (!done) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted waiting for pages " + this);
+            }
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+
+        private synchronized void rethrow() throws IOException {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new IOException(failure);
+            }
+        }
+
+        private void record(Event event) throws SAXException {
+            if (target != null) {
+                event.write(target);
+            } else if (recording) {
+                events.add(event);
+            }
+        }
+
+        @Override
+        public synchronized void startPrefixMapping(String prefix, String uri)
+                throws SAXException {
+            record(h -> h.startPrefixMapping(prefix, uri));
+        }
+
+        @Override
+        public synchronized void endPrefixMapping(String prefix) throws SAXException {
+            record(h -> h.endPrefixMapping(prefix));
+        }
+
+        @Override
+        public synchronized void startElement(String uri, String localName, String qName,
+                                              Attributes atts) throws SAXException {
+            if (target != null) {
+                target.startElement(uri, localName, qName, atts);
+                return;
+            }
+            Attributes copy = new AttributesImpl(atts);
+            record(h -> h.startElement(uri, localName, qName, copy));
+        }
+
+        @Override
+        public synchronized void endElement(String uri, String localName, String qName)
+                throws SAXException {
+            record(h -> h.endElement(uri, localName, qName));
+        }
+
+        @Override
+        public synchronized void characters(char[] ch, int start, int length)
+                throws SAXException {
+            if (target != null) {
+                target.characters(ch, start, length);
+                return;
+            }
+            char[] copy = Arrays.copyOfRange(ch, start, start + length);
+            record(h -> h.characters(copy, 0, copy.length));
+        }
+
+        @Override
+        public synchronized void ignorableWhitespace(char[] ch, int start, int length)
+                throws SAXException {
+            if (target != null) {
+                target.ignorableWhitespace(ch, start, length);
+                return;
+            }
+            char[] copy = Arrays.copyOfRange(ch, start, start + length);
+            record(h -> h.ignorableWhitespace(copy, 0, copy.length));
+        }
+
+        @Override
+        public String toString() {
+            return (first + 1) + "-" + (last + 1);
+        }
+
+        /**
+         * Hands embedded documents to the document's extractor when it is
+         * the range's turn, so that they are extracted in document order.
+         */
+        private class TurnTakingEmbeddedDocumentExtractor implements EmbeddedDocumentExtractor {
+
+            private final EmbeddedDocumentExtractor delegate;
+
+            private TurnTakingEmbeddedDocumentExtractor(EmbeddedDocumentExtractor delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public boolean shouldParseEmbedded(Metadata metadata) {
+                try {
+                    awaitTurn();
+                } catch (IOException e) {
+                    //cancelled, the range stops at its next page
+                    return false;
+                }
+                return delegate.shouldParseEmbedded(metadata);
+            }
+
+            @Override
+            public void parseEmbedded(InputStream stream, ContentHandler handler,
+                                      Metadata metadata, boolean outputHtml)
+                    throws SAXException, IOException {
+                awaitTurn();
+                delegate.parseEmbedded(stream, handler, metadata, outputHtml);
+            }
+        }
+    }
+}
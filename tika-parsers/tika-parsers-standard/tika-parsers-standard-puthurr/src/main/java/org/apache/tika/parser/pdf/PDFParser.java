@@ -54,6 +54,7 @@ import org.apache.tika.exception.EncryptedDocumentException;
 import org.apache.tika.exception.TikaConfigException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.AccessPermissions;
 import org.apache.tika.metadata.Metadata;
@@ -132,6 +133,7 @@ public class PDFParser extends AbstractParser implements Initializable {
         PDDocument pdfDocument = null;
 
         String password = "";
+        TemporaryResources tmp = new TemporaryResources();
         try {
             TikaInputStream tstream = TikaInputStream.cast(stream);
             password = getPassword(metadata, context);
@@ -171,19 +173,47 @@ public class PDFParser extends AbstractParser implements Initializable {
                     PDFMarkedContent2XHTML
                             .process(pdfDocument, handler, context, metadata, localConfig);
                 } else {
-                    PDF2XHTML.process(pdfDocument, handler, context, metadata, localConfig);
+                    PDF2XHTML.process(pdfDocument, handler, context, metadata, localConfig,
+                            getDocumentLoader(pdfDocument, tstream, tmp, password,
+                                    memoryUsageSetting, context, localConfig));
                 }
             }
         } catch (InvalidPasswordException e) {
             metadata.set(PDF.IS_ENCRYPTED, "true");
             throw new EncryptedDocumentException(e);
         } finally {
-            if (pdfDocument != null) {
-                pdfDocument.close();
+            try {
+                if (pdfDocument != null) {
+                    pdfDocument.close();
+                }
+            } finally {
+                tmp.close();
             }
         }
     }
 
+    /**
+     * @return the loader of the copies of the document that page ranges are
+     * extracted from, or <code>null</code> if the pages should be extracted in order
+     */
+    private PDFPageRangeExtractor.DocumentLoader getDocumentLoader(
+            PDDocument pdfDocument, TikaInputStream tstream, TemporaryResources tmp,
+            String password, MemoryUsageSetting memoryUsageSetting, ParseContext context,
+            PDFParserConfig config) {
+        if (config.getPageRangeSize() <= 0) {
+            return null;
+        }
+        if (tstream != null && tstream.hasFile()) {
+            return () -> getPDDocument(tstream.getPath(), password, memoryUsageSetting,
+                    new Metadata(), context);
+        }
+        if (pdfDocument.isEncrypted()) {
+            //an encrypted document can't be saved without its protection policy
+            return null;
+        }
+        return new SavedDocumentLoader(pdfDocument, tmp, memoryUsageSetting, context);
+    }
+
 
     protected PDDocument getPDDocument(InputStream inputStream, String password,
                                        MemoryUsageSetting memoryUsageSetting, Metadata metadata,
@@ -613,6 +643,26 @@ public class PDFParser extends AbstractParser implements Initializable {
         defaultConfig.setMaxMainMemoryBytes(maxMainMemoryBytes);
     }
 
+    @Field
+    public void setPageRangeSize(int pageRangeSize) {
+        defaultConfig.setPageRangeSize(pageRangeSize);
+    }
+
+    @Field
+    public void setPageRangeThreads(int pageRangeThreads) {
+        defaultConfig.setPageRangeThreads(pageRangeThreads);
+    }
+
+    @Field
+    public void setOcrThreads(int ocrThreads) {
+        defaultConfig.setOcrThreads(ocrThreads);
+    }
+
+    @Field
+    public void setImageRegistrySize(int imageRegistrySize) {
+        defaultConfig.setImageRegistrySize(imageRegistrySize);
+    }
+
     /**
      * This is a no-op.  There is no need to initialize multiple fields.
      * The regular field loading should happen without this.
@@ -645,4 +695,37 @@ public class PDFParser extends AbstractParser implements Initializable {
             new AcroFormDefaultsProcessor(document).process();
         }
     }
+
+    /**
+     * Loads the copies of a document that was read from a stream. The document is
+     * only saved to a temporary file once it is known to be extracted in ranges,
+     * so that documents with a single range never go to disk.
+     */
+    private class SavedDocumentLoader implements PDFPageRangeExtractor.DocumentLoader {
+
+        private final PDDocument pdfDocument;
+        private final TemporaryResources tmp;
+        private final MemoryUsageSetting memoryUsageSetting;
+        private final ParseContext context;
+        private Path path;
+
+        SavedDocumentLoader(PDDocument pdfDocument, TemporaryResources tmp,
+                            MemoryUsageSetting memoryUsageSetting, ParseContext context) {
+            this.pdfDocument = pdfDocument;
+            this.tmp = tmp;
+            this.memoryUsageSetting = memoryUsageSetting;
+            this.context = context;
+        }
+
+        @Override
+        public void prepare() throws IOException {
+            path = tmp.createTempFile();
+            pdfDocument.save(path.toFile());
+        }
+
+        @Override
+        public PDDocument load() throws IOException {
+            return getPDDocument(path, "", memoryUsageSetting, new Metadata(), context);
+        }
+    }
 }
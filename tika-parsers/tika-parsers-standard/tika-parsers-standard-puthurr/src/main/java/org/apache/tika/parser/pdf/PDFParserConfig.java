@@ -29,6 +29,7 @@ import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.text.PDFTextStripper;
 
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.extractor.EmbeddedImageRegistry;
 import org.apache.tika.parser.config.BaseParserConfig;
 
 /**
@@ -131,6 +132,19 @@ public class PDFParserConfig extends BaseParserConfig implements Serializable {
 
     private boolean detectAngles = false;
 
+    //If > 0, documents with more pages are extracted in ranges of this many pages
+    //on several threads
+    private int pageRangeSize = -1;
+
+    //Number of threads that extract page ranges, <= 0 for the number of processors
+    private int pageRangeThreads = -1;
+
+    //If > 1, pages are OCR'd on this many threads while the following pages are extracted
+    private int ocrThreads = 1;
+
+    //If set, images already extracted from this or another document aren't extracted again
+    private transient EmbeddedImageRegistry imageRegistry;
+
     /**
      * @return whether or not to extract only inline image metadata and not render the images
      */
@@ -795,6 +809,109 @@ public class PDFParserConfig extends BaseParserConfig implements Serializable {
         userConfigured.add("detectAngles");
     }
 
+    /**
+     * @see #setPageRangeSize(int)
+     */
+    public int getPageRangeSize() {
+        return pageRangeSize;
+    }
+
+    /**
+     * If greater than 0, the pages of documents that have more than this many
+     * pages are extracted in ranges of this many pages, on up to
+     * {@link #getPageRangeThreads()} threads, each with its own copy of the
+     * document. The output is the same as when the pages are extracted in
+     * order, but inline images are still extracted one page after the other.
+     * Documents that don't come as files are spooled to a temporary file.
+     * <p/>
+     * The default is <code>-1</code>: pages are extracted in order.
+     *
+     * @param pageRangeSize
+     */
+    public void setPageRangeSize(int pageRangeSize) {
+        this.pageRangeSize = pageRangeSize;
+        userConfigured.add("pageRangeSize");
+    }
+
+    /**
+     * @see #setPageRangeThreads(int)
+     */
+    public int getPageRangeThreads() {
+        return pageRangeThreads;
+    }
+
+    /**
+     * Number of threads that extract page ranges if {@link #getPageRangeSize()}
+     * is set. If less than or equal to 0 (the default), the number of available
+     * processors.
+     *
+     * @param pageRangeThreads
+     */
+    public void setPageRangeThreads(int pageRangeThreads) {
+        this.pageRangeThreads = pageRangeThreads;
+        userConfigured.add("pageRangeThreads");
+    }
+
+    /**
+     * @see #setOcrThreads(int)
+     */
+    public int getOcrThreads() {
+        return ocrThreads;
+    }
+
+    /**
+     * If greater than 1, the pages that are OCR'd are rendered in order, but
+     * the rendered images are OCR'd on up to this many threads, while the
+     * extraction of the following pages goes on. The OCR'd text is written
+     * where it would have been if the pages had been OCR'd one after the
+     * other. No more than twice this many rendered pages wait to be OCR'd.
+     * <p/>
+     * The default is <code>1</code>: each page is OCR'd before the next one
+     * is extracted.
+     *
+     * @param ocrThreads
+     */
+    public void setOcrThreads(int ocrThreads) {
+        this.ocrThreads = ocrThreads;
+        userConfigured.add("ocrThreads");
+    }
+
+    /**
+     * @see #setImageRegistry(EmbeddedImageRegistry)
+     */
+    public EmbeddedImageRegistry getImageRegistry() {
+        return imageRegistry;
+    }
+
+    /**
+     * If set, the inline images are looked up in this registry, by a digest
+     * of their undecoded bytes, before they are extracted. An image that
+     * was already extracted, from this or another document, isn't decoded
+     * and passed to the embedded document extractor again; its
+     * <code>&lt;img&gt;</code> element gets the canonical name that it was
+     * first extracted under. One registry can be shared by all the parses.
+     * <p/>
+     * An {@link EmbeddedImageRegistry} in the ParseContext takes precedence.
+     * The default is <code>null</code>: every image is extracted.
+     *
+     * @param imageRegistry
+     */
+    public void setImageRegistry(EmbeddedImageRegistry imageRegistry) {
+        this.imageRegistry = imageRegistry;
+        userConfigured.add("imageRegistry");
+    }
+
+    /**
+     * Sets a new {@link #setImageRegistry(EmbeddedImageRegistry) image registry}
+     * of this many images, or none if this is less than 1.
+     *
+     * @param imageRegistrySize
+     */
+    public void setImageRegistrySize(int imageRegistrySize) {
+        setImageRegistry(imageRegistrySize > 0 ? new EmbeddedImageRegistry(imageRegistrySize) :
+                null);
+    }
+
     public PDFParserConfig cloneAndUpdate(PDFParserConfig updates) throws TikaException {
         PDFParserConfig updated = new PDFParserConfig();
         for (Field field : this.getClass().getDeclaredFields()) {
@@ -1042,6 +1159,16 @@ public class PDFParserConfig extends BaseParserConfig implements Serializable {
         if (isJB2Images() != (config.isJB2Images())) return false;
         if (getJB2ImagesThreshold() != (config.getJB2ImagesThreshold())) return false;
 
+        if (getPageRangeSize() != config.getPageRangeSize()) {
+            return false;
+        }
+        if (getPageRangeThreads() != config.getPageRangeThreads()) {
+            return false;
+        }
+        if (getOcrThreads() != config.getOcrThreads()) {
+            return false;
+        }
+
         return getMaxMainMemoryBytes() == config.getMaxMainMemoryBytes();
     }
 
@@ -1077,6 +1204,9 @@ public class PDFParserConfig extends BaseParserConfig implements Serializable {
         result = 31 * result + getGraphicsToImageThreshold();
         result = 31 * result + (isJB2Images() ? 1 : 0);
         result = 31 * result + getJB2ImagesThreshold();
+        result = 31 * result + getPageRangeSize();
+        result = 31 * result + getPageRangeThreads();
+        result = 31 * result + getOcrThreads();
 
         return result;
     }
@@ -1096,6 +1226,8 @@ public class PDFParserConfig extends BaseParserConfig implements Serializable {
                 ocrImageFormatName + '\'' + ", accessChecker=" + accessChecker +
                 ", extractActions=" + extractActions + ", catchIntermediateIOExceptions=" +
                 catchIntermediateIOExceptions + ", maxMainMemoryBytes=" + maxMainMemoryBytes +
+                ", pageRangeSize=" + pageRangeSize + ", pageRangeThreads=" + pageRangeThreads +
+                ", ocrThreads=" + ocrThreads +
                 // puthurr
                 ", allPagesAsImages=" + allPagesAsImages +
                 ", firstPageAsCoverImage=" + firstPageAsCoverImage +
@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.pdf;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.sax.XHTMLContentHandler;
+
+/**
+ * Handler between a {@link PDF2XHTML} and the handler it writes to, which
+ * OCRs pages on up to {@link PDFParserConfig#getOcrThreads()} threads while
+ * the extraction of the following pages goes on.
+ * <p>
+ * The pages are rendered by the extraction, because PDFBox documents can't be
+ * read by several threads; the images are then OCR'd concurrently. The events
+ * written after a page was submitted are held back until its OCR'd text has
+ * been written, so that the output is the same as when each page is OCR'd
+ * before the next one is extracted. All the methods, apart from the OCR
+ * itself, run on the extraction's thread.
+ */
+class PageOCRPipeline extends DefaultHandler {
+
+    /**
+     * Renders the current page.
+     */
+    interface PageRenderer {
+        /**
+         * @return the OCR of the rendered page, or <code>null</code> if
+         * the page couldn't be rendered
+         */
+        PageOCR render() throws IOException;
+    }
+
+    /**
+     * OCRs a rendered page; this runs on one of the pipeline's threads.
+     */
+    interface PageOCR {
+        /**
+         * @param handler  handler for the OCR'd text, in the page's body
+         * @param metadata metadata for the OCR parser
+         */
+        void run(ContentHandler handler, Metadata metadata)
+                throws IOException, SAXException, TikaException;
+    }
+
+    /**
+     * Gets the pages, in page order, before their OCR'd text is written.
+     */
+    interface Listener {
+        void pageDone(Page page) throws IOException;
+    }
+
+    private interface Event {
+        void write(ContentHandler handler) throws SAXException;
+    }
+
+    private final ContentHandler handler;
+    private final int maxPending;
+    private final ExecutorService pool;
+    private final Deque<Page> pending = new ArrayDeque<>();
+
+    PageOCRPipeline(ContentHandler handler, int threads) {
+        this.handler = handler;
+        this.maxPending = 2 * threads;
+        this.pool = Executors.newFixedThreadPool(threads, threadFactory());
+    }
+
+    /**
+     * @return whether the config asks for pages to be OCR'd concurrently
+     */
+    static boolean isEnabled(PDFParserConfig config) {
+        return config.getOcrThreads() > 1 &&
+                (config.getOcrStrategy() == PDFParserConfig.OCR_STRATEGY.AUTO ||
+                        config.getOcrStrategy() ==
+                                PDFParserConfig.OCR_STRATEGY.OCR_AND_TEXT_EXTRACTION);
+    }
+
+    /**
+     * Renders the current page and submits its OCR; the OCR'd text goes
+     * before the events that follow. If too many pages are waiting, this
+     * first waits for the earliest of them to be written.
+     *
+     * @param pageNumber 1-based number of the page
+     */
+    void submit(int pageNumber, PageRenderer renderer, Listener listener) throws IOException {
+        while (pending.size() >= maxPending) {
+            writeFirst(listener);
+        }
+        long start = System.currentTimeMillis();
+        PageOCR ocr = renderer.render();
+        if (ocr == null) {
+            return;
+        }
+        Page page = new Page(pageNumber, System.currentTimeMillis() - start);
+        page.future = pool.submit(() -> page.run(ocr));
+        pending.addLast(page);
+    }
+
+    /**
+     * Writes the pages whose OCR is done, up to the first one that isn't.
+     */
+    void drain(Listener listener) throws IOException {
+        while (!pending.isEmpty() && pending.peekFirst().future.isDone()) {
+            writeFirst(listener);
+        }
+    }
+
+    /**
+     * Waits for the OCR of all the pages and writes them.
+     */
+    void finish(Listener listener) throws IOException {
+        while (!pending.isEmpty()) {
+            writeFirst(listener);
+        }
+    }
+
+    /**
+     * Stops the OCR of the pages that haven't been written, and waits for
+     * the threads to stop.
+     */
+    void close() {
+        pool.shutdownNow();
+        //let the OCR clean up its temporary files
+        PDFPageRangeExtractor.awaitTermination(pool, "OCR threads");
+    }
+
+    private void writeFirst(Listener listener) throws IOException {
+        Page page = pending.peekFirst();
+        try {
+            page.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for the OCR of page " +
+                    page.pageNumber);
+        } catch (ExecutionException e) {
+            page.failure = e.getCause();
+        }
+        pending.removeFirst();
+        listener.pageDone(page);
+        try {
+            for (Event event : page.events) {
+                event.write(handler);
+            }
+            for (Event event : page.following) {
+                event.write(handler);
+            }
+        } catch (SAXException e) {
+            throw new IOException("error writing OCR content from PDF", e);
+        }
+    }
+
+    private void write(Event event) throws SAXException {
+        if (pending.isEmpty()) {
+            event.write(handler);
+        } else {
+            pending.peekLast().following.add(event);
+        }
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+        handler.setDocumentLocator(locator);
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        write(ContentHandler::startDocument);
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        write(ContentHandler::endDocument);
+    }
+
+    @Override
+    public void startPrefixMapping(String prefix, String uri) throws SAXException {
+        write(h -> h.startPrefixMapping(prefix, uri));
+    }
+
+    @Override
+    public void endPrefixMapping(String prefix) throws SAXException {
+        write(h -> h.endPrefixMapping(prefix));
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts)
+            throws SAXException {
+        if (pending.isEmpty()) {
+            handler.startElement(uri, localName, qName, atts);
+            return;
+        }
+        Attributes copy = new AttributesImpl(atts);
+        write(h -> h.startElement(uri, localName, qName, copy));
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        write(h -> h.endElement(uri, localName, qName));
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (pending.isEmpty()) {
+            handler.characters(ch, start, length);
+            return;
+        }
+        char[] copy = Arrays.copyOfRange(ch, start, start + length);
+        write(h -> h.characters(copy, 0, copy.length));
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        if (pending.isEmpty()) {
+            handler.ignorableWhitespace(ch, start, length);
+            return;
+        }
+        char[] copy = Arrays.copyOfRange(ch, start, start + length);
+        write(h -> h.ignorableWhitespace(copy, 0, copy.length));
+    }
+
+    @Override
+    public void processingInstruction(String target, String data) throws SAXException {
+        write(h -> h.processingInstruction(target, data));
+    }
+
+    @Override
+    public void skippedEntity(String name) throws SAXException {
+        write(h -> h.skippedEntity(name));
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "pdf-ocr-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * A page submitted for OCR, with the OCR'd text and the events that
+     * were written after it was submitted.
+     */
+    static class Page extends DefaultHandler {
+
+        private final int pageNumber;
+        private final Metadata metadata = new Metadata();
+        private final List<Event> events = new ArrayList<>();
+        private final List<Event> following = new ArrayList<>();
+        private boolean recording = false;
+        private Future<?> future;
+        //set on the OCR thread, read after the future is done
+        private long millis;
+        private Throwable failure;
+
+        private Page(int pageNumber, long renderMillis) {
+            this.pageNumber = pageNumber;
+            this.millis = renderMillis;
+        }
+
+        /**
+         * @return 1-based number of the page
+         */
+        int getPageNumber() {
+            return pageNumber;
+        }
+
+        /**
+         * @return what the OCR parser added to the metadata
+         */
+        Metadata getMetadata() {
+            return metadata;
+        }
+
+        /**
+         * @return milliseconds spent rendering and OCR'ing the page
+         */
+        long getMillis() {
+            return millis;
+        }
+
+        /**
+         * @return what stopped the OCR of the page, or <code>null</code>
+         */
+        Throwable getFailure() {
+            return failure;
+        }
+
+        private void run(PageOCR ocr) {
+            long start = System.currentTimeMillis();
+            try {
+                //the OCR'd text is recorded as it would be written in the body
+                XHTMLContentHandler xhtml = new XHTMLContentHandler(this, new Metadata());
+                xhtml.startDocument();
+                xhtml.characters(new char[0], 0, 0);
+                recording = true;
+                ocr.run(xhtml, metadata);
+            } catch (Exception e) {
+                failure = e;
+            } finally {
+                millis += System.currentTimeMillis() - start;
+            }
+        }
+
+        private void record(Event event) {
+            if (recording) {
+                events.add(event);
+            }
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) {
+            record(h -> h.startPrefixMapping(prefix, uri));
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) {
+            record(h -> h.endPrefixMapping(prefix));
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) {
+            Attributes copy = new AttributesImpl(atts);
+            record(h -> h.startElement(uri, localName, qName, copy));
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            record(h -> h.endElement(uri, localName, qName));
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            char[] copy = Arrays.copyOfRange(ch, start, start + length);
+            record(h -> h.characters(copy, 0, copy.length));
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) {
+            char[] copy = Arrays.copyOfRange(ch, start, start + length);
+            record(h -> h.ignorableWhitespace(copy, 0, copy.length));
+        }
+    }
+}
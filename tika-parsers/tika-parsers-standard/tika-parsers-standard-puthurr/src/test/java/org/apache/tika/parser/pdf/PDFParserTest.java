@@ -23,25 +23,32 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.rendering.ImageType;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 
 import org.apache.tika.Tika;
 import org.apache.tika.TikaTest;
@@ -51,6 +58,7 @@ import org.apache.tika.exception.EncryptedDocumentException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.exception.ZeroByteFileException;
 import org.apache.tika.extractor.DocumentSelector;
+import org.apache.tika.extractor.EmbeddedImageRegistry;
 import org.apache.tika.metadata.Font;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.PDF;
@@ -58,6 +66,7 @@ import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.metadata.XMP;
 import org.apache.tika.metadata.XMPMM;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AbstractParser;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.CompositeParser;
 import org.apache.tika.parser.ParseContext;
@@ -65,6 +74,7 @@ import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.PasswordProvider;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.ContentHandlerDecorator;
+import org.apache.tika.sax.XHTMLContentHandler;
 
 /**
  * Test case for parsing pdf files.
@@ -126,6 +136,63 @@ public class PDFParserTest extends TikaTest {
                 "should have word boundary between paragraphs");
     }
 
+    @Test
+    public void testPageRanges() throws Exception {
+        PDFParserConfig config = new PDFParserConfig();
+        config.setExtractInlineImages(true);
+        config.setExtractFontNames(true);
+        ParseContext pc = new ParseContext();
+        pc.set(PDFParserConfig.class, config);
+        XMLResult inOrder = getXML("testPDFVarious.pdf", pc);
+
+        config.setPageRangeSize(1);
+        config.setPageRangeThreads(2);
+        XMLResult inRanges = getXML("testPDFVarious.pdf", pc);
+        assertEquals(inOrder.xml, inRanges.xml);
+        assertContains("<div class=\"page\" id=\"2\">", inRanges.xml);
+        for (String name : new String[]{PDF.CHARACTERS_PER_PAGE.getName(),
+                PDF.UNMAPPED_UNICODE_CHARS_PER_PAGE.getName(), Font.FONT_NAME.getName()}) {
+            assertArrayEquals(inOrder.metadata.getValues(name),
+                    inRanges.metadata.getValues(name), name);
+        }
+    }
+
+    @Test
+    public void testPageRangesWhenAWorkerFailsToLoad() throws Exception {
+        PDFParserConfig config = new PDFParserConfig();
+        ParseContext pc = new ParseContext();
+        pc.set(PDFParserConfig.class, config);
+        XMLResult inOrder = getXML("testPDFVarious.pdf", new PDFParser(), pc);
+
+        config.setPageRangeSize(1);
+        config.setPageRangeThreads(2);
+        FailFirstCopyPDFParser parser = new FailFirstCopyPDFParser();
+        XMLResult inRanges = getXML("testPDFVarious.pdf", parser, pc);
+        //the worker that loaded its copy extracted all the ranges
+        assertEquals(2, parser.copies.get());
+        assertEquals(inOrder.xml, inRanges.xml);
+    }
+
+    @Test
+    public void testConcurrentOCR() throws Exception {
+        PDFParserConfig config = new PDFParserConfig();
+        config.setOcrStrategy(PDFParserConfig.OCR_STRATEGY.OCR_AND_TEXT_EXTRACTION);
+        ParseContext pc = new ParseContext();
+        pc.set(PDFParserConfig.class, config);
+        pc.set(Parser.class, new SlowOCRParser());
+        XMLResult inOrder = getXML("testPDFVarious.pdf", new PDFParser(), pc);
+
+        config.setOcrThreads(3);
+        XMLResult concurrent = getXML("testPDFVarious.pdf", new PDFParser(), pc);
+        assertEquals(inOrder.xml, concurrent.xml);
+        assertContains("<p>ocr of ", concurrent.xml);
+        assertArrayEquals(inOrder.metadata.getValues(PDF.OCR_PAGES),
+                concurrent.metadata.getValues(PDF.OCR_PAGES));
+        assertEquals(concurrent.metadata.getValues(PDF.CHARACTERS_PER_PAGE).length,
+                concurrent.metadata.getValues(PDF.OCR_PAGE_MILLIS).length);
+        assertNotNull(concurrent.metadata.getInt(PDF.OCR_MILLIS));
+    }
+
     @Test
     public void testFontNameExtraction() throws Exception {
         PDFParserConfig config = new PDFParserConfig();
@@ -688,6 +755,48 @@ public class PDFParserTest extends TikaTest {
         assertEquals("Hello World", r.metadata.get("dc:title"));
     }
 
+    @Test
+    public void testImageRegistry() throws Exception {
+        EmbeddedImageRegistry registry = new EmbeddedImageRegistry(100);
+        PDFParserConfig config = new PDFParserConfig();
+        config.setExtractInlineImages(true);
+        config.setExtractUniqueInlineImagesOnly(false);
+        config.setImageRegistry(registry);
+        ParseContext context = new ParseContext();
+        context.set(PDFParserConfig.class, config);
+
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, "first.pdf");
+        List<Metadata> first =
+                getRecursiveMetadata("testPDF_childAttachments.pdf", metadata, context);
+        int extracted = countInline(first);
+        int duplicates = countDuplicates(first);
+        assertTrue(extracted > 0);
+        assertEquals(extracted, registry.size());
+
+        //the second time around, none of the images is extracted again
+        List<Metadata> second = getRecursiveMetadata("testPDF_childAttachments.pdf", context);
+        assertEquals(0, countInline(second));
+        assertEquals(extracted + duplicates, countDuplicates(second));
+        assertContains("canonical=\"first.pdf/",
+                getXML("testPDF_childAttachments.pdf", context).xml);
+    }
+
+    private static int countInline(List<Metadata> metadataList) {
+        int inline = 0;
+        for (Metadata m : metadataList) {
+            if (TikaCoreProperties.EmbeddedResourceType.INLINE.toString()
+                    .equals(m.get(TikaCoreProperties.EMBEDDED_RESOURCE_TYPE))) {
+                inline++;
+            }
+        }
+        return inline;
+    }
+
+    private static int countDuplicates(List<Metadata> metadataList) {
+        return metadataList.get(0).getValues(TikaCoreProperties.DUPLICATE_EMBEDDED_RESOURCES).length;
+    }
+
     @Test
     public void testInlineSelector() throws Exception {
 
@@ -1332,6 +1441,55 @@ public class PDFParserTest extends TikaTest {
         }
     }
 
+    /**
+     * Writes the size of the page images, taking longer for the earlier pages.
+     */
+    /**
+     * Fails to load the first copy of the document for the page range workers;
+     * the document read from the stream is loaded as usual.
+     */
+    private static class FailFirstCopyPDFParser extends PDFParser {
+
+        private final AtomicInteger copies = new AtomicInteger();
+
+        @Override
+        protected PDDocument getPDDocument(Path path, String password,
+                                           MemoryUsageSetting memoryUsageSetting,
+                                           Metadata metadata, ParseContext parseContext)
+                throws IOException {
+            if (copies.incrementAndGet() == 1) {
+                throw new IOException("can't load the copy");
+            }
+            return super.getPDDocument(path, password, memoryUsageSetting, metadata,
+                    parseContext);
+        }
+    }
+
+    private static class SlowOCRParser extends AbstractParser {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.singleton(MediaType.image("ocr-png"));
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException {
+            byte[] bytes = IOUtils.toByteArray(stream);
+            try {
+                Thread.sleep(Math.max(0, 300 - 100 * calls.getAndIncrement()));
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            xhtml.element("p", "ocr of " + bytes.length + " bytes");
+            xhtml.endDocument();
+        }
+    }
+
     private static class AvoidInlineSelector implements DocumentSelector {
 
         @Override
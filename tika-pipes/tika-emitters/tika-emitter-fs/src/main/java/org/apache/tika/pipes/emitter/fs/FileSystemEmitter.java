@@ -31,7 +31,9 @@ import org.apache.tika.config.Field;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.metadata.serialization.JsonMetadataList;
+import org.apache.tika.metadata.serialization.JsonStreamingSerializer;
 import org.apache.tika.pipes.emitter.AbstractEmitter;
+import org.apache.tika.pipes.emitter.MetadataStreamEmitter;
 import org.apache.tika.pipes.emitter.StreamEmitter;
 import org.apache.tika.pipes.emitter.TikaEmitterException;
 
@@ -56,25 +58,72 @@ import org.apache.tika.pipes.emitter.TikaEmitterException;
  *                       options ('skip', 'replace', 'exception')
  *                  default is 'exception' --&gt;
  *                  &lt;param name="onExists" type="string"&gt;skip&lt;/param&gt;
+ *                  &lt;!-- optional; write each document's metadata as soon as
+ *                       it has been parsed (recursive parse mode only);
+ *                  default is 'false' --&gt;
+ *                  &lt;param name="streamMetadata" type="bool"&gt;true&lt;/param&gt;
  *              &lt;/params&gt;
  *          &lt;/emitter&gt;
  *      &lt;/emitters&gt;
  *  &lt;/properties&gt;</pre>
  */
-public class FileSystemEmitter extends AbstractEmitter implements StreamEmitter {
+public class FileSystemEmitter extends AbstractEmitter
+        implements StreamEmitter, MetadataStreamEmitter {
 
     private Path basePath = null;
     private String fileExtension = "json";
     private ON_EXISTS onExists = ON_EXISTS.EXCEPTION;
+    private boolean streamMetadata = false;
 
     @Override
     public void emit(String emitKey, List<Metadata> metadataList)
             throws IOException, TikaEmitterException {
-        Path output;
         if (metadataList == null || metadataList.size() == 0) {
             throw new TikaEmitterException("metadata list must not be null or of size 0");
         }
+        Path output = getOutputPath(emitKey);
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            JsonMetadataList.toJson(metadataList, writer);
+        }
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return streamMetadata;
+    }
+
+    /**
+     * Writes the metadata to a temporary file next to the output file, which
+     * is moved to the output file when the writer is closed, so that a parse
+     * that never finishes doesn't leave a truncated file behind.
+     */
+    @Override
+    public MetadataWriter open(String emitKey) throws IOException, TikaEmitterException {
+        Path output = getOutputPath(emitKey);
+        Path tmp = Files.createTempFile(output.getParent(), output.getFileName().toString(),
+                ".tmp");
+        JsonStreamingSerializer serializer =
+                new JsonStreamingSerializer(Files.newBufferedWriter(tmp, StandardCharsets.UTF_8));
+        return new MetadataWriter() {
+            @Override
+            public void add(Metadata metadata) throws IOException {
+                serializer.add(metadata);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    serializer.close();
+                    Files.move(tmp, output, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+        };
+    }
 
+    private Path getOutputPath(String emitKey) throws IOException {
+        Path output;
         if (fileExtension != null && fileExtension.length() > 0) {
             emitKey += "." + fileExtension;
         }
@@ -87,9 +136,7 @@ public class FileSystemEmitter extends AbstractEmitter implements StreamEmitter
         if (!Files.isDirectory(output.getParent())) {
             Files.createDirectories(output.getParent());
         }
-        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
-            JsonMetadataList.toJson(metadataList, writer);
-        }
+        return output;
     }
 
     @Field
@@ -133,6 +180,19 @@ public class FileSystemEmitter extends AbstractEmitter implements StreamEmitter
         }
     }
 
+    /**
+     * If <code>true</code>, the PipesServer writes each document's metadata
+     * as soon as it has been parsed, instead of keeping the metadata of
+     * every embedded document in memory until the container is done.  The
+     * container is written last.
+     *
+     * @param streamMetadata
+     */
+    @Field
+    public void setStreamMetadata(boolean streamMetadata) {
+        this.streamMetadata = streamMetadata;
+    }
+
     @Override
     public void emit(String path, InputStream inputStream, Metadata userMetadata)
             throws IOException, TikaEmitterException {
@@ -43,6 +43,7 @@ import org.apache.tika.pipes.FetchEmitTuple;
 import org.apache.tika.pipes.PipesReporter;
 import org.apache.tika.pipes.PipesResult;
 import org.apache.tika.pipes.async.AsyncStatus;
+import org.apache.tika.pipes.async.ClientPoolStats;
 import org.apache.tika.pipes.pipesiterator.TotalCountResult;
 import org.apache.tika.utils.ExceptionUtils;
 
@@ -192,6 +193,15 @@ public class FileSystemStatusReporter extends PipesReporter
         this.totalCountResult = totalCountResult;
     }
 
+    @Override
+    public void report(ClientPoolStats clientPoolStats) {
+        _report(clientPoolStats);
+    }
+
+    private synchronized void _report(ClientPoolStats clientPoolStats) {
+        asyncStatus.updateClientPoolStats(clientPoolStats);
+    }
+
     @Override
     public boolean supportsTotalCount() {
         return true;
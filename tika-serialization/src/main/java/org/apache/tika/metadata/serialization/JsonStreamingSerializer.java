@@ -19,7 +19,6 @@ package org.apache.tika.metadata.serialization;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.Arrays;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -38,20 +37,32 @@ public class JsonStreamingSerializer implements AutoCloseable {
     }
 
     public void add(Metadata metadata) throws IOException {
-        if (!hasStartedArray) {
-            jsonGenerator = new JsonFactory().createGenerator(writer);
-            jsonGenerator.writeStartArray();
-            hasStartedArray = true;
-        }
-        String[] names = metadata.names();
-        Arrays.sort(names);
+        startArray();
         JsonMetadata.writeMetadataObject(metadata, jsonGenerator, false);
     }
 
+    /**
+     * Writes out what has been added so far.
+     */
+    public void flush() throws IOException {
+        if (jsonGenerator != null) {
+            jsonGenerator.flush();
+        }
+    }
+
     @Override
     public void close() throws IOException {
+        startArray();
         jsonGenerator.writeEndArray();
         jsonGenerator.flush();
         jsonGenerator.close();
     }
+
+    private void startArray() throws IOException {
+        if (!hasStartedArray) {
+            jsonGenerator = new JsonFactory().createGenerator(writer);
+            jsonGenerator.writeStartArray();
+            hasStartedArray = true;
+        }
+    }
 }
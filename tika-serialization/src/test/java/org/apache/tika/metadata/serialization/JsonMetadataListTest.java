@@ -164,4 +164,13 @@ public class JsonMetadataListTest {
         assertEquals(truth, deserialized);
 
     }
+
+    @Test
+    public void testStreamingSerializerEmpty() throws Exception {
+        StringWriter writer = new StringWriter();
+        JsonStreamingSerializer serializer = new JsonStreamingSerializer(writer);
+        serializer.flush();
+        serializer.close();
+        assertEquals(0, JsonMetadataList.fromJson(new StringReader(writer.toString())).size());
+    }
 }
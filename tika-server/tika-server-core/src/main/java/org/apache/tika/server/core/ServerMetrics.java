@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.tika.metrics.MetricsListener;
+import org.apache.tika.metrics.ParseMetrics;
+
+/**
+ * Request, parse and JVM metrics of this server process, written in the
+ * Prometheus text format by {@link org.apache.tika.server.core.resource.TikaServerMetrics}.
+ * <p>
+ * The request metrics are recorded by {@link ServerMetricsFilter}, and the parse
+ * metrics by {@link ParseMetrics}, with this as a listener. All of the
+ * histograms and counters are {@link LongAdder}s, so neither recording nor
+ * reading them blocks the request threads.
+ */
+public class ServerMetrics implements MetricsListener {
+
+    /**
+     * Upper bounds of the buckets of the latency histograms, in seconds
+     */
+    static final double[] BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10,
+            30, 60, 120, 300};
+
+    private static final String[] REQUEST_LABELS = {"endpoint", "code"};
+
+    private static final String[] ENDPOINT_LABEL = {"endpoint"};
+
+    private final ConcurrentMap<Key, Histogram> requests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> bytesIn = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> bytesOut = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Key, Histogram> parseTimes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Key, LongAdder> parseCounts = new ConcurrentHashMap<>();
+
+    private final ServerStatus serverStatus;
+    private final int numTimeoutRestarts;
+    private final int numOomRestarts;
+
+    /**
+     * @param numTimeoutRestarts number of times that the forked process was restarted
+     *                           after a task timed out
+     * @param numOomRestarts     number of times that the forked process was restarted
+     *                           after an OutOfMemoryError
+     */
+    public ServerMetrics(ServerStatus serverStatus, int numTimeoutRestarts,
+                         int numOomRestarts) {
+        this.serverStatus = serverStatus;
+        this.numTimeoutRestarts = numTimeoutRestarts;
+        this.numOomRestarts = numOomRestarts;
+    }
+
+    void requestStarted(String endpoint) {
+        adder(inFlight, endpoint).increment();
+    }
+
+    void requestFinished(String endpoint, int status, long nanos) {
+        adder(inFlight, endpoint).decrement();
+        requests.computeIfAbsent(new Key("request", endpoint, Integer.toString(status)),
+                k -> new Histogram()).record(nanos);
+    }
+
+    LongAdder bytesIn(String endpoint) {
+        return adder(bytesIn, endpoint);
+    }
+
+    LongAdder bytesOut(String endpoint) {
+        return adder(bytesOut, endpoint);
+    }
+
+    @Override
+    public void recordTime(String name, long nanos, String[] labels) {
+        parseTimes.computeIfAbsent(new Key(name, labels), k -> new Histogram()).record(nanos);
+    }
+
+    @Override
+    public void recordCount(String name, long count, String[] labels) {
+        adder(parseCounts, new Key(name, labels)).add(count);
+    }
+
+    private static <K> LongAdder adder(ConcurrentMap<K, LongAdder> adders, K key) {
+        LongAdder adder = adders.get(key);
+        return adder != null ? adder : adders.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format, version 0.0.4
+     */
+    public void write(Writer writer) throws IOException {
+        writeHistograms(writer, "tika_server_request_duration_seconds",
+                "Time to process the requests, by endpoint and status code", REQUEST_LABELS,
+                requests);
+        writeGauges(writer, "tika_server_requests_in_flight", "gauge",
+                "Requests being processed, by endpoint", inFlight);
+        writeGauges(writer, "tika_server_received_bytes_total", "counter",
+                "Bytes of request bodies read, by endpoint", bytesIn);
+        writeGauges(writer, "tika_server_sent_bytes_total", "counter",
+                "Bytes of response bodies written, by endpoint", bytesOut);
+
+        //the parse timers and counters of ParseMetrics, one metric per name
+        Map<String, Map<Key, Histogram>> timers = new TreeMap<>();
+        for (Map.Entry<Key, Histogram> e : parseTimes.entrySet()) {
+            timers.computeIfAbsent(e.getKey().name, k -> new TreeMap<>())
+                    .put(e.getKey(), e.getValue());
+        }
+        for (Map.Entry<String, Map<Key, Histogram>> e : timers.entrySet()) {
+            writeHistograms(writer, "tika_" + e.getKey() + "_seconds",
+                    "Tika " + e.getKey() + " time", ParseMetrics.getLabelNames(e.getKey()),
+                    e.getValue());
+        }
+        Map<String, Map<Key, LongAdder>> counters = new TreeMap<>();
+        for (Map.Entry<Key, LongAdder> e : parseCounts.entrySet()) {
+            counters.computeIfAbsent(e.getKey().name, k -> new TreeMap<>())
+                    .put(e.getKey(), e.getValue());
+        }
+        for (Map.Entry<String, Map<Key, LongAdder>> e : counters.entrySet()) {
+            String name = "tika_" + e.getKey() + "_total";
+            String[] labelNames = ParseMetrics.getLabelNames(e.getKey());
+            writeHeader(writer, name, "counter", "Tika " + e.getKey());
+            for (Map.Entry<Key, LongAdder> c : e.getValue().entrySet()) {
+                writeSample(writer, name, labelNames, c.getKey().labels, null,
+                        c.getValue().sum());
+            }
+        }
+
+        writeServer(writer);
+        writeJvm(writer);
+    }
+
+    private void writeServer(Writer writer) throws IOException {
+        writeHeader(writer, "tika_server_files_processed_total", "counter",
+                "Tasks started by this forked process");
+        writeSample(writer, "tika_server_files_processed_total",
+                serverStatus.getFilesProcessed());
+        writeHeader(writer, "tika_server_restarts_total", "counter",
+                "Restarts of the forked process");
+        writeSample(writer, "tika_server_restarts_total", serverStatus.getNumRestarts());
+        writeHeader(writer, "tika_server_timeout_restarts_total", "counter",
+                "Restarts of the forked process after a task timed out");
+        writeSample(writer, "tika_server_timeout_restarts_total", numTimeoutRestarts);
+        writeHeader(writer, "tika_server_oom_restarts_total", "counter",
+                "Restarts of the forked process after an OutOfMemoryError");
+        writeSample(writer, "tika_server_oom_restarts_total", numOomRestarts);
+    }
+
+    private static void writeJvm(Writer writer) throws IOException {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        writeHeader(writer, "jvm_memory_heap_used_bytes", "gauge", "Used heap");
+        writeSample(writer, "jvm_memory_heap_used_bytes", heap.getUsed());
+        writeHeader(writer, "jvm_memory_heap_committed_bytes", "gauge", "Committed heap");
+        writeSample(writer, "jvm_memory_heap_committed_bytes", heap.getCommitted());
+        writeHeader(writer, "jvm_memory_heap_max_bytes", "gauge", "Maximum heap");
+        writeSample(writer, "jvm_memory_heap_max_bytes", heap.getMax());
+        writeHeader(writer, "jvm_threads_live", "gauge", "Live threads");
+        writeSample(writer, "jvm_threads_live",
+                ManagementFactory.getThreadMXBean().getThreadCount());
+
+        String[] gcLabel = {"gc"};
+        writeHeader(writer, "jvm_gc_collections_total", "counter", "Garbage collections");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            writeSample(writer, "jvm_gc_collections_total", gcLabel, new String[]{gc.getName()},
+                    null, gc.getCollectionCount());
+        }
+        writeHeader(writer, "jvm_gc_collection_seconds_total", "counter",
+                "Time spent in garbage collections");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            writeSample(writer, "jvm_gc_collection_seconds_total", gcLabel,
+                    new String[]{gc.getName()}, null, gc.getCollectionTime() / 1000.0);
+        }
+    }
+
+    private static void writeHistograms(Writer writer, String name, String help,
+                                        String[] labelNames, Map<Key, Histogram> histograms)
+            throws IOException {
+        if (histograms.isEmpty()) {
+            return;
+        }
+        writeHeader(writer, name, "histogram", help);
+        for (Map.Entry<Key, Histogram> e : new TreeMap<>(histograms).entrySet()) {
+            String[] labels = e.getKey().labels;
+            Histogram histogram = e.getValue();
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += histogram.buckets[i].sum();
+                writeSample(writer, name + "_bucket", labelNames, labels,
+                        Double.toString(BUCKETS[i]), cumulative);
+            }
+            //read the overflow bucket last, so that +Inf is never less than the others
+            cumulative += histogram.buckets[BUCKETS.length].sum();
+            writeSample(writer, name + "_bucket", labelNames, labels, "+Inf", cumulative);
+            writeSample(writer, name + "_sum", labelNames, labels, null,
+                    histogram.nanos.sum() / 1e9);
+            writeSample(writer, name + "_count", labelNames, labels, null, cumulative);
+        }
+    }
+
+    private static void writeGauges(Writer writer, String name, String type, String help,
+                                    Map<String, LongAdder> values) throws IOException {
+        if (values.isEmpty()) {
+            return;
+        }
+        writeHeader(writer, name, type, help);
+        for (Map.Entry<String, LongAdder> e : new TreeMap<>(values).entrySet()) {
+            writeSample(writer, name, ENDPOINT_LABEL, new String[]{e.getKey()}, null,
+                    e.getValue().sum());
+        }
+    }
+
+    private static void writeHeader(Writer writer, String name, String type, String help)
+            throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void writeSample(Writer writer, String name, double value)
+            throws IOException {
+        writeSample(writer, name, new String[0], new String[0], null, value);
+    }
+
+    private static void writeSample(Writer writer, String name, String[] labelNames,
+                                    String[] labels, String le, double value)
+            throws IOException {
+        StringBuilder sb = new StringBuilder(name);
+        int n = Math.min(labelNames.length, labels.length);
+        if (n > 0 || le != null) {
+            sb.append('{');
+            for (int i = 0; i < n; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(labelNames[i]).append("=\"");
+                escape(labels[i], sb);
+                sb.append('"');
+            }
+            if (le != null) {
+                sb.append(n > 0 ? "," : "").append("le=\"").append(le).append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            sb.append((long) value);
+        } else {
+            sb.append(String.format(Locale.ROOT, "%.6f", value));
+        }
+        sb.append('\n');
+        writer.write(sb.toString());
+    }
+
+    private static void escape(String value, StringBuilder sb) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Latency histogram, with the buckets of {@link #BUCKETS} and one more
+     * for the times above the last of them
+     */
+    static class Histogram {
+
+        private static final long[] BOUNDS = new long[BUCKETS.length];
+
+        static {
+            for (int i = 0; i < BUCKETS.length; i++) {
+                BOUNDS[i] = (long) (BUCKETS[i] * TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length + 1];
+        private final LongAdder nanos = new LongAdder();
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long elapsedNanos) {
+            int i = Arrays.binarySearch(BOUNDS, elapsedNanos);
+            //the first bound >= elapsed
+            buckets[i >= 0 ? i : -i - 1].increment();
+            nanos.add(elapsedNanos);
+        }
+
+        long count(int bucket) {
+            return buckets[bucket].sum();
+        }
+    }
+
+    /**
+     * Name and label values of a metric
+     */
+    private static class Key implements Comparable<Key> {
+
+        private final String name;
+        private final String[] labels;
+
+        Key(String name, String... labels) {
+            this.name = name;
+            this.labels = labels;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return name.equals(key.name) && Arrays.equals(labels, key.labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + Arrays.hashCode(labels);
+        }
+
+        @Override
+        public int compareTo(Key o) {
+            int c = name.compareTo(o.name);
+            for (int i = 0; c == 0 && i < Math.min(labels.length, o.labels.length); i++) {
+                c = String.valueOf(labels[i]).compareTo(String.valueOf(o.labels[i]));
+            }
+            return c != 0 ? c : Integer.compare(labels.length, o.labels.length);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.PathSegment;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Records the latency, the bytes read and written, and the number of
+ * requests in flight for each endpoint in the {@link ServerMetrics}.
+ * <p>
+ * Most endpoints parse while the response is written, so a request with a
+ * response body is timed until the body has been written.
+ */
+@Provider
+public class ServerMetricsFilter
+        implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    private static final String START = ServerMetricsFilter.class.getName() + ".start";
+    private static final String ENDPOINT = ServerMetricsFilter.class.getName() + ".endpoint";
+    private static final String STATUS = ServerMetricsFilter.class.getName() + ".status";
+
+    private final ServerMetrics serverMetrics;
+
+    public ServerMetricsFilter(ServerMetrics serverMetrics) {
+        this.serverMetrics = serverMetrics;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        String endpoint = getEndpoint(requestContext.getUriInfo().getPathSegments());
+        serverMetrics.requestStarted(endpoint);
+        requestContext.setProperty(ENDPOINT, endpoint);
+        requestContext.setProperty(START, System.nanoTime());
+        if (requestContext.hasEntity()) {
+            requestContext.setEntityStream(new CountingInputStream(
+                    requestContext.getEntityStream(), serverMetrics.bytesIn(endpoint)));
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext,
+                       ContainerResponseContext responseContext) throws IOException {
+        Object start = requestContext.getProperty(START);
+        if (start == null) {
+            return;
+        }
+        if (responseContext.hasEntity() && !HttpMethod.HEAD.equals(requestContext.getMethod())) {
+            //finished once the body is written
+            requestContext.setProperty(STATUS, responseContext.getStatus());
+        } else {
+            //the body of a response to HEAD isn't written, so the writer isn't called
+            finish(requestContext.getProperty(ENDPOINT), start, responseContext.getStatus());
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context)
+            throws IOException, WebApplicationException {
+        Object start = context.getProperty(START);
+        Object status = context.getProperty(STATUS);
+        if (start == null || status == null) {
+            context.proceed();
+            return;
+        }
+        Object endpoint = context.getProperty(ENDPOINT);
+        context.setOutputStream(new CountingOutputStream(context.getOutputStream(),
+                serverMetrics.bytesOut((String) endpoint)));
+        try {
+            context.proceed();
+        } finally {
+            finish(endpoint, start, (Integer) status);
+        }
+    }
+
+    private void finish(Object endpoint, Object start, int status) {
+        serverMetrics.requestFinished((String) endpoint, status,
+                System.nanoTime() - (Long) start);
+    }
+
+    /**
+     * @return the first segment of the path, e.g. <code>/rmeta</code> for
+     * <code>/rmeta/text</code>
+     */
+    static String getEndpoint(List<PathSegment> pathSegments) {
+        for (PathSegment segment : pathSegments) {
+            if (!segment.getPath().isEmpty()) {
+                return "/" + segment.getPath();
+            }
+        }
+        return "/";
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private final LongAdder count;
+
+        CountingInputStream(InputStream in, LongAdder count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                count.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                count.add(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count.add(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            //so that reset bytes aren't counted twice
+            return false;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private final LongAdder count;
+
+        CountingOutputStream(OutputStream out, LongAdder count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count.increment();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count.add(len);
+        }
+    }
+}
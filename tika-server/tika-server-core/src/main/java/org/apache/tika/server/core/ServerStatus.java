@@ -17,13 +17,27 @@
 package org.apache.tika.server.core;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.tika.parser.cache.ParseResultCache;
+
+/**
+ * Status of the server and of the tasks that are running. None of the
+ * methods lock: the tasks are kept in a concurrent map, and again by
+ * deadline, so that the timeout check only visits the tasks that have
+ * timed out.
+ */
 public class ServerStatus {
 
     private static final Logger LOG = LoggerFactory.getLogger(ServerStatus.class);
@@ -32,9 +46,12 @@ public class ServerStatus {
 
     private final boolean isLegacy;
     private AtomicLong counter = new AtomicLong(0);
-    private Map<Long, TaskStatus> tasks = new HashMap<>();
-    private STATUS status = STATUS.OPERATING;
+    private final ConcurrentMap<Long, TaskStatus> tasks = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Deadline, TaskStatus> deadlines =
+            new ConcurrentSkipListMap<>();
+    private volatile STATUS status = STATUS.OPERATING;
     private volatile long lastStarted = Instant.now().toEpochMilli();
+    private volatile ParseResultCache parseResultCache = null;
 
     public ServerStatus(String serverId, int numRestarts) {
         this(serverId, numRestarts, false);
@@ -46,11 +63,13 @@ public class ServerStatus {
         this.isLegacy = isLegacy;
     }
 
-    public synchronized long start(TASK task, String fileName, long timeoutMillis) {
+    public long start(TASK task, String fileName, long timeoutMillis) {
         long taskId = counter.incrementAndGet();
         Instant now = Instant.now();
         lastStarted = now.toEpochMilli();
-        tasks.put(taskId, new TaskStatus(task, now, fileName, timeoutMillis));
+        TaskStatus taskStatus = new TaskStatus(task, now, fileName, timeoutMillis);
+        deadlines.put(new Deadline(taskStatus, taskId), taskStatus);
+        tasks.put(taskId, taskStatus);
         return taskId;
     }
 
@@ -60,26 +79,47 @@ public class ServerStatus {
      * @param taskId
      * @throws IllegalArgumentException if there is no task by that taskId in the collection
      */
-    public synchronized void complete(long taskId) throws IllegalArgumentException {
+    public void complete(long taskId) throws IllegalArgumentException {
         TaskStatus status = tasks.remove(taskId);
         if (status == null) {
             throw new IllegalArgumentException("TaskId is not in map:" + taskId);
         }
+        deadlines.remove(new Deadline(status, taskId));
     }
 
-    public synchronized STATUS getStatus() {
+    public STATUS getStatus() {
         return status;
     }
 
-    public synchronized void setStatus(STATUS status) {
+    public void setStatus(STATUS status) {
         this.status = status;
     }
 
-    public synchronized Map<Long, TaskStatus> getTasks() {
+    /**
+     * @return a copy of the tasks that are running, by task id
+     */
+    public Map<Long, TaskStatus> getTasks() {
         return new HashMap<>(tasks);
     }
 
-    public synchronized long getFilesProcessed() {
+    /**
+     * @return the number of tasks that are running
+     */
+    public int getNumActiveTasks() {
+        return tasks.size();
+    }
+
+    /**
+     * @param now the time to check against
+     * @return the tasks that have been running for longer than their timeout at
+     * <code>now</code>, in the order of their deadlines
+     */
+    public List<TaskStatus> getTimedOutTasks(Instant now) {
+        return new ArrayList<>(
+                deadlines.headMap(new Deadline(now.toEpochMilli(), Long.MIN_VALUE)).values());
+    }
+
+    public long getFilesProcessed() {
         return counter.get();
     }
 
@@ -90,7 +130,7 @@ public class ServerStatus {
     /**
      * @return true if this is legacy, otherwise whether or not status == OPERATING.
      */
-    public synchronized boolean isOperating() {
+    public boolean isOperating() {
         if (isLegacy) {
             return true;
         }
@@ -105,6 +145,63 @@ public class ServerStatus {
         return numRestarts;
     }
 
+    /**
+     * @return the cache for /rmeta results, or <code>null</code> if it isn't enabled
+     */
+    public ParseResultCache getParseResultCache() {
+        return parseResultCache;
+    }
+
+    public void setParseResultCache(ParseResultCache parseResultCache) {
+        this.parseResultCache = parseResultCache;
+    }
+
+    /**
+     * Orders the tasks by the time at which they time out, and then by task id
+     */
+    private static final class Deadline implements Comparable<Deadline> {
+
+        private final long millis;
+        private final long taskId;
+
+        Deadline(TaskStatus taskStatus, long taskId) {
+            this(deadlineMillis(taskStatus), taskId);
+        }
+
+        Deadline(long millis, long taskId) {
+            this.millis = millis;
+            this.taskId = taskId;
+        }
+
+        private static long deadlineMillis(TaskStatus taskStatus) {
+            long started = taskStatus.started.toEpochMilli();
+            long deadline = started + taskStatus.timeoutMillis;
+            //saturate rather than wrap around for very long timeouts
+            return taskStatus.timeoutMillis > 0 && deadline < started ? Long.MAX_VALUE :
+                    deadline;
+        }
+
+        @Override
+        public int compareTo(Deadline o) {
+            int c = Long.compare(millis, o.millis);
+            return c != 0 ? c : Long.compare(taskId, o.taskId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Deadline)) {
+                return false;
+            }
+            Deadline other = (Deadline) o;
+            return millis == other.millis && taskId == other.taskId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(millis) * 31 + Long.hashCode(taskId);
+        }
+    }
+
     enum DIRECTIVES {
         PING((byte) 0), PING_ACTIVE_SERVER_TASKS((byte) 1), SHUTDOWN((byte) 2);
 
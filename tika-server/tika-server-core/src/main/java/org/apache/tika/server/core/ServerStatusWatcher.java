@@ -98,7 +98,7 @@ public class ServerStatusWatcher implements Runnable {
                         ((Buffer) statusBuffer).position(0);
                         statusBuffer.putLong(0, Instant.now().toEpochMilli());
                         statusBuffer.putInt(8, serverStatus.getStatus().getInt());
-                        statusBuffer.putInt(12, serverStatus.getTasks().size());
+                        statusBuffer.putInt(12, serverStatus.getNumActiveTasks());
                         channel.write(statusBuffer);
                         channel.force(true);
                         return;
@@ -128,22 +128,20 @@ public class ServerStatusWatcher implements Runnable {
 
     private void checkForTaskTimeouts() {
         Instant now = Instant.now();
-        for (TaskStatus status : serverStatus.getTasks().values()) {
+        for (TaskStatus status : serverStatus.getTimedOutTasks(now)) {
             long millisElapsed = Duration.between(status.started, now).toMillis();
-            if (millisElapsed > status.timeoutMillis) {
-                serverStatus.setStatus(ServerStatus.STATUS.TIMEOUT);
-                if (status.fileName.isPresent()) {
-                    LOG.error("Timeout task {}, millis elapsed {}, timeoutMillis {}, file id {}" +
-                                    "consider increasing the allowable time with the " +
-                                    "<taskTimeoutMillis/> parameter or the {} header", status.task.toString(),
-                            millisElapsed, status.timeoutMillis,
-                            status.fileName.get(), TimeoutConfig.X_TIKA_TIMEOUT_MILLIS);
-                } else {
-                    LOG.error("Timeout task {}, millis elapsed {}; " +
-                                    "consider increasing the allowable time with the " +
-                                    "<taskTimeoutMillis/> parameter or the {} header", status.task.toString(),
-                            millisElapsed, TimeoutConfig.X_TIKA_TIMEOUT_MILLIS);
-                }
+            serverStatus.setStatus(ServerStatus.STATUS.TIMEOUT);
+            if (status.fileName.isPresent()) {
+                LOG.error("Timeout task {}, millis elapsed {}, timeoutMillis {}, file id {}" +
+                                "consider increasing the allowable time with the " +
+                                "<taskTimeoutMillis/> parameter or the {} header", status.task.toString(),
+                        millisElapsed, status.timeoutMillis,
+                        status.fileName.get(), TimeoutConfig.X_TIKA_TIMEOUT_MILLIS);
+            } else {
+                LOG.error("Timeout task {}, millis elapsed {}; " +
+                                "consider increasing the allowable time with the " +
+                                "<taskTimeoutMillis/> parameter or the {} header", status.task.toString(),
+                        millisElapsed, TimeoutConfig.X_TIKA_TIMEOUT_MILLIS);
             }
         }
     }
@@ -78,6 +78,7 @@ public class TikaServerConfig extends ConfigBase {
     //used in fork mode -- restart after processing this many files
     private static final long DEFAULT_MAX_FILES = 100000;
     private static final int DEFAULT_DIGEST_MARK_LIMIT = 20 * 1024 * 1024;
+    private static final long DEFAULT_PARSE_CACHE_MAX_DISK_BYTES = 1024L * 1024L * 1024L;
     private static final String UNSECURE_WARNING =
             "WARNING: You have chosen to run tika-server with unsecure features enabled.\n" +
                     "Whoever has access to your service now has the same read permissions\n" +
@@ -90,7 +91,8 @@ public class TikaServerConfig extends ConfigBase {
     private static final List<String> ONLY_IN_FORK_MODE = Arrays.asList(
             new String[]{"taskTimeoutMillis", "taskPulseMillis",
                     "maxFiles", "javaPath", "maxRestarts", "numRestarts",
-                    "forkedStatusFile", "maxForkedStartupMillis", "tmpFilePrefix"});
+                    "numTimeoutRestarts", "numOomRestarts", "forkedStatusFile",
+                    "maxForkedStartupMillis", "tmpFilePrefix"});
 
         /*
     TODO: integrate these settings:
@@ -135,10 +137,16 @@ public class TikaServerConfig extends ConfigBase {
     //and they are automatically set by the forking process
     private String forkedStatusFile;
     private int numRestarts = 0;
+    private int numTimeoutRestarts = 0;
+    private int numOomRestarts = 0;
 
     private boolean preventStopMethod = false;
 
     private TlsConfig tlsConfig = new TlsConfig();
+
+    private long parseCacheMaxMemoryBytes = -1;
+    private String parseCacheDirectory = "";
+    private long parseCacheMaxDiskBytes = DEFAULT_PARSE_CACHE_MAX_DISK_BYTES;
     /**
      * Config with only the defaults
      */
@@ -184,6 +192,18 @@ public class TikaServerConfig extends ConfigBase {
             settings.add("numRestarts");
         }
 
+        if (commandLine.hasOption("numTimeoutRestarts")) {
+            config.setNumTimeoutRestarts(
+                    Integer.parseInt(commandLine.getOptionValue("numTimeoutRestarts")));
+            settings.add("numTimeoutRestarts");
+        }
+
+        if (commandLine.hasOption("numOomRestarts")) {
+            config.setNumOomRestarts(
+                    Integer.parseInt(commandLine.getOptionValue("numOomRestarts")));
+            settings.add("numOomRestarts");
+        }
+
         if (commandLine.hasOption("forkedStatusFile")) {
             config.setForkedStatusFile(commandLine.getOptionValue("forkedStatusFile"));
             settings.add("forkedStatusFile");
@@ -539,6 +559,42 @@ public class TikaServerConfig extends ConfigBase {
         this.returnStackTrace = returnStackTrace;
     }
 
+    /**
+     * maximum size of the /rmeta results that are cached in memory;
+     * the cache is off if this is not greater than 0
+     *
+     * @return
+     */
+    public long getParseCacheMaxMemoryBytes() {
+        return parseCacheMaxMemoryBytes;
+    }
+
+    public void setParseCacheMaxMemoryBytes(long parseCacheMaxMemoryBytes) {
+        this.parseCacheMaxMemoryBytes = parseCacheMaxMemoryBytes;
+    }
+
+    /**
+     * directory in which cached /rmeta results are also stored, so that
+     * they are kept across restarts; not used if it is blank
+     *
+     * @return
+     */
+    public String getParseCacheDirectory() {
+        return parseCacheDirectory;
+    }
+
+    public void setParseCacheDirectory(String parseCacheDirectory) {
+        this.parseCacheDirectory = parseCacheDirectory;
+    }
+
+    public long getParseCacheMaxDiskBytes() {
+        return parseCacheMaxDiskBytes;
+    }
+
+    public void setParseCacheMaxDiskBytes(long parseCacheMaxDiskBytes) {
+        this.parseCacheMaxDiskBytes = parseCacheMaxDiskBytes;
+    }
+
     public void setTlsConfig(TlsConfig tlsConfig) {
         this.tlsConfig = tlsConfig;
     }
@@ -583,6 +639,22 @@ public class TikaServerConfig extends ConfigBase {
         this.numRestarts = numRestarts;
     }
 
+    public int getNumTimeoutRestarts() {
+        return numTimeoutRestarts;
+    }
+
+    private void setNumTimeoutRestarts(int numTimeoutRestarts) {
+        this.numTimeoutRestarts = numTimeoutRestarts;
+    }
+
+    public int getNumOomRestarts() {
+        return numOomRestarts;
+    }
+
+    private void setNumOomRestarts(int numOomRestarts) {
+        this.numOomRestarts = numOomRestarts;
+    }
+
     public String getForkedStatusFile() {
         return forkedStatusFile;
     }
@@ -21,6 +21,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.BindException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
@@ -61,7 +63,9 @@ import org.apache.tika.Tika;
 import org.apache.tika.config.ServiceLoader;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.metrics.ParseMetrics;
 import org.apache.tika.parser.DigestingParser;
+import org.apache.tika.parser.cache.ParseResultCache;
 import org.apache.tika.parser.digestutils.BouncyCastleDigester;
 import org.apache.tika.parser.digestutils.CommonsDigester;
 import org.apache.tika.pipes.emitter.EmitterManager;
@@ -77,6 +81,7 @@ import org.apache.tika.server.core.resource.TikaMimeTypes;
 import org.apache.tika.server.core.resource.TikaParsers;
 import org.apache.tika.server.core.resource.TikaResource;
 import org.apache.tika.server.core.resource.TikaServerResource;
+import org.apache.tika.server.core.resource.TikaServerMetrics;
 import org.apache.tika.server.core.resource.TikaServerStatus;
 import org.apache.tika.server.core.resource.TikaVersion;
 import org.apache.tika.server.core.resource.TikaWelcome;
@@ -119,6 +124,12 @@ public class TikaServerProcess {
         options.addOption("numRestarts", true,
                 "Not allowed in -noFork: number of times that " +
                         "the forked server has had to be restarted.");
+        options.addOption("numTimeoutRestarts", true,
+                "Not allowed in -noFork: number of those restarts " +
+                        "that followed a task timeout.");
+        options.addOption("numOomRestarts", true,
+                "Not allowed in -noFork: number of those restarts " +
+                        "that followed an OutOfMemoryError.");
         return options;
     }
 
@@ -239,13 +250,23 @@ public class TikaServerProcess {
             serverStatus = new ServerStatus(serverId, tikaServerConfig.getNumRestarts(), false);
             System.setOut(System.err);
         }
+        if (tikaServerConfig.getParseCacheMaxMemoryBytes() > 0) {
+            serverStatus.setParseResultCache(createParseResultCache(tikaServerConfig, serverId));
+        }
         TikaResource.init(tika, tikaServerConfig, digester, inputStreamFactory, serverStatus);
+        ServerMetrics serverMetrics = null;
+        if (isMetricsEnabled(tikaServerConfig)) {
+            serverMetrics = new ServerMetrics(serverStatus,
+                    tikaServerConfig.getNumTimeoutRestarts(), tikaServerConfig.getNumOomRestarts());
+            ParseMetrics.addListener(serverMetrics);
+        }
         JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
 
         List<ResourceProvider> resourceProviders = new ArrayList<>();
         List<Object> providers = new ArrayList<>();
         loadAllProviders(tikaServerConfig,
                 serverStatus,
+                serverMetrics,
                 resourceProviders,
                 providers);
 
@@ -283,6 +304,29 @@ public class TikaServerProcess {
         return details;
     }
 
+    /**
+     * The results depend on the Tika version, the config file and the
+     * digester, so these are the fingerprint of the cache. Each server id gets
+     * its own directory, as the segment files can't be shared by processes
+     * running at the same time.
+     */
+    private static ParseResultCache createParseResultCache(TikaServerConfig tikaServerConfig,
+                                                           String serverId) throws IOException {
+        StringBuilder fingerprint = new StringBuilder(new Tika().toString());
+        fingerprint.append('\n').append(tikaServerConfig.getDigest());
+        if (tikaServerConfig.hasConfigFile()) {
+            fingerprint.append('\n').append(new String(
+                    Files.readAllBytes(tikaServerConfig.getConfigPath()), StandardCharsets.UTF_8));
+        }
+        long maxMemoryBytes = tikaServerConfig.getParseCacheMaxMemoryBytes();
+        if (StringUtils.isBlank(tikaServerConfig.getParseCacheDirectory())) {
+            return new ParseResultCache(fingerprint.toString(), maxMemoryBytes);
+        }
+        return new ParseResultCache(fingerprint.toString(), maxMemoryBytes,
+                Paths.get(tikaServerConfig.getParseCacheDirectory()).resolve(serverId),
+                tikaServerConfig.getParseCacheMaxDiskBytes());
+    }
+
     private static TLSServerParameters getTlsParams(TlsConfig tlsConfig)
             throws GeneralSecurityException, IOException {
         KeyStoreType keyStore = new KeyStoreType();
@@ -311,13 +355,28 @@ public class TikaServerProcess {
         return parameters;
     }
 
-    private static void loadAllProviders(TikaServerConfig tikaServerConfig,
-                                         ServerStatus serverStatus,
-                                         List<ResourceProvider> resourceProviders,
-                                         List<Object> writers)
+    /**
+     * The metrics are served with the status, or if listed as an endpoint
+     */
+    static boolean isMetricsEnabled(TikaServerConfig tikaServerConfig) {
+        if (tikaServerConfig.getEndpoints().size() == 0) {
+            return tikaServerConfig.isEnableUnsecureFeatures();
+        }
+        return tikaServerConfig.getEndpoints().contains("metrics");
+    }
+
+    static void loadAllProviders(TikaServerConfig tikaServerConfig,
+                                 ServerStatus serverStatus,
+                                 ServerMetrics serverMetrics,
+                                 List<ResourceProvider> resourceProviders,
+                                 List<Object> writers)
             throws TikaException, SAXException, IOException {
         List<ResourceProvider> tmpCoreProviders =
                 loadCoreProviders(tikaServerConfig, serverStatus);
+        if (serverMetrics != null) {
+            tmpCoreProviders.add(
+                    new SingletonResourceProvider(new TikaServerMetrics(serverMetrics)));
+        }
 
         resourceProviders.addAll(tmpCoreProviders);
         resourceProviders.add(new SingletonResourceProvider(new TikaWelcome(tmpCoreProviders)));
@@ -358,6 +417,10 @@ public class TikaServerProcess {
             writers.add(corsFilter);
         }
 
+        if (serverMetrics != null) {
+            writers.add(new ServerMetricsFilter(serverMetrics));
+        }
+
     }
 
     private static List<ResourceProvider> loadCoreProviders(TikaServerConfig tikaServerConfig,
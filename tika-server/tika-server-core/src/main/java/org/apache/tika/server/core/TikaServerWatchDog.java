@@ -63,6 +63,9 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
     private volatile Instant lastPing = null;
     private ForkedProcess forkedProcess = null;
     private int restarts = 0;
+    //restarts after a timeout or an OutOfMemoryError, passed on to the forked process
+    private int timeoutRestarts = 0;
+    private int oomRestarts = 0;
     private volatile boolean shutDown = false;
 
 
@@ -126,6 +129,15 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
         }
     }
 
+    private void countRestart(int exitValue) {
+        if (exitValue == ServerStatus.STATUS.TIMEOUT.getShutdownCode()) {
+            timeoutRestarts++;
+        } else if (exitValue == ServerStatus.STATUS.ERROR.getShutdownCode()) {
+            //the forked process sets ERROR after an OutOfMemoryError
+            oomRestarts++;
+        }
+    }
+
     @Override
     public WatchDogResult call() throws Exception {
         boolean mustRestart = true;
@@ -157,6 +169,7 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
                     if (exited) {
                         LOG.info("forked process exited with exit value {}",
                                 forkedProcess.process.exitValue());
+                        countRestart(forkedProcess.process.exitValue());
                         closeForkedProcess(forkedProcess);
                         mustRestart = true;
                     } else {
@@ -179,6 +192,7 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
                                         "{} ms have elapsed since forked process " +
                                                 "last updated status. " +
                                                 "Shutting down and restarting.", elapsed);
+                                timeoutRestarts++;
                                 closeForkedProcess(forkedProcess);
                                 mustRestart = true;
                             }
@@ -414,6 +428,10 @@ public class TikaServerWatchDog implements Callable<WatchDogResult> {
 
             argList.add("-numRestarts");
             argList.add(Integer.toString(numRestarts));
+            argList.add("-numTimeoutRestarts");
+            argList.add(Integer.toString(timeoutRestarts));
+            argList.add("-numOomRestarts");
+            argList.add(Integer.toString(oomRestarts));
             LOG.debug("forked process commandline: " + argList.toString());
             builder.command(argList);
             //now overwrite with the specific server id
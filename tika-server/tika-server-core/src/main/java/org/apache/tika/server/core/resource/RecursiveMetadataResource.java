@@ -17,10 +17,12 @@
 
 package org.apache.tika.server.core.resource;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.tika.server.core.resource.TikaResource.fillMetadata;
 import static org.apache.tika.server.core.resource.TikaResource.fillParseContext;
 
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.util.List;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
@@ -33,6 +35,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
@@ -40,12 +43,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.serialization.JsonStreamingSerializer;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.RecursiveParserWrapper;
+import org.apache.tika.parser.cache.ParseResultCache;
 import org.apache.tika.pipes.HandlerConfig;
 import org.apache.tika.sax.BasicContentHandlerFactory;
 import org.apache.tika.sax.RecursiveParserWrapperHandler;
+import org.apache.tika.sax.StreamingRecursiveParserWrapperHandler;
 import org.apache.tika.server.core.MetadataList;
 import org.apache.tika.server.core.TikaServerParseException;
 
@@ -53,6 +59,7 @@ import org.apache.tika.server.core.TikaServerParseException;
 public class RecursiveMetadataResource {
 
     protected static final String HANDLER_TYPE_PARAM = "handler";
+    protected static final String STREAM_METADATA = "streamMetadata";
     protected static final BasicContentHandlerFactory.HANDLER_TYPE DEFAULT_HANDLER_TYPE =
             BasicContentHandlerFactory.HANDLER_TYPE.XML;
     private static final Logger LOG = LoggerFactory.getLogger(RecursiveMetadataResource.class);
@@ -68,6 +75,7 @@ public class RecursiveMetadataResource {
         RecursiveParserWrapper wrapper = new RecursiveParserWrapper(parser);
         fillMetadata(parser, metadata, httpHeaders);
         fillParseContext(httpHeaders, metadata, context);
+        setParseResultCache(httpHeaders, context);
         TikaResource.logRequest(LOG, "/rmeta", metadata);
         BasicContentHandlerFactory.HANDLER_TYPE type = handlerConfig.getType();
         RecursiveParserWrapperHandler handler = new RecursiveParserWrapperHandler(
@@ -89,6 +97,63 @@ public class RecursiveMetadataResource {
         return handler.getMetadataList();
     }
 
+    /**
+     * Like {@link #parseMetadata(InputStream, Metadata, MultivaluedMap, UriInfo,
+     * HandlerConfig)}, but writes each document's metadata to the response as
+     * soon as that document has been parsed, instead of keeping all of them in
+     * memory until the container is done. The container is written last.
+     */
+    public static StreamingOutput streamMetadata(InputStream is, Metadata metadata,
+                                                 MultivaluedMap<String, String> httpHeaders,
+                                                 UriInfo info, HandlerConfig handlerConfig) {
+        final ParseContext context = new ParseContext();
+        Parser parser = TikaResource.createParser();
+
+        RecursiveParserWrapper wrapper = new RecursiveParserWrapper(parser);
+        fillMetadata(parser, metadata, httpHeaders);
+        fillParseContext(httpHeaders, metadata, context);
+        setParseResultCache(httpHeaders, context);
+        TikaResource.logRequest(LOG, "/rmeta", metadata);
+
+        return outputStream -> {
+            try (JsonStreamingSerializer serializer = new JsonStreamingSerializer(
+                    new OutputStreamWriter(outputStream, UTF_8))) {
+                StreamingRecursiveParserWrapperHandler handler =
+                        new StreamingRecursiveParserWrapperHandler(
+                                new BasicContentHandlerFactory(handlerConfig.getType(),
+                                        handlerConfig.getWriteLimit()),
+                                handlerConfig.getMaxEmbeddedResources(),
+                                TikaResource.getConfig().getMetadataFilter(), m -> {
+                                    serializer.add(m);
+                                    serializer.flush();
+                                });
+                try {
+                    TikaResource.parse(wrapper, LOG, "/rmeta", is, handler, metadata, context);
+                } catch (TikaServerParseException e) {
+                    //do nothing
+                    LOG.debug("server parse exception", e);
+                }
+                if (handler.getListenerException() != null) {
+                    //the client has most likely gone away
+                    throw handler.getListenerException();
+                }
+            }
+        };
+    }
+
+    static boolean isStreaming(MultivaluedMap<String, String> httpHeaders) {
+        return httpHeaders.containsKey(STREAM_METADATA) &&
+                Boolean.parseBoolean(httpHeaders.getFirst(STREAM_METADATA));
+    }
+
+    private static void setParseResultCache(MultivaluedMap<String, String> httpHeaders,
+                                            ParseContext context) {
+        ParseResultCache cache = TikaResource.getParseResultCache(httpHeaders);
+        if (cache != null) {
+            context.set(ParseResultCache.class, cache);
+        }
+    }
+
     /**
      * Returns an InputStream that can be deserialized as a list of
      * {@link Metadata} objects.
@@ -106,6 +171,10 @@ public class RecursiveMetadataResource {
      * /rmeta/form/xml    (store the content as xml)<br/>
      * /rmeta/form/text   (store the content as text)<br/>
      * /rmeta/form/ignore (don't record any content)<br/>
+     * <p>
+     * With the header <code>streamMetadata: true</code>, each document's
+     * metadata is written as soon as it has been parsed, and the main
+     * document comes last.
      *
      * @param att             attachment
      * @param info            uri info
@@ -120,11 +189,15 @@ public class RecursiveMetadataResource {
     public Response getMetadataFromMultipart(Attachment att, @Context UriInfo info,
                                              @PathParam(HANDLER_TYPE_PARAM) String handlerTypeName)
             throws Exception {
+        HandlerConfig handlerConfig = buildHandlerConfig(att.getHeaders(), handlerTypeName,
+                HandlerConfig.PARSE_MODE.RMETA);
+        if (isStreaming(att.getHeaders())) {
+            return Response.ok(streamMetadata(att.getObject(InputStream.class), new Metadata(),
+                    att.getHeaders(), info, handlerConfig)).build();
+        }
         return Response
                 .ok(parseMetadataToMetadataList(att.getObject(InputStream.class), new Metadata(),
-                        att.getHeaders(), info,
-                        buildHandlerConfig(att.getHeaders(), handlerTypeName,
-                                HandlerConfig.PARSE_MODE.RMETA))).build();
+                        att.getHeaders(), info, handlerConfig)).build();
     }
 
     static HandlerConfig buildHandlerConfig(MultivaluedMap<String, String> httpHeaders,
@@ -161,6 +234,10 @@ public class RecursiveMetadataResource {
      * /rmeta/xml    (store the content as xml)<br/>
      * /rmeta/text   (store the content as text)<br/>
      * /rmeta/ignore (don't record any content)<br/>
+     * <p>
+     * With the header <code>streamMetadata: true</code>, each document's
+     * metadata is written as soon as it has been parsed, and the main
+     * document comes last.
      *
      * @param info            uri info
      * @param handlerTypeName which type of handler to use
@@ -176,11 +253,16 @@ public class RecursiveMetadataResource {
                                 @PathParam(HANDLER_TYPE_PARAM) String handlerTypeName)
             throws Exception {
         Metadata metadata = new Metadata();
+        HandlerConfig handlerConfig = buildHandlerConfig(httpHeaders.getRequestHeaders(),
+                handlerTypeName, HandlerConfig.PARSE_MODE.RMETA);
+        if (isStreaming(httpHeaders.getRequestHeaders())) {
+            return Response.ok(streamMetadata(
+                    TikaResource.getInputStream(is, metadata, httpHeaders, info), metadata,
+                    httpHeaders.getRequestHeaders(), info, handlerConfig)).build();
+        }
         return Response.ok(parseMetadataToMetadataList(
                 TikaResource.getInputStream(is, metadata, httpHeaders, info), metadata,
-                httpHeaders.getRequestHeaders(), info,
-                buildHandlerConfig(httpHeaders.getRequestHeaders(), handlerTypeName,
-                        HandlerConfig.PARSE_MODE.RMETA))).build();
+                httpHeaders.getRequestHeaders(), info, handlerConfig)).build();
     }
 
     private MetadataList parseMetadataToMetadataList(InputStream is, Metadata metadata,
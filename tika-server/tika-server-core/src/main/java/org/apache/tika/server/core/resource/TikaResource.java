@@ -23,13 +23,13 @@ import static org.apache.tika.server.core.resource.RecursiveMetadataResource.HAN
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.ws.rs.Consumes;
@@ -73,11 +73,13 @@ import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.DigestingParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.cache.ParseResultCache;
 import org.apache.tika.pipes.HandlerConfig;
 import org.apache.tika.sax.BasicContentHandlerFactory;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.ExpandedTitleContentHandler;
 import org.apache.tika.sax.RichTextContentHandler;
+import org.apache.tika.sax.Utf8OutputStreamWriter;
 import org.apache.tika.sax.boilerpipe.BoilerpipeContentHandler;
 import org.apache.tika.server.core.CompositeParseContextConfig;
 import org.apache.tika.server.core.InputStreamFactory;
@@ -153,6 +155,28 @@ public class TikaResource {
         PARSE_CONTEXT_CONFIG.configure(httpHeaders, metadata, parseContext);
     }
 
+    /**
+     * The X-Tika headers and the password can change how documents are
+     * parsed, so they are part of the cache key of a request.
+     *
+     * @return the parse result cache for a request with these headers,
+     * or <code>null</code> if the cache isn't enabled
+     */
+    public static ParseResultCache getParseResultCache(MultivaluedMap<String, String> httpHeaders) {
+        ParseResultCache cache = SERVER_STATUS == null ? null : SERVER_STATUS.getParseResultCache();
+        if (cache == null) {
+            return null;
+        }
+        Map<String, List<String>> settings = new TreeMap<>();
+        for (Map.Entry<String, List<String>> e : httpHeaders.entrySet()) {
+            String name = e.getKey().toLowerCase(Locale.ROOT);
+            if (name.startsWith("x-tika-") || name.equals("password")) {
+                settings.put(name, e.getValue());
+            }
+        }
+        return cache.withFingerprint(settings.toString());
+    }
+
     public static InputStream getInputStream(InputStream is, Metadata metadata,
                                              HttpHeaders headers, UriInfo uriInfo) {
         try {
@@ -463,7 +487,7 @@ public class TikaResource {
         logRequest(LOG, "/tika", metadata);
 
         return outputStream -> {
-            Writer writer = new OutputStreamWriter(outputStream, UTF_8);
+            Writer writer = new Utf8OutputStreamWriter(outputStream);
 
             ContentHandler handler = new BoilerpipeContentHandler(writer);
 
@@ -494,7 +518,7 @@ public class TikaResource {
         logRequest(LOG, "/tika", metadata);
 
         return outputStream -> {
-            Writer writer = new OutputStreamWriter(outputStream, UTF_8);
+            Writer writer = new Utf8OutputStreamWriter(outputStream);
 
             BodyContentHandler body =
                     new BodyContentHandler(new RichTextContentHandler(writer));
@@ -661,7 +685,7 @@ public class TikaResource {
         logRequest(LOG, "/tika", metadata);
 
         return outputStream -> {
-            Writer writer = new OutputStreamWriter(outputStream, UTF_8);
+            Writer writer = new Utf8OutputStreamWriter(outputStream);
             ContentHandler content;
 
             try {
@@ -22,6 +22,7 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 
+import org.apache.tika.parser.cache.ParseResultCache;
 import org.apache.tika.server.core.ServerStatus;
 
 @Path("/status")
@@ -41,6 +42,15 @@ public class TikaServerStatus {
         map.put("millis_since_last_parse_started", serverStatus.getMillisSinceLastParseStarted());
         map.put("files_processed", serverStatus.getFilesProcessed());
         map.put("num_restarts", serverStatus.getNumRestarts());
+        ParseResultCache cache = serverStatus.getParseResultCache();
+        if (cache != null) {
+            map.put("parse_cache_hits", cache.getHits());
+            map.put("parse_cache_misses", cache.getMisses());
+            map.put("parse_cache_hit_rate", cache.getHitRate());
+            map.put("parse_cache_bytes_saved", cache.getBytesSaved());
+            map.put("parse_cache_memory_bytes", cache.getMemoryBytes());
+            map.put("parse_cache_disk_bytes", cache.getDiskBytes());
+        }
         return map;
     }
 }
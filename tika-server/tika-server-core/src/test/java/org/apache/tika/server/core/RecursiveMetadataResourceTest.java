@@ -73,6 +73,22 @@ public class RecursiveMetadataResourceTest extends CXFTestBase {
                 metadata.get(TikaCoreProperties.CONTAINER_EXCEPTION));
 
     }
+
+    @Test
+    public void testStreaming() throws Exception {
+        Response response = WebClient.create(endPoint + META_PATH).accept("application/json")
+                .header("streamMetadata", "true")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_NULL_POINTER));
+        assertEquals(200, response.getStatus());
+        Reader reader = new InputStreamReader((InputStream) response.getEntity(), UTF_8);
+        List<Metadata> metadataList = JsonMetadataList.fromJson(reader);
+        assertEquals(1, metadataList.size());
+        Metadata metadata = metadataList.get(0);
+        assertEquals("Nikolai Lobachevsky", metadata.get("author"));
+        assertContains("some content", metadata.get(TikaCoreProperties.TIKA_CONTENT));
+        assertContains("null pointer message",
+                metadata.get(TikaCoreProperties.CONTAINER_EXCEPTION));
+    }
     /*
     @Test
     public void testWriteLimitInAll() throws Exception {
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.ws.rs.core.Response;
+
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.lifecycle.ResourceProvider;
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.server.core.resource.TikaResource;
+
+public class ServerMetricsFilterTest extends CXFTestBase {
+
+    private static final String TIKA_PATH = "/tika";
+    private static final String METRICS_PATH = "/metrics";
+
+    private final List<Object> providers = new ArrayList<>();
+
+    @Override
+    protected TikaServerConfig getTikaServerConfig() {
+        TikaServerConfig tikaServerConfig = super.getTikaServerConfig();
+        tikaServerConfig.setEndpoints(Arrays.asList("tika", "metrics"));
+        return tikaServerConfig;
+    }
+
+    @Override
+    protected void setUpResources(JAXRSServerFactoryBean sf) {
+        TikaServerConfig tikaServerConfig = getTikaServerConfig();
+        ServerStatus serverStatus = new ServerStatus("", 0, true);
+        List<ResourceProvider> resourceProviders = new ArrayList<>();
+        try {
+            TikaServerProcess.loadAllProviders(tikaServerConfig, serverStatus,
+                    new ServerMetrics(serverStatus, 0, 0), resourceProviders, providers);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        sf.setResourceProviders(resourceProviders);
+    }
+
+    @Override
+    protected void setUpProviders(JAXRSServerFactoryBean sf) {
+        sf.setProviders(providers);
+    }
+
+    @Test
+    public void testIsMetricsEnabled() {
+        assertTrue(TikaServerProcess.isMetricsEnabled(getTikaServerConfig()));
+
+        TikaServerConfig tikaServerConfig = new TikaServerConfig();
+        assertFalse(TikaServerProcess.isMetricsEnabled(tikaServerConfig));
+        tikaServerConfig.setEnableUnsecureFeatures(true);
+        assertTrue(TikaServerProcess.isMetricsEnabled(tikaServerConfig));
+        tikaServerConfig.setEndpoints(Collections.singletonList("tika"));
+        assertFalse(TikaServerProcess.isMetricsEnabled(tikaServerConfig));
+    }
+
+    @Test
+    public void testRequestMetrics() throws Exception {
+        Response response = WebClient.create(endPoint + TIKA_PATH).accept("text/plain")
+                .put(ClassLoader.getSystemResourceAsStream(TikaResourceTest.TEST_HELLO_WORLD));
+        assertEquals(200, response.getStatus());
+        String text = getStringFromInputStream((InputStream) response.getEntity());
+        assertContains("hello world", text);
+
+        String metrics = getMetrics();
+        assertContains("tika_server_requests_in_flight{endpoint=\"/tika\"} 0\n", metrics);
+        assertContains("tika_server_request_duration_seconds_count{endpoint=\"/tika\"," +
+                "code=\"200\"} 1\n", metrics);
+        assertTrue(getCounter(metrics, "tika_server_received_bytes_total") > 0);
+        assertTrue(getCounter(metrics, "tika_server_sent_bytes_total") >= text.length());
+    }
+
+    @Test
+    public void testHeadIsFinished() throws Exception {
+        Response response = WebClient.create(endPoint + TIKA_PATH).accept("text/plain")
+                .invoke("HEAD", null);
+        assertEquals(200, response.getStatus());
+
+        String metrics = getMetrics();
+        assertContains("tika_server_requests_in_flight{endpoint=\"/tika\"} 0\n", metrics);
+        assertContains("tika_server_request_duration_seconds_count{endpoint=\"/tika\"," +
+                "code=\"200\"} 1\n", metrics);
+    }
+
+    private String getMetrics() throws Exception {
+        Response response = WebClient.create(endPoint + METRICS_PATH).get();
+        assertEquals(200, response.getStatus());
+        return getStringFromInputStream((InputStream) response.getEntity());
+    }
+
+    private static long getCounter(String metrics, String name) {
+        Matcher matcher = Pattern.compile(
+                "(?m)^" + name + "\\{endpoint=\"/tika\"} (\\d+)$").matcher(metrics);
+        assertTrue(matcher.find(), name);
+        return Long.parseLong(matcher.group(1));
+    }
+}
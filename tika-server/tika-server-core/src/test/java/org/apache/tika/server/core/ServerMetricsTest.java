@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.metrics.ParseMetrics;
+
+public class ServerMetricsTest {
+
+    @Test
+    public void testPrometheusText() throws Exception {
+        ServerMetrics metrics = new ServerMetrics(new ServerStatus("", 3), 2, 1);
+        metrics.requestStarted("/tika");
+        metrics.requestFinished("/tika", 200, TimeUnit.MILLISECONDS.toNanos(30));
+        metrics.requestStarted("/rmeta");
+        metrics.bytesIn("/rmeta").add(100);
+        metrics.recordTime(ParseMetrics.PARSE, TimeUnit.SECONDS.toNanos(2),
+                new String[]{"org.example.Parser", "text/plain; charset=\"UTF-8\"", "0"});
+        metrics.recordCount(ParseMetrics.SPILL_BYTES, 1234, new String[0]);
+
+        StringWriter writer = new StringWriter();
+        metrics.write(writer);
+        String text = writer.toString();
+
+        String request = "tika_server_request_duration_seconds";
+        assertContains(text, "# TYPE " + request + " histogram\n");
+        assertContains(text, request + "_bucket{endpoint=\"/tika\",code=\"200\",le=\"0.025\"} 0\n");
+        assertContains(text, request + "_bucket{endpoint=\"/tika\",code=\"200\",le=\"0.05\"} 1\n");
+        assertContains(text, request + "_bucket{endpoint=\"/tika\",code=\"200\",le=\"+Inf\"} 1\n");
+        assertContains(text, request + "_sum{endpoint=\"/tika\",code=\"200\"} 0.030000\n");
+        assertContains(text, request + "_count{endpoint=\"/tika\",code=\"200\"} 1\n");
+        assertContains(text, "tika_server_requests_in_flight{endpoint=\"/rmeta\"} 1\n");
+        assertContains(text, "tika_server_requests_in_flight{endpoint=\"/tika\"} 0\n");
+        assertContains(text, "tika_server_received_bytes_total{endpoint=\"/rmeta\"} 100\n");
+
+        //label values are escaped
+        assertContains(text, "tika_parse_seconds_bucket{parser=\"org.example.Parser\"," +
+                "type=\"text/plain; charset=\\\"UTF-8\\\"\",depth=\"0\",le=\"2.5\"} 1\n");
+        assertContains(text, "tika_spill_bytes_total 1234\n");
+
+        assertContains(text, "tika_server_restarts_total 3\n");
+        assertContains(text, "tika_server_timeout_restarts_total 2\n");
+        assertContains(text, "tika_server_oom_restarts_total 1\n");
+        assertContains(text, "# TYPE jvm_memory_heap_used_bytes gauge\n");
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        ServerMetrics.Histogram histogram = new ServerMetrics.Histogram();
+        //on a bound, just above it, and past the last one
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5) + 1);
+        histogram.record(TimeUnit.MINUTES.toNanos(10));
+        assertEquals(1, histogram.count(0));
+        assertEquals(1, histogram.count(1));
+        assertEquals(1, histogram.count(ServerMetrics.BUCKETS.length));
+    }
+
+    private static void assertContains(String text, String expected) {
+        assertTrue(text.contains(expected), expected + " not in\n" + text);
+    }
+}
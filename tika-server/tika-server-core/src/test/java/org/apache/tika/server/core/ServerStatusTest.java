@@ -20,6 +20,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.Callable;
@@ -41,6 +43,33 @@ public class ServerStatusTest {
         });
     }
 
+    @Test
+    public void testTimedOutTasks() throws Exception {
+        ServerStatus status = new ServerStatus("", 0);
+        long slow = status.start(ServerStatus.TASK.PARSE, "slow", 10000);
+        long fast = status.start(ServerStatus.TASK.DETECT, "fast", 1000);
+        long done = status.start(ServerStatus.TASK.PARSE, "done", 10);
+        status.complete(done);
+        assertEquals(2, status.getNumActiveTasks());
+
+        Instant now = Instant.now();
+        assertEquals(0, status.getTimedOutTasks(now).size());
+        List<TaskStatus> timedOut = status.getTimedOutTasks(now.plusMillis(5000));
+        assertEquals(1, timedOut.size());
+        assertEquals("fast", timedOut.get(0).fileName.get());
+        //ordered by deadline
+        timedOut = status.getTimedOutTasks(now.plusMillis(20000));
+        assertEquals(2, timedOut.size());
+        assertEquals("fast", timedOut.get(0).fileName.get());
+        assertEquals("slow", timedOut.get(1).fileName.get());
+
+        status.complete(fast);
+        status.complete(slow);
+        assertEquals(0, status.getTimedOutTasks(now.plusMillis(20000)).size());
+        assertEquals(0, status.getNumActiveTasks());
+        assertEquals(3, status.getFilesProcessed());
+    }
+
     @Test
     @Timeout(60000)
     public void testBasicMultiThreading() throws Exception {
@@ -66,6 +95,7 @@ public class ServerStatusTest {
         }
         assertEquals(numThreads * filesToProcess, totalProcessed);
         assertEquals(0, serverStatus.getTasks().size());
+        assertEquals(0, serverStatus.getTimedOutTasks(Instant.now().plusSeconds(3600)).size());
         assertEquals(totalProcessed, serverStatus.getFilesProcessed());
 
     }
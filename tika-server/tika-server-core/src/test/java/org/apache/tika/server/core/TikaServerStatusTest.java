@@ -32,6 +32,7 @@ import org.apache.cxf.jaxrs.client.WebClient;
 import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
 import org.junit.jupiter.api.Test;
 
+import org.apache.tika.parser.cache.ParseResultCache;
 import org.apache.tika.server.core.resource.TikaServerStatus;
 import org.apache.tika.server.core.writer.JSONObjWriter;
 
@@ -43,8 +44,10 @@ public class TikaServerStatusTest extends CXFTestBase {
     @Override
     protected void setUpResources(JAXRSServerFactoryBean sf) {
         sf.setResourceClasses(TikaServerStatus.class);
+        ServerStatus serverStatus = new ServerStatus(SERVER_ID, 0);
+        serverStatus.setParseResultCache(new ParseResultCache("test", 1024 * 1024));
         sf.setResourceProvider(TikaServerStatus.class, new SingletonResourceProvider(
-                new TikaServerStatus(new ServerStatus(SERVER_ID, 0))));
+                new TikaServerStatus(serverStatus)));
     }
 
     @Override
@@ -68,5 +71,8 @@ public class TikaServerStatusTest extends CXFTestBase {
         long millis = root.get("millis_since_last_parse_started").longValue();
         assertTrue(millis >= 0 && millis < 360000);
         assertEquals(SERVER_ID, root.get("server_id").asText());
+        assertEquals(0, root.get("parse_cache_hits").longValue());
+        assertEquals(0.0, root.get("parse_cache_hit_rate").doubleValue());
+        assertTrue(root.has("parse_cache_bytes_saved"));
     }
 }
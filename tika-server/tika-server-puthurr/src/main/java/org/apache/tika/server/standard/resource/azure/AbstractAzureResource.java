@@ -45,6 +45,16 @@ public class AbstractAzureResource {
             = "X-TIKA-AZURE-CONTAINER-DIRECTORY-BASE64ENCODED";
     protected static final String AZURE_METADATA_PREFIX = "X-TIKA-AZURE-META-";
 
+    // Page conversion pipeline tuning, see PageRenderingPipeline
+    protected static final String AZURE_CONVERT_PARALLELISM = "X-TIKA-AZURE-CONVERT-PARALLELISM";
+    protected static final String AZURE_CONVERT_MAX_MEMORY_MB = "X-TIKA-AZURE-CONVERT-MAX-MEMORY-MB";
+
+    // Embedded resource upload tuning, see EmbeddedBlobUploader
+    protected static final String AZURE_UNPACK_UPLOAD_CONCURRENCY = "X-TIKA-AZURE-UNPACK-UPLOAD-CONCURRENCY";
+    protected static final String AZURE_UNPACK_MAX_MEMORY_MB = "X-TIKA-AZURE-UNPACK-MAX-MEMORY-MB";
+    // "true" to skip the upload of images already uploaded to the same container
+    protected static final String AZURE_UNPACK_DEDUPLICATE_IMAGES = "X-TIKA-AZURE-UNPACK-DEDUPLICATE-IMAGES";
+
     // Retrieve the connection string for use with the application. The storage
     // connection string is stored in an environment variable on the machine
     // running the application called AZURE_STORAGE_CONNECTION_STRING. If the environment variable
@@ -19,11 +19,14 @@ package org.apache.tika.server.standard.resource.azure;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -42,9 +45,7 @@ import javax.ws.rs.core.UriInfo;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
-import com.azure.storage.blob.models.BlobHttpHeaders;
 import com.azure.storage.blob.models.BlobStorageException;
-import com.azure.storage.blob.models.ParallelTransferOptions;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.poi.poifs.filesystem.DirectoryEntry;
@@ -61,6 +62,7 @@ import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.extractor.EmbeddedImageRegistry;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
@@ -81,6 +83,13 @@ public class AzureUnpackerResource extends AbstractAzureResource implements Tika
 
     private static final Logger LOG = LoggerFactory.getLogger(AzureUnpackerResource.class);
 
+    // Embedded resource upload defaults, overridable per request through headers
+    private static final int DEFAULT_UPLOAD_CONCURRENCY = 4;
+    private static final int DEFAULT_MAX_MEMORY_MB = 64;
+
+    // Images uploaded by earlier requests, by container, see AZURE_UNPACK_DEDUPLICATE_IMAGES
+    private static final EmbeddedImageRegistry IMAGE_REGISTRY = new EmbeddedImageRegistry(100_000);
+
     static {
         if (connectStr != null) {
             blobServiceClient = new BlobServiceClientBuilder()
@@ -185,11 +194,24 @@ public class AzureUnpackerResource extends AbstractAzureResource implements Tika
                 blobMetadata.put(key.replaceAll(AZURE_METADATA_PREFIX,""),headers.getFirst(key));
             }
         }
-        // Set the EmbeddedDocumentExtractor we need
-        pc.set(EmbeddedDocumentExtractor.class, new AzureEmbeddedDocumentExtractor(
-                count, files, metadataList, containerClient, containerDirectory, blobMetadata));
-        // Parse
-        TikaResource.parse(parser, LOG, info.getPath(), is, ch, metadata, pc);
+        // Uploads run in the background while parsing continues
+        try (EmbeddedBlobUploader uploader = new EmbeddedBlobUploader(
+                getIntHeader(headers, AZURE_UNPACK_UPLOAD_CONCURRENCY, DEFAULT_UPLOAD_CONCURRENCY),
+                getIntHeader(headers, AZURE_UNPACK_MAX_MEMORY_MB, DEFAULT_MAX_MEMORY_MB) * 1024L * 1024L)) {
+            boolean deduplicateImages = Boolean.parseBoolean(headers.getFirst(AZURE_UNPACK_DEDUPLICATE_IMAGES));
+            // Set the EmbeddedDocumentExtractor we need
+            AzureEmbeddedDocumentExtractor extractor = new AzureEmbeddedDocumentExtractor(
+                    count, files, metadataList, containerClient, containerDirectory, blobMetadata,
+                    uploader, deduplicateImages ? IMAGE_REGISTRY : null);
+            pc.set(EmbeddedDocumentExtractor.class, extractor);
+            // Parse
+            TikaResource.parse(parser, LOG, info.getPath(), is, ch, metadata, pc);
+
+            uploader.awaitCompletion();
+            // only images that made it to the container are skipped by later requests
+            extractor.registerUploadedImages();
+            uploader.addStatistics(metadata);
+        }
 
         if (count.intValue() == 0 && !saveAll) {
             throw new WebApplicationException(Response.Status.NO_CONTENT);
@@ -208,6 +230,23 @@ public class AzureUnpackerResource extends AbstractAzureResource implements Tika
         return new MetadataList(metadataList);
     }
 
+    private static int getIntHeader(MultivaluedMap<String, String> headers, String name,
+                                    int defaultValue) {
+        String value = headers.getFirst(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int i = Integer.parseInt(value.trim());
+            if (i < 1) {
+                throw new WebApplicationException(Response.Status.BAD_REQUEST);
+            }
+            return i;
+        } catch (NumberFormatException e) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+    }
+
     private class AzureEmbeddedDocumentExtractor implements EmbeddedDocumentExtractor {
         private final MutableInt count;
         private final Map<String, String> zout;
@@ -215,13 +254,21 @@ public class AzureUnpackerResource extends AbstractAzureResource implements Tika
         private final Map<String, String> blobMetadata;
         private final String containerDirectory;
         private final List<Metadata> metadataList;
+        private final EmbeddedBlobUploader uploader;
+        private final EmbeddedImageRegistry imageRegistry;
+        // Images uploaded by this request, registered once the uploads are done
+        private final Map<String, String> uploadedImages = new HashMap<>();
 
         AzureEmbeddedDocumentExtractor(MutableInt count, Map<String, String> zout,
                                        List<Metadata> metadataList,
                                        BlobContainerClient containerClient,
                                        String containerDirectory,
-                                       Map<String, String> blobMetadata) {
+                                       Map<String, String> blobMetadata,
+                                       EmbeddedBlobUploader uploader,
+                                       EmbeddedImageRegistry imageRegistry) {
             this.count = count;
+            this.uploader = uploader;
+            this.imageRegistry = imageRegistry;
             this.zout = zout;
             this.metadataList = metadataList;
             this.containerClient = containerClient;
@@ -237,8 +284,6 @@ public class AzureUnpackerResource extends AbstractAzureResource implements Tika
         public void parseEmbedded(InputStream inputStream, ContentHandler contentHandler, Metadata metadata, boolean b)
                 throws SAXException, IOException
         {
-            byte[] data = org.apache.commons.io.IOUtils.toByteArray(inputStream);
-
             String name = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
             String contentType = metadata.get(org.apache.tika.metadata.HttpHeaders.CONTENT_TYPE);
 
@@ -260,48 +305,68 @@ public class AzureUnpackerResource extends AbstractAzureResource implements Tika
                 }
             }
 
+            EmbeddedBlobUploader.Spool spool;
+
             if ("application/vnd.openxmlformats-officedocument.oleObject".equals(contentType)) {
-                POIFSFileSystem poifs = new POIFSFileSystem(new ByteArrayInputStream(data));
-                OfficeParser.POIFSDocumentType type = OfficeParser.POIFSDocumentType.detectType(poifs);
+                // POIFS needs random access, spool the OLE object to a file once
+                File oleFile = uploader.createTemporaryFile();
+                Files.copy(inputStream, oleFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                spool = uploader.spool(oleFile);
 
-                if (type == OfficeParser.POIFSDocumentType.OLE10_NATIVE) {
-                    try {
-                        Ole10Native ole = Ole10Native.createFromEmbeddedOleObject(poifs);
-                        if (ole.getDataSize() > 0) {
-                            String label = ole.getLabel();
+                try (POIFSFileSystem poifs = new POIFSFileSystem(oleFile, true)) {
+                    OfficeParser.POIFSDocumentType type = OfficeParser.POIFSDocumentType.detectType(poifs);
 
-                            if (label.startsWith("ole-")) {
-                                label = Integer.toString(count.intValue()) + '-' + label;
-                            }
+                    if (type == OfficeParser.POIFSDocumentType.OLE10_NATIVE) {
+                        try {
+                            Ole10Native ole = Ole10Native.createFromEmbeddedOleObject(poifs);
+                            if (ole.getDataSize() > 0) {
+                                String label = ole.getLabel();
+
+                                if (label.startsWith("ole-")) {
+                                    label = Integer.toString(count.intValue()) + '-' + label;
+                                }
 
-                            name = label;
+                                name = label;
 
-                            data = ole.getDataBuffer();
+                                spool = uploader.spool(ole.getDataBuffer());
+                            }
+                        } catch (Ole10NativeException ex) {
+                            LOG.warn("Skipping invalid part", ex);
                         }
-                    } catch (Ole10NativeException ex) {
-                        LOG.warn("Skipping invalid part", ex);
+                    } else {
+                        name += '.' + type.getExtension();
                     }
-                } else {
-                    name += '.' + type.getExtension();
                 }
+            } else {
+                spool = uploader.spool(inputStream);
             }
 
             final String finalName = getFinalName(name, zout);
 
+            if (imageRegistry != null && spool.getLength() > 0 && contentType != null
+                    && contentType.startsWith("image/")) {
+                String key = uploader.getKey(spool, containerClient.getBlobContainerName());
+                String duplicateOf = uploadedImages.get(key);
+                if (duplicateOf == null) {
+                    duplicateOf = imageRegistry.getCanonicalName(key);
+                }
+                if (duplicateOf != null) {
+                    uploader.skipDuplicate(spool);
+                    Metadata duplicate = ParserUtils.cloneMetadata(metadata);
+                    duplicate.set(TikaCoreProperties.EMBEDDED_DUPLICATE_OF, duplicateOf);
+                    this.metadataList.add(duplicate);
+                    count.increment();
+                    return;
+                }
+                uploadedImages.put(key, containerDirectory + "/" + finalName);
+            }
+
             this.metadataList.add(ParserUtils.cloneMetadata(metadata));
 
-            if (data.length > 0) {
+            if (spool.getLength() > 0) {
                 /* Upload the file to the Azure container */
                 BlobClient blobClient = containerClient.getBlobClient(containerDirectory + "/" + finalName);
-                BlobHttpHeaders sysproperties = new BlobHttpHeaders();
-                sysproperties.setContentType(contentType);
-
-                Long blockSize = 10L * 1024L * 1024L; // 10 MB;
-                ParallelTransferOptions parallelTransferOptions = new ParallelTransferOptions()
-                        .setBlockSizeLong(blockSize).setMaxConcurrency(5);
-
-                blobClient.uploadWithResponse(new ByteArrayInputStream(data), data.length,parallelTransferOptions,
-                        sysproperties,blobMetadata,null,null,null,null );
+                uploader.submit(blobClient, contentType, blobMetadata, spool);
 
                 count.increment();
             } else {
@@ -311,23 +376,17 @@ public class AzureUnpackerResource extends AbstractAzureResource implements Tika
                     if (tin.getOpenContainer() != null && tin.getOpenContainer() instanceof DirectoryEntry) {
                         POIFSFileSystem fs = new POIFSFileSystem();
                         copy((DirectoryEntry) tin.getOpenContainer(), fs.getRoot());
-                        ByteArrayOutputStream bos2 = new ByteArrayOutputStream();
-                        fs.writeFilesystem(bos2);
-                        bos2.close();
+                        EmbeddedBlobUploader.Spool fsSpool = uploader.newSpool();
+                        try (OutputStream out = fsSpool.getOutputStream()) {
+                            fs.writeFilesystem(out);
+                        } finally {
+                            fs.close();
+                        }
 
                         //AZURE BLOB WRITE
                         BlobClient blobClient = containerClient
                                 .getBlobClient(containerDirectory + "/" + finalName);
-                        BlobHttpHeaders sysproperties = new BlobHttpHeaders();
-                        sysproperties.setContentType(contentType);
-
-                        Long blockSize = 10L * 1024L * 1024L; // 10 MB;
-                        ParallelTransferOptions parallelTransferOptions = new ParallelTransferOptions()
-                                .setBlockSizeLong(blockSize).setMaxConcurrency(5);
-
-                        blobClient.uploadWithResponse(new ByteArrayInputStream(bos2.toByteArray()),
-                                bos2.toByteArray().length,null,sysproperties,
-                                blobMetadata,null,null,null,null );
+                        uploader.submit(blobClient, contentType, blobMetadata, fsSpool);
                     }
                 }
             }
@@ -338,6 +397,12 @@ public class AzureUnpackerResource extends AbstractAzureResource implements Tika
             }
         }
 
+        void registerUploadedImages() {
+            for (Map.Entry<String, String> image : uploadedImages.entrySet()) {
+                imageRegistry.register(image.getKey(), image.getValue());
+            }
+        }
+
         private String getFinalName(String name, Map<String, String> zout)
         {
             name = name.replaceAll("\u0000", " ");
@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.server.standard.resource.azure;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.pdfbox.tools.imageio.ImageIOUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded, per-request pipeline that renders the pages (or slides) of a document
+ * to images and uploads them.
+ * <p>
+ * The pipeline has three stages:
+ * <ol>
+ *     <li>render: {@link #getParallelism()} workers, each owning its own
+ *     {@link PageSource}, pull page indexes from a shared counter</li>
+ *     <li>encode: rendered images are encoded on a separate pool</li>
+ *     <li>upload: encoded images are uploaded asynchronously</li>
+ * </ol>
+ * Peak image memory is capped by a per-request budget: a worker reserves the
+ * estimated raw size of a page before rendering it, the reservation shrinks to the
+ * encoded size once the page is encoded, and it is released when the upload completes.
+ * A worker that cannot reserve budget blocks, which provides backpressure all the way
+ * back to rendering.
+ */
+class PageRenderingPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PageRenderingPipeline.class);
+
+    /**
+     * A thread-confined view of the document being converted. Each render worker
+     * opens its own instance, so implementations need not be thread safe.
+     */
+    interface PageSource extends Closeable {
+
+        /**
+         * @return an upper bound of the raw size in bytes of the rendered page
+         */
+        long estimateImageBytes(int pageIndex);
+
+        BufferedImage render(int pageIndex) throws IOException;
+    }
+
+    interface PageSourceFactory {
+        PageSource open() throws IOException;
+    }
+
+    interface PageUploader {
+        void upload(String imageName, byte[] data) throws IOException;
+    }
+
+    interface PageNamer {
+        String getImageName(int pageIndex);
+    }
+
+    /**
+     * Outcome of a single page, reported in page order once the pipeline completes.
+     */
+    static class PageResult {
+        private final int pageNumber;
+        private final String imageName;
+        private final long bytes;
+        private final long elapsedMillis;
+        private final Throwable error;
+
+        PageResult(int pageNumber, String imageName, long bytes, long elapsedMillis,
+                   Throwable error) {
+            this.pageNumber = pageNumber;
+            this.imageName = imageName;
+            this.bytes = bytes;
+            this.elapsedMillis = elapsedMillis;
+            this.error = error;
+        }
+
+        public int getPageNumber() {
+            return pageNumber;
+        }
+
+        public String getImageName() {
+            return imageName;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        @Override
+        public String toString() {
+            if (error == null) {
+                return String.format(Locale.ROOT, "page %d: %s (%d bytes, %d ms)", pageNumber,
+                        imageName, bytes, elapsedMillis);
+            }
+            return String.format(Locale.ROOT, "page %d: %s FAILED (%s)", pageNumber, imageName,
+                    error.getMessage());
+        }
+    }
+
+    private final int parallelism;
+    private final long maxImageMemoryBytes;
+    private final String formatName;
+    private final int dpi;
+
+    /**
+     * @param parallelism         number of concurrent render workers (and encoders)
+     * @param maxImageMemoryBytes cap on the image bytes held in flight for this request
+     * @param formatName          image format used for encoding, e.g. "png"
+     * @param dpi                 dpi recorded in the encoded image
+     */
+    PageRenderingPipeline(int parallelism, long maxImageMemoryBytes, String formatName, int dpi) {
+        this.parallelism = Math.max(1, parallelism);
+        this.maxImageMemoryBytes = Math.max(1024L * 1024L, maxImageMemoryBytes);
+        this.formatName = formatName;
+        this.dpi = dpi;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getMaxImageMemoryBytes() {
+        return maxImageMemoryBytes;
+    }
+
+    /**
+     * Renders, encodes and uploads every page. This blocks until all uploads have
+     * completed (or failed).
+     *
+     * @return one result per page, in page order
+     */
+    List<PageResult> run(int pageCount, PageSourceFactory sources, PageNamer namer,
+                         PageUploader uploader) throws IOException, InterruptedException {
+        List<PageResult> results = new ArrayList<>(pageCount);
+        if (pageCount <= 0) {
+            return results;
+        }
+        int workers = Math.min(parallelism, pageCount);
+        // the budget is tracked in KB so that it fits in a semaphore
+        MemoryBudget budget = new MemoryBudget(maxImageMemoryBytes);
+        AtomicInteger nextPage = new AtomicInteger();
+        AtomicInteger liveWorkers = new AtomicInteger(workers);
+        @SuppressWarnings("unchecked")
+        CompletableFuture<PageResult>[] pages = new CompletableFuture[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            pages[i] = new CompletableFuture<>();
+        }
+
+        ExecutorService renderPool = Executors.newFixedThreadPool(workers, threadFactory("render"));
+        ExecutorService encodePool = Executors.newFixedThreadPool(workers, threadFactory("encode"));
+        ExecutorService uploadPool = Executors.newFixedThreadPool(workers, threadFactory("upload"));
+        try {
+            List<CompletableFuture<Void>> renderers = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++) {
+                renderers.add(CompletableFuture.runAsync(() -> {
+                    Throwable failure = null;
+                    int pageIndex = -1;
+                    try (PageSource source = sources.open()) {
+                        while ((pageIndex = nextPage.getAndIncrement()) < pageCount) {
+                            renderPage(source, pageIndex, namer, uploader, budget, pages,
+                                    encodePool, uploadPool);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        LOG.warn("render worker failed", e);
+                        failure = e;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        failure = e;
+                    } finally {
+                        if (failure != null && pageIndex >= 0 && pageIndex < pageCount) {
+                            //the page this worker was on when it failed
+                            failPage(pageIndex, namer, pages, failure);
+                        }
+                        //the other workers pick up the remaining pages, they are only
+                        //left over once the last worker is gone
+                        if (liveWorkers.decrementAndGet() == 0 && failure != null) {
+                            failRemaining(nextPage, pageCount, namer, pages, failure);
+                        }
+                    }
+                }, renderPool));
+            }
+            CompletableFuture.allOf(renderers.toArray(new CompletableFuture[0])).join();
+            CompletableFuture.allOf(pages).join();
+        } finally {
+            renderPool.shutdownNow();
+            encodePool.shutdownNow();
+            uploadPool.shutdownNow();
+        }
+        for (CompletableFuture<PageResult> page : pages) {
+            results.add(page.join());
+        }
+        return results;
+    }
+
+    private void renderPage(PageSource source, int pageIndex, PageNamer namer,
+                            PageUploader uploader, MemoryBudget budget,
+                            CompletableFuture<PageResult>[] pages, ExecutorService encodePool,
+                            ExecutorService uploadPool) throws InterruptedException {
+        long started = System.currentTimeMillis();
+        String imageName = namer.getImageName(pageIndex);
+        int reserved = budget.acquire(source.estimateImageBytes(pageIndex));
+        BufferedImage image;
+        try {
+            image = source.render(pageIndex);
+        } catch (IOException | RuntimeException e) {
+            budget.release(reserved);
+            pages[pageIndex].complete(new PageResult(pageIndex + 1, imageName, 0,
+                    System.currentTimeMillis() - started, e));
+            return;
+        }
+        CompletableFuture
+                .supplyAsync(() -> encode(image), encodePool)
+                .thenApplyAsync(data -> {
+                    //shrink the reservation to the encoded size now that the raster is garbage
+                    int kept = budget.shrink(reserved, data.length);
+                    try {
+                        uploader.upload(imageName, data);
+                        return new PageResult(pageIndex + 1, imageName, data.length,
+                                System.currentTimeMillis() - started, null);
+                    } catch (IOException | RuntimeException e) {
+                        //the reservation is released below, keep whenComplete from releasing it again
+                        throw new PipelineException(e);
+                    } finally {
+                        budget.release(kept);
+                    }
+                }, uploadPool)
+                .whenComplete((result, t) -> {
+                    if (t == null) {
+                        pages[pageIndex].complete(result);
+                    } else {
+                        //an encode failure never reaches the upload stage
+                        if (!(unwrap(t) instanceof PipelineException)) {
+                            budget.release(reserved);
+                        }
+                        pages[pageIndex].complete(new PageResult(pageIndex + 1, imageName, 0,
+                                System.currentTimeMillis() - started, cause(t)));
+                    }
+                });
+    }
+
+    private byte[] encode(BufferedImage image) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIOUtil.writeImage(image, formatName, out, dpi);
+        } catch (IOException e) {
+            throw new EncodeException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void failRemaining(AtomicInteger nextPage, int pageCount, PageNamer namer,
+                                      CompletableFuture<PageResult>[] pages, Throwable t) {
+        int pageIndex;
+        while ((pageIndex = nextPage.getAndIncrement()) < pageCount) {
+            failPage(pageIndex, namer, pages, t);
+        }
+    }
+
+    private static void failPage(int pageIndex, PageNamer namer,
+                                 CompletableFuture<PageResult>[] pages, Throwable t) {
+        pages[pageIndex].complete(new PageResult(pageIndex + 1, namer.getImageName(pageIndex),
+                0, 0, t));
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        while (t.getCause() != null && !(t instanceof PipelineException) &&
+                !(t instanceof EncodeException)) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    private static Throwable cause(Throwable t) {
+        Throwable unwrapped = unwrap(t);
+        if ((unwrapped instanceof PipelineException || unwrapped instanceof EncodeException) &&
+                unwrapped.getCause() != null) {
+            return unwrapped.getCause();
+        }
+        return unwrapped;
+    }
+
+    private static ThreadFactory threadFactory(String stage) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "azure-convert-" + stage + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Per-request image memory budget, counted in KB.
+     */
+    private static class MemoryBudget {
+        private final int capacityKB;
+        private final Semaphore permits;
+
+        MemoryBudget(long capacityBytes) {
+            this.capacityKB = (int) Math.min(Integer.MAX_VALUE, capacityBytes / 1024L);
+            this.permits = new Semaphore(capacityKB, true);
+        }
+
+        /**
+         * Reserves the given number of bytes, clamped to the capacity so that a single
+         * oversized page can still go through on its own.
+         */
+        int acquire(long bytes) throws InterruptedException {
+            int kb = toKB(bytes);
+            permits.acquire(kb);
+            return kb;
+        }
+
+        /**
+         * Gives back the part of a reservation that exceeds the encoded size.
+         *
+         * @return the size in KB still held
+         */
+        int shrink(int reservedKB, long encodedBytes) {
+            int keep = Math.min(reservedKB, toKB(encodedBytes));
+            permits.release(reservedKB - keep);
+            return keep;
+        }
+
+        void release(int kb) {
+            permits.release(kb);
+        }
+
+        private int toKB(long bytes) {
+            long kb = (bytes + 1023L) / 1024L;
+            return (int) Math.max(1L, Math.min(capacityKB, kb));
+        }
+    }
+
+    private static class EncodeException extends RuntimeException {
+        EncodeException(IOException e) {
+            super(e);
+        }
+    }
+
+    private static class PipelineException extends RuntimeException {
+        PipelineException(Exception e) {
+            super(e);
+        }
+    }
+}
@@ -25,11 +25,13 @@ import java.awt.GraphicsConfiguration;
 import java.awt.GraphicsDevice;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -43,18 +45,21 @@ import javax.ws.rs.core.UriInfo;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.models.BlobStorageException;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageTree;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
-import org.apache.pdfbox.tools.imageio.ImageIOUtil;
-import org.apache.poi.hslf.usermodel.HSLFSlide;
 import org.apache.poi.hslf.usermodel.HSLFSlideShow;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.sl.usermodel.Slide;
+import org.apache.poi.sl.usermodel.SlideShow;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
-import org.apache.poi.xslf.usermodel.XSLFSlide;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.config.BaseParserConfig;
 import org.apache.tika.parser.pdf.PDFParserConfig;
@@ -70,6 +75,12 @@ public class AzureConverterResource extends AbstractAzureResource implements Tik
     private static final int DPI = 300;
     private static final float DPI_SCALE = DPI / 72f;
 
+    // Page rendering pipeline defaults, overridable per request through headers
+    private static final int DEFAULT_PARALLELISM =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int MAX_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final int DEFAULT_MAX_MEMORY_MB = 512;
+
     private final BaseParserConfig baseParserConfig = new BaseParserConfig();
 
     static {
@@ -86,75 +97,28 @@ public class AzureConverterResource extends AbstractAzureResource implements Tik
 
         TikaResource.logRequest(LOG, info.toString(), new Metadata());
 
-        // AZURE Support
-        // Get the headers
         MultivaluedMap<String, String> headers = httpHeaders.getRequestHeaders();
-
-        // User-Defined Metadata we will add to the extracted item in Azure Blob.
-        // Those would be common to all embedded resources, useful to refer back to the original document.
-        Map<String, String> blobMetadata = new HashMap<>();
-        // Populate the blobMetadata from headers. Use the prefix x-ms-meta-name:string-value
-        for (String key : headers.keySet()) {
-            if (key.startsWith(AZURE_METADATA_PREFIX)) {
-                blobMetadata.put(key.replaceAll(AZURE_METADATA_PREFIX, ""), headers.getFirst(key));
-            }
-        }
-
-        String containerName = this.GetContainer(headers);
+        Map<String, String> blobMetadata = getBlobMetadata(headers);
         String containerDirectory = this.GetContainerDirectory(headers);
+        BlobContainerClient containerClient = getContainerClient(headers);
+
+        // Spool once so that every render worker can open its own copy of the slideshow
+        try (TikaInputStream tis = TikaInputStream.get(tikaInputStream)) {
+            File file = tis.getFile();
+            SlideSource first = new SlideSource(openPPTX(file));
+            if (first.getPageCount() == 0) {
+                first.close();
+            }
 
-        if (containerName == null) {
-            throw new WebApplicationException(Response.Status.BAD_REQUEST);
-        }
-
-        /* Create a new container client */
-        BlobContainerClient containerClient = null;
-
-        try {
-            containerClient = this.AcquireBlobContainerClient(containerName);
-        } catch (BlobStorageException ex) {
-            throw new WebApplicationException(Response.Status.BAD_REQUEST);
-        }
-
-        // Open SlideShow
-        XMLSlideShow ppt = new XMLSlideShow(tikaInputStream);
-
-        // get the dimension and size of the slide
-        Dimension pgsize = ppt.getPageSize();
-        List<XSLFSlide> pptSlides = ppt.getSlides();
-
-        BufferedImage img = null;
-
-        // Loop through the slides
-        for (int i = 0; i < pptSlides.size(); i++) {
-
-            int widthPx = (int) Math.max(Math.floor(pgsize.width * DPI_SCALE), 1);
-            int heightPx = (int) Math.max(Math.floor(pgsize.height * DPI_SCALE), 1);
-
-            img = new BufferedImage(widthPx, heightPx, BufferedImage.TYPE_INT_RGB);
-            Graphics2D graphics = img.createGraphics();
-            graphics.setBackground(Color.WHITE);
-            graphics.clearRect(0, 0, img.getWidth(), img.getHeight());
-            graphics.scale(DPI_SCALE, DPI_SCALE);
-            graphics.addRenderingHints(createDefaultRenderingHints(graphics));
-
-            // draw the images
-            pptSlides.get(i).draw(graphics);
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            ImageIOUtil.writeImage(img, OutputFormat, out, DPI);
-
-            byte[] data = out.toByteArray();
-
-            String imageName = baseParserConfig.getResourceFilename("image",
-                    i + 1, 99999, "." + OutputFormat);
-
-            this.UploadImage(containerClient,containerDirectory,imageName,data,blobMetadata);
+            List<PageRenderingPipeline.PageResult> results = createPipeline(headers).run(
+                    first.getPageCount(),
+                    sharingFirst(first, () -> new SlideSource(openPPTX(file))),
+                    i -> baseParserConfig.getResourceFilename("image", i + 1, 99999, "." + OutputFormat),
+                    (imageName, data) -> this.UploadImage(containerClient, containerDirectory, imageName,
+                            data, blobMetadata));
 
-            out.close();
+            return report("PPTX successfully converted", results);
         }
-
-        return ("PPTX successfully converted");
     }
 
     @Path("/ppt")
@@ -167,77 +131,28 @@ public class AzureConverterResource extends AbstractAzureResource implements Tik
 
         TikaResource.logRequest(LOG, info.toString(), new Metadata());
 
-        // AZURE Support
-        // Get the headers
         MultivaluedMap<String, String> headers = httpHeaders.getRequestHeaders();
-
-        // User-Defined Metadata we will add to the extracted item in Azure Blob.
-        // Those would be common to all embedded resources, useful to refer back to the original document.
-        Map<String, String> blobMetadata = new HashMap<>();
-        // Populate the blobMetadata from headers. Use the prefix x-ms-meta-name:string-value
-        for (String key : headers.keySet()) {
-            if (key.startsWith(AZURE_METADATA_PREFIX)) {
-                blobMetadata.put(key.replaceAll(AZURE_METADATA_PREFIX, ""), headers.getFirst(key));
-            }
-        }
-
-        String containerName = this.GetContainer(headers);
+        Map<String, String> blobMetadata = getBlobMetadata(headers);
         String containerDirectory = this.GetContainerDirectory(headers);
+        BlobContainerClient containerClient = getContainerClient(headers);
+
+        // Spool once so that every render worker can open its own copy of the slideshow
+        try (TikaInputStream tis = TikaInputStream.get(tikaInputStream)) {
+            File file = tis.getFile();
+            SlideSource first = new SlideSource(openPPT(file));
+            if (first.getPageCount() == 0) {
+                first.close();
+            }
 
-        if (containerName == null) {
-            throw new WebApplicationException(Response.Status.BAD_REQUEST);
-        }
-
-        /* Create a new container client */
-        BlobContainerClient containerClient = null;
-
-        try {
-            containerClient = this.AcquireBlobContainerClient(containerName);
-        } catch (BlobStorageException ex) {
-            throw new WebApplicationException(Response.Status.BAD_REQUEST);
-        }
-
-        // PPT
-        // Open SlideShow
-        HSLFSlideShow ppt = new HSLFSlideShow(tikaInputStream);
-
-        // get the dimension and size of the slide
-        Dimension pgsize = ppt.getPageSize();
-
-        List<HSLFSlide> pptSlides = ppt.getSlides();
-
-        BufferedImage img = null;
-
-        // Loop through the slides
-        for (int i = 0; i < pptSlides.size(); i++) {
-
-            int widthPx = (int) Math.max(Math.floor(pgsize.width * DPI_SCALE), 1);
-            int heightPx = (int) Math.max(Math.floor(pgsize.height * DPI_SCALE), 1);
-
-            img = new BufferedImage(widthPx, heightPx, BufferedImage.TYPE_INT_RGB);
-            Graphics2D graphics = img.createGraphics();
-            graphics.setBackground(Color.WHITE);
-            graphics.clearRect(0, 0, img.getWidth(), img.getHeight());
-            graphics.scale(DPI_SCALE, DPI_SCALE);
-            graphics.addRenderingHints(createDefaultRenderingHints(graphics));
-
-            // draw the images
-            pptSlides.get(i).draw(graphics);
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            ImageIOUtil.writeImage(img, OutputFormat, out, DPI);
-
-            byte[] data = out.toByteArray();
-
-            String imageName = baseParserConfig.getResourceFilename("image",
-                    i + 1, 99999, "." + OutputFormat);
-
-            this.UploadImage(containerClient,containerDirectory,imageName,data,blobMetadata);
+            List<PageRenderingPipeline.PageResult> results = createPipeline(headers).run(
+                    first.getPageCount(),
+                    sharingFirst(first, () -> new SlideSource(openPPT(file))),
+                    i -> baseParserConfig.getResourceFilename("image", i + 1, 99999, "." + OutputFormat),
+                    (imageName, data) -> this.UploadImage(containerClient, containerDirectory, imageName,
+                            data, blobMetadata));
 
-            out.close();
+            return report("PPT successfully converted", results);
         }
-
-        return ("PPT successfully converted");
     }
 
 
@@ -251,10 +166,37 @@ public class AzureConverterResource extends AbstractAzureResource implements Tik
 
         TikaResource.logRequest(LOG, info.toString(), new Metadata());
 
-        // AZURE Support
-        // Get the headers
         MultivaluedMap<String, String> headers = httpHeaders.getRequestHeaders();
+        Map<String, String> blobMetadata = getBlobMetadata(headers);
+        String containerDirectory = this.GetContainerDirectory(headers);
+        BlobContainerClient containerClient = getContainerClient(headers);
 
+        PDFParserConfig config = new PDFParserConfig();
+
+        // Spool once so that every render worker can load its own PDDocument;
+        // PDFBox documents and renderers are not thread safe.
+        try (TikaInputStream tis = TikaInputStream.get(tikaInputStream)) {
+            File file = tis.getFile();
+            PDFPageSource first = new PDFPageSource(PDDocument.load(file), config.getOcrDPI());
+            if (first.getPageCount() == 0) {
+                first.close();
+            }
+
+            List<PageRenderingPipeline.PageResult> results = createPipeline(headers,
+                    config.getOcrImageFormatName(), config.getOcrDPI()).run(
+                    first.getPageCount(),
+                    sharingFirst(first, () -> new PDFPageSource(PDDocument.load(file), config.getOcrDPI())),
+                    i -> config.getImageFilename(i + 1, 99999, config.getOcrImageFormatName()),
+                    (imageName, data) -> this.UploadImage(containerClient, containerDirectory, imageName,
+                            data, blobMetadata));
+
+            return report("PDF successfully converted", results);
+        }
+    }
+
+    // Pipeline plumbing
+
+    private Map<String, String> getBlobMetadata(MultivaluedMap<String, String> headers) {
         // User-Defined Metadata we will add to the extracted item in Azure Blob.
         // Those would be common to all embedded resources, useful to refer back to the original document.
         Map<String, String> blobMetadata = new HashMap<>();
@@ -264,63 +206,175 @@ public class AzureConverterResource extends AbstractAzureResource implements Tik
                 blobMetadata.put(key.replaceAll(AZURE_METADATA_PREFIX, ""), headers.getFirst(key));
             }
         }
+        return blobMetadata;
+    }
 
+    private BlobContainerClient getContainerClient(MultivaluedMap<String, String> headers) {
         String containerName = this.GetContainer(headers);
-        String containerDirectory = this.GetContainerDirectory(headers);
 
         if (containerName == null) {
             throw new WebApplicationException(Response.Status.BAD_REQUEST);
         }
 
         /* Create a new container client */
-        BlobContainerClient containerClient = null;
-
         try {
-            containerClient = this.AcquireBlobContainerClient(containerName);
+            return this.AcquireBlobContainerClient(containerName);
         } catch (BlobStorageException ex) {
             throw new WebApplicationException(Response.Status.BAD_REQUEST);
         }
+    }
+
+    private PageRenderingPipeline createPipeline(MultivaluedMap<String, String> headers) {
+        return createPipeline(headers, OutputFormat, DPI);
+    }
+
+    private PageRenderingPipeline createPipeline(MultivaluedMap<String, String> headers,
+                                                 String formatName, int dpi) {
+        int parallelism = getIntHeader(headers, AZURE_CONVERT_PARALLELISM, DEFAULT_PARALLELISM);
+        int maxMemoryMB = getIntHeader(headers, AZURE_CONVERT_MAX_MEMORY_MB, DEFAULT_MAX_MEMORY_MB);
+        return new PageRenderingPipeline(Math.min(parallelism, MAX_PARALLELISM),
+                maxMemoryMB * 1024L * 1024L, formatName, dpi);
+    }
 
-        // PDF
-        PDDocument pdfDocument = null;
+    private static int getIntHeader(MultivaluedMap<String, String> headers, String name,
+                                    int defaultValue) {
+        String value = headers.getFirst(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int i = Integer.parseInt(value.trim());
+            if (i < 1) {
+                throw new WebApplicationException(Response.Status.BAD_REQUEST);
+            }
+            return i;
+        } catch (NumberFormatException e) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+    }
 
+    private static XMLSlideShow openPPTX(File file) throws IOException {
         try {
+            return new XMLSlideShow(OPCPackage.open(file, PackageAccess.READ));
+        } catch (InvalidFormatException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static HSLFSlideShow openPPT(File file) throws IOException {
+        return new HSLFSlideShow(new POIFSFileSystem(file, true));
+    }
 
-            pdfDocument = PDDocument.load(tikaInputStream);
+    /**
+     * Hands the source opened on the request thread (to count pages) to the first
+     * worker, and opens a fresh one for every other worker.
+     */
+    private static PageRenderingPipeline.PageSourceFactory sharingFirst(
+            PageRenderingPipeline.PageSource first, PageRenderingPipeline.PageSourceFactory factory) {
+        AtomicReference<PageRenderingPipeline.PageSource> firstRef = new AtomicReference<>(first);
+        return () -> {
+            PageRenderingPipeline.PageSource source = firstRef.getAndSet(null);
+            return source != null ? source : factory.open();
+        };
+    }
+
+    private static String report(String message, List<PageRenderingPipeline.PageResult> results) {
+        StringBuilder sb = new StringBuilder(message);
+        boolean failed = false;
+        for (PageRenderingPipeline.PageResult result : results) {
+            sb.append('\n').append(result);
+            failed |= !result.isSuccess();
+        }
+        if (failed) {
+            LOG.warn("page conversion failed: {}", sb);
+            throw new WebApplicationException(Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(sb.toString()).type("text/plain").build());
+        }
+        return sb.toString();
+    }
 
-            PDPageTree pages = pdfDocument.getPages();
-            int totalPagesCount = pages.getCount();
+    private class SlideSource implements PageRenderingPipeline.PageSource {
+        private final SlideShow<?, ?> slideShow;
+        private final List<? extends Slide<?, ?>> slides;
+        private final int widthPx;
+        private final int heightPx;
+
+        SlideSource(SlideShow<?, ?> slideShow) {
+            this.slideShow = slideShow;
+            this.slides = slideShow.getSlides();
+            // get the dimension and size of the slide
+            Dimension pgsize = slideShow.getPageSize();
+            this.widthPx = (int) Math.max(Math.floor(pgsize.width * DPI_SCALE), 1);
+            this.heightPx = (int) Math.max(Math.floor(pgsize.height * DPI_SCALE), 1);
+        }
 
-            PDFRenderer renderer = new PDFRenderer(pdfDocument);
-            PDFParserConfig config = new PDFParserConfig();
+        int getPageCount() {
+            return slides.size();
+        }
 
-            for (int pageIndex = 0; pageIndex < totalPagesCount; pageIndex++) {
-                PDPage page = pages.get(pageIndex);
-                int dpi = config.getOcrDPI();
+        @Override
+        public long estimateImageBytes(int pageIndex) {
+            // TYPE_INT_RGB
+            return 4L * widthPx * heightPx;
+        }
 
-                BufferedImage image = renderer.renderImageWithDPI(pageIndex, dpi, ImageType.RGB);
+        @Override
+        public BufferedImage render(int pageIndex) {
+            BufferedImage img = new BufferedImage(widthPx, heightPx, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = img.createGraphics();
+            try {
+                graphics.setBackground(Color.WHITE);
+                graphics.clearRect(0, 0, img.getWidth(), img.getHeight());
+                graphics.scale(DPI_SCALE, DPI_SCALE);
+                graphics.addRenderingHints(createDefaultRenderingHints(graphics));
+
+                // draw the images
+                slides.get(pageIndex).draw(graphics);
+            } finally {
+                graphics.dispose();
+            }
+            return img;
+        }
 
-                String extension = config.getOcrImageFormatName();
-                int imageNumber = 99999;
+        @Override
+        public void close() throws IOException {
+            slideShow.close();
+        }
+    }
 
-                String fileName = config.getImageFilename(pageIndex + 1, imageNumber, extension);
+    private static class PDFPageSource implements PageRenderingPipeline.PageSource {
+        private final PDDocument pdfDocument;
+        private final PDFRenderer renderer;
+        private final int dpi;
 
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                ImageIOUtil.writeImage(image, config.getOcrImageFormatName(), out, dpi);
+        PDFPageSource(PDDocument pdfDocument, int dpi) {
+            this.pdfDocument = pdfDocument;
+            this.renderer = new PDFRenderer(pdfDocument);
+            this.dpi = dpi;
+        }
 
-                byte[] data = out.toByteArray();
+        int getPageCount() {
+            return pdfDocument.getNumberOfPages();
+        }
 
-                this.UploadImage(containerClient,containerDirectory,fileName,data,blobMetadata);
+        @Override
+        public long estimateImageBytes(int pageIndex) {
+            PDRectangle cropBox = pdfDocument.getPage(pageIndex).getCropBox();
+            float scale = dpi / 72f;
+            // ImageType.RGB is backed by TYPE_INT_RGB
+            return 4L * (long) Math.max(1, Math.ceil(cropBox.getWidth() * scale)) *
+                    (long) Math.max(1, Math.ceil(cropBox.getHeight() * scale));
+        }
 
-                out.close();
-            }
-        } finally {
-            if (pdfDocument != null) {
-                pdfDocument.close();
-            }
+        @Override
+        public BufferedImage render(int pageIndex) throws IOException {
+            return renderer.renderImageWithDPI(pageIndex, dpi, ImageType.RGB);
         }
 
-        return ("PDF successfully converted");
+        @Override
+        public void close() throws IOException {
+            pdfDocument.close();
+        }
     }
 
     // Utilities methods
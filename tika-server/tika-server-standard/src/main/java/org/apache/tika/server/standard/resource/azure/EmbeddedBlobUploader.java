@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.server.standard.resource.azure;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.ParallelTransferOptions;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import com.azure.storage.blob.options.BlockBlobOutputStreamOptions;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+
+import org.apache.tika.extractor.EmbeddedImageRegistry;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Uploads embedded resources to Azure Blob storage without holding whole
+ * documents on the heap.
+ * <p>
+ * Each resource is written into a {@link Spool} which keeps small resources in
+ * memory and spills larger ones to a file managed by the request's
+ * {@link TemporaryResources}. Spooled resources are then uploaded on a bounded
+ * executor so that parsing continues while previous resources upload; when the
+ * queue is full the parsing thread performs the upload itself. Files are uploaded
+ * through a {@link com.azure.storage.blob.specialized.BlobOutputStream} which
+ * stages blocks of {@link #BLOCK_SIZE}.
+ * <p>
+ * The bytes held in memory across all pending uploads are capped; once the cap
+ * is reached new resources are spooled straight to disk.
+ */
+class EmbeddedBlobUploader implements Closeable {
+
+    public static final String UPLOAD_COUNT = "X-TIKA-AZURE:uploadCount";
+    public static final String UPLOADED_BYTES = "X-TIKA-AZURE:uploadedBytes";
+    public static final String SPOOLED_TO_DISK_BYTES = "X-TIKA-AZURE:spooledToDiskBytes";
+    public static final String PEAK_BUFFERED_BYTES = "X-TIKA-AZURE:peakBufferedBytes";
+    public static final String DUPLICATE_COUNT = "X-TIKA-AZURE:duplicateCount";
+
+    static final long BLOCK_SIZE = 10L * 1024L * 1024L; // 10 MB
+
+    private final ParallelTransferOptions parallelTransferOptions =
+            new ParallelTransferOptions().setBlockSizeLong(BLOCK_SIZE).setMaxConcurrency(5);
+
+    private final TemporaryResources tmp = new TemporaryResources();
+    private final ThreadPoolExecutor executor;
+    private final List<Future<?>> uploads = new ArrayList<>();
+    private final long maxBufferedBytes;
+
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final AtomicLong peakBufferedBytes = new AtomicLong();
+    private final AtomicLong spooledToDiskBytes = new AtomicLong();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicInteger uploadCount = new AtomicInteger();
+    private final AtomicInteger duplicateCount = new AtomicInteger();
+
+    /**
+     * @param concurrency      number of uploads running at the same time
+     * @param maxBufferedBytes cap on the resource bytes held in memory for this request
+     */
+    EmbeddedBlobUploader(int concurrency, long maxBufferedBytes) {
+        this.maxBufferedBytes = maxBufferedBytes;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(concurrency * 2), r -> {
+                    Thread t = new Thread(r, "azure-unpack-upload-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * @return a new spool whose in-memory part fits in what is left of the memory budget
+     */
+    Spool newSpool() {
+        long available = Math.max(0, maxBufferedBytes - bufferedBytes.get());
+        return new Spool((int) Math.min(BLOCK_SIZE, available));
+    }
+
+    Spool spool(InputStream inputStream) throws IOException {
+        Spool spool = newSpool();
+        try (OutputStream out = spool.getOutputStream()) {
+            IOUtils.copy(inputStream, out);
+        }
+        return spool;
+    }
+
+    Spool spool(byte[] data) {
+        return new Spool(data);
+    }
+
+    /**
+     * @param file a file that was written for this request, counted as spooled to disk
+     */
+    Spool spool(File file) {
+        long length = file.length();
+        spooledToDiskBytes.addAndGet(length);
+        return new Spool(file, length);
+    }
+
+    /**
+     * Creates a temporary file whose lifetime is tied to this uploader.
+     */
+    File createTemporaryFile() throws IOException {
+        return tmp.createTemporaryFile();
+    }
+
+    /**
+     * Queues the spool for upload. The spool must not be written to afterwards.
+     */
+    void submit(BlobClient blobClient, String contentType, Map<String, String> blobMetadata,
+                Spool spool) throws IOException {
+        spool.seal();
+        BlobHttpHeaders headers = new BlobHttpHeaders().setContentType(contentType);
+        uploads.add(executor.submit(() -> {
+            try {
+                upload(blobClient, headers, blobMetadata, spool);
+            } finally {
+                spool.release();
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Drops a spool that isn't uploaded because the same bytes were uploaded before.
+     */
+    void skipDuplicate(Spool spool) throws IOException {
+        spool.seal();
+        spool.release();
+        duplicateCount.incrementAndGet();
+    }
+
+    /**
+     * @return the {@link EmbeddedImageRegistry} key of the spooled bytes
+     * within the given scope
+     */
+    String getKey(Spool spool, String scope) throws IOException {
+        spool.seal();
+        MessageDigest digest = EmbeddedImageRegistry.newDigest();
+        digest.update(scope.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        if (spool.isInMemory()) {
+            digest.update(spool.getData());
+        } else {
+            try (InputStream in = Files.newInputStream(spool.getFile().toPath())) {
+                EmbeddedImageRegistry.update(digest, in);
+            }
+        }
+        return EmbeddedImageRegistry.getKey(digest);
+    }
+
+    private void upload(BlobClient blobClient, BlobHttpHeaders headers,
+                        Map<String, String> blobMetadata, Spool spool) throws IOException {
+        if (spool.isInMemory()) {
+            BlobParallelUploadOptions options =
+                    new BlobParallelUploadOptions(new ByteArrayInputStream(spool.getData()));
+            options.setParallelTransferOptions(parallelTransferOptions);
+            options.setHeaders(headers);
+            options.setMetadata(blobMetadata);
+            blobClient.uploadWithResponse(options, null, null);
+        } else {
+            BlockBlobOutputStreamOptions options = new BlockBlobOutputStreamOptions()
+                    .setParallelTransferOptions(parallelTransferOptions)
+                    .setHeaders(headers)
+                    .setMetadata(blobMetadata);
+            try (InputStream in = Files.newInputStream(spool.getFile().toPath());
+                    OutputStream out = blobClient.getBlockBlobClient().getBlobOutputStream(options)) {
+                IOUtils.copy(in, out);
+            }
+        }
+        uploadedBytes.addAndGet(spool.getLength());
+        uploadCount.incrementAndGet();
+    }
+
+    /**
+     * Waits for every submitted upload.
+     *
+     * @throws IOException wrapping the first upload failure
+     */
+    void awaitCompletion() throws IOException, InterruptedException {
+        IOException failure = null;
+        for (Future<?> upload : uploads) {
+            try {
+                upload.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = new IOException("embedded resource upload failed", e.getCause());
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            }
+        }
+        uploads.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Records this request's upload and memory statistics.
+     */
+    void addStatistics(Metadata metadata) {
+        metadata.set(UPLOAD_COUNT, Integer.toString(uploadCount.get()));
+        metadata.set(UPLOADED_BYTES, Long.toString(uploadedBytes.get()));
+        metadata.set(SPOOLED_TO_DISK_BYTES, Long.toString(spooledToDiskBytes.get()));
+        metadata.set(PEAK_BUFFERED_BYTES, Long.toString(peakBufferedBytes.get()));
+        metadata.set(DUPLICATE_COUNT, Integer.toString(duplicateCount.get()));
+    }
+
+    /**
+     * Cancels pending uploads and deletes every spooled file.
+     */
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tmp.close();
+    }
+
+    /**
+     * The bytes of one embedded resource, either in memory or in a temporary file.
+     */
+    class Spool {
+        private DeferredFileOutputStream out;
+        private byte[] data;
+        private File file;
+        private long length;
+        private long accounted;
+
+        private Spool(int threshold) {
+            // the file is only created once the threshold is exceeded
+            this.out = new DeferredFileOutputStream(threshold, "tika-azure-", ".tmp", null);
+            // registered now so that the file goes away even if the copy fails before seal()
+            tmp.addResource(this::deleteFile);
+        }
+
+        private Spool(byte[] data) {
+            this.data = data;
+            this.length = data.length;
+        }
+
+        private Spool(File file, long length) {
+            this.file = file;
+            this.length = length;
+        }
+
+        OutputStream getOutputStream() {
+            if (out == null) {
+                throw new IllegalStateException("spool is read only");
+            }
+            return out;
+        }
+
+        long getLength() throws IOException {
+            seal();
+            return length;
+        }
+
+        boolean isInMemory() {
+            return data != null;
+        }
+
+        byte[] getData() {
+            return data;
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        private void seal() throws IOException {
+            if (out == null) {
+                if (accounted == 0 && data != null) {
+                    account(data.length);
+                }
+                return;
+            }
+            out.close();
+            length = out.getByteCount();
+            if (out.isInMemory()) {
+                data = out.getData();
+                account(data.length);
+            } else {
+                file = out.getFile();
+                spooledToDiskBytes.addAndGet(length);
+            }
+            out = null;
+        }
+
+        private void deleteFile() throws IOException {
+            if (out != null) {
+                out.close();
+                file = out.getFile();
+            }
+            if (file != null) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+
+        private void account(long bytes) {
+            accounted = bytes;
+            long now = bufferedBytes.addAndGet(bytes);
+            peakBufferedBytes.accumulateAndGet(now, Math::max);
+        }
+
+        private void release() {
+            bufferedBytes.addAndGet(-accounted);
+            accounted = 0;
+            data = null;
+        }
+    }
+}
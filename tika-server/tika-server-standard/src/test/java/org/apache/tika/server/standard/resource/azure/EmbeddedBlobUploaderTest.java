@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.standard.resource.azure;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.metadata.Metadata;
+
+public class EmbeddedBlobUploaderTest {
+
+    private static final byte[] IMAGE = "not really a png".getBytes(UTF_8);
+
+    @Test
+    public void testKeyIgnoresWhereTheBytesAreSpooled() throws Exception {
+        try (EmbeddedBlobUploader inMemory = new EmbeddedBlobUploader(1, 1024 * 1024);
+                EmbeddedBlobUploader onDisk = new EmbeddedBlobUploader(1, 0)) {
+            EmbeddedBlobUploader.Spool memorySpool =
+                    inMemory.spool(new ByteArrayInputStream(IMAGE));
+            EmbeddedBlobUploader.Spool diskSpool = onDisk.spool(new ByteArrayInputStream(IMAGE));
+            String key = inMemory.getKey(memorySpool, "container");
+            assertTrue(memorySpool.isInMemory());
+            assertEquals(key, onDisk.getKey(diskSpool, "container"));
+            assertFalse(diskSpool.isInMemory());
+            // the same image in another container is uploaded again
+            assertNotEquals(key, inMemory.getKey(memorySpool, "other-container"));
+        }
+    }
+
+    @Test
+    public void testUnsealedSpoolIsDeleted() throws Exception {
+        File file;
+        try (EmbeddedBlobUploader uploader = new EmbeddedBlobUploader(1, 0)) {
+            EmbeddedBlobUploader.Spool spool = uploader.newSpool();
+            // as if the copy into the spool failed half way
+            DeferredFileOutputStream out = (DeferredFileOutputStream) spool.getOutputStream();
+            out.write(IMAGE);
+            file = out.getFile();
+            assertTrue(file.isFile());
+        }
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testSkipDuplicate() throws Exception {
+        try (EmbeddedBlobUploader uploader = new EmbeddedBlobUploader(1, 1024 * 1024)) {
+            EmbeddedBlobUploader.Spool spool = uploader.spool(new ByteArrayInputStream(IMAGE));
+            uploader.getKey(spool, "container");
+            uploader.skipDuplicate(spool);
+
+            Metadata metadata = new Metadata();
+            uploader.addStatistics(metadata);
+            assertEquals("1", metadata.get(EmbeddedBlobUploader.DUPLICATE_COUNT));
+            assertEquals("0", metadata.get(EmbeddedBlobUploader.UPLOAD_COUNT));
+            assertEquals(Integer.toString(IMAGE.length),
+                    metadata.get(EmbeddedBlobUploader.PEAK_BUFFERED_BYTES));
+        }
+    }
+
+    @Test
+    public void testSpooledFileIsCounted() throws Exception {
+        try (EmbeddedBlobUploader uploader = new EmbeddedBlobUploader(1, 1024 * 1024)) {
+            // as the OLE objects are spooled
+            File file = uploader.createTemporaryFile();
+            Files.write(file.toPath(), IMAGE);
+            EmbeddedBlobUploader.Spool spool = uploader.spool(file);
+            assertEquals(IMAGE.length, spool.getLength());
+
+            Metadata metadata = new Metadata();
+            uploader.addStatistics(metadata);
+            assertEquals(Integer.toString(IMAGE.length),
+                    metadata.get(EmbeddedBlobUploader.SPOOLED_TO_DISK_BYTES));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.standard.resource.azure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class PageRenderingPipelineTest {
+
+    private static final int PAGE_COUNT = 20;
+
+    private final Set<String> uploaded = ConcurrentHashMap.newKeySet();
+
+    @Test
+    @Timeout(60)
+    public void testOtherWorkersTakeOverFromAFailedOne() throws Exception {
+        AtomicInteger opened = new AtomicInteger();
+        PageRenderingPipeline.PageSourceFactory sources = () -> {
+            if (opened.incrementAndGet() == 1) {
+                throw new IOException("can't open the document");
+            }
+            return new Pages();
+        };
+        List<PageRenderingPipeline.PageResult> results = run(sources);
+
+        assertEquals(3, opened.get());
+        assertEquals(PAGE_COUNT, results.size());
+        for (int i = 0; i < PAGE_COUNT; i++) {
+            PageRenderingPipeline.PageResult result = results.get(i);
+            assertEquals(i + 1, result.getPageNumber());
+            assertTrue(result.isSuccess(), result.toString());
+        }
+        assertEquals(PAGE_COUNT, uploaded.size());
+    }
+
+    @Test
+    @Timeout(60)
+    public void testEveryWorkerFails() throws Exception {
+        IOException failure = new IOException("can't open the document");
+        List<PageRenderingPipeline.PageResult> results = run(() -> {
+            throw failure;
+        });
+
+        assertEquals(PAGE_COUNT, results.size());
+        for (PageRenderingPipeline.PageResult result : results) {
+            assertFalse(result.isSuccess());
+            assertSame(failure, result.getError());
+        }
+        assertTrue(uploaded.isEmpty());
+    }
+
+    private List<PageRenderingPipeline.PageResult> run(
+            PageRenderingPipeline.PageSourceFactory sources) throws Exception {
+        PageRenderingPipeline pipeline = new PageRenderingPipeline(3, 0, "png", 72);
+        return pipeline.run(PAGE_COUNT, sources, pageIndex -> "page-" + pageIndex + ".png",
+                (imageName, data) -> uploaded.add(imageName));
+    }
+
+    private static class Pages implements PageRenderingPipeline.PageSource {
+
+        @Override
+        public long estimateImageBytes(int pageIndex) {
+            return 4;
+        }
+
+        @Override
+        public BufferedImage render(int pageIndex) {
+            return new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}